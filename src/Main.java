@@ -1,12 +1,21 @@
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.nio.file.Paths;
 
 import ast.Environment;
+import ast.FlatTree;
+import ast.MemoTable;
+import ast.ProcedureDeclaration;
 import ast.Program;
 import emitter.Emitter;
+import ir.BytecodeGenerator;
+import ir.IrBuilder;
+import ir.IrProgram;
+import ir.MipsGenerator;
+import optimizer.Optimizer;
+import parser.FlatParser;
 import parser.Parser;
 import scanner.Scanner;
+import vm.Assembler;
+import vm.VirtualMachine;
 
 /**
  * Main class used for testing the compiler.
@@ -21,25 +30,117 @@ public class Main
     public static final String INPUT_DIR = "testFiles/";
 
     /**
-     * Main method for running the scanner and parser on a given input file.
-     * @param args specifies the arguments for the program
+     * Main method for running the scanner and parser on a given input file, optimizing the
+     * program, executing it and compiling it to assembly code.
+     * Usage: java Main [ast | jit | memo | closure | vm | ir | flat] [input file in the testing
+     * directory] [-stats]
+     * @param args specifies whether the program is executed by the AST interpreter, by the AST
+     *             interpreter compiling hot code to JVM code, by the AST interpreter memoizing
+     *             calls of pure procedures, by closures compiled from the AST, by the virtual
+     *             machine, by the virtual machine running bytecode generated from the SSA
+     *             intermediate representation, which is also compiled to assembly code, or by
+     *             the interpreter of a flat tree parsed straight from the input file, which is
+     *             not optimized (defaults to ast), followed by the name of the input file and
+     *             optionally by -stats, which reports what the optimizer did, including the
+     *             statements and instructions removed as dead code, and the instructions emitted
      * @throws Exception if an error occurs while scanning or parsing the input file
      */
     public static void main(String[] args) throws Exception 
     {
-        String inputName = "parserTest9.txt";
+        String mode = args.length > 0 ? args[0] : "ast";
+        String inputName = args.length > 1 ? args[1] : "parserTest9.txt";
         String outputName = "out.asm";
+        boolean statistics = args.length > 2 && args[2].equals("-stats");
 
-        InputStream inStream = new FileInputStream(new File(INPUT_DIR + inputName));
-        Scanner scanner = new Scanner(inStream);
+        Scanner scanner = new Scanner(Paths.get(INPUT_DIR + inputName));
+        if (mode.equals("flat"))
+        {
+            FlatTree tree = new FlatParser(scanner).parseProgram();
+            tree.exec(new Environment());
+            Emitter e = new Emitter(outputName);
+            tree.compile(e);
+            if (statistics)
+            {
+                System.err.println("Emitted " + e.getInstructionCount() + " instructions");
+            }
+            return;
+        }
         Parser parser = new Parser(scanner);
         Program program = parser.parseProgram();
 
+        // simplify the program before any tier runs it
+        Optimizer optimizer = new Optimizer();
+        optimizer.setStatistics(statistics);
+        program = optimizer.optimize(program);
+        if (statistics)
+        {
+            System.err.println("Optimizer inlined " + optimizer.getInlined()
+                + " calls, eliminated " + optimizer.getEliminated() + " nodes, hoisted "
+                + optimizer.getHoisted() + " loop-invariant expressions and reused "
+                + optimizer.getReused() + " common subexpressions");
+            System.err.println("Dead code elimination removed " + optimizer.getRemoved()
+                + " statements and " + optimizer.getRemovedInstructions() + " instructions");
+        }
+
         // execute program in Java
-        program.exec(new Environment());
+        if (mode.equals("ast"))
+        {
+            program.exec(new Environment());
+        }
+        else if (mode.equals("jit"))
+        {
+            Environment env = new Environment();
+            env.setJitEnabled(true);
+            program.exec(env);
+        }
+        else if (mode.equals("memo"))
+        {
+            Environment env = new Environment();
+            env.setMemoCapacity(MemoTable.DEFAULT_CAPACITY);
+            program.exec(env);
+            for (ProcedureDeclaration pd : program.getProcedures())
+            {
+                if (pd.getMemoTable() != null)
+                {
+                    System.err.println("memo " + pd.getName() + ": " + pd.getMemoTable());
+                }
+            }
+        }
+        else if (mode.equals("closure"))
+        {
+            program.closure().exec(new Environment());
+        }
+        else if (mode.equals("vm"))
+        {
+            Assembler a = new Assembler();
+            program.assemble(a);
+            new VirtualMachine(a.finish()).run();
+        }
+        else if (mode.equals("ir"))
+        {
+            IrBuilder b = new IrBuilder();
+            program.lower(b);
+            IrProgram ir = b.finish();
+            new VirtualMachine(BytecodeGenerator.generate(ir)).run();
+            Emitter e = new Emitter(outputName);
+            MipsGenerator.generate(ir, e);
+            if (statistics)
+            {
+                System.err.println("Emitted " + e.getInstructionCount() + " instructions");
+            }
+            return;
+        }
+        else
+        {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
 
         // emit compiled assembly code
         Emitter e = new Emitter(outputName);
         program.compile(e);
+        if (statistics)
+        {
+            System.err.println("Emitted " + e.getInstructionCount() + " instructions");
+        }
     }
 }
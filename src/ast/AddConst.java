@@ -0,0 +1,37 @@
+package ast;
+
+/**
+ * Class representing an addition or subtraction in the AST whose right side is a number,
+ * specialized from BinOp so that its eval adds a constant to the left side directly.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class AddConst extends BinOp
+{
+    private int value;
+
+    /**
+     * Creates an addition or subtraction object with the expression on the left side of the
+     * operator and the number on the right side of the operator.
+     * @param op the operator, either "+" or "-"
+     * @param exp1 the expression on the left side of the operator
+     * @param exp2 the number on the right side of the operator
+     */
+    public AddConst(String op, Expression exp1, Number exp2)
+    {
+        super(op, exp1, exp2);
+        // x - k wraps to the same int as x + (-k), even for the smallest int
+        value = op.equals("-") ? -exp2.getValue() : exp2.getValue();
+    }
+
+    /**
+     * Evaluates the operation.
+     * @param env specifies the environment in which the operation is evaluated
+     * @return returns the result of the operation
+     * @throws Exception if an error occurs while evaluating the left side
+     */
+    public int eval(Environment env) throws Exception
+    {
+        return exp1.eval(env) + value;
+    }
+}
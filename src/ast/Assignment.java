@@ -1,6 +1,16 @@
 package ast;
 
+import java.util.ArrayList;
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.IrBuilder;
+import jvm.CannotCompileException;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
 /**
  * Assignment specifies a statement representing an assignment of a value to a variable.
  * Contains method exec, which executes the assignment statement.
@@ -12,6 +22,9 @@ public class Assignment extends Statement
 {
     private String var;
     private Expression exp;
+    private int depth;
+    private int slot;
+    private ProcedureDeclaration tailCall;
 
     /**
      * Creates an assigment object with the variable name var on the left hand side
@@ -23,27 +36,262 @@ public class Assignment extends Statement
     {
         this.var = var;
         this.exp = exp;
+        depth = -1;
     }
 
     /**
-     * Executes the assignment statement.
+     * Executes the assignment statement, storing directly into the variable's slot if the
+     * variable has been resolved. A tail call reuses the procedure's frame instead.
      * @param env the environment in which the assignment statement is executed
      * @throws Exception if the assignment statement is invalid
      */
     public void exec(Environment env) throws Exception 
     {
-        env.setVariable(var, exp.eval(env));
+        if (tailCall != null && ((ProcedureCall) exp).reuseFrame(env, tailCall))
+        {
+            return;
+        }
+        if (depth < 0)
+        {
+            env.setVariable(var, exp.eval(env));
+        }
+        else
+        {
+            env.setVariable(depth, slot, exp.eval(env));
+        }
     }
 
     /**
-     * Compiles the assignment into assembly code and emits the assembly code to an output file.
+     * Compiles the assignment into assembly code and emits the assembly code to an output file,
+     * storing into the frame of the procedure being compiled if the variable is declared in it.
+     * A tail call is compiled to a jump to the start of the procedure.
      * @param e the emitter which emits the assembly code to the output file
      */
     public void compile(Emitter e)
     {
+        if (tailCall != null)
+        {
+            ((ProcedureCall) exp).compileTailCall(e, tailCall);
+            return;
+        }
         e.emit("# evaluate expression and store in the variable " + var);
         exp.compile(e);
-        e.emit("la $t0, " + var);
-        e.emit("sw $v0, ($t0)");
+        if (e.isInProcedure() && depth == 0)
+        {
+            e.emit("sw $v0, " + 4 * slot + "($fp)");
+        }
+        else
+        {
+            e.emit("la $t0, " + var);
+            e.emit("sw $v0, ($t0)");
+        }
+    }
+
+    /**
+     * Assembles the assignment into bytecode for the virtual machine, where a tail call jumps
+     * to the start of the procedure.
+     * @param a the assembler which collects the bytecode
+     * @throws CannotCompileException if the variable has not been resolved to a declaration
+     */
+    public void assemble(Assembler a)
+    {
+        if (depth < 0)
+        {
+            throw new CannotCompileException("Variable " + var + " not declared.");
+        }
+        if (tailCall != null)
+        {
+            ((ProcedureCall) exp).assembleTailCall(a, tailCall);
+            return;
+        }
+        exp.assemble(a);
+        a.emitStore(depth, slot);
+    }
+
+    /**
+     * Lowers the assignment into an instruction writing the variable, where a tail call starts
+     * the procedure's body again.
+     * @param b the builder which collects the instructions
+     * @throws RuntimeException if the variable has not been resolved to a declaration
+     */
+    public void lower(IrBuilder b)
+    {
+        if (depth < 0)
+        {
+            throw new RuntimeException("Variable " + var + " not declared.");
+        }
+        if (tailCall != null)
+        {
+            ((ProcedureCall) exp).lowerTailCall(b);
+            return;
+        }
+        b.store(depth, slot, exp.lower(b));
+    }
+
+    /**
+     * Adds the assignment to the given flat tree.
+     * @param tree the flat tree to add the assignment to
+     * @return returns the index of the assignment's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        return tree.addNode(FlatTree.ASSIGNMENT, 0, tree.name(var), exp.flatten(tree));
+    }
+
+    /**
+     * Resolves the assigned variable to the depth and slot at which it is declared, along with
+     * every variable in the expression.
+     * @param scope specifies the scope in which the assignment appears
+     */
+    public void resolve(Scope scope)
+    {
+        depth = scope.depthOf(var);
+        slot = scope.slotOf(var);
+        tailCall = null;
+        exp.resolve(scope);
+    }
+
+    /**
+     * Checks whether the assignment writes a variable in the procedure's own frame and its
+     * expression is pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the assignment is pure; false otherwise
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return depth == 0 && exp.isPure(pure);
+    }
+
+    /**
+     * Folds the assigned expression.
+     * @return returns the assignment of the folded expression
+     */
+    public Statement fold()
+    {
+        return new Assignment(var, exp.fold());
+    }
+
+
+    /**
+     * Adds the assigned variable and the procedures called by the expression.
+     * @param variables specifies the set of variable names
+     * @param procedures specifies the set of procedure names
+     */
+    public void findWrites(Set<String> variables, Set<String> procedures)
+    {
+        variables.add(var);
+        exp.findCalls(procedures);
+    }
+
+    /**
+     * Moves the parts of the assigned expression which can move out of a loop.
+     * @param licm specifies the pass
+     * @return returns the assignment of the expression with the parts replaced
+     */
+    public Statement hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        return new Assignment(var, exp.hoistInvariants(licm));
+    }
+
+
+    /**
+     * Replaces the operations of the assigned expression whose value is available by
+     * temporaries. No operation reading the variable is available after the assignment.
+     * @param gvn specifies the pass
+     * @return returns the assignment of the expression with the operations replaced
+     */
+    public Statement numberValues(GlobalValueNumbering gvn)
+    {
+        gvn.beginStatement();
+        Expression numbered = exp.numberValues(gvn);
+        gvn.assign(var);
+        return gvn.endStatement(new Assignment(var, numbered));
+    }
+
+    /**
+     * Removes the assignment if the variable is not live after it and the expression has no
+     * effects. Otherwise the variable is not live before the assignment, but the variables
+     * which the expression reads are.
+     * @param dce specifies the pass
+     * @return returns the assignment, or an empty block if it is removed
+     */
+    public Statement eliminateDeadCode(DeadCodeElimination dce)
+    {
+        if (dce.isDead(var) && !exp.hasEffects())
+        {
+            dce.remove();
+            return new Block(new ArrayList<Statement>());
+        }
+        dce.assign(var);
+        dce.read(exp);
+        return this;
+    }
+
+    /**
+     * Adds the variables read by the assigned expression.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        exp.findReads(variables);
+    }
+
+    /**
+     * Inlines the calls of the assigned expression before the assignment.
+     * @param inl specifies the pass
+     * @return returns the assignment of the expression with the calls inlined, after the
+     *         inlined procedures
+     */
+    public Statement inlineCalls(Inliner inl)
+    {
+        inl.beginStatement();
+        Expression inlined = exp.inlineCalls(inl);
+        return inl.endStatement(new Assignment(inl.rename(var), inlined));
+    }
+
+    /**
+     * Marks the assignment as a tail call if it assigns the procedure's return value a call of
+     * the procedure itself which can reuse the procedure's frame.
+     * @param proc specifies the procedure whose body contains the assignment
+     */
+    public void markTailCalls(ProcedureDeclaration proc)
+    {
+        if (depth == 0 && slot == proc.getReturnSlot() && exp instanceof ProcedureCall
+            && ((ProcedureCall) exp).canReuseFrame(proc))
+        {
+            tailCall = proc;
+        }
+    }
+
+    /**
+     * Compiles the assignment into a closure writing its slot, which indexes the environment's
+     * slots directly when the variable is declared in the environment itself, or into a
+     * closure reusing the procedure's frame for a tail call.
+     * @return returns the closure executing the assignment
+     */
+    public StatementClosure closure()
+    {
+        String var = this.var;
+        int depth = this.depth;
+        int slot = this.slot;
+        ExpressionClosure value = exp.closure();
+        StatementClosure store;
+        if (depth < 0)
+        {
+            store = env -> env.setVariable(var, value.eval(env));
+        }
+        else if (depth == 0)
+        {
+            store = env -> env.getSlots()[slot] = value.eval(env);
+        }
+        else
+        {
+            store = env -> env.setVariable(depth, slot, value.eval(env));
+        }
+        if (tailCall != null)
+        {
+            return ((ProcedureCall) exp).reuseFrameClosure(tailCall, store);
+        }
+        return store;
     }
 }
@@ -1,6 +1,15 @@
 package ast;
 
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.Instruction;
+import ir.IrBuilder;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
 
 /**
  * Class that reperesents a binary operation within an expression. Stores the expression
@@ -12,9 +21,9 @@ import emitter.Emitter;
  */
 public class BinOp extends Expression
 {
-    private String op;
-    private Expression exp1;
-    private Expression exp2;
+    protected String op;
+    protected Expression exp1;
+    protected Expression exp2;
 
     /**
      * Creates a binary operation object with the operator op, the expression on the left
@@ -30,6 +39,37 @@ public class BinOp extends Expression
         this.exp2 = exp2;
     }
 
+    /**
+     * Creates the binary operation specialized for the operator, and for a number on the right
+     * side of the operator, so that its eval is a single operation.
+     * @param op the operator
+     * @param exp1 the expression on the left side of the operator
+     * @param exp2 the expression on the right side of the operator
+     * @return returns the specialized binary operation, or a generic one if the operator is
+     *         unknown
+     */
+    public static BinOp create(String op, Expression exp1, Expression exp2)
+    {
+        if (exp2 instanceof Number)
+        {
+            if (op.equals("+") || op.equals("-"))
+                return new AddConst(op, exp1, (Number) exp2);
+            else if (op.equals("*"))
+                return new MulConst(exp1, (Number) exp2);
+        }
+
+        if (op.equals("+"))
+            return new Add(exp1, exp2);
+        else if (op.equals("-"))
+            return new Sub(exp1, exp2);
+        else if (op.equals("*"))
+            return new Mul(exp1, exp2);
+        else if (op.equals("/"))
+            return new Div(exp1, exp2);
+        else
+            return new BinOp(op, exp1, exp2);
+    }
+
     /**
      * Evaluates the operation.
      * @param env specifies the environment in which the operation is evaluated
@@ -80,4 +120,346 @@ public class BinOp extends Expression
             e.emit("mflo $v0");
         }
     }
+
+    /**
+     * Assembles the operation into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     * @throws RuntimeException if the operator is unknown
+     */
+    public void assemble(Assembler a)
+    {
+        exp1.assemble(a);
+        exp2.assemble(a);
+        if (op.equals("+"))
+            a.emit(Bytecode.ADD);
+        else if (op.equals("-"))
+            a.emit(Bytecode.SUB);
+        else if (op.equals("*"))
+            a.emit(Bytecode.MUL);
+        else if (op.equals("/"))
+            a.emit(Bytecode.DIV);
+        else
+            throw new RuntimeException("Unknown operator: " + op);
+    }
+
+    /**
+     * Lowers the operation into the intermediate representation, left side first.
+     * @param b the builder which collects the instructions
+     * @return returns the instruction computing the operation
+     */
+    public Instruction lower(IrBuilder b)
+    {
+        Instruction left = exp1.lower(b);
+        return b.binary(op, left, exp2.lower(b));
+    }
+
+    /**
+     * Adds the binary operation to the given flat tree.
+     * @param tree the flat tree to add the binary operation to
+     * @return returns the index of the binary operation's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        int left = exp1.flatten(tree);
+        int right = exp2.flatten(tree);
+        return tree.addNode(FlatTree.BINOP, tree.operator(op), left, right);
+    }
+
+    /**
+     * Resolves every variable referenced by the binary operation to its lexical address.
+     * @param scope specifies the scope in which the binary operation appears
+     */
+    public void resolve(Scope scope)
+    {
+        exp1.resolve(scope);
+        exp2.resolve(scope);
+    }
+
+    /**
+     * Checks whether both operands of the binary operation are pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the binary operation is pure; false otherwise
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return exp1.isPure(pure) && exp2.isPure(pure);
+    }
+
+    /**
+     * Checks whether the binary operation is a division, which fails for a divisor of 0, or
+     * either operand may have effects.
+     * @return returns true if the binary operation may have effects; false otherwise
+     */
+    public boolean hasEffects()
+    {
+        return op.equals("/") || exp1.hasEffects() || exp2.hasEffects();
+    }
+
+    /**
+     * Folds both operands and then the operation itself. An operation on two numbers becomes a
+     * number, unless it divides by 0, and adding 0, multiplying or dividing by 1 and multiplying
+     * by 0 an operand without effects are simplified away. A number on the left of an addition
+     * or multiplication moves to the right, and the numbers of nested additions or
+     * multiplications are combined, so that the specialized operations on constants apply.
+     * @return returns the simplified operation
+     */
+    public Expression fold()
+    {
+        Expression left = exp1.fold();
+        Expression right = exp2.fold();
+
+        if (left instanceof Number && right instanceof Number)
+        {
+            int val1 = ((Number) left).getValue();
+            int val2 = ((Number) right).getValue();
+            if (!op.equals("/") || val2 != 0)
+            {
+                return new Number(apply(op, val1, val2));
+            }
+            return BinOp.create(op, left, right);
+        }
+
+        if (left instanceof Number)
+        {
+            int value = ((Number) left).getValue();
+            if (op.equals("-"))
+            {
+                return value == 0 ? Negate.negate(right) : BinOp.create(op, left, right);
+            }
+            if (op.equals("+") || op.equals("*"))
+            {
+                // the number has no effects, so the operands may be evaluated in either order
+                Expression swapped = left;
+                left = right;
+                right = swapped;
+            }
+        }
+
+        if (right instanceof Number)
+        {
+            return foldConstant(left, ((Number) right).getValue());
+        }
+        return BinOp.create(op, left, right);
+    }
+
+
+    /**
+     * Adds the procedures called by either operand.
+     * @param procedures specifies the set of procedure names
+     */
+    public void findCalls(Set<String> procedures)
+    {
+        exp1.findCalls(procedures);
+        exp2.findCalls(procedures);
+    }
+
+    /**
+     * Finds the outermost loop in which both operands are invariant.
+     * @param licm specifies the pass
+     * @return returns the index of the loop, or a number at least the number of enclosing loops
+     *         if the binary operation is invariant in none of them
+     */
+    public int invariantLoop(LoopInvariantCodeMotion licm)
+    {
+        return Math.max(exp1.invariantLoop(licm), exp2.invariantLoop(licm));
+    }
+
+    /**
+     * Moves the binary operation out of a loop if it can, and otherwise the parts of its
+     * operands which can. A division which stays may fail.
+     * @param licm specifies the pass
+     * @return returns the temporary or the operation on the operands with the parts replaced
+     */
+    public Expression hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        if (licm.canHoist(this))
+        {
+            return licm.hoist(this);
+        }
+        Expression left = exp1.hoistInvariants(licm);
+        Expression right = exp2.hoistInvariants(licm);
+        if (op.equals("/"))
+        {
+            licm.stopHoistingEffects();
+        }
+        return BinOp.create(op, left, right);
+    }
+
+
+    /**
+     * Adds the variables read by either operand.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        exp1.findReads(variables);
+        exp2.findReads(variables);
+    }
+
+    /**
+     * Finds the key of the binary operation from the keys of its operands, which are ordered
+     * for an addition or multiplication, so that swapping them gives the same key.
+     * @return returns the key, or null if either operand calls a procedure
+     */
+    public String valueKey()
+    {
+        String key1 = exp1.valueKey();
+        String key2 = exp2.valueKey();
+        if (key1 == null || key2 == null)
+        {
+            return null;
+        }
+        if ((op.equals("+") || op.equals("*")) && key1.compareTo(key2) > 0)
+        {
+            String swapped = key1;
+            key1 = key2;
+            key2 = swapped;
+        }
+        return "(" + key1 + " " + op + " " + key2 + ")";
+    }
+
+    /**
+     * Replaces the binary operation by a temporary if its value is available, and otherwise
+     * the operations of its operands.
+     * @param gvn specifies the pass
+     * @return returns the temporary or the operation on the operands with the operations
+     *         replaced
+     */
+    public Expression numberValues(GlobalValueNumbering gvn)
+    {
+        Variable reused = gvn.reuse(this);
+        if (reused != null)
+        {
+            return reused;
+        }
+        Expression left = exp1.numberValues(gvn);
+        Expression right = exp2.numberValues(gvn);
+        return gvn.define(this, BinOp.create(op, left, right));
+    }
+
+    /**
+     * Simplifies the operation of the given folded expression with a number on its right side.
+     * @param left specifies the folded expression on the left side of the operator
+     * @param value specifies the number on the right side of the operator
+     * @return returns the simplified operation
+     */
+    private Expression foldConstant(Expression left, int value)
+    {
+        if (op.equals("+") || op.equals("-"))
+        {
+            int sum = op.equals("-") ? -value : value;
+            if (left instanceof BinOp && ((BinOp) left).exp2 instanceof Number)
+            {
+                BinOp inner = (BinOp) left;
+                int innerValue = ((Number) inner.exp2).getValue();
+                if (inner.op.equals("+") || inner.op.equals("-"))
+                {
+                    // int addition wraps, so it stays associative
+                    sum += inner.op.equals("-") ? -innerValue : innerValue;
+                    left = inner.exp1;
+                }
+            }
+            if (sum == 0)
+            {
+                return left;
+            }
+            return BinOp.create("+", left, new Number(sum));
+        }
+        if (op.equals("*"))
+        {
+            int product = value;
+            if (left instanceof BinOp && ((BinOp) left).exp2 instanceof Number
+                && ((BinOp) left).op.equals("*"))
+            {
+                product *= ((Number) ((BinOp) left).exp2).getValue();
+                left = ((BinOp) left).exp1;
+            }
+            if (product == 1)
+            {
+                return left;
+            }
+            if (product == 0 && !left.hasEffects())
+            {
+                return new Number(0);
+            }
+            return BinOp.create("*", left, new Number(product));
+        }
+        if (op.equals("/") && value == 1)
+        {
+            return left;
+        }
+        return BinOp.create(op, left, new Number(value));
+    }
+
+    /**
+     * Applies an operator to two values.
+     * @param op specifies the operator
+     * @param val1 specifies the value on the left side of the operator
+     * @param val2 specifies the value on the right side of the operator
+     * @return returns the result of the operation
+     * @throws RuntimeException if the operator is unknown
+     */
+    private static int apply(String op, int val1, int val2)
+    {
+        if (op.equals("+"))
+            return val1 + val2;
+        else if (op.equals("-"))
+            return val1 - val2;
+        else if (op.equals("*"))
+            return val1 * val2;
+        else if (op.equals("/"))
+            return val1 / val2;
+        else
+            throw new RuntimeException("Unknown operator: " + op);
+    }
+
+    /**
+     * Inlines the calls of both operands. A division has effects, since it fails for a
+     * divisor of 0.
+     * @param inl specifies the pass
+     * @return returns the binary operation of the operands with the calls inlined
+     */
+    public Expression inlineCalls(Inliner inl)
+    {
+        Expression left = exp1.inlineCalls(inl);
+        Expression right = exp2.inlineCalls(inl);
+        if (op.equals("/"))
+        {
+            inl.stopInlining();
+        }
+        return BinOp.create(op, left, right);
+    }
+
+    /**
+     * Compiles the binary operation into a closure performing only its operator, which for a
+     * number on the right side of the operator adds or multiplies by the constant directly.
+     * @return returns the closure evaluating the binary operation
+     * @throws RuntimeException if the operator is unknown
+     */
+    public ExpressionClosure closure()
+    {
+        ExpressionClosure left = exp1.closure();
+        if (exp2 instanceof Number)
+        {
+            int value = ((Number) exp2).getValue();
+            if (op.equals("+"))
+                return env -> left.eval(env) + value;
+            else if (op.equals("-"))
+                return env -> left.eval(env) - value;
+            else if (op.equals("*"))
+                return env -> left.eval(env) * value;
+        }
+
+        ExpressionClosure right = exp2.closure();
+        if (op.equals("+"))
+            return env -> left.eval(env) + right.eval(env);
+        else if (op.equals("-"))
+            return env -> left.eval(env) - right.eval(env);
+        else if (op.equals("*"))
+            return env -> left.eval(env) * right.eval(env);
+        else if (op.equals("/"))
+            return env -> left.eval(env) / right.eval(env);
+        else
+            throw new RuntimeException("Unknown operator: " + op);
+    }
 }
@@ -1,8 +1,16 @@
 package ast;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import emitter.Emitter;
+import ir.IrBuilder;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
 
 /**
  * Class representing a block of statements.
@@ -23,6 +31,14 @@ public class Block extends Statement
         this.stmts = stmts;
     }
 
+    /**
+     * @return returns true if the block has no statements; false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return stmts.isEmpty();
+    }
+
     /**
      * Executes the block of statements.
      * @param env specifies the environment in which the block of statements is executed
@@ -47,4 +63,253 @@ public class Block extends Statement
             s.compile(e);
         }
     }
+
+    /**
+     * Assembles the block into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.assemble(a);
+        }
+    }
+
+    /**
+     * Lowers every statement of the block in order.
+     * @param b the builder which collects the instructions
+     */
+    public void lower(IrBuilder b)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.lower(b);
+        }
+    }
+
+    /**
+     * Adds the block to the given flat tree.
+     * @param tree the flat tree to add the block to
+     * @return returns the index of the block's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        int[] stmtNodes = new int[stmts.size()];
+        for (int i = 0; i < stmtNodes.length; i++)
+        {
+            stmtNodes[i] = stmts.get(i).flatten(tree);
+        }
+        return tree.addNode(FlatTree.BLOCK, 0, tree.addList(stmtNodes), 0);
+    }
+
+    /**
+     * Resolves every variable referenced by the block to its lexical address.
+     * @param scope specifies the scope in which the block appears
+     */
+    public void resolve(Scope scope)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.resolve(scope);
+        }
+    }
+
+    /**
+     * Checks whether every statement of the block is pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the block is pure; false otherwise
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        for (Statement stmt : stmts)
+        {
+            if (!stmt.isPure(pure))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Folds every statement of the block, moving the statements of a nested block into the
+     * block itself, so that the empty blocks left by folding disappear.
+     * @return returns the simplified block
+     */
+    public Statement fold()
+    {
+        List<Statement> folded = new ArrayList<Statement>();
+        for (Statement stmt : stmts)
+        {
+            Statement simplified = stmt.fold();
+            if (simplified instanceof Block)
+            {
+                folded.addAll(((Block) simplified).stmts);
+            }
+            else
+            {
+                folded.add(simplified);
+            }
+        }
+        return new Block(folded);
+    }
+
+
+    /**
+     * Adds the variables assigned and the procedures called by every statement of the block.
+     * @param variables specifies the set of variable names
+     * @param procedures specifies the set of procedure names
+     */
+    public void findWrites(Set<String> variables, Set<String> procedures)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.findWrites(variables, procedures);
+        }
+    }
+
+    /**
+     * Moves the invariant expressions out of the loops of every statement of the block, in
+     * order, moving the statements of a nested block into the block itself, so that the
+     * assignments of a loop's temporaries join the statements around the loop.
+     * @param licm specifies the pass
+     * @return returns the block of the statements with the expressions moved
+     */
+    public Statement hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        List<Statement> hoisted = new ArrayList<Statement>();
+        for (Statement stmt : stmts)
+        {
+            Statement moved = stmt.hoistInvariants(licm);
+            if (moved instanceof Block)
+            {
+                hoisted.addAll(((Block) moved).stmts);
+            }
+            else
+            {
+                hoisted.add(moved);
+            }
+        }
+        return new Block(hoisted);
+    }
+
+
+    /**
+     * Replaces the operations of every statement of the block whose value is available by
+     * temporaries, in order, moving the statements of a nested block into the block itself.
+     * @param gvn specifies the pass
+     * @return returns the block of the statements with the operations replaced
+     */
+    public Statement numberValues(GlobalValueNumbering gvn)
+    {
+        List<Statement> numbered = new ArrayList<Statement>();
+        for (Statement stmt : stmts)
+        {
+            Statement replaced = stmt.numberValues(gvn);
+            if (replaced instanceof Block)
+            {
+                numbered.addAll(((Block) replaced).stmts);
+            }
+            else
+            {
+                numbered.add(replaced);
+            }
+        }
+        return new Block(numbered);
+    }
+
+    /**
+     * Removes the dead code of every statement of the block, from the last statement to the
+     * first, moving the statements of a nested block into the block itself, so that the empty
+     * blocks left by removed statements disappear.
+     * @param dce specifies the pass
+     * @return returns the block of the statements with the dead code removed
+     */
+    public Statement eliminateDeadCode(DeadCodeElimination dce)
+    {
+        List<Statement> kept = new ArrayList<Statement>();
+        for (int i = stmts.size() - 1; i >= 0; i--)
+        {
+            Statement stmt = stmts.get(i).eliminateDeadCode(dce);
+            if (stmt instanceof Block)
+            {
+                kept.addAll(0, ((Block) stmt).stmts);
+            }
+            else
+            {
+                kept.add(0, stmt);
+            }
+        }
+        return new Block(kept);
+    }
+
+    /**
+     * Adds the variables read by every statement of the block.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.findReads(variables);
+        }
+    }
+
+    /**
+     * Inlines the calls of every statement of the block, in order, moving the statements of a
+     * nested block into the block itself.
+     * @param inl specifies the pass
+     * @return returns the block of the statements with the calls inlined
+     */
+    public Statement inlineCalls(Inliner inl)
+    {
+        List<Statement> inlined = new ArrayList<Statement>();
+        for (Statement stmt : stmts)
+        {
+            Statement replaced = stmt.inlineCalls(inl);
+            if (replaced instanceof Block)
+            {
+                inlined.addAll(((Block) replaced).stmts);
+            }
+            else
+            {
+                inlined.add(replaced);
+            }
+        }
+        return new Block(inlined);
+    }
+
+    /**
+     * Marks the tail calls made by the last statement of the block, which is the only one in
+     * tail position.
+     * @param proc specifies the procedure whose body contains the block
+     */
+    public void markTailCalls(ProcedureDeclaration proc)
+    {
+        if (!stmts.isEmpty())
+        {
+            stmts.get(stmts.size() - 1).markTailCalls(proc);
+        }
+    }
+
+    /**
+     * Compiles the block into a closure executing the closures of its statements in order.
+     * @return returns the closure executing the block
+     */
+    public StatementClosure closure()
+    {
+        StatementClosure[] closures = new StatementClosure[stmts.size()];
+        for (int i = 0; i < closures.length; i++)
+        {
+            closures[i] = stmts.get(i).closure();
+        }
+        return env ->
+        {
+            for (StatementClosure closure : closures)
+            {
+                closure.exec(env);
+            }
+        };
+    }
 }
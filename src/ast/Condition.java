@@ -1,6 +1,17 @@
 package ast;
 
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.BasicBlock;
+import ir.Instruction;
+import ir.IrBuilder;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
 
 /**
  * Class that represents a condition / boolean expression, with a relational 
@@ -11,9 +22,9 @@ import emitter.Emitter;
  */
 public class Condition
 {
-    private String relop;
-    private Expression exp1;
-    private Expression exp2;
+    protected String relop;
+    protected Expression exp1;
+    protected Expression exp2;
 
     /**
      * Creates a condition object with the relational operator relop, the expression on the left
@@ -29,6 +40,49 @@ public class Condition
         this.exp2 = exp2;
     }
 
+    /**
+     * Creates the condition specialized for the relational operator, and for a number on the
+     * right side of the operator, so that its eval is a single comparison.
+     * @param relop the relational operator
+     * @param exp1 the expression on the left side of the operator
+     * @param exp2 the expression on the right side of the operator
+     * @return returns the specialized condition, or a generic one if the operator is unknown
+     */
+    public static Condition create(String relop, Expression exp1, Expression exp2)
+    {
+        if (exp2 instanceof Number)
+        {
+            Number num = (Number) exp2;
+            if (relop.equals("="))
+                return new EqualConst(exp1, num);
+            else if (relop.equals("<>"))
+                return new NotEqualConst(exp1, num);
+            else if (relop.equals(">"))
+                return new GreaterThanConst(exp1, num);
+            else if (relop.equals("<"))
+                return new LessThanConst(exp1, num);
+            else if (relop.equals(">="))
+                return new GreaterEqualConst(exp1, num);
+            else if (relop.equals("<="))
+                return new LessEqualConst(exp1, num);
+        }
+
+        if (relop.equals("="))
+            return new Equal(exp1, exp2);
+        else if (relop.equals("<>"))
+            return new NotEqual(exp1, exp2);
+        else if (relop.equals(">"))
+            return new GreaterThan(exp1, exp2);
+        else if (relop.equals("<"))
+            return new LessThan(exp1, exp2);
+        else if (relop.equals(">="))
+            return new GreaterEqual(exp1, exp2);
+        else if (relop.equals("<="))
+            return new LessEqual(exp1, exp2);
+        else
+            return new Condition(relop, exp1, exp2);
+    }
+
     /**
      * Evaluates the condition.
      * @param env specifies the environment in which the condition is evaluated
@@ -89,4 +143,253 @@ public class Condition
         e.emit(asOp + " $t0, $v0, " + label);
     }
 
+    /**
+     * Assembles the condition into bytecode for the virtual machine, which branches to the given
+     * label if the condition is false.
+     * @param a the assembler which collects the bytecode
+     * @param label specifies the label to branch to if the condition is false
+     * @throws RuntimeException if the operator is unknown
+     */
+    public void assemble(Assembler a, int label)
+    {
+        exp1.assemble(a);
+        exp2.assemble(a);
+        if (relop.equals("="))
+            a.emitJump(Bytecode.IF_NE, label);
+        else if (relop.equals("<>"))
+            a.emitJump(Bytecode.IF_EQ, label);
+        else if (relop.equals(">"))
+            a.emitJump(Bytecode.IF_LE, label);
+        else if (relop.equals("<"))
+            a.emitJump(Bytecode.IF_GE, label);
+        else if (relop.equals(">="))
+            a.emitJump(Bytecode.IF_LT, label);
+        else if (relop.equals("<="))
+            a.emitJump(Bytecode.IF_GT, label);
+        else
+            throw new RuntimeException("Unknown operator: " + relop + ".");
+    }
+
+    /**
+     * Lowers the condition into a branch comparing its two sides.
+     * @param b the builder which collects the instructions
+     * @param ifTrue specifies the block to branch to if the condition is true
+     * @param ifFalse specifies the block to branch to if the condition is false
+     */
+    public void lower(IrBuilder b, BasicBlock ifTrue, BasicBlock ifFalse)
+    {
+        Instruction left = exp1.lower(b);
+        b.branch(relop, left, exp2.lower(b), ifTrue, ifFalse);
+    }
+
+    /**
+     * Adds the condition to the given flat tree.
+     * @param tree the flat tree to add the condition to
+     * @return returns the index of the condition's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        int left = exp1.flatten(tree);
+        int right = exp2.flatten(tree);
+        return tree.addNode(FlatTree.CONDITION, tree.operator(relop), left, right);
+    }
+
+    /**
+     * Resolves every variable referenced by the condition to its lexical address.
+     * @param scope specifies the scope in which the condition appears
+     */
+    public void resolve(Scope scope)
+    {
+        exp1.resolve(scope);
+        exp2.resolve(scope);
+    }
+
+    /**
+     * Checks whether both sides of the condition are pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the condition is pure; false otherwise
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return exp1.isPure(pure) && exp2.isPure(pure);
+    }
+
+    /**
+     * Folds both sides of the condition. A number on the left side moves to the right side,
+     * reversing the operator, so that the specialized comparisons with constants apply.
+     * @return returns the simplified condition
+     */
+    public Condition fold()
+    {
+        Expression left = exp1.fold();
+        Expression right = exp2.fold();
+        if (left instanceof Number && !(right instanceof Number))
+        {
+            return create(reverse(relop), right, left);
+        }
+        return create(relop, left, right);
+    }
+
+
+    /**
+     * Adds the procedures called by either side of the condition.
+     * @param procedures specifies the set of procedure names
+     */
+    public void findCalls(Set<String> procedures)
+    {
+        exp1.findCalls(procedures);
+        exp2.findCalls(procedures);
+    }
+
+    /**
+     * Adds the variables read by either side of the condition.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        exp1.findReads(variables);
+        exp2.findReads(variables);
+    }
+
+    /**
+     * Checks whether either side of the condition may have effects.
+     * @return returns true if the condition may have effects; false otherwise
+     */
+    public boolean hasEffects()
+    {
+        return exp1.hasEffects() || exp2.hasEffects();
+    }
+
+    /**
+     * Replaces the parts of both sides of the condition which can move out of a loop enclosing
+     * the walk of the given pass by temporaries.
+     * @param licm specifies the pass
+     * @return returns the condition with the parts replaced
+     */
+    public Condition hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        Expression left = exp1.hoistInvariants(licm);
+        return create(relop, left, exp2.hoistInvariants(licm));
+    }
+
+
+    /**
+     * Replaces the operations of both sides of the condition whose value is available by
+     * temporaries.
+     * @param gvn specifies the pass
+     * @return returns the condition with the operations replaced
+     */
+    public Condition numberValues(GlobalValueNumbering gvn)
+    {
+        Expression left = exp1.numberValues(gvn);
+        return create(relop, left, exp2.numberValues(gvn));
+    }
+
+    /**
+     * @return returns true if both sides of the condition are numbers, so that the condition
+     *         always has the same value; false otherwise
+     */
+    public boolean isConstant()
+    {
+        return exp1 instanceof Number && exp2 instanceof Number;
+    }
+
+    /**
+     * Evaluates a constant condition.
+     * @return returns the value of the condition
+     * @throws RuntimeException if the operator is unknown
+     */
+    public boolean isTrue()
+    {
+        int val1 = ((Number) exp1).getValue();
+        int val2 = ((Number) exp2).getValue();
+        if (relop.equals("="))
+            return val1 == val2;
+        else if (relop.equals("<>"))
+            return val1 != val2;
+        else if (relop.equals(">"))
+            return val1 > val2;
+        else if (relop.equals("<"))
+            return val1 < val2;
+        else if (relop.equals(">="))
+            return val1 >= val2;
+        else if (relop.equals("<="))
+            return val1 <= val2;
+        else
+            throw new RuntimeException("Unknown operator: " + relop);
+    }
+
+    /**
+     * Finds the operator comparing the sides of a condition in the reverse order.
+     * @param relop specifies the relational operator
+     * @return returns the operator which holds for the swapped sides exactly when the given
+     *         operator holds for the original sides
+     */
+    private static String reverse(String relop)
+    {
+        if (relop.equals(">"))
+            return "<";
+        else if (relop.equals("<"))
+            return ">";
+        else if (relop.equals(">="))
+            return "<=";
+        else if (relop.equals("<="))
+            return ">=";
+        else
+            return relop;
+    }
+
+    /**
+     * Inlines the calls of both sides of the condition.
+     * @param inl specifies the pass
+     * @return returns the condition with the calls inlined
+     */
+    public Condition inlineCalls(Inliner inl)
+    {
+        Expression left = exp1.inlineCalls(inl);
+        return create(relop, left, exp2.inlineCalls(inl));
+    }
+
+    /**
+     * Compiles the condition into a closure performing only its comparison, which for a number
+     * on the right side of the operator compares with the constant directly.
+     * @return returns the closure evaluating the condition
+     * @throws RuntimeException if the operator is unknown
+     */
+    public ConditionClosure closure()
+    {
+        ExpressionClosure left = exp1.closure();
+        if (exp2 instanceof Number)
+        {
+            int value = ((Number) exp2).getValue();
+            if (relop.equals("="))
+                return env -> left.eval(env) == value;
+            else if (relop.equals("<>"))
+                return env -> left.eval(env) != value;
+            else if (relop.equals(">"))
+                return env -> left.eval(env) > value;
+            else if (relop.equals("<"))
+                return env -> left.eval(env) < value;
+            else if (relop.equals(">="))
+                return env -> left.eval(env) >= value;
+            else if (relop.equals("<="))
+                return env -> left.eval(env) <= value;
+        }
+
+        ExpressionClosure right = exp2.closure();
+        if (relop.equals("="))
+            return env -> left.eval(env) == right.eval(env);
+        else if (relop.equals("<>"))
+            return env -> left.eval(env) != right.eval(env);
+        else if (relop.equals(">"))
+            return env -> left.eval(env) > right.eval(env);
+        else if (relop.equals("<"))
+            return env -> left.eval(env) < right.eval(env);
+        else if (relop.equals(">="))
+            return env -> left.eval(env) >= right.eval(env);
+        else if (relop.equals("<="))
+            return env -> left.eval(env) <= right.eval(env);
+        else
+            throw new RuntimeException("Unknown operator: " + relop + ".");
+    }
 }
@@ -0,0 +1,19 @@
+package ast;
+
+/**
+ * The ConditionClosure interface is implemented by the functional objects into which
+ * Condition.closure compiles conditions, with the relational operator chosen when the closure
+ * is created.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public interface ConditionClosure
+{
+    /**
+     * Evaluates the compiled condition.
+     * @param env specifies the environment in which the condition is evaluated
+     * @return returns true if condition is true; false otherwise
+     * @throws Exception if an error occurs while evaluating either side
+     */
+    boolean eval(Environment env) throws Exception;
+}
@@ -1,30 +1,41 @@
 package ast;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * The Environment class represents an environment in which code is executed, where each
- * environment has its own set of variables and procedures.
- * Contains methods for setting a variable's value and getting a variable's value, as well as
- * methods for setting and retrieving procedures.
+ * environment is a frame of integer slots holding its variables and the root environment also
+ * holds the procedures.
+ * Contains methods for setting a variable's value and getting a variable's value, either by
+ * name or by the lexical address found by the resolver, as well as methods for setting and
+ * retrieving procedures.
  * @author Arjun Dixit
  * @version 04/17/22
  */
 public class Environment 
 {
-    private Map<String, Integer> variables;
+    private int[] slots;
+    private int size;
+    private Map<String, Integer> names;
     private Map<String, ProcedureDeclaration> procedures;
     private Environment parent;
+    private Environment global;
+    private boolean jitEnabled;
+    private int memoCapacity;
+    private OutputSink output;
+    private Environment[] frames;
+    private int frameCount;
+    private int procedureVersion;
+    private boolean tailCall;
 
     /**
      * Creates an environment object with an empty set of variables and procedures.
      */
     public Environment()
     {
-        variables = new HashMap<String, Integer>();
-        procedures = new HashMap<String, ProcedureDeclaration>();
-        parent = null;
+        this(null, 0);
     }
     
     /**
@@ -34,78 +45,289 @@ public class Environment
      */
     public Environment(Environment parent)
     {
-        variables = new HashMap<String, Integer>();
-        procedures = new HashMap<String, ProcedureDeclaration>();
+        this(parent, 0);
+    }
+
+    /**
+     * Creates an environment object with the given number of slots, each holding 0, along with
+     * the given parent environment as the parent.
+     * @param parent specifies the parent environment
+     * @param size specifies the number of slots in the environment
+     */
+    public Environment(Environment parent, int size)
+    {
+        slots = new int[size];
+        this.size = size;
         this.parent = parent;
+        if (parent == null)
+        {
+            procedures = new HashMap<String, ProcedureDeclaration>();
+            global = this;
+        }
+        else
+        {
+            global = parent.global;
+        }
     }
 
     /**
-     * Declares the variable of the specified name with the specified value in the current
-     * environment.
-     * @param variable specifies the name of the variable
-     * @param value specifies the value to which the variable is declared
+     * @return returns the root environment, which holds the global variables and procedures
      */
-    public void declareVariable(String variable, int value) 
+    public Environment getGlobal()
+    {
+        return global;
+    }
+
+    /**
+     * @return returns the number of slots in use in the current environment, which may be fewer
+     *         than the length of its slot array
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return returns the slots of the current environment, which are shared with the caller
+     */
+    public int[] getSlots()
+    {
+        return slots;
+    }
+
+    /**
+     * @return returns true if hot procedures and loops run in this environment are compiled to
+     *         JVM code; false otherwise
+     */
+    public boolean isJitEnabled()
+    {
+        return global.jitEnabled;
+    }
+
+    /**
+     * Sets whether hot procedures and loops run in this environment are compiled to JVM code.
+     * @param jitEnabled specifies whether hot code is compiled
+     */
+    public void setJitEnabled(boolean jitEnabled)
+    {
+        global.jitEnabled = jitEnabled;
+    }
+
+    /**
+     * @return returns the number of entries in the memo table of each pure procedure called in
+     *         this environment, or 0 if calls are not memoized
+     */
+    public int getMemoCapacity()
+    {
+        return global.memoCapacity;
+    }
+
+    /**
+     * Sets the number of entries in the memo table of each pure procedure called in this
+     * environment, where 0 turns memoization off.
+     * @param memoCapacity specifies the number of entries in each memo table
+     * @throws IllegalArgumentException if the number of entries is negative
+     */
+    public void setMemoCapacity(int memoCapacity)
+    {
+        if (memoCapacity < 0)
+        {
+            throw new IllegalArgumentException("Memo table capacity " + memoCapacity
+                + " is negative");
+        }
+        global.memoCapacity = memoCapacity;
+    }
+
+    /**
+     * @return returns the sink to which programs run in this environment print, which is a
+     *         buffered sink writing to System.out unless another sink has been set
+     */
+    public OutputSink getOutput()
+    {
+        if (global.output == null)
+        {
+            global.output = new OutputSink();
+        }
+        return global.output;
+    }
+
+    /**
+     * Sets the sink to which programs run in this environment print.
+     * @param output specifies the sink
+     */
+    public void setOutput(OutputSink output)
+    {
+        global.output = output;
+    }
+
+    /**
+     * @return returns true if the procedure running in this frame has made a tail call, which
+     *         left the call's arguments in the frame for the procedure to run again; false
+     *         otherwise
+     */
+    public boolean isTailCall()
     {
-        variables.put(variable, value);
+        return tailCall;
     }
 
     /**
-     * @return returns the map of variables in the current environment
+     * Sets whether the procedure running in this frame has made a tail call.
+     * @param tailCall specifies whether a tail call has been made
      */
-    public Map<String, Integer> getVariables() 
+    public void setTailCall(boolean tailCall)
     {
-        return variables;
+        this.tailCall = tailCall;
     }
 
     /**
-     * Sets the value of the variable of the specified name to the specified value in the parent
-     * environment if the variable is not already declared in the current environment and the
-     * parent environment contains the variable; otherwise, declares the variable in the current
-     * environment with the specified value.
+     * Takes a frame for a procedure call from the pool of the global environment, creating one
+     * only if the call is deeper than any before it. Since calls return in the reverse order
+     * in which they are made, the pool is a stack holding one frame per call depth, and a frame
+     * returns to the pool when popFrame is called.
+     * @param size specifies the number of slots in the frame, each of which holds 0
+     * @return returns the frame, whose parent is the global environment
+     */
+    public Environment pushFrame(int size)
+    {
+        Environment g = global;
+        if (g.frames == null)
+        {
+            g.frames = new Environment[16];
+        }
+        else if (g.frameCount == g.frames.length)
+        {
+            g.frames = Arrays.copyOf(g.frames, 2 * g.frameCount);
+        }
+
+        Environment frame = g.frames[g.frameCount];
+        if (frame == null)
+        {
+            frame = new Environment(g, size);
+            g.frames[g.frameCount] = frame;
+        }
+        else if (frame.slots.length < size)
+        {
+            frame.slots = new int[size];
+            frame.size = size;
+        }
+        else
+        {
+            Arrays.fill(frame.slots, 0, size, 0);
+            frame.size = size;
+        }
+        frame.tailCall = false;
+        g.frameCount++;
+        return frame;
+    }
+
+    /**
+     * Returns the frame taken last by pushFrame to the pool of the global environment, after
+     * which the frame may be handed to the next call at the same depth.
+     */
+    public void popFrame()
+    {
+        global.frameCount--;
+    }
+
+    /**
+     * Declares the variable of the specified name with the specified value in the current
+     * environment, giving it the next free slot if it is not already declared.
      * @param variable specifies the name of the variable
-     * @param value specifies the value to which the variable is set
+     * @param value specifies the value to which the variable is declared
      */
-    public void setVariable(String variable, int value)
+    public void declareVariable(String variable, int value) 
     {
-        if(variables.get(variable) == null && parent != null) 
+        if (names == null)
         {
-            if(parent.getVariables().get(variable) == null)
-                throw new RuntimeException("Variable " + variable + " not declared.");
-            parent.getVariables().put(variable, value);
+            names = new HashMap<String, Integer>();
         }
-        else 
+        Integer slot = names.get(variable);
+        if (slot == null)
         {
-            if(variables.get(variable) == null)
-                throw new RuntimeException("Variable " + variable + " not declared.");
-            variables.put(variable, value);
+            slot = size;
+            if (size == slots.length)
+            {
+                slots = Arrays.copyOf(slots, Math.max(8, 2 * size));
+            }
+            size++;
+            names.put(variable, slot);
         }
+        slots[slot] = value;
+    }
+
+    /**
+     * Sets the value of the variable of the specified name to the specified value in the
+     * nearest environment declaring the variable.
+     * @param variable specifies the name of the variable
+     * @param value specifies the value to which the variable is set
+     * @throws RuntimeException if the variable is not declared in any enclosing environment
+     */
+    public void setVariable(String variable, int value)
+    {
+        for (Environment env = this; env != null; env = env.parent)
+        {
+            Integer slot = env.names == null ? null : env.names.get(variable);
+            if (slot != null)
+            {
+                env.slots[slot] = value;
+                return;
+            }
+        }
+        throw new RuntimeException("Variable " + variable + " not declared.");
     }
 
     /**
      * Gets the value of the variable with the specified name from the current environment.
-     * If the value doesn't exist in the current environment and the current environment has a
-     * parent, the value is retrieved from the parent environment. If no value exists in the parent
-     * environment or there is no parent environment, then an exception is thrown.
+     * If the value doesn't exist in the current environment, the value is retrieved from the
+     * nearest parent environment declaring it. If no environment declares the variable, then an
+     * exception is thrown.
      * @param variable specifies the name of the variable
      * @throws RuntimeException if the variable is not found in the local or parent enviornment.
      * @return returns the value of the variable
      */
     public int getVariable(String variable) throws RuntimeException
     {
-        Integer val = variables.get(variable);
-
-        if (val == null && parent != null) 
+        for (Environment env = this; env != null; env = env.parent)
         {
-            val = parent.getVariable(variable);
+            Integer slot = env.names == null ? null : env.names.get(variable);
+            if (slot != null)
+            {
+                return env.slots[slot];
+            }
         }
+        throw new RuntimeException("Variable " + variable + " not found.");
+    }
 
-        if (val == null)
+    /**
+     * Gets the value of the variable at the given lexical address.
+     * @param depth specifies the number of parents to walk up from the current environment
+     * @param slot specifies the slot of the variable in that environment
+     * @return returns the value of the variable
+     */
+    public int getVariable(int depth, int slot)
+    {
+        Environment env = this;
+        while (depth-- > 0)
         {
-            throw new RuntimeException("Variable " + variable + " not found.");
+            env = env.parent;
         }
+        return env.slots[slot];
+    }
 
-        return val;
+    /**
+     * Sets the value of the variable at the given lexical address.
+     * @param depth specifies the number of parents to walk up from the current environment
+     * @param slot specifies the slot of the variable in that environment
+     * @param value specifies the value to which the variable is set
+     */
+    public void setVariable(int depth, int slot, int value)
+    {
+        Environment env = this;
+        while (depth-- > 0)
+        {
+            env = env.parent;
+        }
+        env.slots[slot] = value;
     }
 
     /**
@@ -115,39 +337,35 @@ public class Environment
      */
     public ProcedureDeclaration getProcedure(String name) 
     {
-        ProcedureDeclaration proc;
-
-        if (parent != null) 
-        {
-            proc = parent.getProcedure(name);
-        }
-        else 
-        {
-            proc = procedures.get(name);
-        }
+        ProcedureDeclaration proc = global.procedures.get(name);
 
         if (proc == null) 
         {
-            throw new RuntimeException("Procedure " + proc + " not found");
+            throw new RuntimeException("Procedure " + name + " not found");
         }
 
         return proc;
     }
 
     /**
-     * Sets the procedure with the specified name to the specified statement.
+     * Sets the procedure with the specified name to the specified statement, which changes the
+     * version of the procedure table.
      * @param name specifies the name of the procedure
      * @param proc specifies the procedure
      */
     public void setProcedure(String name, ProcedureDeclaration proc) 
     {
-        if (parent != null)
-        {
-            parent.setProcedure(name, proc);
-        }
-        else 
-        {
-            procedures.put(name, proc);
-        }
+        global.procedures.put(name, proc);
+        global.procedureVersion++;
+    }
+
+    /**
+     * @return returns the version of the procedure table, which changes whenever a procedure is
+     *         set, so that a procedure found in the table may be reused while the version stays
+     *         the same
+     */
+    public int getProcedureVersion()
+    {
+        return global.procedureVersion;
     }  
 }
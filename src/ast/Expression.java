@@ -1,6 +1,14 @@
 package ast;
 
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.Instruction;
+import ir.IrBuilder;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
 
 /**
  * Abstract class representing an expression in the AST.
@@ -23,4 +31,120 @@ public abstract class Expression
      * @param e the emitter which emits the assembly code to the output file
      */
     public abstract void compile(Emitter e);
+
+    /**
+     * Assembles the expression into bytecode for the virtual machine, leaving its value on the
+     * operand stack.
+     * @param a the assembler which collects the bytecode
+     */
+    public abstract void assemble(Assembler a);
+
+    /**
+     * Lowers the expression into the intermediate representation.
+     * @param b the builder which collects the instructions
+     * @return returns the instruction computing the expression's value
+     */
+    public abstract Instruction lower(IrBuilder b);
+
+    /**
+     * Adds the expression to the given flat tree.
+     * @param tree the flat tree to add the expression to
+     * @return returns the index of the expression's node in the tree
+     */
+    public abstract int flatten(FlatTree tree);
+
+    /**
+     * Resolves every variable referenced by the expression to its lexical address in the
+     * given scope.
+     * @param scope specifies the scope in which the expression appears
+     */
+    public abstract void resolve(Scope scope);
+
+    /**
+     * Checks whether the resolved expression in a procedure's body reads nothing but the
+     * procedure's frame and calls nothing but pure procedures, so that its value depends only on
+     * the procedure's arguments.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the expression is pure; false otherwise
+     */
+    public abstract boolean isPure(Set<String> pure);
+
+    /**
+     * Checks whether evaluating the expression may do more than compute a value, by calling a
+     * procedure or by dividing, which fails for a divisor of 0, so that the expression cannot be
+     * removed even if its value is not needed.
+     * @return returns true if the expression may have effects; false otherwise
+     */
+    public abstract boolean hasEffects();
+
+    /**
+     * Folds the constant operations of the expression and simplifies algebraic identities.
+     * @return returns the simplified expression, which computes the same value
+     */
+    public abstract Expression fold();
+
+    /**
+     * Adds the names of the procedures which the expression calls to the given set.
+     * @param procedures specifies the set of procedure names
+     */
+    public abstract void findCalls(Set<String> procedures);
+
+    /**
+     * Finds the outermost loop enclosing the walk of the given pass in which the expression is
+     * invariant, so that its value does not change while the loop runs.
+     * @param licm specifies the pass
+     * @return returns the index of the loop, counting from the outermost one, or a number at
+     *         least the number of enclosing loops if the expression is invariant in none of them
+     */
+    public abstract int invariantLoop(LoopInvariantCodeMotion licm);
+
+    /**
+     * Replaces every largest part of the expression which can move out of a loop enclosing the
+     * walk of the given pass by a temporary assigned before the loop. The parts are visited in
+     * the order in which they are evaluated.
+     * @param licm specifies the pass
+     * @return returns the expression with the parts replaced, which computes the same value
+     */
+    public abstract Expression hoistInvariants(LoopInvariantCodeMotion licm);
+
+
+    /**
+     * Adds the names of the variables which the expression reads to the given set, leaving out
+     * those read by the procedures it calls.
+     * @param variables specifies the set of variable names
+     */
+    public abstract void findReads(Set<String> variables);
+
+    /**
+     * Finds the key of the expression's value, which is the same for every expression of
+     * numbers and variables computing the same operations on the same operands.
+     * @return returns the key, or null if the expression calls a procedure
+     */
+    public abstract String valueKey();
+
+    /**
+     * Replaces the operations of the expression whose value the given pass found to be
+     * available by temporaries, visiting the operations in the order in which they are
+     * evaluated.
+     * @param gvn specifies the pass
+     * @return returns the expression with the operations replaced, which computes the same
+     *         value
+     */
+    public abstract Expression numberValues(GlobalValueNumbering gvn);
+
+    /**
+     * Inlines the calls of the expression which the given pass can inline, visiting the parts
+     * of the expression in the order in which they are evaluated, and renames the variables of
+     * the procedure being inlined.
+     * @param inl specifies the pass
+     * @return returns the expression with the calls inlined
+     */
+    public abstract Expression inlineCalls(Inliner inl);
+
+    /**
+     * Compiles the expression into a closure which evaluates it without inspecting the tree.
+     * The expression must have been resolved first.
+     * @return returns the closure evaluating the expression
+     */
+    public abstract ExpressionClosure closure();
 }
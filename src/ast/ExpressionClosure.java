@@ -0,0 +1,19 @@
+package ast;
+
+/**
+ * The ExpressionClosure interface is implemented by the functional objects into which
+ * Expression.closure compiles expressions. Each closure has its operator, constants and
+ * variable addresses bound when it is created, so evaluating it only does the arithmetic.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public interface ExpressionClosure
+{
+    /**
+     * Evaluates the compiled expression.
+     * @param env specifies the environment in which the expression is evaluated
+     * @return returns the result of the expression as an integer
+     * @throws Exception if an error occurs while evaluating the expression
+     */
+    int eval(Environment env) throws Exception;
+}
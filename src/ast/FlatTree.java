@@ -0,0 +1,1019 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import emitter.Emitter;
+
+/**
+ * FlatTree is an alternative representation of a program in which the nodes of the AST are not
+ * separate objects but rows of a set of parallel arrays: the kind of every node, its operator
+ * code and two int operands, for 10 bytes per node. Depending on the kind, an operand is a 
+ * constant, the index of another node, the index of a name in the name pool, or the index of a 
+ * list in the list pool, where a list is stored as its length followed by its elements.
+ * The tree is built by flattening a Program or straight from the tokens by a FlatParser, and can
+ * be executed and compiled like a Program. Before it is, the tree is resolved like a Program:
+ * the name of every variable it declares is replaced by the variable's slot in the frames of the
+ * Environment, where each call takes a frame from the pool, and tail calls are marked.
+ *
+ * Layout of the operands of each kind of node:
+ * - NUMBER: value
+ * - VARIABLE: name, or slot once resolved (operator code: 0 until resolved or if no scope
+ *   declares the variable, and its depth plus 1 otherwise)
+ * - BINOP, CONDITION: left node, right node (operator in the operator code)
+ * - NEGATE, WRITELN: expression node
+ * - CALL: procedure name, list of argument nodes
+ * - ASSIGNMENT: variable name or slot like VARIABLE, expression node (operator code TAIL_CALL if
+ *   it assigns a tail call to the procedure's name)
+ * - BLOCK: list of statement nodes
+ * - IF: condition node, list of the then node and the else node (or -1)
+ * - WHILE: condition node, body node
+ * - PROCEDURE: procedure name, list of the body node and the list of the local variable names
+ *   followed by the parameter names
+ * - PROGRAM: list of variable names, list of the statement node followed by the procedure nodes
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class FlatTree
+{
+    public static final int NUMBER = 0;
+    public static final int VARIABLE = 1;
+    public static final int BINOP = 2;
+    public static final int NEGATE = 3;
+    public static final int CALL = 4;
+    public static final int CONDITION = 5;
+    public static final int ASSIGNMENT = 6;
+    public static final int WRITELN = 7;
+    public static final int BLOCK = 8;
+    public static final int IF = 9;
+    public static final int WHILE = 10;
+    public static final int PROCEDURE = 11;
+    public static final int PROGRAM = 12;
+
+    /**
+     * The operators of BINOP and CONDITION nodes; the operator code of a node is the index of
+     * its operator in this array.
+     */
+    private static final String[] OPERATORS = new String[]{
+        "+", "-", "*", "/",
+        "=", "<>", ">", "<", ">=", "<="
+    };
+
+    private static final int ADD = 0;
+    private static final int SUBTRACT = 1;
+    private static final int MULTIPLY = 2;
+    private static final int DIVIDE = 3;
+    private static final int EQUAL = 4;
+    private static final int NOT_EQUAL = 5;
+    private static final int GREATER = 6;
+    private static final int LESS = 7;
+    private static final int GREATER_EQUAL = 8;
+    private static final int LESS_EQUAL = 9;
+
+    /**
+     * Branch instruction taken when each relational operator is false, indexed by operator code
+     * minus EQUAL.
+     */
+    private static final String[] BRANCHES = new String[]{
+        "bne", "beq", "ble", "bge", "blt", "bgt"
+    };
+
+    /**
+     * Operator code of an assignment which makes a tail call, whose variable is in the frame.
+     */
+    private static final int TAIL_CALL = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] kinds;
+    private byte[] operators;
+    private int[] firsts;
+    private int[] seconds;
+    private int size;
+
+    private int[] lists;
+    private int listSize;
+
+    private List<String> names;
+    private Map<String, Integer> nameIndexes;
+    private int root;
+
+    // indexed by the name of a procedure: the node of its last declaration, or -1 if it has
+    // none, and the layout of its frame; all of them are null until the tree is resolved
+    private int[] procedures;
+    private int[][] argSlots;
+    private int[] returnSlots;
+    private int[] frameSizes;
+    private String[][] slotNames;
+
+    // the name of the variable in each global slot, and in each slot of the frame of the
+    // procedure being compiled, or null outside of a procedure
+    private String[] globalNames;
+    private String[] frameNames;
+
+    /**
+     * Creates an empty flat tree, to which the nodes of a program are added before finish is
+     * called.
+     */
+    public FlatTree()
+    {
+        kinds = new byte[INITIAL_CAPACITY];
+        operators = new byte[INITIAL_CAPACITY];
+        firsts = new int[INITIAL_CAPACITY];
+        seconds = new int[INITIAL_CAPACITY];
+        size = 0;
+        lists = new int[INITIAL_CAPACITY];
+        listSize = 0;
+        names = new ArrayList<String>();
+        nameIndexes = new HashMap<String, Integer>();
+    }
+
+    /**
+     * Creates a flat tree holding the given program.
+     * @param program specifies the program to flatten
+     */
+    public FlatTree(Program program)
+    {
+        this();
+        finish(program.flatten(this));
+    }
+
+    /**
+     * Ends the tree with the given program node and trims the arrays to the nodes and lists
+     * added.
+     * @param root specifies the index of the program node
+     */
+    public void finish(int root)
+    {
+        this.root = root;
+
+        kinds = Arrays.copyOf(kinds, size);
+        operators = Arrays.copyOf(operators, size);
+        firsts = Arrays.copyOf(firsts, size);
+        seconds = Arrays.copyOf(seconds, size);
+        lists = Arrays.copyOf(lists, listSize);
+    }
+
+    /**
+     * Adds a node to the tree.
+     * @param kind specifies the kind of the node
+     * @param operator specifies the operator code of the node, or 0 if it has none
+     * @param first specifies the first operand of the node
+     * @param second specifies the second operand of the node
+     * @return returns the index of the node
+     */
+    public int addNode(int kind, int operator, int first, int second)
+    {
+        if (size == kinds.length)
+        {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            operators = Arrays.copyOf(operators, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+        }
+
+        kinds[size] = (byte) kind;
+        operators[size] = (byte) operator;
+        firsts[size] = first;
+        seconds[size] = second;
+
+        return size++;
+    }
+
+    /**
+     * Adds a list of node or name indexes to the list pool.
+     * @param elements specifies the elements of the list
+     * @return returns the index of the list
+     */
+    public int addList(int[] elements)
+    {
+        while (listSize + elements.length + 1 > lists.length)
+        {
+            lists = Arrays.copyOf(lists, lists.length * 2);
+        }
+
+        int list = listSize;
+        lists[listSize++] = elements.length;
+        System.arraycopy(elements, 0, lists, listSize, elements.length);
+        listSize += elements.length;
+
+        return list;
+    }
+
+    /**
+     * Adds a list of names to the list pool.
+     * @param elements specifies the names in the list
+     * @return returns the index of the list
+     */
+    public int addNameList(List<String> elements)
+    {
+        int[] indexes = new int[elements.size()];
+        for (int i = 0; i < indexes.length; i++)
+        {
+            indexes[i] = name(elements.get(i));
+        }
+        return addList(indexes);
+    }
+
+    /**
+     * Finds the given name in the name pool, adding it if it is not in the pool yet.
+     * @param name specifies the name
+     * @return returns the index of the name in the name pool
+     */
+    public int name(String name)
+    {
+        Integer index = nameIndexes.get(name);
+
+        if (index == null)
+        {
+            index = names.size();
+            names.add(name);
+            nameIndexes.put(name, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Finds the code of the given operator.
+     * @param op specifies the operator
+     * @return returns the operator code
+     * @throws IllegalArgumentException if the operator is unknown
+     */
+    public int operator(String op)
+    {
+        for (int i = 0; i < OPERATORS.length; i++)
+        {
+            if (OPERATORS[i].equals(op))
+            {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operator: " + op);
+    }
+
+    /**
+     * @return returns the number of nodes in the tree
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Resolves the tree, unless it has been resolved already, in the same way as
+     * Program.resolve: the program's variables occupy the slots of the global scope in the
+     * order in which they are declared, and the frame of a procedure holds its arguments, its
+     * return value and its local variables in that order.
+     */
+    private void resolve()
+    {
+        if (procedures != null)
+        {
+            return;
+        }
+        procedures = new int[names.size()];
+        Arrays.fill(procedures, -1);
+        argSlots = new int[names.size()][];
+        returnSlots = new int[names.size()];
+        frameSizes = new int[names.size()];
+        slotNames = new String[names.size()][];
+
+        Scope global = new Scope(null);
+        int variables = firsts[root];
+        for (int i = 1; i <= lists[variables]; i++)
+        {
+            global.declare(names.get(lists[variables + i]));
+        }
+        globalNames = new String[global.size()];
+        for (int i = 1; i <= lists[variables]; i++)
+        {
+            String name = names.get(lists[variables + i]);
+            globalNames[global.slotOf(name)] = name;
+        }
+
+        int program = seconds[root];
+        for (int i = 2; i <= lists[program]; i++)
+        {
+            resolveProcedure(lists[program + i], global);
+        }
+        resolve(lists[program + 1], global);
+    }
+
+    /**
+     * Lays out the frame of the procedure node at the given index like
+     * ProcedureDeclaration.resolve, resolves the procedure's statement in it and marks the
+     * procedure's tail calls. A later declaration of the procedure replaces the layout.
+     * @param node specifies the index of the procedure node
+     * @param global specifies the global scope
+     */
+    private void resolveProcedure(int node, Scope global)
+    {
+        int name = firsts[node];
+        int procList = seconds[node];
+        int[] slots = new int[lists[procList] - 2];
+
+        Scope local = new Scope(global);
+        for (int i = 0; i < slots.length; i++)
+        {
+            slots[i] = local.declare(names.get(lists[procList + 3 + i]));
+        }
+        int returnSlot = local.declare(Variable.NAME_PREFIX + names.get(name));
+        int locals = lists[procList + 2];
+        for (int i = 1; i <= lists[locals]; i++)
+        {
+            local.declare(names.get(lists[locals + i]));
+        }
+        resolve(lists[procList + 1], local);
+
+        String[] frame = new String[local.size()];
+        for (int i = 0; i < slots.length; i++)
+        {
+            frame[slots[i]] = names.get(lists[procList + 3 + i]);
+        }
+        frame[returnSlot] = Variable.NAME_PREFIX + names.get(name);
+        for (int i = 1; i <= lists[locals]; i++)
+        {
+            String var = names.get(lists[locals + i]);
+            frame[local.slotOf(var)] = var;
+        }
+
+        procedures[name] = node;
+        argSlots[name] = slots;
+        returnSlots[name] = returnSlot;
+        frameSizes[name] = local.size();
+        slotNames[name] = frame;
+        markTailCalls(lists[procList + 1], name);
+    }
+
+    /**
+     * Resolves every variable in the node at the given index and its children to its lexical
+     * address.
+     * @param node specifies the index of the node
+     * @param scope specifies the scope in which the node appears
+     */
+    private void resolve(int node, Scope scope)
+    {
+        switch (kinds[node])
+        {
+            case VARIABLE:
+            case ASSIGNMENT:
+                String name = names.get(firsts[node]);
+                int depth = scope.depthOf(name);
+                if (depth >= 0)
+                {
+                    firsts[node] = scope.slotOf(name);
+                    operators[node] = (byte) (depth + 1);
+                }
+                if (kinds[node] == ASSIGNMENT)
+                {
+                    resolve(seconds[node], scope);
+                }
+                break;
+            case BINOP:
+            case CONDITION:
+            case WHILE:
+                resolve(firsts[node], scope);
+                resolve(seconds[node], scope);
+                break;
+            case NEGATE:
+            case WRITELN:
+                resolve(firsts[node], scope);
+                break;
+            case CALL:
+            case BLOCK:
+                int list = kinds[node] == CALL ? seconds[node] : firsts[node];
+                for (int i = 1; i <= lists[list]; i++)
+                {
+                    resolve(lists[list + i], scope);
+                }
+                break;
+            case IF:
+                resolve(firsts[node], scope);
+                int branches = seconds[node];
+                resolve(lists[branches + 1], scope);
+                if (lists[branches + 2] >= 0)
+                {
+                    resolve(lists[branches + 2], scope);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Marks the assignments in tail position in the statement node at the given index which
+     * assign a call of the procedure to its name and can reuse its frame, like
+     * Statement.markTailCalls and ProcedureCall.canReuseFrame.
+     * @param node specifies the index of the statement node
+     * @param name specifies the name of the procedure
+     */
+    private void markTailCalls(int node, int name)
+    {
+        switch (kinds[node])
+        {
+            case BLOCK:
+                int list = firsts[node];
+                if (lists[list] > 0)
+                {
+                    markTailCalls(lists[list + lists[list]], name);
+                }
+                break;
+            case IF:
+                int branches = seconds[node];
+                markTailCalls(lists[branches + 1], name);
+                if (lists[branches + 2] >= 0)
+                {
+                    markTailCalls(lists[branches + 2], name);
+                }
+                break;
+            case ASSIGNMENT:
+                int call = seconds[node];
+                if (depth(node) == 0 && firsts[node] == returnSlots[name] && kinds[call] == CALL
+                    && firsts[call] == name && lists[seconds[call]] == argSlots[name].length
+                    && distinct(argSlots[name]))
+                {
+                    operators[node] = TAIL_CALL;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @param slots specifies the slots of a procedure's arguments
+     * @return returns true if every argument has a slot of its own; false otherwise
+     */
+    private static boolean distinct(int[] slots)
+    {
+        for (int i = 0; i < slots.length; i++)
+        {
+            for (int j = 0; j < i; j++)
+            {
+                if (slots[i] == slots[j])
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param node specifies the index of a resolved variable or assignment node
+     * @return returns the depth of the node's variable, or -1 if no scope declares it
+     */
+    private int depth(int node)
+    {
+        return operators[node] == TAIL_CALL ? 0 : operators[node] - 1;
+    }
+
+    /**
+     * Executes the program, i.e., resolves it, declares its variables and executes its
+     * statement, and flushes its output when it ends.
+     * @param env specifies the environment in which the program is executed
+     * @throws Exception if an error occurs during the program execution
+     */
+    public void exec(Environment env) throws Exception
+    {
+        resolve();
+        int variables = firsts[root];
+        for (int i = 1; i <= lists[variables]; i++)
+        {
+            env.declareVariable(names.get(lists[variables + i]), 0);
+        }
+        try
+        {
+            exec(lists[seconds[root] + 1], env);
+        }
+        finally
+        {
+            env.getOutput().flush();
+        }
+    }
+
+    /**
+     * Executes the statement node at the given index.
+     * @param node specifies the index of the statement node
+     * @param env specifies the environment in which the statement is executed
+     * @throws Exception if an error occurs during the statement execution
+     */
+    private void exec(int node, Environment env) throws Exception
+    {
+        switch (kinds[node])
+        {
+            case ASSIGNMENT:
+                if (operators[node] == TAIL_CALL)
+                {
+                    reuseFrame(seconds[node], env);
+                    break;
+                }
+                int value = eval(seconds[node], env);
+                int depth = depth(node);
+                if (depth < 0)
+                {
+                    env.setVariable(names.get(firsts[node]), value);
+                }
+                else
+                {
+                    env.setVariable(depth, firsts[node], value);
+                }
+                break;
+            case WRITELN:
+                env.getOutput().println(eval(firsts[node], env));
+                break;
+            case BLOCK:
+                int list = firsts[node];
+                for (int i = 1; i <= lists[list]; i++)
+                {
+                    exec(lists[list + i], env);
+                }
+                break;
+            case IF:
+                int branches = seconds[node];
+                if (test(firsts[node], env))
+                {
+                    exec(lists[branches + 1], env);
+                }
+                else if (lists[branches + 2] >= 0)
+                {
+                    exec(lists[branches + 2], env);
+                }
+                break;
+            case WHILE:
+                while (test(firsts[node], env))
+                {
+                    exec(seconds[node], env);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Node " + node + " is not a statement");
+        }
+    }
+
+    /**
+     * Evaluates the expression node at the given index.
+     * @param node specifies the index of the expression node
+     * @param env specifies the environment in which the expression is evaluated
+     * @return returns the value of the expression
+     * @throws Exception if an error occurs during the evaluation
+     */
+    private int eval(int node, Environment env) throws Exception
+    {
+        switch (kinds[node])
+        {
+            case NUMBER:
+                return firsts[node];
+            case VARIABLE:
+                int depth = depth(node);
+                if (depth < 0)
+                {
+                    return env.getVariable(names.get(firsts[node]));
+                }
+                return env.getVariable(depth, firsts[node]);
+            case NEGATE:
+                return -eval(firsts[node], env);
+            case BINOP:
+                int val1 = eval(firsts[node], env);
+                int val2 = eval(seconds[node], env);
+                switch (operators[node])
+                {
+                    case ADD:
+                        return val1 + val2;
+                    case SUBTRACT:
+                        return val1 - val2;
+                    case MULTIPLY:
+                        return val1 * val2;
+                    default:
+                        return val1 / val2;
+                }
+            case CALL:
+                return call(node, env);
+            default:
+                throw new IllegalStateException("Node " + node + " is not an expression");
+        }
+    }
+
+    /**
+     * Evaluates the condition node at the given index.
+     * @param node specifies the index of the condition node
+     * @param env specifies the environment in which the condition is evaluated
+     * @return returns true if the condition is true; false otherwise
+     * @throws Exception if an error occurs during the evaluation
+     */
+    private boolean test(int node, Environment env) throws Exception
+    {
+        int val1 = eval(firsts[node], env);
+        int val2 = eval(seconds[node], env);
+
+        switch (operators[node])
+        {
+            case EQUAL:
+                return val1 == val2;
+            case NOT_EQUAL:
+                return val1 != val2;
+            case GREATER:
+                return val1 > val2;
+            case LESS:
+                return val1 < val2;
+            case GREATER_EQUAL:
+                return val1 >= val2;
+            default:
+                return val1 <= val2;
+        }
+    }
+
+    /**
+     * Calls the procedure of the call node at the given index in the same way as
+     * ProcedureCall.eval does, storing the arguments in their slots of a frame taken from the
+     * global environment's pool, and runs the procedure's statement again in the same frame
+     * after every tail call.
+     * @param node specifies the index of the call node
+     * @param env specifies the environment in which the call is evaluated
+     * @return returns the value of the procedure
+     * @throws Exception if an error occurs during the procedure call
+     */
+    private int call(int node, Environment env) throws Exception
+    {
+        int name = firsts[node];
+        int proc = procedures[name];
+        if (proc < 0)
+        {
+            throw new RuntimeException("Procedure " + names.get(name) + " not found");
+        }
+
+        int args = seconds[node];
+        int[] slotsOfArgs = argSlots[name];
+        if (lists[args] != slotsOfArgs.length)
+        {
+            throw new Exception("Wrong number of arguments in procedure call");
+        }
+
+        Environment frame = env.pushFrame(frameSizes[name]);
+        try
+        {
+            int[] slots = frame.getSlots();
+            for (int i = 0; i < slotsOfArgs.length; i++)
+            {
+                slots[slotsOfArgs[i]] = eval(lists[args + 1 + i], env);
+            }
+            int body = lists[seconds[proc] + 1];
+            exec(body, frame);
+            while (frame.isTailCall())
+            {
+                frame.setTailCall(false);
+                exec(body, frame);
+            }
+            return frame.getVariable(0, returnSlots[name]);
+        }
+        finally
+        {
+            env.popFrame();
+        }
+    }
+
+    /**
+     * Makes the call node at the given index as a tail call of the procedure running in the
+     * given frame, like ProcedureCall.reuseFrame: the arguments are evaluated into a spare frame,
+     * which is then copied over the procedure's frame, so that the procedure runs again in the
+     * same frame once the current run ends.
+     * @param node specifies the index of the call node
+     * @param frame specifies the frame of the procedure making the tail call
+     * @throws Exception if an error occurs while evaluating the arguments
+     */
+    private void reuseFrame(int node, Environment frame) throws Exception
+    {
+        int name = firsts[node];
+        int args = seconds[node];
+        int[] slotsOfArgs = argSlots[name];
+        Environment spare = frame.pushFrame(frameSizes[name]);
+        try
+        {
+            int[] slots = spare.getSlots();
+            for (int i = 0; i < slotsOfArgs.length; i++)
+            {
+                slots[slotsOfArgs[i]] = eval(lists[args + 1 + i], frame);
+            }
+            System.arraycopy(slots, 0, frame.getSlots(), 0, frameSizes[name]);
+        }
+        finally
+        {
+            frame.popFrame();
+        }
+        frame.setTailCall(true);
+    }
+
+    /**
+     * Compiles the program into assembly code and emits the assembly code to an output file,
+     * producing the same code as Program.compile except that tail calls are compiled as
+     * ordinary calls. Only the last declaration of a procedure is compiled, since only it is
+     * ever called.
+     * @param e the emitter which emits the assembly code to the output file
+     */
+    public void compile(Emitter e)
+    {
+        resolve();
+        e.emit(".data");
+        e.emit("newLine: .asciiz \"\\n\"");
+
+        int variables = firsts[root];
+        for (int i = 1; i <= lists[variables]; i++)
+        {
+            e.emit(names.get(lists[variables + i]) + ": .word 0");
+        }
+
+        e.emit(".text 0x00400000");
+        e.emit(".globl main");
+        e.emit("main:");
+
+        compile(lists[seconds[root] + 1], e);
+
+        e.emit("li $v0, 10");
+        e.emit("syscall");
+
+        int program = seconds[root];
+        for (int i = 2; i <= lists[program]; i++)
+        {
+            int proc = lists[program + i];
+            if (procedures[firsts[proc]] == proc)
+            {
+                compileProcedure(proc, e);
+            }
+        }
+
+        e.close();
+    }
+
+    /**
+     * Compiles the procedure node at the given index, like ProcedureDeclaration.compile, with
+     * the frame laid out by the resolver.
+     * @param node specifies the index of the node
+     * @param e the emitter which emits the assembly code to the output file
+     */
+    private void compileProcedure(int node, Emitter e)
+    {
+        int name = firsts[node];
+        String proc = names.get(name);
+        int[] slots = argSlots[name];
+        int args = slots.length;
+        int frameSize = frameSizes[name];
+
+        e.emit("# procedure " + proc);
+        e.emit(ProcedureDeclaration.label(proc) + ":");
+        e.emit("# save the return address and the caller's frame pointer");
+        e.emitPush("$ra");
+        e.emitPush("$fp");
+        e.emit("# make a frame of " + frameSize + " words holding 0 below them");
+        e.emit("subu $sp, $sp, " + 4 * frameSize);
+        e.emit("move $fp, $sp");
+        for (int slot = 0; slot < frameSize; slot++)
+        {
+            e.emit("sw $zero, " + 4 * slot + "($fp)");
+        }
+        e.emit("# copy the arguments pushed by the caller into their slots");
+        for (int i = 0; i < args; i++)
+        {
+            e.emit("lw $t0, " + 4 * (frameSize + 2 + args - 1 - i) + "($fp)");
+            e.emit("sw $t0, " + 4 * slots[i] + "($fp)");
+        }
+
+        frameNames = slotNames[name];
+        compile(lists[seconds[node] + 1], e);
+        frameNames = null;
+
+        e.emit("# return the value assigned to the procedure's name");
+        e.emit("lw $v0, " + 4 * returnSlots[name] + "($fp)");
+        e.emit("addu $sp, $sp, " + 4 * frameSize);
+        e.emitPop("$fp");
+        e.emitPop("$ra");
+        e.emit("addu $sp, $sp, " + 4 * args);
+        e.emit("jr $ra");
+    }
+
+    /**
+     * @param node specifies the index of a resolved variable or assignment node
+     * @return returns true if the node's variable is in the frame of the procedure being
+     *         compiled; false if it is global
+     */
+    private boolean inFrame(int node)
+    {
+        return frameNames != null && depth(node) == 0;
+    }
+
+    /**
+     * @param node specifies the index of a resolved variable or assignment node
+     * @return returns the name of the node's variable, which labels its word in the data
+     *         segment if it is global
+     */
+    private String variable(int node)
+    {
+        if (depth(node) < 0)
+        {
+            return names.get(firsts[node]);
+        }
+        return inFrame(node) ? frameNames[firsts[node]] : globalNames[firsts[node]];
+    }
+
+    /**
+     * Compiles the node at the given index into assembly code. Expressions leave their value in
+     * $v0.
+     * @param node specifies the index of the node
+     * @param e the emitter which emits the assembly code to the output file
+     */
+    private void compile(int node, Emitter e)
+    {
+        switch (kinds[node])
+        {
+            case NUMBER:
+                e.emit("# store " + firsts[node] + " in $t0");
+                e.emit("li $v0, " + firsts[node]);
+                break;
+            case VARIABLE:
+                String name = variable(node);
+                e.emit("# load the value of " + name + " from memory and store in $v0");
+                if (inFrame(node))
+                {
+                    e.emit("lw $v0, " + 4 * firsts[node] + "($fp)");
+                }
+                else
+                {
+                    e.emit("la $t0, " + name);
+                    e.emit("lw $v0, ($t0)");
+                }
+                break;
+            case NEGATE:
+                e.emit("# evaluate negation and store result in $v0");
+                compile(firsts[node], e);
+                e.emit("subu $v0, $zero, $v0");
+                break;
+            case BINOP:
+                compileBinOp(node, e);
+                break;
+            case ASSIGNMENT:
+                String var = variable(node);
+                e.emit("# evaluate expression and store in the variable " + var);
+                compile(seconds[node], e);
+                if (inFrame(node))
+                {
+                    e.emit("sw $v0, " + 4 * firsts[node] + "($fp)");
+                }
+                else
+                {
+                    e.emit("la $t0, " + var);
+                    e.emit("sw $v0, ($t0)");
+                }
+                break;
+            case WRITELN:
+                e.emit("# evaluate expression and print the value of the expression");
+                compile(firsts[node], e);
+                e.emit("move $a0, $v0");
+                e.emit("li $v0, 1");
+                e.emit("syscall");
+                e.emit("la $a0, newLine");
+                e.emit("li $v0, 4");
+                e.emit("syscall");
+                break;
+            case BLOCK:
+                int list = firsts[node];
+                for (int i = 1; i <= lists[list]; i++)
+                {
+                    compile(lists[list + i], e);
+                }
+                break;
+            case IF:
+                compileIf(node, e);
+                break;
+            case WHILE:
+                compileWhile(node, e);
+                break;
+            case CALL:
+                String proc = names.get(firsts[node]);
+                e.emit("# evaluate the arguments, push them and call procedure " + proc);
+                int args = seconds[node];
+                for (int i = 1; i <= lists[args]; i++)
+                {
+                    compile(lists[args + i], e);
+                    e.emitPush("$v0");
+                }
+                e.emit("jal " + ProcedureDeclaration.label(proc));
+                break;
+            default:
+                throw new IllegalStateException("Node " + node + " is not an expression or a "
+                    + "statement");
+        }
+    }
+
+    /**
+     * Compiles the binary operation node at the given index, like BinOp.compile.
+     * @param node specifies the index of the node
+     * @param e the emitter which emits the assembly code to the output file
+     */
+    private void compileBinOp(int node, Emitter e)
+    {
+        e.emit("# evaluate binary operation and store result in $v0");
+
+        compile(firsts[node], e);
+        e.emitPush("$v0");
+        compile(seconds[node], e);
+        e.emitPop("$t0");
+
+        switch (operators[node])
+        {
+            case ADD:
+                e.emit("addu $v0, $t0, $v0");
+                break;
+            case SUBTRACT:
+                e.emit("subu $v0, $t0, $v0");
+                break;
+            case MULTIPLY:
+                e.emit("mult $t0, $v0");
+                e.emit("mflo $v0");
+                break;
+            default:
+                e.emit("div $t0, $v0");
+                e.emit("mflo $v0");
+                break;
+        }
+    }
+
+    /**
+     * Compiles the condition node at the given index, like Condition.compile.
+     * @param node specifies the index of the node
+     * @param e the emitter which emits the assembly code to the output file
+     * @param label specifies the label to branch to if the condition is false
+     */
+    private void compileCondition(int node, Emitter e, String label)
+    {
+        e.emit("# evaluate condition and branch to label " + label);
+
+        compile(firsts[node], e);
+        e.emitPush("$v0");
+        compile(seconds[node], e);
+        e.emitPop("$t0");
+
+        e.emit(BRANCHES[operators[node] - EQUAL] + " $t0, $v0, " + label);
+    }
+
+    /**
+     * Compiles the if statement node at the given index, like If.compile.
+     * @param node specifies the index of the node
+     * @param e the emitter which emits the assembly code to the output file
+     */
+    private void compileIf(int node, Emitter e)
+    {
+        String ifID = String.valueOf(e.nextLabelID());
+        String ifLabel = "ifthen" + ifID;
+        String elseLabel = "ifelse" + ifID;
+        String afterLabel = "ifafter" + ifID;
+
+        e.emit("# evaluate condition(s) and create label(s) for if (and else statements)");
+
+        int thenNode = lists[seconds[node] + 1];
+        int elseNode = lists[seconds[node] + 2];
+
+        compileCondition(firsts[node], e, elseNode < 0 ? afterLabel : elseLabel);
+        e.emit("j " + ifLabel);
+
+        e.emit(ifLabel + ":");
+        compile(thenNode, e);
+        e.emit("j " + afterLabel);
+
+        if (elseNode >= 0)
+        {
+            e.emit(elseLabel + ":");
+            compile(elseNode, e);
+            e.emit("j " + afterLabel);
+        }
+
+        e.emit(afterLabel + ":");
+    }
+
+    /**
+     * Compiles the while loop node at the given index, like While.compile.
+     * @param node specifies the index of the node
+     * @param e the emitter which emits the assembly code to the output file
+     */
+    private void compileWhile(int node, Emitter e)
+    {
+        int labelID = e.nextLabelID();
+        String whileLoop = "whileLoop" + labelID;
+        String endWhileLoop = "endWhileLoop" + labelID;
+
+        e.emit("# jump to while loop");
+        e.emit("j " + whileLoop);
+        e.emit(whileLoop + ":");
+        e.emit("# evluate condition for while loop and jump to end while loop if false");
+        compileCondition(firsts[node], e, endWhileLoop);
+        e.emit("# contents of while loop");
+        compile(seconds[node], e);
+        e.emit("j " + whileLoop);
+        e.emit("# after while loop");
+        e.emit(endWhileLoop + ":");
+    }
+}
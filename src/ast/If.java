@@ -1,6 +1,17 @@
 package ast;
 
+import java.util.ArrayList;
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.BasicBlock;
+import ir.IrBuilder;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
 
 /**
  * A class to represent an if statement, with a condition, statement for if the condition is true,
@@ -101,4 +112,298 @@ public class If extends Statement
 
         e.emit(afterLabel + ":");
     }
+
+    /**
+     * Assembles the if statement into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        int elseLabel = a.newLabel();
+        int afterLabel = a.newLabel();
+
+        condition.assemble(a, elseLabel);
+        ifStatement.assemble(a);
+        if (elseStatement != null)
+        {
+            a.emitJump(Bytecode.GOTO, afterLabel);
+            a.mark(elseLabel);
+            elseStatement.assemble(a);
+        }
+        else
+        {
+            a.mark(elseLabel);
+        }
+        a.mark(afterLabel);
+    }
+
+    /**
+     * Lowers the if statement into a branch to a block for each of its statements, both of
+     * which continue at the block following the if statement.
+     * @param b the builder which collects the instructions
+     */
+    public void lower(IrBuilder b)
+    {
+        BasicBlock thenBlock = b.newBlock();
+        BasicBlock elseBlock = elseStatement == null ? null : b.newBlock();
+        BasicBlock afterBlock = b.newBlock();
+
+        condition.lower(b, thenBlock, elseBlock == null ? afterBlock : elseBlock);
+        b.setBlock(thenBlock);
+        ifStatement.lower(b);
+        b.jump(afterBlock);
+        if (elseBlock != null)
+        {
+            b.setBlock(elseBlock);
+            elseStatement.lower(b);
+            b.jump(afterBlock);
+        }
+        b.setBlock(afterBlock);
+    }
+
+    /**
+     * Adds the if statement to the given flat tree.
+     * @param tree the flat tree to add the if statement to
+     * @return returns the index of the if statement's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        int conditionNode = condition.flatten(tree);
+        int ifNode = ifStatement.flatten(tree);
+        int elseNode = elseStatement == null ? -1 : elseStatement.flatten(tree);
+        return tree.addNode(FlatTree.IF, 0, conditionNode, 
+            tree.addList(new int[]{ifNode, elseNode}));
+    }
+
+    /**
+     * Resolves every variable referenced by the if statement to its lexical address.
+     * @param scope specifies the scope in which the if statement appears
+     */
+    public void resolve(Scope scope)
+    {
+        condition.resolve(scope);
+        ifStatement.resolve(scope);
+        if (elseStatement != null)
+        {
+            elseStatement.resolve(scope);
+        }
+    }
+
+    /**
+     * Checks whether the condition and both branches of the if statement are pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the if statement is pure; false otherwise
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return condition.isPure(pure) && ifStatement.isPure(pure)
+            && (elseStatement == null || elseStatement.isPure(pure));
+    }
+
+    /**
+     * Folds the condition and both branches of the if statement. An if statement whose
+     * condition is constant is replaced by the branch that runs, or by an empty block if no
+     * branch runs.
+     * @return returns the simplified if statement
+     */
+    public Statement fold()
+    {
+        Condition folded = condition.fold();
+        if (folded.isConstant())
+        {
+            if (folded.isTrue())
+            {
+                return ifStatement.fold();
+            }
+            if (elseStatement != null)
+            {
+                return elseStatement.fold();
+            }
+            return new Block(new ArrayList<Statement>());
+        }
+        if (elseStatement == null)
+        {
+            return new If(folded, ifStatement.fold());
+        }
+        return new If(folded, ifStatement.fold(), elseStatement.fold());
+    }
+
+
+    /**
+     * Adds the variables assigned and the procedures called by the condition and both
+     * branches of the if statement.
+     * @param variables specifies the set of variable names
+     * @param procedures specifies the set of procedure names
+     */
+    public void findWrites(Set<String> variables, Set<String> procedures)
+    {
+        condition.findCalls(procedures);
+        ifStatement.findWrites(variables, procedures);
+        if (elseStatement != null)
+        {
+            elseStatement.findWrites(variables, procedures);
+        }
+    }
+
+    /**
+     * Moves the invariant expressions of the condition and both branches of the if statement
+     * out of loops. Only one of the branches runs.
+     * @param licm specifies the pass
+     * @return returns the if statement with the expressions moved
+     */
+    public Statement hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        Condition hoisted = condition.hoistInvariants(licm);
+        licm.stopHoistingEffects();
+        if (elseStatement == null)
+        {
+            return new If(hoisted, ifStatement.hoistInvariants(licm));
+        }
+        Statement thenStatement = ifStatement.hoistInvariants(licm);
+        return new If(hoisted, thenStatement, elseStatement.hoistInvariants(licm));
+    }
+
+
+    /**
+     * Replaces the operations of the condition and both branches of the if statement whose
+     * value is available by temporaries. An operation stays available after the if statement
+     * if it is available after either branch.
+     * @param gvn specifies the pass
+     * @return returns the if statement with the operations replaced
+     */
+    public Statement numberValues(GlobalValueNumbering gvn)
+    {
+        gvn.beginStatement();
+        Condition numbered = condition.numberValues(gvn);
+        gvn.enterBranches();
+        Statement thenStatement = ifStatement.numberValues(gvn);
+        gvn.enterElse();
+        If replaced;
+        if (elseStatement == null)
+        {
+            replaced = new If(numbered, thenStatement);
+        }
+        else
+        {
+            replaced = new If(numbered, thenStatement, elseStatement.numberValues(gvn));
+        }
+        gvn.exitBranches();
+        return gvn.endStatement(replaced);
+    }
+
+    /**
+     * Removes the dead code of both branches of the if statement. A variable is live before
+     * the branches if it is live at the start of either of them, and the if statement is
+     * removed if neither branch has anything left to run and its condition has no effects.
+     * @param dce specifies the pass
+     * @return returns the if statement with the dead code removed, or an empty block if it is
+     *         removed
+     */
+    public Statement eliminateDeadCode(DeadCodeElimination dce)
+    {
+        dce.enterBranches();
+        Statement thenStatement = ifStatement.eliminateDeadCode(dce);
+        dce.enterElse();
+        Statement otherStatement = null;
+        if (elseStatement != null)
+        {
+            otherStatement = elseStatement.eliminateDeadCode(dce);
+            if (otherStatement instanceof Block && ((Block) otherStatement).isEmpty())
+            {
+                otherStatement = null;
+            }
+        }
+        dce.exitBranches();
+        if (otherStatement == null && thenStatement instanceof Block
+            && ((Block) thenStatement).isEmpty() && !condition.hasEffects())
+        {
+            dce.remove();
+            return new Block(new ArrayList<Statement>());
+        }
+        dce.read(condition);
+        if (otherStatement == null)
+        {
+            return new If(condition, thenStatement);
+        }
+        return new If(condition, thenStatement, otherStatement);
+    }
+
+    /**
+     * Adds the variables read by the condition and both branches of the if statement.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        condition.findReads(variables);
+        ifStatement.findReads(variables);
+        if (elseStatement != null)
+        {
+            elseStatement.findReads(variables);
+        }
+    }
+
+    /**
+     * Inlines the calls of the condition before the if statement, and those of both branches
+     * within them.
+     * @param inl specifies the pass
+     * @return returns the if statement with the calls inlined, after the procedures inlined
+     *         from the condition
+     */
+    public Statement inlineCalls(Inliner inl)
+    {
+        inl.beginStatement();
+        Condition inlined = condition.inlineCalls(inl);
+        Statement thenStatement = ifStatement.inlineCalls(inl);
+        if (elseStatement == null)
+        {
+            return inl.endStatement(new If(inlined, thenStatement));
+        }
+        Statement otherStatement = elseStatement.inlineCalls(inl);
+        return inl.endStatement(new If(inlined, thenStatement, otherStatement));
+    }
+
+    /**
+     * Marks the tail calls made by either branch of the if statement.
+     * @param proc specifies the procedure whose body contains the if statement
+     */
+    public void markTailCalls(ProcedureDeclaration proc)
+    {
+        ifStatement.markTailCalls(proc);
+        if (elseStatement != null)
+        {
+            elseStatement.markTailCalls(proc);
+        }
+    }
+
+    /**
+     * Compiles the if statement into a closure, leaving out the else branch if there is none.
+     * @return returns the closure executing the if statement
+     */
+    public StatementClosure closure()
+    {
+        ConditionClosure test = condition.closure();
+        StatementClosure thenClosure = ifStatement.closure();
+        if (elseStatement == null)
+        {
+            return env ->
+            {
+                if (test.eval(env))
+                {
+                    thenClosure.exec(env);
+                }
+            };
+        }
+        StatementClosure elseClosure = elseStatement.closure();
+        return env ->
+        {
+            if (test.eval(env))
+            {
+                thenClosure.exec(env);
+            }
+            else
+            {
+                elseClosure.exec(env);
+            }
+        };
+    }
 }
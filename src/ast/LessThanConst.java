@@ -0,0 +1,35 @@
+package ast;
+
+/**
+ * Class representing a less-than condition in the AST whose right side is a number, specialized
+ * from Condition so that its eval compares the left side with the number directly.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class LessThanConst extends Condition
+{
+    private int value;
+
+    /**
+     * Creates a less-than condition object with the expression on the left side of the operator and
+     * the number on the right side of the operator.
+     * @param exp1 the expression on the left side of the operator
+     * @param exp2 the number on the right side of the operator
+     */
+    public LessThanConst(Expression exp1, Number exp2)
+    {
+        super("<", exp1, exp2);
+        value = exp2.getValue();
+    }
+
+    /**
+     * Evaluates the condition.
+     * @param env specifies the environment in which the condition is evaluated
+     * @return returns true if condition is true; false otherwise
+     * @throws Exception if an error occurs while evaluating the left side
+     */
+    public boolean eval(Environment env) throws Exception
+    {
+        return exp1.eval(env) < value;
+    }
+}
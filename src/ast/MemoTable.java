@@ -0,0 +1,343 @@
+package ast;
+
+import java.util.Arrays;
+
+/**
+ * The MemoTable class remembers the values a pure procedure returned for the argument tuples it
+ * was last called with. The table holds at most a fixed number of entries and evicts the entry
+ * used least recently to make room for a new one.
+ * The entries live in parallel int arrays: the arguments of entry i occupy arity ints starting
+ * at i * arity, the entries of each hash bucket are chained through an array of indices and the
+ * order of use is a doubly linked list of indices, so looking up a tuple boxes nothing and a
+ * full table allocates nothing to store an entry.
+ * The table counts its hits, misses and evictions, from which its capacity can be tuned.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class MemoTable
+{
+    /**
+     * The default number of entries in a table.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 10;
+
+    private static final int NONE = -1;
+
+    private int arity;
+    private int capacity;
+    private int[] keys;
+    private int[] values;
+    private int[] hashes;
+    private int[] buckets;
+    private int[] chain;
+    private int[] newer;
+    private int[] older;
+    private int newest;
+    private int oldest;
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates an empty table for a procedure with the given number of arguments.
+     * @param arity specifies the number of arguments in each key
+     * @param capacity specifies the largest number of entries the table holds
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public MemoTable(int arity, int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Memo table capacity " + capacity
+                + " is not positive");
+        }
+        this.arity = arity;
+        this.capacity = capacity;
+        keys = new int[arity * capacity];
+        values = new int[capacity];
+        hashes = new int[capacity];
+        chain = new int[capacity];
+        newer = new int[capacity];
+        older = new int[capacity];
+
+        // at least twice as many buckets as entries keeps the chains short
+        int bucketCount = Integer.highestOneBit(Math.max(1, capacity - 1)) << 2;
+        buckets = new int[bucketCount];
+        Arrays.fill(buckets, NONE);
+        newest = NONE;
+        oldest = NONE;
+    }
+
+    /**
+     * Looks up the arguments of a call held in the given slots of a frame, counting a hit or a
+     * miss. An entry found becomes the most recently used one.
+     * @param slots specifies the slots of the frame
+     * @param argSlots specifies the slot of each argument in the frame
+     * @return returns the index of the entry holding the arguments, or -1 if none does
+     */
+    public int find(int[] slots, int[] argSlots)
+    {
+        int hash = arity;
+        for (int i = 0; i < arity; i++)
+        {
+            hash = 31 * hash + slots[argSlots[i]];
+        }
+        hash = spread(hash);
+
+        for (int entry = buckets[hash & (buckets.length - 1)]; entry != NONE;
+            entry = chain[entry])
+        {
+            if (hashes[entry] == hash && matches(entry, slots, argSlots))
+            {
+                hits++;
+                touch(entry);
+                return entry;
+            }
+        }
+        misses++;
+        return NONE;
+    }
+
+    /**
+     * @param entry specifies the index of an entry found by find
+     * @return returns the value stored in the entry
+     */
+    public int getValue(int entry)
+    {
+        return values[entry];
+    }
+
+    /**
+     * Stores the value returned for the given arguments as the most recently used entry,
+     * evicting the least recently used entry if the table is full.
+     * @param key specifies an array whose first ints are the arguments
+     * @param value specifies the value returned for the arguments
+     */
+    public void put(int[] key, int value)
+    {
+        int hash = arity;
+        for (int i = 0; i < arity; i++)
+        {
+            hash = 31 * hash + key[i];
+        }
+        hash = spread(hash);
+        int bucket = hash & (buckets.length - 1);
+
+        for (int entry = buckets[bucket]; entry != NONE; entry = chain[entry])
+        {
+            if (hashes[entry] == hash && matches(entry, key))
+            {
+                values[entry] = value;
+                touch(entry);
+                return;
+            }
+        }
+
+        int entry;
+        if (size < capacity)
+        {
+            entry = size++;
+        }
+        else
+        {
+            entry = oldest;
+            unlink(entry);
+            removeFromBucket(entry);
+            evictions++;
+        }
+        System.arraycopy(key, 0, keys, entry * arity, arity);
+        values[entry] = value;
+        hashes[entry] = hash;
+        chain[entry] = buckets[bucket];
+        buckets[bucket] = entry;
+        linkNewest(entry);
+    }
+
+    /**
+     * @return returns the largest number of entries the table holds
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @return returns the number of entries in the table
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return returns the number of lookups which found their arguments
+     */
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * @return returns the number of lookups which did not find their arguments
+     */
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * @return returns the number of entries evicted to make room for new ones
+     */
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * @return returns the fraction of lookups which found their arguments, or 0 if there have
+     *         been no lookups
+     */
+    public double getHitRate()
+    {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return returns the counters of the table as a line of text
+     */
+    public String toString()
+    {
+        return String.format("%d/%d entries, %d hits, %d misses, %d evictions, %.1f%% hit rate",
+            size, capacity, hits, misses, evictions, 100 * getHitRate());
+    }
+
+    /**
+     * Mixes the high bits of a hash into its low bits, which select the bucket.
+     * @param hash specifies the hash
+     * @return returns the mixed hash
+     */
+    private static int spread(int hash)
+    {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Checks whether an entry holds the arguments in the given slots of a frame.
+     * @param entry specifies the index of the entry
+     * @param slots specifies the slots of the frame
+     * @param argSlots specifies the slot of each argument in the frame
+     * @return returns true if the entry holds the arguments; false otherwise
+     */
+    private boolean matches(int entry, int[] slots, int[] argSlots)
+    {
+        int base = entry * arity;
+        for (int i = 0; i < arity; i++)
+        {
+            if (keys[base + i] != slots[argSlots[i]])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether an entry holds the arguments at the start of the given array.
+     * @param entry specifies the index of the entry
+     * @param key specifies the array holding the arguments
+     * @return returns true if the entry holds the arguments; false otherwise
+     */
+    private boolean matches(int entry, int[] key)
+    {
+        int base = entry * arity;
+        for (int i = 0; i < arity; i++)
+        {
+            if (keys[base + i] != key[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes an entry the most recently used one.
+     * @param entry specifies the index of the entry
+     */
+    private void touch(int entry)
+    {
+        if (entry != newest)
+        {
+            unlink(entry);
+            linkNewest(entry);
+        }
+    }
+
+    /**
+     * Adds an entry which is not in the order of use as the most recently used one.
+     * @param entry specifies the index of the entry
+     */
+    private void linkNewest(int entry)
+    {
+        newer[entry] = NONE;
+        older[entry] = newest;
+        if (newest != NONE)
+        {
+            newer[newest] = entry;
+        }
+        else
+        {
+            oldest = entry;
+        }
+        newest = entry;
+    }
+
+    /**
+     * Removes an entry from the order of use.
+     * @param entry specifies the index of the entry
+     */
+    private void unlink(int entry)
+    {
+        int next = newer[entry];
+        int previous = older[entry];
+        if (previous != NONE)
+        {
+            newer[previous] = next;
+        }
+        else
+        {
+            oldest = next;
+        }
+        if (next != NONE)
+        {
+            older[next] = previous;
+        }
+        else
+        {
+            newest = previous;
+        }
+    }
+
+    /**
+     * Removes an entry from the chain of its bucket.
+     * @param entry specifies the index of the entry
+     */
+    private void removeFromBucket(int entry)
+    {
+        int bucket = hashes[entry] & (buckets.length - 1);
+        if (buckets[bucket] == entry)
+        {
+            buckets[bucket] = chain[entry];
+            return;
+        }
+        int previous = buckets[bucket];
+        while (chain[previous] != entry)
+        {
+            previous = chain[previous];
+        }
+        chain[previous] = chain[entry];
+    }
+}
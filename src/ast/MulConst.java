@@ -0,0 +1,35 @@
+package ast;
+
+/**
+ * Class representing a multiplication in the AST whose right side is a number, specialized from
+ * BinOp so that its eval multiplies the left side by a constant directly.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class MulConst extends BinOp
+{
+    private int value;
+
+    /**
+     * Creates a multiplication object with the expression on the left side of the operator and the
+     * number on the right side of the operator.
+     * @param exp1 the expression on the left side of the operator
+     * @param exp2 the number on the right side of the operator
+     */
+    public MulConst(Expression exp1, Number exp2)
+    {
+        super("*", exp1, exp2);
+        value = exp2.getValue();
+    }
+
+    /**
+     * Evaluates the operation.
+     * @param env specifies the environment in which the operation is evaluated
+     * @return returns the result of the operation
+     * @throws Exception if an error occurs while evaluating the left side
+     */
+    public int eval(Environment env) throws Exception
+    {
+        return exp1.eval(env) * value;
+    }
+}
@@ -0,0 +1,233 @@
+package ast;
+
+import java.util.Set;
+
+import emitter.Emitter;
+import ir.Instruction;
+import ir.IrBuilder;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
+
+/**
+ * Class that represents the negation of an expression, i.e., a unary minus.
+ * Contains the method eval which evaluates the negation.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Negate extends Expression
+{
+    private Expression exp;
+
+    /**
+     * Creates a negation object for the given expression.
+     * @param exp the expression to negate
+     */
+    public Negate(Expression exp) 
+    {
+        this.exp = exp;
+    }
+
+    /**
+     * Evaluates the negation.
+     * @param env specifies the environment in which the negation is evaluated
+     * @return returns the negated value of the expression
+     * @throws Exception if the expression is invalid
+     */
+    public int eval(Environment env) throws Exception 
+    {
+        return -exp.eval(env);
+    }
+
+    /**
+     * Compiles the negation into assembly code and emits the assembly code to an output file.
+     * @param e the emitter which emits the assembly code to the output file
+     */
+    public void compile(Emitter e) 
+    {
+        e.emit("# evaluate negation and store result in $v0");
+
+        exp.compile(e);
+        e.emit("subu $v0, $zero, $v0");
+    }
+
+    /**
+     * Assembles the negation into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        exp.assemble(a);
+        a.emit(Bytecode.NEG);
+    }
+
+    /**
+     * Lowers the negation into the intermediate representation.
+     * @param b the builder which collects the instructions
+     * @return returns the instruction computing the negation
+     */
+    public Instruction lower(IrBuilder b)
+    {
+        return b.negate(exp.lower(b));
+    }
+
+    /**
+     * Adds the negation to the given flat tree.
+     * @param tree the flat tree to add the negation to
+     * @return returns the index of the negation's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        return tree.addNode(FlatTree.NEGATE, 0, exp.flatten(tree), 0);
+    }
+
+    /**
+     * Resolves every variable referenced by the negation to its lexical address.
+     * @param scope specifies the scope in which the negation appears
+     */
+    public void resolve(Scope scope)
+    {
+        exp.resolve(scope);
+    }
+
+    /**
+     * Checks whether the negated expression is pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the negation is pure; false otherwise
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return exp.isPure(pure);
+    }
+
+    /**
+     * Checks whether the negated expression may have effects.
+     * @return returns true if the negation may have effects; false otherwise
+     */
+    public boolean hasEffects()
+    {
+        return exp.hasEffects();
+    }
+
+    /**
+     * Folds the negated expression and the negation itself.
+     * @return returns the simplified negation
+     */
+    public Expression fold()
+    {
+        return negate(exp.fold());
+    }
+
+
+    /**
+     * Adds the procedures called by the negated expression.
+     * @param procedures specifies the set of procedure names
+     */
+    public void findCalls(Set<String> procedures)
+    {
+        exp.findCalls(procedures);
+    }
+
+    /**
+     * Finds the outermost loop in which the negated expression is invariant.
+     * @param licm specifies the pass
+     * @return returns the index of the loop, or a number at least the number of enclosing loops
+     *         if the negation is invariant in none of them
+     */
+    public int invariantLoop(LoopInvariantCodeMotion licm)
+    {
+        return exp.invariantLoop(licm);
+    }
+
+    /**
+     * Moves the negation out of a loop if it can, and otherwise the parts of the negated
+     * expression which can.
+     * @param licm specifies the pass
+     * @return returns the temporary or the negation with the parts replaced
+     */
+    public Expression hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        if (licm.canHoist(this))
+        {
+            return licm.hoist(this);
+        }
+        return new Negate(exp.hoistInvariants(licm));
+    }
+
+
+    /**
+     * Adds the variables read by the negated expression.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        exp.findReads(variables);
+    }
+
+    /**
+     * Finds the key of the negation from the key of the negated expression.
+     * @return returns the key, or null if the negated expression calls a procedure
+     */
+    public String valueKey()
+    {
+        String key = exp.valueKey();
+        return key == null ? null : "(-" + key + ")";
+    }
+
+    /**
+     * Replaces the negation by a temporary if its value is available, and otherwise the
+     * operations of the negated expression.
+     * @param gvn specifies the pass
+     * @return returns the temporary or the negation with the operations replaced
+     */
+    public Expression numberValues(GlobalValueNumbering gvn)
+    {
+        Variable reused = gvn.reuse(this);
+        if (reused != null)
+        {
+            return reused;
+        }
+        return gvn.define(this, new Negate(exp.numberValues(gvn)));
+    }
+
+    /**
+     * Negates an expression which has already been folded, negating a number directly and
+     * cancelling a double negation.
+     * @param exp specifies the folded expression
+     * @return returns the simplified negation of the expression
+     */
+    public static Expression negate(Expression exp)
+    {
+        if (exp instanceof Number)
+        {
+            return new Number(-((Number) exp).getValue());
+        }
+        if (exp instanceof Negate)
+        {
+            return ((Negate) exp).exp;
+        }
+        return new Negate(exp);
+    }
+
+    /**
+     * Inlines the calls of the negated expression.
+     * @param inl specifies the pass
+     * @return returns the negation of the expression with the calls inlined
+     */
+    public Expression inlineCalls(Inliner inl)
+    {
+        return new Negate(exp.inlineCalls(inl));
+    }
+
+    /**
+     * Compiles the negation into a closure.
+     * @return returns the closure evaluating the negation
+     */
+    public ExpressionClosure closure()
+    {
+        ExpressionClosure operand = exp.closure();
+        return env -> -operand.eval(env);
+    }
+}
@@ -0,0 +1,32 @@
+package ast;
+
+/**
+ * Class representing an inequality condition in the AST, specialized from Condition so that its
+ * eval performs the inequality without matching the operator.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class NotEqual extends Condition
+{
+    /**
+     * Creates an inequality condition object with the expression on the left side of the operator
+     * and the expression on the right side of the operator.
+     * @param exp1 the expression on the left side of the operator
+     * @param exp2 the expression on the right side of the operator
+     */
+    public NotEqual(Expression exp1, Expression exp2)
+    {
+        super("<>", exp1, exp2);
+    }
+
+    /**
+     * Evaluates the condition.
+     * @param env specifies the environment in which the condition is evaluated
+     * @return returns true if condition is true; false otherwise
+     * @throws Exception if an error occurs while evaluating either side
+     */
+    public boolean eval(Environment env) throws Exception
+    {
+        return exp1.eval(env) != exp2.eval(env);
+    }
+}
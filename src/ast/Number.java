@@ -1,6 +1,15 @@
 package ast;
 
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.Instruction;
+import ir.IrBuilder;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
 
 /**
  * Class representing a number in the AST.
@@ -21,6 +30,14 @@ public class Number extends Expression
         this.value = value;
     }
 
+    /**
+     * @return returns the value of the number
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
     /**
      * Returns the value of the number as an integer.
      * @param env specifies the environment in which the number is evaluated
@@ -41,4 +58,146 @@ public class Number extends Expression
 
         e.emit("li $v0, " + value);
     }
+
+    /**
+     * Assembles the number into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        a.emit(Bytecode.CONST, value);
+    }
+
+    /**
+     * Lowers the number into a constant of the intermediate representation.
+     * @param b the builder which collects the instructions
+     * @return returns the constant
+     */
+    public Instruction lower(IrBuilder b)
+    {
+        return b.constant(value);
+    }
+
+    /**
+     * Adds the number to the given flat tree.
+     * @param tree the flat tree to add the number to
+     * @return returns the index of the number's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        return tree.addNode(FlatTree.NUMBER, 0, value, 0);
+    }
+
+    /**
+     * Does nothing, since a number references no variables.
+     * @param scope specifies the scope in which the number appears
+     */
+    public void resolve(Scope scope)
+    {
+    }
+
+    /**
+     * A number is pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return true;
+    }
+
+    /**
+     * A number has no effects.
+     * @return returns false
+     */
+    public boolean hasEffects()
+    {
+        return false;
+    }
+
+    /**
+     * A number is already folded.
+     * @return returns the number itself
+     */
+    public Number fold()
+    {
+        return this;
+    }
+
+
+    /**
+     * A number calls no procedures.
+     * @param procedures specifies the set of procedure names
+     */
+    public void findCalls(Set<String> procedures)
+    {
+    }
+
+    /**
+     * A number is invariant in every loop.
+     * @param licm specifies the pass
+     * @return returns 0
+     */
+    public int invariantLoop(LoopInvariantCodeMotion licm)
+    {
+        return 0;
+    }
+
+    /**
+     * A number is not worth moving out of a loop.
+     * @param licm specifies the pass
+     * @return returns the number itself
+     */
+    public Number hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        return this;
+    }
+
+
+    /**
+     * A number reads no variables.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+    }
+
+    /**
+     * The key of a number is its value.
+     * @return returns the key
+     */
+    public String valueKey()
+    {
+        return String.valueOf(value);
+    }
+
+    /**
+     * A number is not worth replacing.
+     * @param gvn specifies the pass
+     * @return returns the number itself
+     */
+    public Number numberValues(GlobalValueNumbering gvn)
+    {
+        return this;
+    }
+
+    /**
+     * A number calls no procedures.
+     * @param inl specifies the pass
+     * @return returns the number itself
+     */
+    public Number inlineCalls(Inliner inl)
+    {
+        return this;
+    }
+
+    /**
+     * Compiles the number into a closure returning its value.
+     * @return returns the closure evaluating the number
+     */
+    public ExpressionClosure closure()
+    {
+        int value = this.value;
+        return env -> value;
+    }
 }
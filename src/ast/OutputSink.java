@@ -0,0 +1,140 @@
+package ast;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * The OutputSink class collects the lines a program prints in a byte buffer and writes the
+ * buffer to its stream only when it fills up or is flushed, instead of making one synchronized,
+ * flushing call to System.out per line. Integers are converted to digits directly in the
+ * buffer, so printing a value allocates nothing.
+ * The sink of a running program is held by its global Environment, and the program flushes it
+ * when it ends. A sink created with line flushing writes every line as soon as it is complete,
+ * for interactive use.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class OutputSink
+{
+    /**
+     * The default size of the buffer in bytes.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 13;
+
+    // the longest line is a sign, ten digits and a newline
+    private static final int MAX_LINE = 12;
+
+    private OutputStream out;
+    private byte[] buffer;
+    private int count;
+    private boolean lineFlush;
+
+    /**
+     * Creates a sink writing to System.out through a buffer of the default size, which is
+     * written only when it fills up or is flushed.
+     */
+    public OutputSink()
+    {
+        this(System.out, DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * Creates a sink writing to the given stream.
+     * @param out specifies the stream to which the buffer is written
+     * @param bufferSize specifies the size of the buffer in bytes
+     * @param lineFlush specifies whether the buffer is written and the stream flushed after
+     *                  every line
+     * @throws IllegalArgumentException if the buffer cannot hold a line
+     */
+    public OutputSink(OutputStream out, int bufferSize, boolean lineFlush)
+    {
+        if (bufferSize < MAX_LINE)
+        {
+            throw new IllegalArgumentException("Buffer size " + bufferSize + " is too small");
+        }
+        this.out = out;
+        buffer = new byte[bufferSize];
+        this.lineFlush = lineFlush;
+    }
+
+    /**
+     * Prints the integer on its own line.
+     * @param value specifies the integer
+     * @throws UncheckedIOException if an error occurs while writing to the stream
+     */
+    public void println(int value)
+    {
+        if (buffer.length - count < MAX_LINE)
+        {
+            writeBuffer();
+        }
+
+        // digits are produced from the right, working with the negative value so that the
+        // smallest int needs no special case
+        int length = value < 0 ? 1 : 0;
+        int rest = value < 0 ? value : -value;
+        for (int digits = rest; digits <= -10; digits /= 10)
+        {
+            length++;
+        }
+        length++;
+
+        int pos = count + length;
+        do
+        {
+            buffer[--pos] = (byte) ('0' - rest % 10);
+            rest /= 10;
+        }
+        while (rest != 0);
+        if (value < 0)
+        {
+            buffer[--pos] = '-';
+        }
+        count += length;
+        buffer[count++] = '\n';
+
+        if (lineFlush)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered lines to the stream and flushes the stream.
+     * @throws UncheckedIOException if an error occurs while writing to the stream
+     */
+    public void flush()
+    {
+        writeBuffer();
+        try
+        {
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the buffered lines to the stream and empties the buffer.
+     * @throws UncheckedIOException if an error occurs while writing to the stream
+     */
+    private void writeBuffer()
+    {
+        if (count == 0)
+        {
+            return;
+        }
+        try
+        {
+            out.write(buffer, 0, count);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        count = 0;
+    }
+}
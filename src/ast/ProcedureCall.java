@@ -1,8 +1,16 @@
 package ast;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import emitter.Emitter;
+import ir.Instruction;
+import ir.IrBuilder;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
 
 /**
  * A class to represent a procedure call, with a procedure name and a list of arguments.
@@ -14,6 +22,9 @@ public class ProcedureCall extends Expression
 {
     private String name;
     private List<Expression> args;
+    private ProcedureDeclaration cachedProc;
+    private Environment cachedGlobal;
+    private int cachedVersion;
 
     /**
      * Creates a procedure call object with the procedure name and the list of arguments.
@@ -27,44 +38,497 @@ public class ProcedureCall extends Expression
     }
 
     /**
-     * Retrieves the procedure from the environment, evaluates the arguments, sets each of the
-     * arguments in the environment based on the parameter names , and executes the procedure call.
+     * Retrieves the procedure through the call's cache, evaluates the arguments in the caller's
+     * environment, stores each of them in its slot of a frame taken from the global
+     * environment's pool and executes the procedure call, returning the frame to the pool
+     * afterwards.
      * @param env specifies the environment in which the procedure call is executed
      * @throws Exception if an error occurs during the procedure call
-     * @return returns 0
+     * @return returns the value assigned to the procedure's name, or 0 if none is assigned
      */
     public int eval(Environment env) throws Exception
     {
-        env = new Environment(env);
+        ProcedureDeclaration proc = lookup(env);
 
-        ProcedureDeclaration proc = env.getProcedure(name);
+        int[] argSlots = proc.getArgSlots();
 
-        List<String> procArgs = proc.getArgs();
-
-        if (args.size() != procArgs.size())
+        if (args.size() != argSlots.length)
         {
             throw new Exception("Wrong number of arguments in procedure call");
         }
-        else 
+
+        Environment frame = env.pushFrame(proc.getFrameSize());
+        try
         {
-            for (int i = 0; i < args.size(); i++)
+            int[] slots = frame.getSlots();
+            for (int i = 0; i < argSlots.length; i++)
             {
-                env.declareVariable(proc.getArgs().get(i), args.get(i).eval(env));
+                slots[argSlots[i]] = args.get(i).eval(env);
             }
-            env.declareVariable(name, 0);
-
-            proc.getStatement().exec(env);
+            return proc.call(frame);
         }
+        finally
+        {
+            env.popFrame();
+        }
+    }
 
-        return env.getVariable(name);
+    /**
+     * Finds the procedure called, reusing the procedure found by the previous call as long as
+     * the call runs in the same global environment and its procedure table has not changed
+     * since.
+     * @param env specifies the environment in which the procedure call is executed
+     * @return returns the procedure
+     * @throws RuntimeException if the procedure is not found
+     */
+    private ProcedureDeclaration lookup(Environment env)
+    {
+        Environment global = env.getGlobal();
+        int version = global.getProcedureVersion();
+        if (global != cachedGlobal || version != cachedVersion)
+        {
+            cachedProc = global.getProcedure(name);
+            cachedGlobal = global;
+            cachedVersion = version;
+        }
+        return cachedProc;
     }
 
     /**
      * Compiles the procedure call into assembly code and emits the assembly code to an output file.
+     * The arguments are pushed in order and the procedure leaves its value in $v0.
      * @param e the emitter which emits the assembly code to the output file
      */
     public void compile(Emitter e)
     {
-        throw new RuntimeException("Implement.");
+        e.emit("# evaluate the arguments, push them and call procedure " + name);
+        for (Expression arg : args)
+        {
+            arg.compile(e);
+            e.emitPush("$v0");
+        }
+        e.emit("jal " + ProcedureDeclaration.label(name));
+    }
+
+    /**
+     * Compiles the procedure call as a tail call of the given procedure, which stores the
+     * arguments in the procedure's frame, clears the rest of the frame and jumps to the start
+     * of the procedure's statement.
+     * @param e the emitter which emits the assembly code to the output file
+     * @param proc specifies the procedure making the tail call
+     */
+    public void compileTailCall(Emitter e, ProcedureDeclaration proc)
+    {
+        e.emit("# evaluate the arguments of the tail call to " + name + " and reuse its frame");
+        for (Expression arg : args)
+        {
+            arg.compile(e);
+            e.emitPush("$v0");
+        }
+        int[] argSlots = proc.getArgSlots();
+        boolean[] isArg = new boolean[proc.getFrameSize()];
+        for (int i = argSlots.length - 1; i >= 0; i--)
+        {
+            e.emitPop("$t0");
+            e.emit("sw $t0, " + 4 * argSlots[i] + "($fp)");
+            isArg[argSlots[i]] = true;
+        }
+        for (int slot = 0; slot < isArg.length; slot++)
+        {
+            if (!isArg[slot])
+            {
+                e.emit("sw $zero, " + 4 * slot + "($fp)");
+            }
+        }
+        e.emit("j " + ProcedureDeclaration.bodyLabel(name));
+    }
+
+    /**
+     * Assembles the procedure call into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        for (Expression arg : args)
+        {
+            arg.assemble(a);
+        }
+        a.emitCall(name, args.size());
+    }
+
+    /**
+     * Assembles the procedure call as a tail call of the given procedure, which stores the
+     * arguments in the procedure's frame and jumps to the start of the procedure.
+     * @param a the assembler which collects the bytecode
+     * @param proc specifies the procedure making the tail call
+     */
+    public void assembleTailCall(Assembler a, ProcedureDeclaration proc)
+    {
+        for (Expression arg : args)
+        {
+            arg.assemble(a);
+        }
+        a.emitTailCall(proc.getArgSlots(), proc.getFrameSize());
+    }
+
+    /**
+     * Lowers the procedure call into a call instruction, arguments first.
+     * @param b the builder which collects the instructions
+     * @return returns the call instruction
+     */
+    public Instruction lower(IrBuilder b)
+    {
+        return b.call(name, lowerArgs(b));
+    }
+
+    /**
+     * Lowers the procedure call as a tail call of the procedure containing it, which starts
+     * the procedure's body again with the arguments.
+     * @param b the builder which collects the instructions
+     */
+    public void lowerTailCall(IrBuilder b)
+    {
+        b.tailCall(lowerArgs(b));
+    }
+
+    /**
+     * Lowers the arguments of the procedure call in order.
+     * @param b the builder which collects the instructions
+     * @return returns the instructions computing the arguments
+     */
+    private List<Instruction> lowerArgs(IrBuilder b)
+    {
+        List<Instruction> values = new ArrayList<Instruction>(args.size());
+        for (Expression arg : args)
+        {
+            values.add(arg.lower(b));
+        }
+        return values;
+    }
+
+    /**
+     * Checks whether the procedure call is a call of the given procedure that can reuse the
+     * procedure's frame, which requires the right number of arguments and a separate slot for
+     * each of them.
+     * @param proc specifies the procedure
+     * @return returns true if the call can reuse the procedure's frame; false otherwise
+     */
+    public boolean canReuseFrame(ProcedureDeclaration proc)
+    {
+        int[] argSlots = proc.getArgSlots();
+        if (!name.equals(proc.getName()) || args.size() != argSlots.length)
+        {
+            return false;
+        }
+        boolean[] used = new boolean[proc.getFrameSize()];
+        for (int slot : argSlots)
+        {
+            if (used[slot])
+            {
+                return false;
+            }
+            used[slot] = true;
+        }
+        return true;
+    }
+
+    /**
+     * Makes the procedure call as a tail call of the given procedure if the call still finds
+     * that procedure, by evaluating the arguments into a spare frame and then copying that
+     * frame over the procedure's frame, so that the procedure runs again in the same frame
+     * once the current run ends.
+     * @param frame specifies the frame of the procedure making the tail call
+     * @param proc specifies the procedure making the tail call
+     * @return returns true if the tail call has been made; false if the call finds another
+     *         procedure and has to be made normally
+     * @throws Exception if an error occurs while evaluating the arguments
+     */
+    public boolean reuseFrame(Environment frame, ProcedureDeclaration proc) throws Exception
+    {
+        if (lookup(frame) != proc)
+        {
+            return false;
+        }
+        int[] argSlots = proc.getArgSlots();
+        Environment spare = frame.pushFrame(proc.getFrameSize());
+        try
+        {
+            int[] slots = spare.getSlots();
+            for (int i = 0; i < argSlots.length; i++)
+            {
+                slots[argSlots[i]] = args.get(i).eval(frame);
+            }
+            System.arraycopy(slots, 0, frame.getSlots(), 0, proc.getFrameSize());
+        }
+        finally
+        {
+            frame.popFrame();
+        }
+        frame.setTailCall(true);
+        return true;
+    }
+
+    /**
+     * Compiles the procedure call into a closure making it as a tail call of the given
+     * procedure in the same way as reuseFrame.
+     * @param proc specifies the procedure making the tail call
+     * @param fallback specifies the closure making the call normally, which runs if the call
+     *                 finds another procedure
+     * @return returns the closure making the tail call
+     */
+    public StatementClosure reuseFrameClosure(ProcedureDeclaration proc,
+        StatementClosure fallback)
+    {
+        int[] argSlots = proc.getArgSlots();
+        int frameSize = proc.getFrameSize();
+        ExpressionClosure[] argClosures = new ExpressionClosure[args.size()];
+        for (int i = 0; i < argClosures.length; i++)
+        {
+            argClosures[i] = args.get(i).closure();
+        }
+        return frame ->
+        {
+            if (lookup(frame) != proc)
+            {
+                fallback.exec(frame);
+                return;
+            }
+            Environment spare = frame.pushFrame(frameSize);
+            try
+            {
+                int[] slots = spare.getSlots();
+                for (int i = 0; i < argSlots.length; i++)
+                {
+                    slots[argSlots[i]] = argClosures[i].eval(frame);
+                }
+                System.arraycopy(slots, 0, frame.getSlots(), 0, frameSize);
+            }
+            finally
+            {
+                frame.popFrame();
+            }
+            frame.setTailCall(true);
+        };
+    }
+
+    /**
+     * Adds the procedure call to the given flat tree.
+     * @param tree the flat tree to add the procedure call to
+     * @return returns the index of the procedure call's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        int[] argNodes = new int[args.size()];
+        for (int i = 0; i < argNodes.length; i++)
+        {
+            argNodes[i] = args.get(i).flatten(tree);
+        }
+        return tree.addNode(FlatTree.CALL, 0, tree.name(name), tree.addList(argNodes));
+    }
+
+    /**
+     * Resolves every variable referenced by the procedure call to its lexical address.
+     * @param scope specifies the scope in which the procedure call appears
+     */
+    public void resolve(Scope scope)
+    {
+        for (Expression arg : args)
+        {
+            arg.resolve(scope);
+        }
+    }
+
+    /**
+     * Checks whether the procedure called is assumed to be pure and every argument is pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the procedure call is pure; false otherwise
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        if (!pure.contains(name))
+        {
+            return false;
+        }
+        for (Expression arg : args)
+        {
+            if (!arg.isPure(pure))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A procedure call may have effects, since the procedure may print or assign globals.
+     * @return returns true
+     */
+    public boolean hasEffects()
+    {
+        return true;
+    }
+
+    /**
+     * Folds every argument of the procedure call.
+     * @return returns the procedure call with folded arguments
+     */
+    public ProcedureCall fold()
+    {
+        List<Expression> folded = new ArrayList<Expression>();
+        for (Expression arg : args)
+        {
+            folded.add(arg.fold());
+        }
+        return new ProcedureCall(name, folded);
+    }
+
+
+    /**
+     * Adds the procedure called and the procedures called by the arguments.
+     * @param procedures specifies the set of procedure names
+     */
+    public void findCalls(Set<String> procedures)
+    {
+        procedures.add(name);
+        for (Expression arg : args)
+        {
+            arg.findCalls(procedures);
+        }
+    }
+
+    /**
+     * Finds the outermost loop in which every argument is invariant, if the procedure called
+     * is pure.
+     * @param licm specifies the pass
+     * @return returns the index of the loop, or a number at least the number of enclosing loops
+     *         if the procedure call is invariant in none of them
+     */
+    public int invariantLoop(LoopInvariantCodeMotion licm)
+    {
+        if (!licm.isPure(name))
+        {
+            return Integer.MAX_VALUE;
+        }
+        int loop = 0;
+        for (Expression arg : args)
+        {
+            loop = Math.max(loop, arg.invariantLoop(licm));
+        }
+        return loop;
+    }
+
+    /**
+     * Moves the procedure call out of a loop if it can, and otherwise the parts of its
+     * arguments which can. A call which stays has effects.
+     * @param licm specifies the pass
+     * @return returns the temporary or the call of the arguments with the parts replaced
+     */
+    public Expression hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        if (licm.canHoist(this))
+        {
+            return licm.hoist(this);
+        }
+        List<Expression> hoisted = new ArrayList<Expression>();
+        for (Expression arg : args)
+        {
+            hoisted.add(arg.hoistInvariants(licm));
+        }
+        licm.stopHoistingEffects();
+        return new ProcedureCall(name, hoisted);
+    }
+
+
+    /**
+     * Adds the variables read by the arguments.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        for (Expression arg : args)
+        {
+            arg.findReads(variables);
+        }
+    }
+
+    /**
+     * A procedure call has no key, since it may have effects.
+     * @return returns null
+     */
+    public String valueKey()
+    {
+        return null;
+    }
+
+    /**
+     * Replaces the operations of the arguments whose value is available by temporaries, and
+     * records the call.
+     * @param gvn specifies the pass
+     * @return returns the call of the arguments with the operations replaced
+     */
+    public ProcedureCall numberValues(GlobalValueNumbering gvn)
+    {
+        List<Expression> numbered = new ArrayList<Expression>();
+        for (Expression arg : args)
+        {
+            numbered.add(arg.numberValues(gvn));
+        }
+        gvn.call(name);
+        return new ProcedureCall(name, numbered);
+    }
+
+    /**
+     * Inlines the calls of the arguments, and then the procedure call itself if the pass can.
+     * @param inl specifies the pass
+     * @return returns the temporary holding the procedure's return value, or the call of the
+     *         arguments with the calls inlined
+     */
+    public Expression inlineCalls(Inliner inl)
+    {
+        List<Expression> inlined = new ArrayList<Expression>();
+        for (Expression arg : args)
+        {
+            inlined.add(arg.inlineCalls(inl));
+        }
+        return inl.call(name, inlined);
+    }
+
+    /**
+     * Compiles the procedure call into a closure, which finds the procedure through the call's
+     * cache when it runs since a procedure may be declared again, and evaluates the closures of
+     * the arguments.
+     * @return returns the closure evaluating the procedure call
+     */
+    public ExpressionClosure closure()
+    {
+        String name = this.name;
+        ExpressionClosure[] argClosures = new ExpressionClosure[args.size()];
+        for (int i = 0; i < argClosures.length; i++)
+        {
+            argClosures[i] = args.get(i).closure();
+        }
+        return env ->
+        {
+            ProcedureDeclaration proc = lookup(env);
+            int[] argSlots = proc.getArgSlots();
+            if (argClosures.length != argSlots.length)
+            {
+                throw new Exception("Wrong number of arguments in procedure call");
+            }
+            Environment frame = env.pushFrame(proc.getFrameSize());
+            try
+            {
+                int[] slots = frame.getSlots();
+                for (int i = 0; i < argSlots.length; i++)
+                {
+                    slots[argSlots[i]] = argClosures[i].eval(env);
+                }
+                return proc.callClosure(frame);
+            }
+            finally
+            {
+                env.popFrame();
+            }
+        };
     }
 }
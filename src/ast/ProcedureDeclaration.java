@@ -1,8 +1,19 @@
 package ast;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import emitter.Emitter;
+import ir.IrBuilder;
+import jvm.CompiledCode;
+import jvm.JitCompiler;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
 
 /**
  * Class representing a procedure declaration in the AST.
@@ -14,7 +25,19 @@ public class ProcedureDeclaration extends Statement
 {
     private String name;
     private List<String> args;
+    private List<String> locals;
     private Statement stmt;
+    private int[] argSlots;
+    private int returnSlot;
+    private int frameSize;
+    private int invocations;
+    private CompiledCode compiled;
+    private Environment compiledGlobal;
+    private StatementClosure body;
+    private boolean pure;
+    private MemoTable memo;
+    private Environment memoGlobal;
+    private int memoVersion;
 
     /**
      * Creates a procedure declaration object with the procedure name and
@@ -24,9 +47,25 @@ public class ProcedureDeclaration extends Statement
      * @param stmt specifies the statement to be executed when the procedure is called
      */
     public ProcedureDeclaration(String name, List<String> args, Statement stmt) 
+    {
+        this(name, args, new ArrayList<String>(), stmt);
+    }
+
+    /**
+     * Creates a procedure declaration object with the procedure name, the variables declared
+     * in the procedure's frame besides its arguments, and the statement to be executed when the
+     * procedure is called.
+     * @param name specifies the name of the procedure
+     * @param args specifies the arguments of the procedure
+     * @param locals specifies the names of the procedure's local variables, which start as 0
+     * @param stmt specifies the statement to be executed when the procedure is called
+     */
+    public ProcedureDeclaration(String name, List<String> args, List<String> locals,
+        Statement stmt)
     {
         this.name = name;
         this.args = args;
+        this.locals = locals;
         this.stmt = stmt;
     }
 
@@ -40,6 +79,206 @@ public class ProcedureDeclaration extends Statement
         env.setProcedure(name, this);
     }
 
+    /**
+     * Runs the procedure in the given frame, whose argument slots are already set. A pure
+     * procedure called with memoization enabled first looks up its arguments in its memo table
+     * and runs only if they are not found.
+     * @param frame specifies the frame of the call
+     * @return returns the value assigned to the procedure's name, or 0 if none is assigned
+     * @throws Exception if an error occurs during the procedure's execution
+     */
+    public int call(Environment frame) throws Exception
+    {
+        MemoTable table = memoTable(frame);
+        if (table != null)
+        {
+            return memoize(frame, table, false);
+        }
+        return run(frame);
+    }
+
+    /**
+     * Runs the procedure in the given frame, whose argument slots are already set, and runs it
+     * again in the same frame after every tail call. Once the procedure has been called often
+     * enough with the JIT enabled, it is compiled to JVM code and every later call runs the
+     * compiled code. Like the memo table, the compiled code and the count of calls belong to
+     * the global environment they were taken in, so a call in another global environment
+     * starts interpreted again.
+     * @param frame specifies the frame of the call
+     * @return returns the value assigned to the procedure's name, or 0 if none is assigned
+     * @throws Exception if an error occurs during the procedure's execution
+     */
+    private int run(Environment frame) throws Exception
+    {
+        Environment global = frame.getGlobal();
+        if (global != compiledGlobal)
+        {
+            compiled = null;
+            invocations = 0;
+            compiledGlobal = global;
+        }
+        boolean jit = frame.isJitEnabled();
+        if (compiled == null && jit && ++invocations == JitCompiler.INVOCATION_THRESHOLD)
+        {
+            compiled = JitCompiler.compile(this);
+        }
+        if (compiled != null && jit)
+        {
+            return compiled.run(frame);
+        }
+        stmt.exec(frame);
+        while (frame.isTailCall())
+        {
+            frame.setTailCall(false);
+            stmt.exec(frame);
+        }
+        return frame.getVariable(0, returnSlot);
+    }
+
+    /**
+     * Runs the closure of the procedure's statement in the given frame, whose argument slots are
+     * already set, looking up the arguments first in the same way as call.
+     * @param frame specifies the frame of the call
+     * @return returns the value assigned to the procedure's name, or 0 if none is assigned
+     * @throws Exception if an error occurs during the procedure's execution
+     */
+    public int callClosure(Environment frame) throws Exception
+    {
+        MemoTable table = memoTable(frame);
+        if (table != null)
+        {
+            return memoize(frame, table, true);
+        }
+        return runClosure(frame);
+    }
+
+    /**
+     * Runs the closure of the procedure's statement in the given frame, whose argument slots are
+     * already set, and runs it again after every tail call, compiling the statement into a
+     * closure on the first such call.
+     * @param frame specifies the frame of the call
+     * @return returns the value assigned to the procedure's name, or 0 if none is assigned
+     * @throws Exception if an error occurs during the procedure's execution
+     */
+    private int runClosure(Environment frame) throws Exception
+    {
+        if (body == null)
+        {
+            body = stmt.closure();
+        }
+        body.exec(frame);
+        while (frame.isTailCall())
+        {
+            frame.setTailCall(false);
+            body.exec(frame);
+        }
+        return frame.getSlots()[returnSlot];
+    }
+
+    /**
+     * Finds the memo table of the procedure for a call in the given frame. The table is created
+     * again whenever the call runs in another global environment, the procedure table has
+     * changed or the capacity has been changed, since a pure procedure's value depends on the
+     * procedures it calls.
+     * @param frame specifies the frame of the call
+     * @return returns the memo table, or null if the procedure is not pure or memoization is
+     *         turned off
+     */
+    private MemoTable memoTable(Environment frame)
+    {
+        if (!pure)
+        {
+            return null;
+        }
+        int capacity = frame.getMemoCapacity();
+        if (capacity == 0)
+        {
+            return null;
+        }
+        Environment global = frame.getGlobal();
+        int version = global.getProcedureVersion();
+        if (memo == null || memo.getCapacity() != capacity || global != memoGlobal
+            || version != memoVersion)
+        {
+            memo = new MemoTable(argSlots.length, capacity);
+            memoGlobal = global;
+            memoVersion = version;
+        }
+        return memo;
+    }
+
+    /**
+     * Returns the value stored in the memo table for the arguments in the given frame, or runs
+     * the procedure and stores its value. The arguments are saved in a spare frame from the pool
+     * before the procedure runs, since the procedure may assign its arguments.
+     * @param frame specifies the frame of the call
+     * @param table specifies the procedure's memo table
+     * @param closure specifies whether the procedure runs as a closure
+     * @return returns the value assigned to the procedure's name, or 0 if none is assigned
+     * @throws Exception if an error occurs during the procedure's execution
+     */
+    private int memoize(Environment frame, MemoTable table, boolean closure) throws Exception
+    {
+        int[] slots = frame.getSlots();
+        int entry = table.find(slots, argSlots);
+        if (entry >= 0)
+        {
+            return table.getValue(entry);
+        }
+        Environment saved = frame.pushFrame(argSlots.length);
+        try
+        {
+            int[] key = saved.getSlots();
+            for (int i = 0; i < argSlots.length; i++)
+            {
+                key[i] = slots[argSlots[i]];
+            }
+            int value = closure ? runClosure(frame) : run(frame);
+            table.put(key, value);
+            return value;
+        }
+        finally
+        {
+            frame.popFrame();
+        }
+    }
+
+    /**
+     * @return returns true if the procedure was found to be pure when it was last resolved, so
+     *         that its value depends only on its arguments; false otherwise
+     */
+    public boolean isPure()
+    {
+        return pure;
+    }
+
+    /**
+     * Sets whether the procedure is pure, which the program decides once all of its procedures
+     * have been resolved.
+     * @param pure specifies whether the procedure is pure
+     */
+    public void setPure(boolean pure)
+    {
+        this.pure = pure;
+    }
+
+    /**
+     * @return returns the memo table of the procedure's most recent memoized call, or null if
+     *         the procedure has never been called with memoization enabled
+     */
+    public MemoTable getMemoTable()
+    {
+        return memo;
+    }
+
+    /**
+     * @return returns the name of the procedure
+     */
+    public String getName()
+    {
+        return name;
+    }
+
     /**
      * @return returns the arguments as a lsit of strings.
      */
@@ -48,6 +287,14 @@ public class ProcedureDeclaration extends Statement
         return args;
     }
 
+    /**
+     * @return returns the names of the procedure's local variables
+     */
+    public List<String> getLocals()
+    {
+        return locals;
+    }
+
     /**
      * @return returns the statement of the procedure.
      */
@@ -56,13 +303,272 @@ public class ProcedureDeclaration extends Statement
         return stmt;
     }
 
-        /**
+    /**
+     * @return returns the slots of the arguments in the procedure's frame
+     */
+    public int[] getArgSlots()
+    {
+        return argSlots;
+    }
+
+    /**
+     * @return returns the slot of the procedure's return value in the procedure's frame
+     */
+    public int getReturnSlot()
+    {
+        return returnSlot;
+    }
+
+    /**
+     * @return returns the number of slots in the procedure's frame
+     */
+    public int getFrameSize()
+    {
+        return frameSize;
+    }
+
+    /**
      * Compiles the procedure declaration into assembly code and emits the assembly code to 
-     * an output file.
+     * an output file. The caller pushes the arguments, which the procedure copies into a frame
+     * addressed through $fp, and the procedure pops them when it returns its value in $v0.
      * @param e the emitter which emits the assembly code to the output file
      */
     public void compile(Emitter e)
     {
-        throw new RuntimeException("Implement.");
+        int args = argSlots.length;
+        e.emit("# procedure " + name);
+        e.emit(label(name) + ":");
+        e.emit("# save the return address and the caller's frame pointer");
+        e.emitPush("$ra");
+        e.emitPush("$fp");
+        e.emit("# make a frame of " + frameSize + " words holding 0 below them");
+        e.emit("subu $sp, $sp, " + 4 * frameSize);
+        e.emit("move $fp, $sp");
+        for (int slot = 0; slot < frameSize; slot++)
+        {
+            e.emit("sw $zero, " + 4 * slot + "($fp)");
+        }
+        e.emit("# copy the arguments pushed by the caller into their slots");
+        for (int i = 0; i < args; i++)
+        {
+            e.emit("lw $t0, " + 4 * (frameSize + 2 + args - 1 - i) + "($fp)");
+            e.emit("sw $t0, " + 4 * argSlots[i] + "($fp)");
+        }
+
+        e.emit(bodyLabel(name) + ":");
+        e.setInProcedure(true);
+        stmt.compile(e);
+        e.setInProcedure(false);
+
+        e.emit("# return the value assigned to the procedure's name");
+        e.emit("lw $v0, " + 4 * returnSlot + "($fp)");
+        e.emit("addu $sp, $sp, " + 4 * frameSize);
+        e.emitPop("$fp");
+        e.emitPop("$ra");
+        e.emit("addu $sp, $sp, " + 4 * args);
+        e.emit("jr $ra");
+    }
+
+    /**
+     * Finds the label at which the assembly code of a procedure starts.
+     * @param name specifies the name of the procedure
+     * @return returns the label
+     */
+    public static String label(String name)
+    {
+        return "proc_" + name;
+    }
+
+    /**
+     * Finds the label at which the assembly code of a procedure's statement starts, after the
+     * procedure's frame has been made, which a tail call jumps to.
+     * @param name specifies the name of the procedure
+     * @return returns the label
+     */
+    public static String bodyLabel(String name)
+    {
+        return "body_" + name;
+    }
+
+    /**
+     * Assembles the procedure into bytecode for the virtual machine, where the procedure's frame
+     * is laid out as the resolver found it and the procedure returns the value assigned to its
+     * name.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        a.beginProcedure(name, argSlots, frameSize);
+        stmt.assemble(a);
+        a.emit(Bytecode.RETURN, returnSlot);
+        a.endProcedure();
+    }
+
+    /**
+     * Lowers the procedure declaration into a function of the intermediate representation.
+     * @param b the builder which collects the instructions
+     */
+    public void lower(IrBuilder b)
+    {
+        b.beginProcedure(name, argSlots, frameSize);
+        stmt.lower(b);
+        b.endProcedure(returnSlot);
+    }
+
+    /**
+     * Adds the procedure declaration to the given flat tree.
+     * @param tree the flat tree to add the procedure declaration to
+     * @return returns the index of the procedure declaration's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        int[] list = new int[args.size() + 2];
+        list[0] = stmt.flatten(tree);
+        list[1] = tree.addNameList(locals);
+        for (int i = 0; i < args.size(); i++)
+        {
+            list[i + 2] = tree.name(args.get(i));
+        }
+        return tree.addNode(FlatTree.PROCEDURE, 0, tree.name(name), tree.addList(list));
+    }
+
+    /**
+     * Lays out the procedure's frame, giving a slot to each argument, to the return value,
+     * which is assigned through the procedure's name, and to each local variable, resolves the
+     * procedure's statement in a scope nested in the given global scope and marks the
+     * procedure's tail calls.
+     * @param scope specifies the global scope
+     */
+    public void resolve(Scope scope)
+    {
+        Scope local = new Scope(scope);
+        argSlots = new int[args.size()];
+        for (int i = 0; i < argSlots.length; i++)
+        {
+            argSlots[i] = local.declare(args.get(i));
+        }
+        returnSlot = local.declare(Variable.NAME_PREFIX + name);
+        for (String var : locals)
+        {
+            local.declare(var);
+        }
+        stmt.resolve(local);
+        frameSize = local.size();
+        stmt.markTailCalls(this);
+    }
+
+    /**
+     * A procedure declaration is never pure, since it changes the procedure table.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns false
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return false;
+    }
+
+    /**
+     * Folds the procedure's statement.
+     * @return returns the declaration of the procedure with the folded statement
+     */
+    public ProcedureDeclaration fold()
+    {
+        return new ProcedureDeclaration(name, args, locals, stmt.fold());
+    }
+
+    /**
+     * A procedure declaration assigns no variables and calls no procedures where it appears.
+     * @param variables specifies the set of variable names
+     * @param procedures specifies the set of procedure names
+     */
+    public void findWrites(Set<String> variables, Set<String> procedures)
+    {
+    }
+
+    /**
+     * Moves the invariant expressions of the loops in the procedure's statement out of the
+     * loops, into temporaries which become local variables of the procedure.
+     * @param licm specifies the pass, which has walked the main program
+     * @return returns the declaration of the procedure with the expressions moved
+     */
+    public ProcedureDeclaration hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        List<String> frame = new ArrayList<String>(args);
+        frame.add(Variable.NAME_PREFIX + name);
+        frame.addAll(locals);
+        licm.beginProcedure(frame);
+        Statement hoisted = stmt.hoistInvariants(licm);
+        List<String> declared = new ArrayList<String>(locals);
+        declared.addAll(licm.getTemporaries());
+        return new ProcedureDeclaration(name, args, declared, hoisted);
+    }
+
+    /**
+     * Replaces the operations of the procedure's statement whose value is available by
+     * temporaries, which become local variables of the procedure.
+     * @param gvn specifies the pass, which has walked the main program
+     * @return returns the declaration of the procedure with the operations replaced
+     */
+    public ProcedureDeclaration numberValues(GlobalValueNumbering gvn)
+    {
+        List<String> frame = new ArrayList<String>(args);
+        frame.add(Variable.NAME_PREFIX + name);
+        frame.addAll(locals);
+        gvn.beginProcedure(frame);
+        Statement numbered = stmt.numberValues(gvn);
+        List<String> declared = new ArrayList<String>(locals);
+        declared.addAll(gvn.getTemporaries());
+        return new ProcedureDeclaration(name, args, declared, numbered);
+    }
+
+    /**
+     * Removes the dead code of the procedure's statement, at the end of which the procedure's
+     * return value and the global variables are live.
+     * @param dce specifies the pass, which has walked the main program
+     * @return returns the declaration of the procedure with the dead code removed
+     */
+    public ProcedureDeclaration eliminateDeadCode(DeadCodeElimination dce)
+    {
+        List<String> frame = new ArrayList<String>(args);
+        frame.add(Variable.NAME_PREFIX + name);
+        frame.addAll(locals);
+        dce.beginProcedure(frame, Variable.NAME_PREFIX + name);
+        return new ProcedureDeclaration(name, args, locals, stmt.eliminateDeadCode(dce));
+    }
+
+    /**
+     * A procedure declaration reads no variables where it appears.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+    }
+
+    /**
+     * Inlines the calls of the procedure's statement, whose temporaries become local variables
+     * of the procedure.
+     * @param inl specifies the pass, which has walked the main program
+     * @return returns the declaration of the procedure with the calls inlined
+     */
+    public ProcedureDeclaration inlineCalls(Inliner inl)
+    {
+        List<String> frame = new ArrayList<String>(args);
+        frame.add(Variable.NAME_PREFIX + name);
+        frame.addAll(locals);
+        inl.beginProcedure(frame);
+        Statement inlined = stmt.inlineCalls(inl);
+        List<String> declared = new ArrayList<String>(locals);
+        declared.addAll(inl.getTemporaries());
+        return new ProcedureDeclaration(name, args, declared, inlined);
+    }
+
+    /**
+     * Compiles the procedure declaration into a closure declaring the procedure. The
+     * procedure's statement is compiled when the procedure is first called through a closure.
+     * @return returns the closure executing the procedure declaration
+     */
+    public StatementClosure closure()
+    {
+        return env -> env.setProcedure(name, this);
     }
 }
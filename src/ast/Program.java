@@ -1,8 +1,22 @@
 package ast;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import emitter.Emitter;
+import ir.IrBuilder;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
 
 /**
  * Class representing a program in the AST.
@@ -30,13 +44,38 @@ public class Program extends Statement
     }
 
     /**
-     * Executes the program, i.e., stores the procedures in the environment 
-     * and executes the statement.
+     * @return returns the names of the program's variables
+     */
+    public List<String> getVariables()
+    {
+        return variables;
+    }
+
+    /**
+     * @return returns the program's procedures
+     */
+    public List<ProcedureDeclaration> getProcedures()
+    {
+        return procedures;
+    }
+
+    /**
+     * @return returns the statement executed by the program
+     */
+    public Statement getStatement()
+    {
+        return stmt;
+    }
+
+    /**
+     * Executes the program, i.e., resolves the program's variables, stores the procedures in
+     * the environment and executes the statement, flushing the program's output when it ends.
      * @param env specifies the environment in which the program is executed
      * @throws Exception if an error occurs during the program execution
      */
     public void exec(Environment env) throws Exception
     {
+        resolve(new Scope(null));
         for (String var : variables)
         {
             env.declareVariable(var, 0);
@@ -45,15 +84,24 @@ public class Program extends Statement
         {
             pd.exec(env);
         }
-        stmt.exec(env);
+        try
+        {
+            stmt.exec(env);
+        }
+        finally
+        {
+            env.getOutput().flush();
+        }
     }
 
     /**
-     * Compiles the program into assembly code and emits the assembly code to an output file.
+     * Compiles the program into assembly code and emits the assembly code to an output file,
+     * with the procedures following the main program.
      * @param e the emitter which emits the assembly code to the output file
      */
     public void compile(Emitter e) 
     {
+        resolve(new Scope(null));
         String[] dataHeader = new String[] {
             ".data",
             "newLine: .asciiz \"\\n\""
@@ -91,6 +139,315 @@ public class Program extends Statement
             e.emit(line);
         }
 
+        // a later declaration of a procedure replaces an earlier one, as in the interpreter
+        Map<String, ProcedureDeclaration> declared =
+            new LinkedHashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            declared.remove(pd.getName());
+            declared.put(pd.getName(), pd);
+        }
+        for (ProcedureDeclaration pd : declared.values())
+        {
+            pd.compile(e);
+        }
+
         e.close();
     }
+
+    /**
+     * Resolves the program and assembles it into bytecode for the virtual machine, with the
+     * statement first and the procedures after it.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        Scope scope = new Scope(null);
+        resolve(scope);
+        a.setGlobals(scope.size());
+
+        stmt.assemble(a);
+        a.emit(Bytecode.HALT);
+        for (ProcedureDeclaration pd : procedures)
+        {
+            pd.assemble(a);
+        }
+    }
+
+    /**
+     * Resolves the program and lowers it into the intermediate representation, with the
+     * statement first and the procedures after it.
+     * @param b the builder which collects the instructions
+     */
+    public void lower(IrBuilder b)
+    {
+        resolve(new Scope(null));
+        // a repeated declaration shares its variable's global slot
+        b.beginMain(new ArrayList<String>(new LinkedHashSet<String>(variables)));
+        stmt.lower(b);
+        b.endMain();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            pd.lower(b);
+        }
+    }
+
+    /**
+     * Adds the program to the given flat tree.
+     * @param tree the flat tree to add the program to
+     * @return returns the index of the program's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        int[] list = new int[procedures.size() + 1];
+        for (int i = 0; i < procedures.size(); i++)
+        {
+            list[i + 1] = procedures.get(i).flatten(tree);
+        }
+        list[0] = stmt.flatten(tree);
+        return tree.addNode(FlatTree.PROGRAM, 0, tree.addNameList(variables), tree.addList(list));
+    }
+
+    /**
+     * Resolves every variable in the program, where the program's variables occupy the slots
+     * of the global scope in the order in which they are declared.
+     * @param scope specifies the global scope
+     */
+    public void resolve(Scope scope)
+    {
+        for (String var : variables)
+        {
+            scope.declare(var);
+        }
+        for (ProcedureDeclaration pd : procedures)
+        {
+            pd.resolve(scope);
+        }
+        stmt.resolve(scope);
+        markPureProcedures();
+    }
+
+    /**
+     * Finds the procedures of the program which are pure. Every procedure called is at first
+     * assumed to be pure, so that recursive procedures may be pure, and a procedure whose
+     * statement is not pure under the assumption is dropped from it until no more procedures are
+     * dropped. Only the last declaration of a procedure is ever called, so an earlier one is
+     * never marked pure.
+     */
+    private void markPureProcedures()
+    {
+        Map<String, ProcedureDeclaration> declared = new HashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            declared.put(pd.getName(), pd);
+        }
+        Set<String> pure = new HashSet<String>(declared.keySet());
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (ProcedureDeclaration pd : declared.values())
+            {
+                if (pure.contains(pd.getName()) && !pd.getStatement().isPure(pure))
+                {
+                    pure.remove(pd.getName());
+                    changed = true;
+                }
+            }
+        }
+        for (ProcedureDeclaration pd : procedures)
+        {
+            pd.setPure(pure.contains(pd.getName()) && declared.get(pd.getName()) == pd);
+        }
+    }
+
+    /**
+     * A program is never pure, since it declares variables and procedures.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns false
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return false;
+    }
+
+    /**
+     * Folds the statement of the program and of every procedure.
+     * @return returns the program with the folded statements
+     */
+    public Program fold()
+    {
+        List<ProcedureDeclaration> folded = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            folded.add(pd.fold());
+        }
+        return new Program(variables, folded, stmt.fold());
+    }
+
+    /**
+     * A program assigns no variables and calls no procedures where it appears.
+     * @param variables specifies the set of variable names
+     * @param procedures specifies the set of procedure names
+     */
+    public void findWrites(Set<String> variables, Set<String> procedures)
+    {
+    }
+
+    /**
+     * Moves the invariant expressions of the loops in the program's statement and in every
+     * procedure out of the loops. The temporaries of the statement become variables of the
+     * program.
+     * @param licm specifies the pass
+     * @return returns the program with the expressions moved
+     */
+    public Program hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        licm.beginMain(variables);
+        Statement hoisted = stmt.hoistInvariants(licm);
+        List<String> declared = new ArrayList<String>(variables);
+        declared.addAll(licm.getTemporaries());
+        List<ProcedureDeclaration> procs = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            procs.add(pd.hoistInvariants(licm));
+        }
+        return new Program(declared, procs, hoisted);
+    }
+
+    /**
+     * Replaces the operations of the program's statement and of every procedure whose value is
+     * available by temporaries. The temporaries of the statement become variables of the
+     * program.
+     * @param gvn specifies the pass
+     * @return returns the program with the operations replaced
+     */
+    public Program numberValues(GlobalValueNumbering gvn)
+    {
+        gvn.beginMain(variables);
+        Statement numbered = stmt.numberValues(gvn);
+        List<String> declared = new ArrayList<String>(variables);
+        declared.addAll(gvn.getTemporaries());
+        List<ProcedureDeclaration> procs = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            procs.add(pd.numberValues(gvn));
+        }
+        return new Program(declared, procs, numbered);
+    }
+
+    /**
+     * Removes the dead code of the program's statement and of every procedure, along with the
+     * declarations of the procedures which are never called, either because the statement and
+     * the procedures it calls never call them or because a later declaration replaces them.
+     * @param dce specifies the pass
+     * @return returns the program with the dead code removed
+     */
+    public Program eliminateDeadCode(DeadCodeElimination dce)
+    {
+        dce.beginMain(variables);
+        Statement kept = stmt.eliminateDeadCode(dce);
+        Map<String, ProcedureDeclaration> declared = new HashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            declared.put(pd.getName(), pd);
+        }
+        Set<String> called = new HashSet<String>();
+        kept.findWrites(new HashSet<String>(), called);
+        List<String> reached = new ArrayList<String>(called);
+        for (int i = 0; i < reached.size(); i++)
+        {
+            ProcedureDeclaration pd = declared.get(reached.get(i));
+            Set<String> calls = new HashSet<String>();
+            if (pd != null)
+            {
+                pd.getStatement().findWrites(new HashSet<String>(), calls);
+            }
+            for (String name : calls)
+            {
+                if (called.add(name))
+                {
+                    reached.add(name);
+                }
+            }
+        }
+        List<ProcedureDeclaration> procs = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            if (called.contains(pd.getName()) && declared.get(pd.getName()) == pd)
+            {
+                procs.add(pd.eliminateDeadCode(dce));
+            }
+            else
+            {
+                dce.remove();
+            }
+        }
+        return new Program(variables, procs, kept);
+    }
+
+    /**
+     * A program reads no variables where it appears.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+    }
+
+    /**
+     * Inlines the calls of the program's statement and of every procedure. The temporaries of
+     * the statement become variables of the program.
+     * @param inl specifies the pass
+     * @return returns the program with the calls inlined
+     */
+    public Program inlineCalls(Inliner inl)
+    {
+        inl.beginProgram(procedures);
+        inl.beginMain(variables);
+        Statement inlined = stmt.inlineCalls(inl);
+        List<String> declared = new ArrayList<String>(variables);
+        declared.addAll(inl.getTemporaries());
+        List<ProcedureDeclaration> procs = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            procs.add(pd.inlineCalls(inl));
+        }
+        return new Program(declared, procs, inlined);
+    }
+
+    /**
+     * Resolves the program and compiles it into a closure which declares its variables and
+     * procedures, runs the closure of its statement and flushes the program's output.
+     * @return returns the closure executing the program
+     */
+    public StatementClosure closure()
+    {
+        resolve(new Scope(null));
+        List<String> variables = this.variables;
+        StatementClosure[] declarations = new StatementClosure[procedures.size()];
+        for (int i = 0; i < declarations.length; i++)
+        {
+            declarations[i] = procedures.get(i).closure();
+        }
+        StatementClosure main = stmt.closure();
+        return env ->
+        {
+            for (String var : variables)
+            {
+                env.declareVariable(var, 0);
+            }
+            for (StatementClosure declaration : declarations)
+            {
+                declaration.exec(env);
+            }
+            try
+            {
+                main.exec(env);
+            }
+            finally
+            {
+                env.getOutput().flush();
+            }
+        };
+    }
 }
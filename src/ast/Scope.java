@@ -0,0 +1,90 @@
+package ast;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Scope class represents the variables visible while a program is being resolved, where
+ * each scope describes the layout of one frame of the run-time Environment.
+ * Contains methods for declaring a variable in a slot of the scope and for finding the lexical
+ * address, i.e., the depth and slot, of a variable.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Scope
+{
+    private Map<String, Integer> slots;
+    private Scope parent;
+
+    /**
+     * Creates a scope object with no variables and the given enclosing scope.
+     * @param parent specifies the enclosing scope, or null for the global scope
+     */
+    public Scope(Scope parent)
+    {
+        slots = new HashMap<String, Integer>();
+        this.parent = parent;
+    }
+
+    /**
+     * Declares the variable of the specified name in the next free slot of the scope. A variable
+     * that is already declared in the scope keeps its slot.
+     * @param name specifies the name of the variable
+     * @return returns the slot of the variable
+     */
+    public int declare(String name)
+    {
+        Integer slot = slots.get(name);
+        if (slot == null)
+        {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * @return returns the number of slots in the scope
+     */
+    public int size()
+    {
+        return slots.size();
+    }
+
+    /**
+     * Finds the number of scopes between this scope and the scope declaring the variable.
+     * @param name specifies the name of the variable
+     * @return returns the depth of the variable, or -1 if the variable is not declared
+     */
+    public int depthOf(String name)
+    {
+        int depth = 0;
+        for (Scope scope = this; scope != null; scope = scope.parent)
+        {
+            if (scope.slots.containsKey(name))
+            {
+                return depth;
+            }
+            depth++;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot of the variable in the nearest scope declaring it.
+     * @param name specifies the name of the variable
+     * @return returns the slot of the variable, or -1 if the variable is not declared
+     */
+    public int slotOf(String name)
+    {
+        for (Scope scope = this; scope != null; scope = scope.parent)
+        {
+            Integer slot = scope.slots.get(name);
+            if (slot != null)
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,6 +1,14 @@
 package ast;
 
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.IrBuilder;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
 
 /**
  * Class representing a statement to be executed in the AST.
@@ -21,4 +29,116 @@ public abstract class Statement
      * @param e the emitter which emits the assembly code to the output file
      */
     public abstract void compile(Emitter e);
+
+    /**
+     * Assembles the statement into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     */
+    public abstract void assemble(Assembler a);
+
+    /**
+     * Lowers the statement into the intermediate representation.
+     * @param b the builder which collects the instructions
+     */
+    public abstract void lower(IrBuilder b);
+
+    /**
+     * Adds the statement to the given flat tree.
+     * @param tree the flat tree to add the statement to
+     * @return returns the index of the statement's node in the tree
+     */
+    public abstract int flatten(FlatTree tree);
+
+    /**
+     * Resolves every variable referenced by the statement to its lexical address in the
+     * given scope.
+     * @param scope specifies the scope in which the statement appears
+     */
+    public abstract void resolve(Scope scope);
+
+    /**
+     * Checks whether the resolved statement in a procedure's body reads and writes nothing but
+     * the procedure's frame, prints nothing and calls nothing but pure procedures, so that
+     * running it has no effect outside the frame.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the statement is pure; false otherwise
+     */
+    public abstract boolean isPure(Set<String> pure);
+
+    /**
+     * Folds the constants of the statement's expressions and conditions, and replaces every
+     * if statement and while loop whose condition is constant by the statement that runs.
+     * @return returns the simplified statement, which has the same effect
+     */
+    public abstract Statement fold();
+
+    /**
+     * Adds the names of the variables which the statement assigns and of the procedures which
+     * it calls to the given sets.
+     * @param variables specifies the set of variable names
+     * @param procedures specifies the set of procedure names
+     */
+    public abstract void findWrites(Set<String> variables, Set<String> procedures);
+
+    /**
+     * Moves the invariant expressions of the loops in the statement out of the loops, along
+     * with the expressions of the statement which can move out of a loop enclosing the walk of
+     * the given pass. The parts of the statement are visited in the order in which they run.
+     * @param licm specifies the pass
+     * @return returns the statement with the expressions moved, which has the same effect
+     */
+    public abstract Statement hoistInvariants(LoopInvariantCodeMotion licm);
+
+
+    /**
+     * Replaces the operations of the statement whose value the given pass found to be
+     * available by temporaries, visiting the parts of the statement in the order in which they
+     * run.
+     * @param gvn specifies the pass
+     * @return returns the statement with the operations replaced, which has the same effect
+     */
+    public abstract Statement numberValues(GlobalValueNumbering gvn);
+
+    /**
+     * Removes the assignments of the statement whose value is never read and the parts of the
+     * statement left with nothing to run, visiting the parts of the statement backwards, from
+     * the last one that runs to the first.
+     * @param dce specifies the pass
+     * @return returns the statement with the dead code removed, which has the same effect
+     */
+    public abstract Statement eliminateDeadCode(DeadCodeElimination dce);
+
+    /**
+     * Adds the names of the variables which the statement reads to the given set, leaving out
+     * those read by the procedures it calls.
+     * @param variables specifies the set of variable names
+     */
+    public abstract void findReads(Set<String> variables);
+
+    /**
+     * Inlines the calls of the statement which the given pass can inline, visiting the parts
+     * of the statement in the order in which they run, and renames the variables of the
+     * procedure being inlined.
+     * @param inl specifies the pass
+     * @return returns the statement with the calls inlined, which has the same effect
+     */
+    public abstract Statement inlineCalls(Inliner inl);
+
+    /**
+     * Compiles the statement into a closure which executes it without inspecting the tree.
+     * The statement must have been resolved first.
+     * @return returns the closure executing the statement
+     */
+    public abstract StatementClosure closure();
+
+    /**
+     * Marks the calls of the given procedure to itself that the statement makes in tail
+     * position, i.e., as the last thing the procedure does, so that they reuse the procedure's
+     * frame instead of making a new call. The statement must be in tail position itself, and
+     * by default it contains no such calls.
+     * @param proc specifies the procedure whose body contains the statement
+     */
+    public void markTailCalls(ProcedureDeclaration proc)
+    {
+    }
 }
@@ -0,0 +1,18 @@
+package ast;
+
+/**
+ * The StatementClosure interface is implemented by the functional objects into which
+ * Statement.closure compiles statements, with the closures of their parts bound when the
+ * closure is created.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public interface StatementClosure
+{
+    /**
+     * Executes the compiled statement.
+     * @param env specifies the environment in which the statement is executed
+     * @throws Exception if an error occurs during the statement execution
+     */
+    void exec(Environment env) throws Exception;
+}
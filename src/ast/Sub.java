@@ -0,0 +1,32 @@
+package ast;
+
+/**
+ * Class representing a subtraction in the AST, specialized from BinOp so that its eval performs the
+ * subtraction without matching the operator.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Sub extends BinOp
+{
+    /**
+     * Creates a subtraction object with the expression on the left side of the operator and the
+     * expression on the right side of the operator.
+     * @param exp1 the expression on the left side of the operator
+     * @param exp2 the expression on the right side of the operator
+     */
+    public Sub(Expression exp1, Expression exp2)
+    {
+        super("-", exp1, exp2);
+    }
+
+    /**
+     * Evaluates the operation.
+     * @param env specifies the environment in which the operation is evaluated
+     * @return returns the result of the operation
+     * @throws Exception if an error occurs while evaluating either side
+     */
+    public int eval(Environment env) throws Exception
+    {
+        return exp1.eval(env) - exp2.eval(env);
+    }
+}
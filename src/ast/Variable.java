@@ -1,6 +1,15 @@
 package ast;
 
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.Instruction;
+import ir.IrBuilder;
+import jvm.CannotCompileException;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
 
 /**
  * Class representing a variable in the AST.
@@ -16,6 +25,9 @@ public class Variable extends Expression
     public static final String NAME_PREFIX = "var";
 
     private String name;
+    private int depth;
+    private int slot;
+    private boolean undeclared;
 
     /**
      * Creates a variable object with the name name.
@@ -24,26 +36,216 @@ public class Variable extends Expression
     public Variable(String name) 
     {
         this.name = name;
+        depth = -1;
     }
 
     /**
-     * Returns the value of the variable as an integer.
+     * Returns the value of the variable as an integer, indexing the environment directly if
+     * the variable has been resolved and looking the variable up by name otherwise.
      * @param env specifies the environment in which the variable's value in retrieved
      * @return returns the value of the variable as an integer
      */
     public int eval(Environment env) 
     {
-        return env.getVariable(name);
+        if (depth < 0)
+        {
+            return env.getVariable(name);
+        }
+        return env.getVariable(depth, slot);
     }
 
     /**
-     * Compiles the variable into assembly code and emits the assembly code to an output file.
+     * Compiles the variable into assembly code and emits the assembly code to an output file,
+     * loading from the frame of the procedure being compiled if the variable is declared in it.
      * @param e the emitter which emits the assembly code to the output file
      */
     public void compile(Emitter e)
     {
         e.emit("# load the value of " + name + " from memory and store in $v0");
-        e.emit("la $t0, " + name);
-        e.emit("lw $v0, ($t0)");
+        if (e.isInProcedure() && depth == 0)
+        {
+            e.emit("lw $v0, " + 4 * slot + "($fp)");
+        }
+        else
+        {
+            e.emit("la $t0, " + name);
+            e.emit("lw $v0, ($t0)");
+        }
+    }
+
+    /**
+     * Assembles the variable into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     * @throws CannotCompileException if the variable has not been resolved to a declaration
+     */
+    public void assemble(Assembler a)
+    {
+        if (depth < 0)
+        {
+            throw new CannotCompileException("Variable " + name + " not found.");
+        }
+        a.emitLoad(depth, slot);
+    }
+
+    /**
+     * Lowers the variable into an instruction reading it.
+     * @param b the builder which collects the instructions
+     * @return returns the instruction reading the variable
+     * @throws RuntimeException if the variable has not been resolved to a declaration
+     */
+    public Instruction lower(IrBuilder b)
+    {
+        if (depth < 0)
+        {
+            throw new RuntimeException("Variable " + name + " not found.");
+        }
+        return b.load(depth, slot);
+    }
+
+    /**
+     * Adds the variable to the given flat tree.
+     * @param tree the flat tree to add the variable to
+     * @return returns the index of the variable's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        return tree.addNode(FlatTree.VARIABLE, 0, tree.name(name), 0);
+    }
+
+    /**
+     * Resolves the variable to the depth and slot at which it is declared, leaving it to be
+     * looked up by name if no enclosing scope declares it.
+     * @param scope specifies the scope in which the variable appears
+     */
+    public void resolve(Scope scope)
+    {
+        depth = scope.depthOf(name);
+        slot = scope.slotOf(name);
+        undeclared = depth < 0;
+    }
+
+    /**
+     * Checks whether the variable is declared in the procedure's own frame, which holds the
+     * procedure's arguments, its return value and the variables it assigns.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the variable is in the frame; false if it is a global variable or
+     *         has not been resolved
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return depth == 0;
+    }
+
+    /**
+     * Reading a variable which the resolver found no declaration of fails, which is an effect,
+     * so that the optimizer keeps the read; reading any other variable has no effects.
+     * @return returns true if the variable was resolved and found undeclared; false otherwise
+     */
+    public boolean hasEffects()
+    {
+        return undeclared;
+    }
+
+    /**
+     * A variable is already folded.
+     * @return returns the variable itself
+     */
+    public Variable fold()
+    {
+        return this;
+    }
+
+
+    /**
+     * A variable calls no procedures.
+     * @param procedures specifies the set of procedure names
+     */
+    public void findCalls(Set<String> procedures)
+    {
+    }
+
+    /**
+     * Finds the outermost loop in which the variable is invariant.
+     * @param licm specifies the pass
+     * @return returns the index of the loop, or the number of enclosing loops if the variable
+     *         is invariant in none of them
+     */
+    public int invariantLoop(LoopInvariantCodeMotion licm)
+    {
+        return licm.invariantLoop(name);
+    }
+
+    /**
+     * A variable is not worth moving out of a loop.
+     * @param licm specifies the pass
+     * @return returns the variable itself
+     */
+    public Variable hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        return this;
+    }
+
+
+    /**
+     * Adds the variable itself.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        variables.add(name);
+    }
+
+    /**
+     * The key of a variable is its name.
+     * @return returns the key
+     */
+    public String valueKey()
+    {
+        return name;
+    }
+
+    /**
+     * A variable is not worth replacing.
+     * @param gvn specifies the pass
+     * @return returns the variable itself
+     */
+    public Variable numberValues(GlobalValueNumbering gvn)
+    {
+        return this;
+    }
+
+    /**
+     * Records that the statement being walked reads the variable.
+     * @param inl specifies the pass
+     * @return returns the variable, renamed if it belongs to a procedure being inlined
+     */
+    public Variable inlineCalls(Inliner inl)
+    {
+        String renamed = inl.read(name);
+        Variable var = new Variable(renamed);
+        // a renamed variable is a temporary, which is always declared
+        var.undeclared = undeclared && renamed.equals(name);
+        return var;
+    }
+
+    /**
+     * Compiles the variable into a closure reading its slot, which indexes the environment's
+     * slots directly when the variable is declared in the environment itself.
+     * @return returns the closure evaluating the variable
+     */
+    public ExpressionClosure closure()
+    {
+        String name = this.name;
+        int depth = this.depth;
+        int slot = this.slot;
+        if (depth < 0)
+        {
+            return env -> env.getVariable(name);
+        }
+        if (depth == 0)
+        {
+            return env -> env.getSlots()[slot];
+        }
+        return env -> env.getVariable(depth, slot);
     }
 }
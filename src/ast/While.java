@@ -1,6 +1,19 @@
 package ast;
 
+import java.util.ArrayList;
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.BasicBlock;
+import ir.IrBuilder;
+import jvm.CompiledCode;
+import jvm.JitCompiler;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
 
 /**
  * Class representing a while loop in the AST.
@@ -12,6 +25,9 @@ public class While extends Statement
 {
     private Condition condition;
     private Statement statement;
+    private int iterations;
+    private CompiledCode compiled;
+    private Environment compiledGlobal;
 
     /**
      * Creates a while loop object with the condition and the statement to be executed
@@ -26,15 +42,41 @@ public class While extends Statement
     }
 
     /**
-     * Executes the while loop.
+     * Executes the while loop. Once the loop has run enough iterations with the JIT enabled, it
+     * is compiled to JVM code, which takes over from the next iteration. The compiled code and
+     * the count of iterations belong to the global environment they were taken in, so that a
+     * program run again in another environment starts interpreted, and stays interpreted if
+     * that environment has the JIT disabled.
      * @param env specifies the environment in which the while loop is executed
      * @throws Exception if an error occurs during the loop execution
      */
     public void exec(Environment env) throws Exception 
     {
+        Environment global = env.getGlobal();
+        if (global != compiledGlobal)
+        {
+            compiled = null;
+            iterations = 0;
+            compiledGlobal = global;
+        }
+        boolean jit = env.isJitEnabled();
+        if (compiled != null && jit)
+        {
+            compiled.run(env);
+            return;
+        }
         while (condition.eval(env)) 
         {
             statement.exec(env);
+            if (jit && ++iterations == JitCompiler.ITERATION_THRESHOLD)
+            {
+                compiled = JitCompiler.compile(this, env);
+                if (compiled != null)
+                {
+                    compiled.run(env);
+                    return;
+                }
+            }
         }
     }
 
@@ -62,4 +104,193 @@ public class While extends Statement
         e.emit("# after while loop");
         e.emit(endWhileLoop + ":");
     }
+
+    /**
+     * Assembles the while loop into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        int loopLabel = a.newLabel();
+        int endLabel = a.newLabel();
+
+        a.mark(loopLabel);
+        condition.assemble(a, endLabel);
+        statement.assemble(a);
+        a.emitJump(Bytecode.GOTO, loopLabel);
+        a.mark(endLabel);
+    }
+
+    /**
+     * Lowers the while loop into a header block evaluating the condition, which branches to
+     * the block of the loop's statement or to the block following the loop.
+     * @param b the builder which collects the instructions
+     */
+    public void lower(IrBuilder b)
+    {
+        BasicBlock header = b.newBlock();
+        BasicBlock body = b.newBlock();
+        BasicBlock end = b.newBlock();
+
+        b.jump(header);
+        b.setBlock(header);
+        condition.lower(b, body, end);
+        b.setBlock(body);
+        statement.lower(b);
+        b.jump(header);
+        b.setBlock(end);
+    }
+
+    /**
+     * Adds the while loop to the given flat tree.
+     * @param tree the flat tree to add the while loop to
+     * @return returns the index of the while loop's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        int conditionNode = condition.flatten(tree);
+        return tree.addNode(FlatTree.WHILE, 0, conditionNode, statement.flatten(tree));
+    }
+
+    /**
+     * Resolves every variable referenced by the while loop to its lexical address.
+     * @param scope specifies the scope in which the while loop appears
+     */
+    public void resolve(Scope scope)
+    {
+        condition.resolve(scope);
+        statement.resolve(scope);
+    }
+
+    /**
+     * Checks whether the condition and the statement of the loop are pure.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns true if the loop is pure; false otherwise
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return condition.isPure(pure) && statement.isPure(pure);
+    }
+
+    /**
+     * Folds the condition and the statement of the loop. A loop whose condition is constantly
+     * false is replaced by an empty block.
+     * @return returns the simplified loop
+     */
+    public Statement fold()
+    {
+        Condition folded = condition.fold();
+        if (folded.isConstant() && !folded.isTrue())
+        {
+            return new Block(new ArrayList<Statement>());
+        }
+        return new While(folded, statement.fold());
+    }
+
+
+    /**
+     * Adds the variables assigned and the procedures called by the condition and the statement
+     * of the loop.
+     * @param variables specifies the set of variable names
+     * @param procedures specifies the set of procedure names
+     */
+    public void findWrites(Set<String> variables, Set<String> procedures)
+    {
+        condition.findCalls(procedures);
+        statement.findWrites(variables, procedures);
+    }
+
+    /**
+     * Moves the invariant expressions of the condition and the statement out of the loop, or
+     * out of an enclosing loop in which they are invariant as well. The temporaries of the
+     * loop are assigned right before it.
+     * @param licm specifies the pass
+     * @return returns the statement assigning the loop's temporaries and running the loop
+     */
+    public Statement hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        licm.enterLoop(condition, statement);
+        Condition hoisted = condition.hoistInvariants(licm);
+        licm.enterStatement(hoisted);
+        While loop = new While(hoisted, statement.hoistInvariants(licm));
+        return licm.exitLoop(hoisted, loop);
+    }
+
+
+    /**
+     * Replaces the operations of the condition and the statement of the loop whose value is
+     * available by temporaries. Only the operations reading nothing the loop assigns stay
+     * available in the loop.
+     * @param gvn specifies the pass
+     * @return returns the loop with the operations replaced
+     */
+    public Statement numberValues(GlobalValueNumbering gvn)
+    {
+        gvn.enterLoop(condition, statement);
+        Condition numbered = condition.numberValues(gvn);
+        While replaced = new While(numbered, statement.numberValues(gvn));
+        gvn.exitLoop();
+        return replaced;
+    }
+
+    /**
+     * Removes the dead code of the statement of the loop. The statement is walked until the
+     * variables live at the start of the loop are known, and once more to remove its dead
+     * code. The loop itself always stays, since it may never end.
+     * @param dce specifies the pass
+     * @return returns the loop with the dead code removed
+     */
+    public Statement eliminateDeadCode(DeadCodeElimination dce)
+    {
+        dce.enterLoop(condition);
+        do
+        {
+            statement.eliminateDeadCode(dce);
+        }
+        while (dce.walkAgain(condition));
+        While kept = new While(condition, statement.eliminateDeadCode(dce));
+        dce.exitLoop(condition);
+        return kept;
+    }
+
+    /**
+     * Adds the variables read by the condition and the statement of the loop.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        condition.findReads(variables);
+        statement.findReads(variables);
+    }
+
+    /**
+     * Inlines the calls of the statement of the loop. The calls of the condition stay, since
+     * the condition runs again for every run of the loop.
+     * @param inl specifies the pass
+     * @return returns the loop with the calls inlined
+     */
+    public Statement inlineCalls(Inliner inl)
+    {
+        inl.beginStatement();
+        inl.stopInlining();
+        Condition inlined = condition.inlineCalls(inl);
+        return inl.endStatement(new While(inlined, statement.inlineCalls(inl)));
+    }
+
+    /**
+     * Compiles the loop into a closure.
+     * @return returns the closure executing the loop
+     */
+    public StatementClosure closure()
+    {
+        ConditionClosure test = condition.closure();
+        StatementClosure body = statement.closure();
+        return env ->
+        {
+            while (test.eval(env))
+            {
+                body.exec(env);
+            }
+        };
+    }
 }
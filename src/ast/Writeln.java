@@ -1,6 +1,15 @@
 package ast;
 
+import java.util.Set;
+
 import emitter.Emitter;
+import ir.IrBuilder;
+import optimizer.DeadCodeElimination;
+import optimizer.GlobalValueNumbering;
+import optimizer.Inliner;
+import optimizer.LoopInvariantCodeMotion;
+import vm.Assembler;
+import vm.Bytecode;
 
 /**
  * Class representing a print statement in the AST.
@@ -23,14 +32,15 @@ public class Writeln extends Statement
     }
 
     /**
-     * Evaluates the expression and prints the value of the expression.
+     * Evaluates the expression and prints the value of the expression to the environment's
+     * output sink.
      * @param env specifies the environment in which the print statement is executed
      * @throws Exception if an error occurs during the print statement execution or expression
      * evaluation.
      */
     public void exec(Environment env) throws Exception 
     {
-        System.out.println(exp.eval(env));
+        env.getOutput().println(exp.eval(env));
     }
 
     /**
@@ -49,4 +59,143 @@ public class Writeln extends Statement
         e.emit("li $v0, 4");
         e.emit("syscall");
     }
-}
\ No newline at end of file
+
+    /**
+     * Assembles the writeln statement into bytecode for the virtual machine.
+     * @param a the assembler which collects the bytecode
+     */
+    public void assemble(Assembler a)
+    {
+        exp.assemble(a);
+        a.emit(Bytecode.PRINT);
+    }
+
+    /**
+     * Lowers the writeln statement into an instruction printing the expression.
+     * @param b the builder which collects the instructions
+     */
+    public void lower(IrBuilder b)
+    {
+        b.print(exp.lower(b));
+    }
+
+    /**
+     * Adds the print statement to the given flat tree.
+     * @param tree the flat tree to add the print statement to
+     * @return returns the index of the print statement's node in the tree
+     */
+    public int flatten(FlatTree tree)
+    {
+        return tree.addNode(FlatTree.WRITELN, 0, exp.flatten(tree), 0);
+    }
+
+    /**
+     * Resolves every variable referenced by the writeln statement to its lexical address.
+     * @param scope specifies the scope in which the writeln statement appears
+     */
+    public void resolve(Scope scope)
+    {
+        exp.resolve(scope);
+    }
+
+    /**
+     * A writeln statement is never pure, since it prints.
+     * @param pure specifies the names of the procedures assumed to be pure
+     * @return returns false
+     */
+    public boolean isPure(Set<String> pure)
+    {
+        return false;
+    }
+
+    /**
+     * Folds the printed expression.
+     * @return returns the writeln statement printing the folded expression
+     */
+    public Statement fold()
+    {
+        return new Writeln(exp.fold());
+    }
+
+
+    /**
+     * Adds the procedures called by the printed expression.
+     * @param variables specifies the set of variable names
+     * @param procedures specifies the set of procedure names
+     */
+    public void findWrites(Set<String> variables, Set<String> procedures)
+    {
+        exp.findCalls(procedures);
+    }
+
+    /**
+     * Moves the parts of the printed expression which can move out of a loop. Printing is an
+     * effect.
+     * @param licm specifies the pass
+     * @return returns the writeln statement printing the expression with the parts replaced
+     */
+    public Statement hoistInvariants(LoopInvariantCodeMotion licm)
+    {
+        Expression hoisted = exp.hoistInvariants(licm);
+        licm.stopHoistingEffects();
+        return new Writeln(hoisted);
+    }
+
+
+    /**
+     * Replaces the operations of the printed expression whose value is available by
+     * temporaries.
+     * @param gvn specifies the pass
+     * @return returns the writeln statement printing the expression with the operations
+     *         replaced
+     */
+    public Statement numberValues(GlobalValueNumbering gvn)
+    {
+        gvn.beginStatement();
+        Expression numbered = exp.numberValues(gvn);
+        return gvn.endStatement(new Writeln(numbered));
+    }
+
+    /**
+     * Keeps the print statement, before which the variables its expression reads are live.
+     * @param dce specifies the pass
+     * @return returns the print statement
+     */
+    public Statement eliminateDeadCode(DeadCodeElimination dce)
+    {
+        dce.read(exp);
+        return this;
+    }
+
+    /**
+     * Adds the variables read by the printed expression.
+     * @param variables specifies the set of variable names
+     */
+    public void findReads(Set<String> variables)
+    {
+        exp.findReads(variables);
+    }
+
+    /**
+     * Inlines the calls of the printed expression before the print statement.
+     * @param inl specifies the pass
+     * @return returns the print statement of the expression with the calls inlined, after the
+     *         inlined procedures
+     */
+    public Statement inlineCalls(Inliner inl)
+    {
+        inl.beginStatement();
+        Expression inlined = exp.inlineCalls(inl);
+        return inl.endStatement(new Writeln(inlined));
+    }
+
+    /**
+     * Compiles the print statement into a closure.
+     * @return returns the closure executing the print statement
+     */
+    public StatementClosure closure()
+    {
+        ExpressionClosure value = exp.closure();
+        return env -> env.getOutput().println(value.eval(env));
+    }
+}
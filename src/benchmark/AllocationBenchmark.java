@@ -0,0 +1,113 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import ast.Environment;
+import ast.Program;
+import ast.StatementClosure;
+import parser.Parser;
+import scanner.Scanner;
+
+/**
+ * Benchmark measuring the memory allocated per procedure call by a call-heavy program in the
+ * AST interpreter, in the AST interpreter compiling hot code to JVM code and in closures
+ * compiled from the AST. The allocation is read from the running thread's allocation counter,
+ * so parsing and compiling are left out of the measurement.
+ * Usage: java benchmark.AllocationBenchmark [number of calls in millions]
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class AllocationBenchmark
+{
+    private static final int RUNS = 5;
+
+    private static com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Runs the benchmark.
+     * @param args specifies the number of calls in millions (defaults to 2)
+     * @throws Exception if an error occurs while running the program
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int millions = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        long calls = millions * 1000000L;
+        String input = generateInput(millions * 1000000 / 2);
+
+        for (int run = 0; run < RUNS; run++)
+        {
+            Program program = new Parser(new Scanner(input)).parseProgram();
+            long start = System.nanoTime();
+            long bytes = allocatedBytes();
+            program.exec(new Environment());
+            report("ast interpreter", allocatedBytes() - bytes, calls, System.nanoTime() - start);
+
+            program = new Parser(new Scanner(input)).parseProgram();
+            Environment env = new Environment();
+            env.setJitEnabled(true);
+            start = System.nanoTime();
+            bytes = allocatedBytes();
+            program.exec(env);
+            report("ast with jit", allocatedBytes() - bytes, calls, System.nanoTime() - start);
+
+            program = new Parser(new Scanner(input)).parseProgram();
+            StatementClosure closure = program.closure();
+            start = System.nanoTime();
+            bytes = allocatedBytes();
+            closure.exec(new Environment());
+            report("closures", allocatedBytes() - bytes, calls, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Generates a program whose main loop runs the given number of times, making two calls in
+     * every iteration, one of which calls another procedure.
+     * @param iterations specifies the number of iterations of the main loop
+     * @return returns the generated program
+     */
+    private static String generateInput(int iterations)
+    {
+        return "VAR count, total;\n"
+            + "PROCEDURE square(value);\n"
+            + "BEGIN\n"
+            + "    square := value * value;\n"
+            + "END;\n"
+            + "PROCEDURE step(value, scale);\n"
+            + "BEGIN\n"
+            + "    step := value / scale;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "    count := 0;\n"
+            + "    total := 0;\n"
+            + "    WHILE count < " + iterations + " DO\n"
+            + "    BEGIN\n"
+            + "        total := total + step(square(count), 3);\n"
+            + "        count := count + 1;\n"
+            + "    END;\n"
+            + "    WRITELN(total);\n"
+            + "END;\n"
+            + ".\n";
+    }
+
+    /**
+     * @return returns the number of bytes allocated by the running thread so far
+     */
+    private static long allocatedBytes()
+    {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Prints the allocation and time of one measurement.
+     * @param name specifies the name of the measurement
+     * @param bytes specifies the number of bytes allocated
+     * @param calls specifies the number of procedure calls made
+     * @param nanos specifies the time taken in nanoseconds
+     */
+    private static void report(String name, long bytes, long calls, long nanos)
+    {
+        System.out.printf("%-20s %8.2f bytes/call %10.1f MB %10.1f ms%n", name,
+            (double) bytes / calls, bytes / 1048576.0, nanos / 1000000.0);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import java.lang.reflect.Method;
+
+import ast.Environment;
+import ast.Program;
+import jvm.AotCompiler;
+import jvm.JitClassLoader;
+import parser.Parser;
+import scanner.Scanner;
+
+/**
+ * Benchmark comparing the run time of a program executed by Program.exec with the run time of
+ * the same program compiled ahead of time into a standalone class by the AotCompiler. The
+ * compiled class is loaded in this process and its main method is called, so both measurements
+ * include only running the program.
+ * Usage: java benchmark.AotBenchmark [number of loop iterations in millions]
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class AotBenchmark
+{
+    private static final int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args specifies the number of loop iterations in millions (defaults to 5)
+     * @throws Exception if an error occurs while compiling or running the program
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int millions = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        String input = generateInput(millions * 1000000);
+
+        for (int run = 0; run < RUNS; run++)
+        {
+            Program program = new Parser(new Scanner(input)).parseProgram();
+            long start = System.nanoTime();
+            program.exec(new Environment());
+            report("ast interpreter", System.nanoTime() - start);
+
+            // each run loads a fresh class, so its static fields start from 0
+            String name = "AotProgram" + run;
+            program = new Parser(new Scanner(input)).parseProgram();
+            byte[] bytes = AotCompiler.compile(program, name);
+            Method main = new JitClassLoader().define(name, bytes)
+                .getMethod("main", String[].class);
+            start = System.nanoTime();
+            main.invoke(null, (Object) new String[0]);
+            report("aot compiled class", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Generates a program whose main loop runs the given number of times, calling either a
+     * recursive procedure or a procedure doing arithmetic in every iteration.
+     * @param iterations specifies the number of iterations of the main loop
+     * @return returns the generated program
+     */
+    private static String generateInput(int iterations)
+    {
+        return "VAR count, total;\n"
+            + "PROCEDURE sum(n);\n"
+            + "BEGIN\n"
+            + "    IF n > 0 THEN sum := n + sum(n - 1);\n"
+            + "    ELSE sum := 0;\n"
+            + "END;\n"
+            + "PROCEDURE add(value);\n"
+            + "BEGIN\n"
+            + "    add := value * 3 - value / 2;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "    count := 0;\n"
+            + "    total := 0;\n"
+            + "    WHILE count < " + iterations + " DO\n"
+            + "    BEGIN\n"
+            + "        IF count - count / 7 * 7 = 0 THEN total := total + sum(5);\n"
+            + "        ELSE total := total + add(count);\n"
+            + "        count := count + 1;\n"
+            + "    END;\n"
+            + "    WRITELN(total);\n"
+            + "END;\n"
+            + ".\n";
+    }
+
+    /**
+     * Prints the time of one measurement.
+     * @param name specifies the name of the measurement
+     * @param nanos specifies the time taken in nanoseconds
+     */
+    private static void report(String name, long nanos)
+    {
+        System.out.printf("%-20s %10.1f ms%n", name, nanos / 1000000.0);
+    }
+}
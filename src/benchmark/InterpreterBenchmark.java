@@ -0,0 +1,100 @@
+package benchmark;
+
+import ast.Environment;
+import ast.Program;
+import ast.StatementClosure;
+import parser.Parser;
+import scanner.Scanner;
+import vm.Assembler;
+import vm.Bytecode;
+import vm.VirtualMachine;
+
+/**
+ * Benchmark comparing the run time of a loop-heavy program in the AST interpreter, which walks
+ * the tree through Statement.exec and Expression.eval, in the AST interpreter compiling hot code
+ * to JVM code, in closures compiled from the AST and in the virtual machine.
+ * Usage: java benchmark.InterpreterBenchmark [number of loop iterations in millions]
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class InterpreterBenchmark
+{
+    private static final int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args specifies the number of loop iterations in millions (defaults to 5)
+     * @throws Exception if an error occurs while running the program
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int millions = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        String input = generateInput(millions * 1000000);
+
+        for (int run = 0; run < RUNS; run++)
+        {
+            Program program = new Parser(new Scanner(input)).parseProgram();
+            long start = System.nanoTime();
+            program.exec(new Environment());
+            report("ast interpreter", System.nanoTime() - start);
+
+            program = new Parser(new Scanner(input)).parseProgram();
+            Environment env = new Environment();
+            env.setJitEnabled(true);
+            start = System.nanoTime();
+            program.exec(env);
+            report("ast with jit", System.nanoTime() - start);
+
+            program = new Parser(new Scanner(input)).parseProgram();
+            StatementClosure closure = program.closure();
+            start = System.nanoTime();
+            closure.exec(new Environment());
+            report("closures", System.nanoTime() - start);
+
+            program = new Parser(new Scanner(input)).parseProgram();
+            Assembler a = new Assembler();
+            program.assemble(a);
+            Bytecode bytecode = a.finish();
+            start = System.nanoTime();
+            new VirtualMachine(bytecode).run();
+            report("virtual machine", System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Generates a program whose main loop runs the given number of times, doing arithmetic on
+     * globals, branching and calling a procedure in every iteration.
+     * @param iterations specifies the number of iterations of the main loop
+     * @return returns the generated program
+     */
+    private static String generateInput(int iterations)
+    {
+        return "VAR count, total;\n"
+            + "PROCEDURE step(value);\n"
+            + "BEGIN\n"
+            + "    step := value * 3 - value / 2;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "    count := 0;\n"
+            + "    total := 0;\n"
+            + "    WHILE count < " + iterations + " DO\n"
+            + "    BEGIN\n"
+            + "        IF count - count / 7 * 7 = 0 THEN total := total + step(count);\n"
+            + "        ELSE total := total - 1;\n"
+            + "        count := count + 1;\n"
+            + "    END;\n"
+            + "    WRITELN(total);\n"
+            + "END;\n"
+            + ".\n";
+    }
+
+    /**
+     * Prints the time of one measurement.
+     * @param name specifies the name of the measurement
+     * @param nanos specifies the time taken in nanoseconds
+     */
+    private static void report(String name, long nanos)
+    {
+        System.out.printf("%-20s %10.1f ms%n", name, nanos / 1000000.0);
+    }
+}
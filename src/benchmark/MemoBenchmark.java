@@ -0,0 +1,106 @@
+package benchmark;
+
+import java.io.OutputStream;
+
+import ast.Environment;
+import ast.MemoTable;
+import ast.OutputSink;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import parser.Parser;
+import scanner.Scanner;
+
+/**
+ * Benchmark measuring the run time of naive recursive definitions of the Fibonacci numbers and
+ * the binomial coefficients in the AST interpreter, without memoization and with memo tables of
+ * increasing capacity, along with the hit rate and evictions of each table. A table too small
+ * to hold the values the recursion reuses evicts them before they are hit again.
+ * Usage: java benchmark.MemoBenchmark [argument of fib] [first argument of choose]
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class MemoBenchmark
+{
+    private static final int RUNS = 3;
+    private static final int[] CAPACITIES = {4, 16, 64, MemoTable.DEFAULT_CAPACITY};
+
+    /**
+     * Runs the benchmark.
+     * @param args specifies the argument of fib (defaults to 27) and the first argument of
+     *             choose, whose second argument is half of the first (defaults to 22)
+     * @throws Exception if an error occurs while running the program
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int fib = args.length > 0 ? Integer.parseInt(args[0]) : 27;
+        int choose = args.length > 1 ? Integer.parseInt(args[1]) : 22;
+        String input = generateInput(fib, choose);
+
+        for (int run = 0; run < RUNS; run++)
+        {
+            measure(input, 0);
+            for (int capacity : CAPACITIES)
+            {
+                measure(input, capacity);
+            }
+        }
+    }
+
+    /**
+     * Runs the program once with memo tables of the given capacity and prints the time taken
+     * and the counters of every memo table.
+     * @param input specifies the program
+     * @param capacity specifies the capacity of each memo table, or 0 for no memoization
+     * @throws Exception if an error occurs while running the program
+     */
+    private static void measure(String input, int capacity) throws Exception
+    {
+        Program program = new Parser(new Scanner(input)).parseProgram();
+        Environment env = new Environment();
+        env.setOutput(new OutputSink(OutputStream.nullOutputStream(),
+            OutputSink.DEFAULT_BUFFER_SIZE, false));
+        env.setMemoCapacity(capacity);
+        long start = System.nanoTime();
+        program.exec(env);
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("%-20s %10.2f ms%n",
+            capacity == 0 ? "no memoization" : "capacity " + capacity, nanos / 1000000.0);
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            if (pd.getMemoTable() != null)
+            {
+                System.out.println("    " + pd.getName() + ": " + pd.getMemoTable());
+            }
+        }
+    }
+
+    /**
+     * Generates a program printing fib(fib) and choose(choose, choose / 2).
+     * @param fib specifies the argument of fib
+     * @param choose specifies the first argument of choose
+     * @return returns the generated program
+     */
+    private static String generateInput(int fib, int choose)
+    {
+        return "VAR result;\n"
+            + "PROCEDURE fib(n);\n"
+            + "BEGIN\n"
+            + "    IF n < 2 THEN fib := n;\n"
+            + "    ELSE fib := fib(n - 1) + fib(n - 2);\n"
+            + "END;\n"
+            + "PROCEDURE choose(n, k);\n"
+            + "BEGIN\n"
+            + "    IF k = 0 THEN choose := 1;\n"
+            + "    ELSE IF k = n THEN choose := 1;\n"
+            + "    ELSE choose := choose(n - 1, k - 1) + choose(n - 1, k);\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "    result := fib(" + fib + ");\n"
+            + "    WRITELN(result);\n"
+            + "    result := choose(" + choose + ", " + choose / 2 + ");\n"
+            + "    WRITELN(result);\n"
+            + "END;\n"
+            + ".\n";
+    }
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import parser.Parser;
+import scanner.Scanner;
+
+/**
+ * Benchmark comparing the parse throughput of the Parser, which dispatches on token kinds, with 
+ * the StringParser, which dispatches on token Strings.
+ * Usage: java benchmark.ParserBenchmark [size of the input in MB]
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class ParserBenchmark 
+{
+    private static final int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args specifies the size of the generated input in MB (defaults to 8)
+     * @throws Exception if an error occurs while parsing the input
+     */
+    public static void main(String[] args) throws Exception 
+    {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        String input = generateInput(megabytes * 1024 * 1024);
+
+        for (int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+            new StringParser(new Scanner(input)).parseProgram();
+            report("string dispatch", input.length(), System.nanoTime() - start);
+
+            start = System.nanoTime();
+            new Parser(new Scanner(input)).parseProgram();
+            report("token kind dispatch", input.length(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Generates a program of roughly the given size, made of statements of every kind so that 
+     * the parser tries all of its branches.
+     * @param size specifies the number of characters to generate
+     * @return returns the generated program
+     */
+    private static String generateInput(int size)
+    {
+        StringBuilder sb = new StringBuilder(size + 128);
+        sb.append("VAR count, total, value;\nBEGIN\n");
+        int line = 0;
+        while (sb.length() < size)
+        {
+            sb.append("    total := (total + count * ").append(line++).append(") / 3 - value;\n");
+            sb.append("    IF total >= value THEN value := value - 1;\n");
+            sb.append("    WHILE count < 10 DO count := count + 1;\n");
+            sb.append("    BEGIN\n        WRITELN(-total);\n    END;\n");
+        }
+        sb.append("END;\n.\n");
+        return sb.toString();
+    }
+
+    /**
+     * Prints the throughput of one measurement.
+     * @param name specifies the name of the measurement
+     * @param chars specifies the number of characters parsed
+     * @param nanos specifies the time taken in nanoseconds
+     */
+    private static void report(String name, int chars, long nanos)
+    {
+        System.out.printf("%-20s %10.1f Mchars/s%n", name, chars * 1000.0 / nanos);
+    }
+}
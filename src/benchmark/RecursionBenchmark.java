@@ -0,0 +1,135 @@
+package benchmark;
+
+import java.io.OutputStream;
+
+import ast.Environment;
+import ast.OutputSink;
+import ast.Program;
+import ast.StatementClosure;
+import parser.Parser;
+import scanner.Scanner;
+
+/**
+ * Benchmark measuring the time per procedure call of a recursive procedure at increasing depths
+ * of recursion in the AST interpreter and in closures compiled from the AST. Every depth makes
+ * the same total number of calls, so a constant time per call means that finding the procedure
+ * costs the same at any depth. The benchmark runs in a thread with a large stack, so that deep
+ * recursion in the interpreter needs no -Xss option.
+ * Usage: java benchmark.RecursionBenchmark [number of calls per depth in millions]
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class RecursionBenchmark
+{
+    private static final int RUNS = 3;
+    private static final int[] DEPTHS = {10, 100, 1000, 10000};
+    private static final long STACK_SIZE = 1L << 30;
+
+    /**
+     * Runs the benchmark.
+     * @param args specifies the number of calls per depth in millions (defaults to 2)
+     * @throws Exception if an error occurs while running the program
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int millions = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        Exception[] error = new Exception[1];
+        Thread thread = new Thread(null, () ->
+        {
+            try
+            {
+                run(millions * 1000000);
+            }
+            catch (Exception e)
+            {
+                error[0] = e;
+            }
+        }, "recursion", STACK_SIZE);
+        thread.start();
+        thread.join();
+        if (error[0] != null)
+        {
+            throw error[0];
+        }
+    }
+
+    /**
+     * Measures every depth of recursion.
+     * @param calls specifies the number of calls made at each depth
+     * @throws Exception if an error occurs while running the program
+     */
+    private static void run(int calls) throws Exception
+    {
+        for (int run = 0; run < RUNS; run++)
+        {
+            for (int depth : DEPTHS)
+            {
+                String input = generateInput(depth, calls / depth);
+
+                Program program = new Parser(new Scanner(input)).parseProgram();
+                Environment env = quietEnvironment();
+                long start = System.nanoTime();
+                program.exec(env);
+                report("ast interpreter", depth, System.nanoTime() - start, calls);
+
+                program = new Parser(new Scanner(input)).parseProgram();
+                StatementClosure closure = program.closure();
+                env = quietEnvironment();
+                start = System.nanoTime();
+                closure.exec(env);
+                report("closures", depth, System.nanoTime() - start, calls);
+            }
+        }
+    }
+
+    /**
+     * Generates a program which calls a procedure recursing to the given depth the given number
+     * of times.
+     * @param depth specifies the depth of the recursion
+     * @param repeats specifies the number of times the recursion is run
+     * @return returns the generated program
+     */
+    private static String generateInput(int depth, int repeats)
+    {
+        return "VAR count, total;\n"
+            + "PROCEDURE sum(n);\n"
+            + "BEGIN\n"
+            + "    IF n > 0 THEN sum := n + sum(n - 1);\n"
+            + "    ELSE sum := 0;\n"
+            + "END;\n"
+            + "BEGIN\n"
+            + "    count := 0;\n"
+            + "    total := 0;\n"
+            + "    WHILE count < " + repeats + " DO\n"
+            + "    BEGIN\n"
+            + "        total := total + sum(" + depth + ");\n"
+            + "        count := count + 1;\n"
+            + "    END;\n"
+            + "    WRITELN(total);\n"
+            + "END;\n"
+            + ".\n";
+    }
+
+    /**
+     * @return returns an environment whose output is discarded
+     */
+    private static Environment quietEnvironment()
+    {
+        Environment env = new Environment();
+        env.setOutput(new OutputSink(OutputStream.nullOutputStream(),
+            OutputSink.DEFAULT_BUFFER_SIZE, false));
+        return env;
+    }
+
+    /**
+     * Prints the time per call of one measurement.
+     * @param name specifies the name of the measurement
+     * @param depth specifies the depth of the recursion
+     * @param nanos specifies the time taken in nanoseconds
+     * @param calls specifies the number of calls made
+     */
+    private static void report(String name, int depth, long nanos, int calls)
+    {
+        System.out.printf("%-20s depth %6d %8.1f ns/call%n", name, depth, (double) nanos / calls);
+    }
+}
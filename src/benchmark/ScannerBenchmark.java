@@ -0,0 +1,118 @@
+package benchmark;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import scanner.Scanner;
+import scanner.TokenKind;
+
+/**
+ * Benchmark comparing the throughput, in characters per second, of the table-driven character
+ * classification used by the Scanner with the String based classification it replaced, and of
+ * the Scanner as a whole with the StringScanner it replaced, both scanning the same file.
+ * Usage: java benchmark.ScannerBenchmark [size of the input in MB]
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class ScannerBenchmark 
+{
+    private static final int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args specifies the size of the generated input in MB (defaults to 8)
+     * @throws Exception if an error occurs while scanning the input
+     */
+    public static void main(String[] args) throws Exception 
+    {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        String input = generateInput(megabytes * 1024 * 1024);
+        Path file = Files.createTempFile("scanner", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, input.getBytes("US-ASCII"));
+
+        for (int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+            int count = 0;
+            for (int i = 0; i < input.length(); i++)
+            {
+                char c = input.charAt(i);
+                if (" \t\r\n".contains(String.valueOf(c)) || (c >= '0' && c <= '9') 
+                    || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))
+                {
+                    count++;
+                }
+            }
+            report("string classification", input.length(), System.nanoTime() - start, count);
+
+            start = System.nanoTime();
+            count = 0;
+            for (int i = 0; i < input.length(); i++)
+            {
+                char c = input.charAt(i);
+                if (Scanner.isWhiteSpace(c) || Scanner.isDigit(c) || Scanner.isLetter(c))
+                {
+                    count++;
+                }
+            }
+            report("table classification", input.length(), System.nanoTime() - start, count);
+
+            start = System.nanoTime();
+            try (InputStream in = new FileInputStream(file.toFile()))
+            {
+                StringScanner stringScanner = new StringScanner(in);
+                count = 0;
+                while (stringScanner.hasNext())
+                {
+                    stringScanner.nextToken();
+                    count++;
+                }
+            }
+            report("string scanner", input.length(), System.nanoTime() - start, count);
+
+            start = System.nanoTime();
+            Scanner scanner = new Scanner(file);
+            count = 0;
+            while (scanner.next() != TokenKind.EOF)
+            {
+                count++;
+            }
+            report("scanner", input.length(), System.nanoTime() - start, count);
+        }
+    }
+
+    /**
+     * Generates a program of roughly the given size out of a repeated block of statements.
+     * @param size specifies the number of characters to generate
+     * @return returns the generated program
+     */
+    private static String generateInput(int size)
+    {
+        StringBuilder sb = new StringBuilder(size + 128);
+        sb.append("VAR count, total, value;\nBEGIN\n");
+        int line = 0;
+        while (sb.length() < size)
+        {
+            sb.append("    total := (total + count * ").append(line++).append(") / 3;\n");
+            sb.append("    IF total >= value THEN value := value - 1;\n");
+            sb.append("    WRITELN(total <> value);\n");
+        }
+        sb.append("END;\n.\n");
+        return sb.toString();
+    }
+
+    /**
+     * Prints the throughput of one measurement.
+     * @param name specifies the name of the measurement
+     * @param chars specifies the number of characters processed
+     * @param nanos specifies the time taken in nanoseconds
+     * @param count specifies the result of the measurement, printed so it is not optimized away
+     */
+    private static void report(String name, int chars, long nanos, int count)
+    {
+        System.out.printf("%-24s %10.1f Mchars/s (%d)%n", name, chars * 1000.0 / nanos, count);
+    }
+}
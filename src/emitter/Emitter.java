@@ -12,6 +12,8 @@ public class Emitter
 {
     private int labelCount;
     private PrintWriter out;
+    private boolean inProcedure;
+    private int instructionCount;
 
     /**
      * creates an emitter for writing to a new file with given name
@@ -30,6 +32,17 @@ public class Emitter
         }
     }
 
+    /**
+     * creates an emitter for writing to the given writer, such as one discarding the code
+     * when only the number of instructions is needed
+     * @param out the writer to write to
+     */
+    public Emitter(Writer out)
+    {
+        labelCount = 1;
+        this.out = new PrintWriter(out, true);
+    }
+
     /** 
      * prints one line of code to file (with non-labels indented)
      * @param code the string of code to print
@@ -37,10 +50,23 @@ public class Emitter
     public void emit(String code)
     {
         if (!code.endsWith(":"))
+        {
+            // labels, directives, comments and data words are not instructions
+            if (!code.startsWith(".") && !code.startsWith("#") && !code.contains(": ."))
+                instructionCount++;
             code = "\t" + code;
+        }
         out.println(code);
     }
 
+    /**
+     * @return returns the number of instructions emitted so far
+     */
+    public int getInstructionCount()
+    {
+        return instructionCount;
+    }
+
     /**
      * closes the file.  should be called after all calls to emit.
      */
@@ -77,4 +103,22 @@ public class Emitter
     {
         return labelCount++;
     }
+
+    /**
+     * sets whether the code being emitted belongs to a procedure, whose variables are stored
+     * in its frame instead of in labeled words
+     * @param inProcedure specifies whether a procedure is being emitted
+     */
+    public void setInProcedure(boolean inProcedure)
+    {
+        this.inProcedure = inProcedure;
+    }
+
+    /**
+     * @return returns true if the code being emitted belongs to a procedure; false otherwise
+     */
+    public boolean isInProcedure()
+    {
+        return inProcedure;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The BasicBlock class represents a basic block of a function's control-flow graph, a sequence
+ * of instructions which starts with its phi instructions and ends with its terminator. The
+ * operands of each phi instruction follow the order of the block's predecessors.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class BasicBlock
+{
+    private Function function;
+    private int id;
+    private List<Instruction> instructions;
+    private List<BasicBlock> predecessors;
+    private List<BasicBlock> successors;
+
+    /**
+     * Creates an empty block of the given function.
+     * @param function specifies the function
+     * @param id specifies the number of the block within the function
+     */
+    BasicBlock(Function function, int id)
+    {
+        this.function = function;
+        this.id = id;
+        instructions = new ArrayList<Instruction>();
+        predecessors = new ArrayList<BasicBlock>();
+        successors = new ArrayList<BasicBlock>();
+    }
+
+    /**
+     * @return returns the function holding the block
+     */
+    public Function getFunction()
+    {
+        return function;
+    }
+
+    /**
+     * @return returns the number of the block within its function
+     */
+    public int getID()
+    {
+        return id;
+    }
+
+    /**
+     * @return returns the instructions of the block in order
+     */
+    public List<Instruction> getInstructions()
+    {
+        return instructions;
+    }
+
+    /**
+     * @return returns the blocks from which control may enter this block
+     */
+    public List<BasicBlock> getPredecessors()
+    {
+        return predecessors;
+    }
+
+    /**
+     * @return returns the blocks to which control may leave this block, in the order of the
+     *         terminator's targets
+     */
+    public List<BasicBlock> getSuccessors()
+    {
+        return successors;
+    }
+
+    /**
+     * @return returns the terminator ending the block, or null if the block is not yet
+     *         terminated
+     */
+    public Instruction getTerminator()
+    {
+        if (instructions.isEmpty())
+        {
+            return null;
+        }
+        Instruction last = instructions.get(instructions.size() - 1);
+        return last.isTerminator() ? last : null;
+    }
+
+    /**
+     * @return returns the phi instructions at the start of the block
+     */
+    public List<Instruction> getPhis()
+    {
+        int count = 0;
+        while (count < instructions.size() && instructions.get(count).getOp() == Instruction.PHI)
+        {
+            count++;
+        }
+        return new ArrayList<Instruction>(instructions.subList(0, count));
+    }
+
+    /**
+     * Appends an instruction to the block.
+     * @param inst specifies the instruction
+     * @return returns the instruction
+     */
+    public Instruction add(Instruction inst)
+    {
+        return insert(instructions.size(), inst);
+    }
+
+    /**
+     * Inserts an instruction at the given position of the block.
+     * @param index specifies the position
+     * @param inst specifies the instruction
+     * @return returns the instruction
+     */
+    public Instruction insert(int index, Instruction inst)
+    {
+        instructions.add(index, inst);
+        inst.setBlock(this);
+        return inst;
+    }
+
+    /**
+     * Inserts an instruction just before the block's terminator.
+     * @param inst specifies the instruction
+     * @return returns the instruction
+     */
+    public Instruction insertBeforeTerminator(Instruction inst)
+    {
+        int index = getTerminator() == null ? instructions.size() : instructions.size() - 1;
+        return insert(index, inst);
+    }
+
+    /**
+     * Adds a control-flow edge from this block to the given block.
+     * @param successor specifies the block
+     */
+    public void addSuccessor(BasicBlock successor)
+    {
+        successors.add(successor);
+        successor.predecessors.add(this);
+    }
+
+    /**
+     * Removes the edge from the given predecessor to this block along with the corresponding
+     * operand of every phi instruction.
+     * @param predecessor specifies the predecessor
+     */
+    public void removePredecessor(BasicBlock predecessor)
+    {
+        int index = predecessors.indexOf(predecessor);
+        predecessors.remove(index);
+        predecessor.successors.remove(this);
+        for (Instruction phi : getPhis())
+        {
+            phi.removeOperand(index);
+        }
+    }
+
+    /**
+     * Places a new block on the edge from this block to the given successor, so that the edge
+     * becomes two edges through the new block, which jumps to the successor. The new block
+     * takes this block's place among the successor's predecessors, so the successor's phi
+     * instructions stay as they are.
+     * @param successor specifies the successor
+     * @return returns the new block
+     */
+    public BasicBlock splitEdge(BasicBlock successor)
+    {
+        BasicBlock middle = function.newBlock();
+        successors.set(successors.indexOf(successor), middle);
+        middle.predecessors.add(this);
+        successor.predecessors.set(successor.predecessors.indexOf(this), middle);
+        middle.successors.add(successor);
+        middle.add(new Instruction(Instruction.JUMP, 0, null));
+        return middle;
+    }
+
+    /**
+     * @return returns the block and its instructions as lines of text
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder("b" + id + ":");
+        if (!predecessors.isEmpty())
+        {
+            text.append("    ; from");
+            for (BasicBlock predecessor : predecessors)
+            {
+                text.append(" b").append(predecessor.id);
+            }
+        }
+        text.append('\n');
+        for (Instruction inst : instructions)
+        {
+            text.append("    ").append(inst).append('\n');
+        }
+        return text.toString();
+    }
+}
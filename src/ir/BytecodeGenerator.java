@@ -0,0 +1,295 @@
+package ir;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import vm.Assembler;
+import vm.Bytecode;
+
+/**
+ * The BytecodeGenerator class generates bytecode for the virtual machine from a program in SSA
+ * form. The main program becomes a procedure of its own, which the bytecode calls and then
+ * halts, so that its values have a frame as well. Each value is kept where the FrameLayout puts
+ * it, every block starts and ends with an empty operand stack, and the copies for the phi
+ * instructions of a block are made in parallel at the end of its predecessors, by pushing
+ * every incoming value before storing any of them.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class BytecodeGenerator
+{
+    /**
+     * The name of the procedure holding the main program, which no program's procedure can
+     * have.
+     */
+    public static final String MAIN_NAME = "<main>";
+
+    private Assembler a;
+    private FrameLayout layout;
+    private Map<BasicBlock, Integer> labels;
+
+    /**
+     * Creates a generator emitting into the given assembler.
+     * @param a specifies the assembler
+     */
+    private BytecodeGenerator(Assembler a)
+    {
+        this.a = a;
+    }
+
+    /**
+     * Generates the bytecode of the given program.
+     * @param program specifies the program in SSA form
+     * @return returns the bytecode
+     */
+    public static Bytecode generate(IrProgram program)
+    {
+        Assembler a = new Assembler();
+        a.setGlobals(program.getGlobalCount());
+        a.emitCall(MAIN_NAME, 0);
+        a.emit(Bytecode.HALT);
+        BytecodeGenerator generator = new BytecodeGenerator(a);
+        generator.generate(program.getMain());
+        for (Function procedure : program.getProcedures())
+        {
+            generator.generate(procedure);
+        }
+        return a.finish();
+    }
+
+    /**
+     * Generates the code of one function, in which the slot after the arguments holds the
+     * value returned when that value has no slot of its own.
+     * @param function specifies the function
+     */
+    private void generate(Function function)
+    {
+        layout = new FrameLayout(function, 1);
+        int[] argSlots = new int[function.getParamCount()];
+        for (int i = 0; i < argSlots.length; i++)
+        {
+            argSlots[i] = i;
+        }
+        a.beginProcedure(function.isMain() ? MAIN_NAME : function.getName(), argSlots,
+            layout.getFrameSize());
+        List<BasicBlock> order = layout.getOrder();
+        labels = new HashMap<BasicBlock, Integer>();
+        for (BasicBlock block : order)
+        {
+            labels.put(block, a.newLabel());
+        }
+        for (int i = 0; i < order.size(); i++)
+        {
+            BasicBlock block = order.get(i);
+            BasicBlock next = i + 1 < order.size() ? order.get(i + 1) : null;
+            a.mark(labels.get(block));
+            for (Instruction inst : block.getInstructions())
+            {
+                if (layout.isEmitted(inst))
+                {
+                    emit(inst, next);
+                }
+            }
+        }
+        a.endProcedure();
+    }
+
+    /**
+     * Emits the code of an instruction which stands where it is emitted.
+     * @param inst specifies the instruction
+     * @param next specifies the block laid out after the instruction's block, or null
+     */
+    private void emit(Instruction inst, BasicBlock next)
+    {
+        switch (inst.getOp())
+        {
+            case Instruction.STORE_GLOBAL:
+                push(inst.getOperand(0));
+                a.emit(Bytecode.GSTORE, inst.getValue());
+                break;
+            case Instruction.PRINT:
+                push(inst.getOperand(0));
+                a.emit(Bytecode.PRINT);
+                break;
+            case Instruction.JUMP:
+                BasicBlock target = inst.getBlock().getSuccessors().get(0);
+                copyPhis(inst.getBlock(), target);
+                if (target != next)
+                {
+                    a.emitJump(Bytecode.GOTO, labels.get(target));
+                }
+                break;
+            case Instruction.BRANCH:
+                emitBranch(inst, next);
+                break;
+            case Instruction.RETURN:
+                emitReturn(inst);
+                break;
+            default:
+                compute(inst);
+                a.emit(Bytecode.STORE, layout.slot(inst));
+        }
+    }
+
+    /**
+     * Emits the code leaving the value of an instruction on the operand stack.
+     * @param inst specifies the instruction
+     */
+    private void push(Instruction inst)
+    {
+        if (inst.getOp() == Instruction.CONST)
+        {
+            a.emit(Bytecode.CONST, inst.getValue());
+        }
+        else if (FrameLayout.isDeferred(inst))
+        {
+            compute(inst);
+        }
+        else
+        {
+            a.emit(Bytecode.LOAD, layout.slot(inst));
+        }
+    }
+
+    /**
+     * Emits the code computing the value of an instruction onto the operand stack.
+     * @param inst specifies the instruction, which computes a value
+     * @throws IllegalArgumentException if the instruction cannot be computed
+     */
+    private void compute(Instruction inst)
+    {
+        for (int i = 0; i < inst.getOperandCount(); i++)
+        {
+            push(inst.getOperand(i));
+        }
+        switch (inst.getOp())
+        {
+            case Instruction.LOAD_GLOBAL:
+                a.emit(Bytecode.GLOAD, inst.getValue());
+                break;
+            case Instruction.ADD:
+                a.emit(Bytecode.ADD);
+                break;
+            case Instruction.SUB:
+                a.emit(Bytecode.SUB);
+                break;
+            case Instruction.MUL:
+                a.emit(Bytecode.MUL);
+                break;
+            case Instruction.DIV:
+                a.emit(Bytecode.DIV);
+                break;
+            case Instruction.NEG:
+                a.emit(Bytecode.NEG);
+                break;
+            case Instruction.CALL:
+                a.emitCall(inst.getName(), inst.getOperandCount());
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot compute " + inst);
+        }
+    }
+
+    /**
+     * Emits the copies of the values which the phi instructions of a block take when control
+     * comes from the given predecessor, pushing every value before storing any of them.
+     * @param from specifies the predecessor
+     * @param to specifies the block
+     */
+    private void copyPhis(BasicBlock from, BasicBlock to)
+    {
+        int index = to.getPredecessors().indexOf(from);
+        List<Instruction> phis = to.getPhis();
+        for (int i = phis.size() - 1; i >= 0; i--)
+        {
+            if (layout.slot(phis.get(i).getOperand(index)) == layout.slot(phis.get(i)))
+            {
+                phis.remove(i);
+            }
+        }
+        for (Instruction phi : phis)
+        {
+            push(phi.getOperand(index));
+        }
+        for (int i = phis.size() - 1; i >= 0; i--)
+        {
+            a.emit(Bytecode.STORE, layout.slot(phis.get(i)));
+        }
+    }
+
+    /**
+     * Emits a branch, which compares its operands and jumps to the block it goes to when the
+     * comparison holds unless that block comes next, in which case it jumps to the other block
+     * when the comparison fails.
+     * @param inst specifies the branch
+     * @param next specifies the block laid out after the branch's block, or null
+     */
+    private void emitBranch(Instruction inst, BasicBlock next)
+    {
+        List<BasicBlock> targets = inst.getBlock().getSuccessors();
+        BasicBlock ifTrue = targets.get(0);
+        BasicBlock ifFalse = targets.get(1);
+        push(inst.getOperand(0));
+        push(inst.getOperand(1));
+        if (ifTrue == next)
+        {
+            a.emitJump(jumpOp(Instruction.negate(inst.getValue())), labels.get(ifFalse));
+        }
+        else
+        {
+            a.emitJump(jumpOp(inst.getValue()), labels.get(ifTrue));
+            if (ifFalse != next)
+            {
+                a.emitJump(Bytecode.GOTO, labels.get(ifFalse));
+            }
+        }
+    }
+
+    /**
+     * @param relation specifies the relation of a branch
+     * @return returns the opcode of the bytecode jumping if the relation holds
+     */
+    private static int jumpOp(int relation)
+    {
+        switch (relation)
+        {
+            case Instruction.EQ:
+                return Bytecode.IF_EQ;
+            case Instruction.NE:
+                return Bytecode.IF_NE;
+            case Instruction.LT:
+                return Bytecode.IF_LT;
+            case Instruction.GE:
+                return Bytecode.IF_GE;
+            case Instruction.GT:
+                return Bytecode.IF_GT;
+            default:
+                return Bytecode.IF_LE;
+        }
+    }
+
+    /**
+     * Emits a return, which returns the value of the slot holding the returned value, or of the
+     * slot after the arguments once the value has been stored there.
+     * @param inst specifies the return
+     */
+    private void emitReturn(Instruction inst)
+    {
+        int scratch = inst.getBlock().getFunction().getParamCount();
+        if (inst.getOperandCount() == 0)
+        {
+            a.emit(Bytecode.RETURN, scratch);
+            return;
+        }
+        Instruction value = inst.getOperand(0);
+        int slot = layout.slot(value);
+        if (slot < 0)
+        {
+            push(value);
+            a.emit(Bytecode.STORE, scratch);
+            slot = scratch;
+        }
+        a.emit(Bytecode.RETURN, slot);
+    }
+}
@@ -0,0 +1,282 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The DominatorTree class finds the dominators of the blocks of a function reachable from its
+ * entry block, where a block dominates another if every path from the entry to the other block
+ * passes through it. The immediate dominators are found by the iterative algorithm of Cooper,
+ * Harvey and Kennedy over the blocks in reverse postorder, and the dominance frontier of each
+ * block, the blocks where its dominance ends, is found from the immediate dominators.
+ * The tree describes the function as it was when the tree was built.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class DominatorTree
+{
+    private List<BasicBlock> order;
+    private Map<BasicBlock, Integer> indexes;
+    private int[] idoms;
+    private List<List<BasicBlock>> children;
+    private List<Set<BasicBlock>> frontiers;
+    private int[] enter;
+    private int[] exit;
+
+    /**
+     * Builds the dominator tree of the given function.
+     * @param function specifies the function
+     */
+    public DominatorTree(Function function)
+    {
+        order = reversePostorder(function.getEntry());
+        indexes = new HashMap<BasicBlock, Integer>();
+        for (int i = 0; i < order.size(); i++)
+        {
+            indexes.put(order.get(i), i);
+        }
+        findIdoms();
+        findChildren();
+        findFrontiers();
+        number();
+    }
+
+    /**
+     * Lists the blocks reachable from the given entry block in reverse postorder, where every
+     * block comes before its successors except along the back edges of loops, and a block's
+     * first successor follows it as closely as possible.
+     * @param entry specifies the entry block
+     * @return returns the blocks in reverse postorder
+     */
+    private static List<BasicBlock> reversePostorder(BasicBlock entry)
+    {
+        List<BasicBlock> postorder = new ArrayList<BasicBlock>();
+        Set<BasicBlock> visited = new LinkedHashSet<BasicBlock>();
+        List<BasicBlock> stack = new ArrayList<BasicBlock>();
+        List<Integer> next = new ArrayList<Integer>();
+        visited.add(entry);
+        stack.add(entry);
+        next.add(0);
+        while (!stack.isEmpty())
+        {
+            int top = stack.size() - 1;
+            BasicBlock block = stack.get(top);
+            int index = next.get(top);
+            if (index < block.getSuccessors().size())
+            {
+                // visiting the successors backwards puts the first one first in the order
+                next.set(top, index + 1);
+                List<BasicBlock> successors = block.getSuccessors();
+                BasicBlock successor = successors.get(successors.size() - 1 - index);
+                if (visited.add(successor))
+                {
+                    stack.add(successor);
+                    next.add(0);
+                }
+            }
+            else
+            {
+                postorder.add(block);
+                stack.remove(top);
+                next.remove(top);
+            }
+        }
+        Collections.reverse(postorder);
+        return postorder;
+    }
+
+    /**
+     * Finds the immediate dominator of every block, improving a first guess taken from the
+     * processed predecessors of each block until no guess changes.
+     */
+    private void findIdoms()
+    {
+        idoms = new int[order.size()];
+        Arrays.fill(idoms, -1);
+        idoms[0] = 0;
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (int i = 1; i < order.size(); i++)
+            {
+                int idom = -1;
+                for (BasicBlock predecessor : order.get(i).getPredecessors())
+                {
+                    Integer p = indexes.get(predecessor);
+                    if (p == null || idoms[p] < 0)
+                    {
+                        continue;
+                    }
+                    idom = idom < 0 ? p : intersect(p, idom);
+                }
+                if (idoms[i] != idom)
+                {
+                    idoms[i] = idom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the nearest common dominator of two blocks by walking up the tree from the block
+     * later in reverse postorder.
+     * @param a specifies the index of the first block
+     * @param b specifies the index of the second block
+     * @return returns the index of the nearest common dominator
+     */
+    private int intersect(int a, int b)
+    {
+        while (a != b)
+        {
+            while (a > b)
+            {
+                a = idoms[a];
+            }
+            while (b > a)
+            {
+                b = idoms[b];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Lists the blocks each block immediately dominates.
+     */
+    private void findChildren()
+    {
+        children = new ArrayList<List<BasicBlock>>();
+        for (int i = 0; i < order.size(); i++)
+        {
+            children.add(new ArrayList<BasicBlock>());
+        }
+        for (int i = 1; i < order.size(); i++)
+        {
+            children.get(idoms[i]).add(order.get(i));
+        }
+    }
+
+    /**
+     * Finds the dominance frontier of every block. A block with several predecessors is in the
+     * frontier of every block that dominates one of its predecessors but not the block itself,
+     * which are found by walking up from each predecessor to the block's immediate dominator.
+     */
+    private void findFrontiers()
+    {
+        frontiers = new ArrayList<Set<BasicBlock>>();
+        for (int i = 0; i < order.size(); i++)
+        {
+            frontiers.add(new LinkedHashSet<BasicBlock>());
+        }
+        for (int i = 0; i < order.size(); i++)
+        {
+            BasicBlock block = order.get(i);
+            if (block.getPredecessors().size() < 2)
+            {
+                continue;
+            }
+            for (BasicBlock predecessor : block.getPredecessors())
+            {
+                Integer runner = indexes.get(predecessor);
+                while (runner != null && runner != idoms[i])
+                {
+                    frontiers.get(runner).add(block);
+                    runner = runner == 0 ? null : idoms[runner];
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbers the blocks in the order a depth-first walk of the tree enters and leaves them, so
+     * that a block dominates another exactly when its interval contains the other's.
+     */
+    private void number()
+    {
+        enter = new int[order.size()];
+        exit = new int[order.size()];
+        int clock = 0;
+        List<Integer> stack = new ArrayList<Integer>();
+        List<Integer> next = new ArrayList<Integer>();
+        stack.add(0);
+        next.add(0);
+        enter[0] = clock++;
+        while (!stack.isEmpty())
+        {
+            int top = stack.size() - 1;
+            int block = stack.get(top);
+            int index = next.get(top);
+            if (index < children.get(block).size())
+            {
+                next.set(top, index + 1);
+                int child = indexes.get(children.get(block).get(index));
+                enter[child] = clock++;
+                stack.add(child);
+                next.add(0);
+            }
+            else
+            {
+                exit[block] = clock++;
+                stack.remove(top);
+                next.remove(top);
+            }
+        }
+    }
+
+    /**
+     * @return returns the reachable blocks in reverse postorder, starting with the entry block
+     */
+    public List<BasicBlock> getReversePostorder()
+    {
+        return order;
+    }
+
+    /**
+     * @param block specifies a reachable block
+     * @return returns the immediate dominator of the block, or null for the entry block
+     */
+    public BasicBlock getIdom(BasicBlock block)
+    {
+        int index = indexes.get(block);
+        return index == 0 ? null : order.get(idoms[index]);
+    }
+
+    /**
+     * @param block specifies a reachable block
+     * @return returns the blocks which the block immediately dominates
+     */
+    public List<BasicBlock> getChildren(BasicBlock block)
+    {
+        return children.get(indexes.get(block));
+    }
+
+    /**
+     * @param block specifies a reachable block
+     * @return returns the dominance frontier of the block
+     */
+    public Set<BasicBlock> getFrontier(BasicBlock block)
+    {
+        return frontiers.get(indexes.get(block));
+    }
+
+    /**
+     * Checks whether one block dominates another, which every block does to itself.
+     * @param a specifies the possibly dominating block
+     * @param b specifies the possibly dominated block
+     * @return returns true if both blocks are reachable and a dominates b; false otherwise
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b)
+    {
+        Integer i = indexes.get(a);
+        Integer j = indexes.get(b);
+        return i != null && j != null && enter[i] <= enter[j] && exit[j] <= exit[i];
+    }
+}
@@ -0,0 +1,187 @@
+package ir;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The FrameLayout class decides where the code generators keep the values of a function in SSA
+ * form. The arguments stay in the first slots of the function's frame, constants and arguments
+ * are produced again wherever they are used, and an addition, subtraction, multiplication or
+ * negation whose value is used once, by a later instruction of the same block other than a
+ * phi, is computed right where it is used. Every other value has a slot of its own, which a
+ * phi's value shares with the copies made in the predecessors of its block, and with the value
+ * a predecessor copies into it when that value is computed in the predecessor itself and the
+ * phi's old value is not needed once it has been, so that no copy is made at all.
+ * Creating the layout splits the function's critical edges, so that the copies for the phi
+ * instructions of a block can be placed at the end of each of its predecessors, and the blocks
+ * are laid out in reverse postorder.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+class FrameLayout
+{
+    private Map<Instruction, Integer> slots;
+    private int frameSize;
+    private List<BasicBlock> order;
+
+    /**
+     * Lays out the frame of the given function.
+     * @param function specifies the function
+     * @param reserved specifies the number of slots to leave free after the arguments
+     */
+    FrameLayout(Function function, int reserved)
+    {
+        function.splitCriticalEdges();
+        order = new DominatorTree(function).getReversePostorder();
+        slots = new HashMap<Instruction, Integer>();
+        frameSize = function.getParamCount() + reserved;
+        Map<Instruction, Instruction> coalesced = new HashMap<Instruction, Instruction>();
+        for (BasicBlock block : order)
+        {
+            for (Instruction inst : block.getInstructions())
+            {
+                if (!inst.hasValue() || isRematerialized(inst) || isDeferred(inst)
+                    || !inst.hasEffects() && inst.getUsers().isEmpty())
+                {
+                    continue;
+                }
+                Instruction phi = coalescedPhi(inst);
+                if (phi != null)
+                {
+                    coalesced.put(inst, phi);
+                }
+                else
+                {
+                    slots.put(inst, frameSize++);
+                }
+            }
+        }
+        for (Map.Entry<Instruction, Instruction> entry : coalesced.entrySet())
+        {
+            slots.put(entry.getKey(), slots.get(entry.getValue()));
+        }
+    }
+
+    /**
+     * Finds the phi instruction whose slot the given value can share. The value must be used
+     * only by a phi instruction of the successor of the value's block, as the value coming from
+     * that block, and the phi's old value must not be used after the value is computed, neither
+     * later in the block nor by the copies into the successor's phi instructions.
+     * @param inst specifies the value, which is not a phi instruction
+     * @return returns the phi instruction, or null if the value needs a slot of its own
+     */
+    private static Instruction coalescedPhi(Instruction inst)
+    {
+        BasicBlock block = inst.getBlock();
+        if (inst.getOp() == Instruction.PHI || inst.getUsers().size() != 1
+            || block.getSuccessors().size() != 1)
+        {
+            return null;
+        }
+        Instruction phi = inst.getUsers().get(0);
+        BasicBlock successor = block.getSuccessors().get(0);
+        if (phi.getOp() != Instruction.PHI || phi.getBlock() != successor)
+        {
+            return null;
+        }
+        int index = successor.getPredecessors().indexOf(block);
+        if (phi.getOperand(index) != inst)
+        {
+            return null;
+        }
+        List<Instruction> instructions = block.getInstructions();
+        int position = instructions.indexOf(inst);
+        for (Instruction user : phi.getUsers())
+        {
+            // a value computed where it is used reads the phi's slot at its own user
+            Instruction reader = user;
+            while (isDeferred(reader))
+            {
+                reader = reader.getUsers().get(0);
+            }
+            if (reader.getBlock() == block && instructions.indexOf(reader) > position)
+            {
+                return null;
+            }
+            if (user.getBlock() == successor && user.getOp() == Instruction.PHI
+                && user.getOperand(index) == phi && user != phi)
+            {
+                return null;
+            }
+        }
+        return phi;
+    }
+
+    /**
+     * @return returns the blocks of the function in the order in which they are laid out
+     */
+    List<BasicBlock> getOrder()
+    {
+        return order;
+    }
+
+    /**
+     * @return returns the number of slots in the function's frame
+     */
+    int getFrameSize()
+    {
+        return frameSize;
+    }
+
+    /**
+     * @param inst specifies an instruction
+     * @return returns the slot holding the instruction's value, which is the index of an
+     *         argument for a PARAM, or -1 if the value has no slot
+     */
+    int slot(Instruction inst)
+    {
+        if (inst.getOp() == Instruction.PARAM)
+        {
+            return inst.getValue();
+        }
+        Integer slot = slots.get(inst);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param inst specifies an instruction
+     * @return returns true if the instruction is a constant or an argument, which is produced
+     *         wherever it is used; false otherwise
+     */
+    static boolean isRematerialized(Instruction inst)
+    {
+        return inst.getOp() == Instruction.CONST || inst.getOp() == Instruction.PARAM;
+    }
+
+    /**
+     * @param inst specifies an instruction
+     * @return returns true if the instruction is computed where its only user uses it; false
+     *         otherwise
+     */
+    static boolean isDeferred(Instruction inst)
+    {
+        int op = inst.getOp();
+        if (op != Instruction.ADD && op != Instruction.SUB && op != Instruction.MUL
+            && op != Instruction.NEG || inst.getUsers().size() != 1)
+        {
+            return false;
+        }
+        Instruction user = inst.getUsers().get(0);
+        return user.getOp() != Instruction.PHI && user.getBlock() == inst.getBlock();
+    }
+
+    /**
+     * @param inst specifies an instruction
+     * @return returns true if the code generators emit the instruction where it stands; false
+     *         if it is produced where it is used or its value is neither used nor has effects
+     */
+    boolean isEmitted(Instruction inst)
+    {
+        if (inst.getOp() == Instruction.PHI || isRematerialized(inst) || isDeferred(inst))
+        {
+            return false;
+        }
+        return inst.hasEffects() || !inst.getUsers().isEmpty();
+    }
+}
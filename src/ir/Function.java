@@ -0,0 +1,199 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The Function class represents the control-flow graph of a procedure or of the main program.
+ * Its first block is the entry block. Before SSA construction the function's variables are
+ * numbered so that the slots of the procedure's frame come first and the globals follow them,
+ * since the main program has no frame of its own.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Function
+{
+    private String name;
+    private int paramCount;
+    private int frameSize;
+    private int globalCount;
+    private List<BasicBlock> blocks;
+    private int blockCount;
+    private int instructionCount;
+
+    /**
+     * Creates a function with an empty entry block.
+     * @param name specifies the name of the procedure, or null for the main program
+     * @param paramCount specifies the number of arguments
+     * @param frameSize specifies the number of variables in the procedure's frame
+     * @param globalCount specifies the number of global variables
+     */
+    public Function(String name, int paramCount, int frameSize, int globalCount)
+    {
+        this.name = name;
+        this.paramCount = paramCount;
+        this.frameSize = frameSize;
+        this.globalCount = globalCount;
+        blocks = new ArrayList<BasicBlock>();
+        newBlock();
+    }
+
+    /**
+     * @return returns the name of the procedure, or null for the main program
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return returns true if the function is the main program; false otherwise
+     */
+    public boolean isMain()
+    {
+        return name == null;
+    }
+
+    /**
+     * @return returns the number of arguments
+     */
+    public int getParamCount()
+    {
+        return paramCount;
+    }
+
+    /**
+     * @return returns the number of variables before SSA construction, the frame's slots
+     *         followed by the globals
+     */
+    public int getVariableCount()
+    {
+        return frameSize + globalCount;
+    }
+
+    /**
+     * Finds the global slot of a variable before SSA construction.
+     * @param variable specifies the index of the variable
+     * @return returns the slot of the global variable, or -1 if the variable is in the frame
+     */
+    public int globalSlot(int variable)
+    {
+        return variable < frameSize ? -1 : variable - frameSize;
+    }
+
+    /**
+     * Finds the variable standing for a global before SSA construction.
+     * @param slot specifies the slot of the global variable
+     * @return returns the index of the variable
+     */
+    public int globalVariable(int slot)
+    {
+        return frameSize + slot;
+    }
+
+    /**
+     * @return returns the entry block
+     */
+    public BasicBlock getEntry()
+    {
+        return blocks.get(0);
+    }
+
+    /**
+     * @return returns the blocks of the function, starting with the entry block
+     */
+    public List<BasicBlock> getBlocks()
+    {
+        return blocks;
+    }
+
+    /**
+     * @return returns a new empty block of the function
+     */
+    public BasicBlock newBlock()
+    {
+        BasicBlock block = new BasicBlock(this, blockCount++);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * @return returns the number for the next instruction placed in the function
+     */
+    int nextInstructionID()
+    {
+        return instructionCount++;
+    }
+
+    /**
+     * Places a new block on every edge from a block with several successors to a block with
+     * several predecessors, so that copies made for the phi instructions of a block can be
+     * placed at the end of each of its predecessors.
+     */
+    public void splitCriticalEdges()
+    {
+        for (BasicBlock block : new ArrayList<BasicBlock>(blocks))
+        {
+            if (block.getSuccessors().size() < 2)
+            {
+                continue;
+            }
+            for (BasicBlock successor : new ArrayList<BasicBlock>(block.getSuccessors()))
+            {
+                if (successor.getPredecessors().size() > 1)
+                {
+                    block.splitEdge(successor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every block which cannot be reached from the entry block, along with the edges
+     * and phi operands coming from them.
+     * @return returns true if any block was removed; false otherwise
+     */
+    public boolean removeUnreachableBlocks()
+    {
+        Set<BasicBlock> reachable =
+            new HashSet<BasicBlock>(new DominatorTree(this).getReversePostorder());
+        if (reachable.size() == blocks.size())
+        {
+            return false;
+        }
+        for (BasicBlock block : new ArrayList<BasicBlock>(blocks))
+        {
+            if (reachable.contains(block))
+            {
+                continue;
+            }
+            for (BasicBlock successor : new ArrayList<BasicBlock>(block.getSuccessors()))
+            {
+                successor.removePredecessor(block);
+            }
+            for (Instruction inst : new ArrayList<Instruction>(block.getInstructions()))
+            {
+                inst.replaceAllUsesWith(null);
+                inst.remove();
+            }
+        }
+        blocks.retainAll(reachable);
+        return true;
+    }
+
+    /**
+     * @return returns the function and its blocks as lines of text
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder(isMain() ? "main" : "procedure " + name);
+        text.append(" (").append(paramCount).append(" arguments)\n");
+        for (BasicBlock block : blocks)
+        {
+            text.append(block);
+        }
+        return text.toString();
+    }
+}
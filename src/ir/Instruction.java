@@ -0,0 +1,423 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Instruction class represents one instruction of the intermediate representation. An
+ * instruction which computes a value is that value in SSA form, so its operands are the
+ * instructions computing them, and each instruction keeps the list of instructions using it.
+ * Before SSA construction a function reads and writes its variables through GET and SET
+ * instructions, which SsaBuilder replaces by the values they stand for and by phi
+ * instructions.
+ * Every basic block ends in exactly one terminator, a JUMP, BRANCH or RETURN, whose targets are
+ * the block's successors.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Instruction
+{
+    /** The constant held in value. */
+    public static final int CONST = 0;
+    /** The argument of the function whose index is value. */
+    public static final int PARAM = 1;
+    /** The global variable whose slot is value, read from memory. */
+    public static final int LOAD_GLOBAL = 2;
+    /** Writes the operand to the global variable whose slot is value in memory. */
+    public static final int STORE_GLOBAL = 3;
+    /** The sum of the two operands. */
+    public static final int ADD = 4;
+    /** The difference of the two operands. */
+    public static final int SUB = 5;
+    /** The product of the two operands. */
+    public static final int MUL = 6;
+    /** The quotient of the two operands, which fails for a divisor of 0. */
+    public static final int DIV = 7;
+    /** The negation of the operand. */
+    public static final int NEG = 8;
+    /** The value returned by the procedure called name with the operands as arguments. */
+    public static final int CALL = 9;
+    /** Prints the operand on its own line. */
+    public static final int PRINT = 10;
+    /** The operand for the predecessor through which control entered the block. */
+    public static final int PHI = 11;
+    /** The variable whose index is value, before SSA construction. */
+    public static final int GET = 12;
+    /** Writes the operand to the variable whose index is value, before SSA construction. */
+    public static final int SET = 13;
+    /** Continues at the block's only successor. */
+    public static final int JUMP = 14;
+    /** Continues at the first successor if relation value holds, else at the second. */
+    public static final int BRANCH = 15;
+    /** Returns from the function, with the operand as the value of a procedure. */
+    public static final int RETURN = 16;
+
+    /** The relation of a branch comparing for equality. */
+    public static final int EQ = 0;
+    /** The relation of a branch comparing for inequality. */
+    public static final int NE = 1;
+    /** The relation of a branch comparing for less than. */
+    public static final int LT = 2;
+    /** The relation of a branch comparing for greater than or equal to. */
+    public static final int GE = 3;
+    /** The relation of a branch comparing for greater than. */
+    public static final int GT = 4;
+    /** The relation of a branch comparing for less than or equal to. */
+    public static final int LE = 5;
+
+    private static final String[] NAMES = {
+        "const", "param", "load", "store", "add", "sub", "mul", "div", "neg", "call", "print",
+        "phi", "get", "set", "jump", "branch", "return"
+    };
+    private static final String[] RELATIONS = {"=", "<>", "<", ">=", ">", "<="};
+
+    private int op;
+    private int value;
+    private String name;
+    private List<Instruction> operands;
+    private List<Instruction> users;
+    private BasicBlock block;
+    private int id;
+
+    /**
+     * Creates an instruction which is not yet in a block.
+     * @param op specifies the opcode
+     * @param value specifies the constant, index, slot or relation of the instruction, or 0 if
+     *              it has none
+     * @param name specifies the name of the procedure called, or null
+     * @param operands specifies the operands, any of which may be null for an operand of a phi
+     *                 that is not yet known
+     */
+    public Instruction(int op, int value, String name, Instruction... operands)
+    {
+        this.op = op;
+        this.value = value;
+        this.name = name;
+        this.operands = new ArrayList<Instruction>(operands.length);
+        users = new ArrayList<Instruction>();
+        id = -1;
+        for (Instruction operand : operands)
+        {
+            addOperand(operand);
+        }
+    }
+
+    /**
+     * @return returns the opcode
+     */
+    public int getOp()
+    {
+        return op;
+    }
+
+    /**
+     * @return returns the constant, index, slot or relation of the instruction
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
+    /**
+     * @return returns the name of the procedure called, or null if the instruction is not a
+     *         call
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return returns the number of operands
+     */
+    public int getOperandCount()
+    {
+        return operands.size();
+    }
+
+    /**
+     * @param index specifies the index of an operand
+     * @return returns the operand
+     */
+    public Instruction getOperand(int index)
+    {
+        return operands.get(index);
+    }
+
+    /**
+     * Appends an operand, which this instruction now uses.
+     * @param operand specifies the operand, or null if it is not yet known
+     */
+    public void addOperand(Instruction operand)
+    {
+        operands.add(operand);
+        if (operand != null)
+        {
+            operand.users.add(this);
+        }
+    }
+
+    /**
+     * Replaces an operand, moving the use from the old operand to the new one.
+     * @param index specifies the index of the operand
+     * @param operand specifies the new operand
+     */
+    public void setOperand(int index, Instruction operand)
+    {
+        Instruction old = operands.get(index);
+        if (old != null)
+        {
+            old.users.remove(this);
+        }
+        operands.set(index, operand);
+        if (operand != null)
+        {
+            operand.users.add(this);
+        }
+    }
+
+    /**
+     * Removes an operand, which this instruction no longer uses.
+     * @param index specifies the index of the operand
+     */
+    public void removeOperand(int index)
+    {
+        Instruction old = operands.remove(index);
+        if (old != null)
+        {
+            old.users.remove(this);
+        }
+    }
+
+    /**
+     * @return returns the instructions using this instruction's value, with an instruction
+     *         appearing once for every operand in which it uses the value
+     */
+    public List<Instruction> getUsers()
+    {
+        return users;
+    }
+
+    /**
+     * Makes every user of this instruction use the given value instead.
+     * @param replacement specifies the value
+     */
+    public void replaceAllUsesWith(Instruction replacement)
+    {
+        if (replacement == this)
+        {
+            return;
+        }
+        while (!users.isEmpty())
+        {
+            Instruction user = users.get(users.size() - 1);
+            user.setOperand(user.operands.lastIndexOf(this), replacement);
+        }
+    }
+
+    /**
+     * Removes the instruction from its block and drops its uses of its operands. The
+     * instruction's own value must no longer be used.
+     */
+    public void remove()
+    {
+        for (int i = operands.size() - 1; i >= 0; i--)
+        {
+            removeOperand(i);
+        }
+        if (block != null)
+        {
+            block.getInstructions().remove(this);
+            block = null;
+        }
+    }
+
+    /**
+     * @return returns the block holding the instruction, or null if it is in no block
+     */
+    public BasicBlock getBlock()
+    {
+        return block;
+    }
+
+    /**
+     * Sets the block holding the instruction, numbering the instruction within its function
+     * the first time it is placed.
+     * @param block specifies the block
+     */
+    void setBlock(BasicBlock block)
+    {
+        this.block = block;
+        if (id < 0)
+        {
+            id = block.getFunction().nextInstructionID();
+        }
+    }
+
+    /**
+     * @return returns the number of the instruction within its function
+     */
+    public int getID()
+    {
+        return id;
+    }
+
+    /**
+     * @return returns true if the instruction ends a block; false otherwise
+     */
+    public boolean isTerminator()
+    {
+        return op == JUMP || op == BRANCH || op == RETURN;
+    }
+
+    /**
+     * @return returns true if the instruction computes a value; false otherwise
+     */
+    public boolean hasValue()
+    {
+        return op != STORE_GLOBAL && op != PRINT && op != SET && !isTerminator();
+    }
+
+    /**
+     * Checks whether the instruction may do more than compute its value, by writing memory,
+     * printing, calling a procedure, failing or transferring control, so that it cannot be
+     * removed even if its value is not used.
+     * @return returns true if the instruction may have effects; false otherwise
+     */
+    public boolean hasEffects()
+    {
+        return op == STORE_GLOBAL || op == DIV || op == CALL || op == PRINT || op == SET
+            || isTerminator();
+    }
+
+    /**
+     * Evaluates an operation of the intermediate representation on two values.
+     * @param op specifies the opcode, which is ADD, SUB, MUL or DIV
+     * @param val1 specifies the first operand
+     * @param val2 specifies the second operand, which is not 0 for a division
+     * @return returns the result of the operation
+     * @throws IllegalArgumentException if the opcode is not an arithmetic operation
+     */
+    public static int apply(int op, int val1, int val2)
+    {
+        switch (op)
+        {
+            case ADD:
+                return val1 + val2;
+            case SUB:
+                return val1 - val2;
+            case MUL:
+                return val1 * val2;
+            case DIV:
+                return val1 / val2;
+            default:
+                throw new IllegalArgumentException("Not an arithmetic operation: " + NAMES[op]);
+        }
+    }
+
+    /**
+     * Evaluates a relation of a branch on two values.
+     * @param relation specifies the relation
+     * @param val1 specifies the first operand
+     * @param val2 specifies the second operand
+     * @return returns true if the relation holds; false otherwise
+     */
+    public static boolean compare(int relation, int val1, int val2)
+    {
+        switch (relation)
+        {
+            case EQ:
+                return val1 == val2;
+            case NE:
+                return val1 != val2;
+            case LT:
+                return val1 < val2;
+            case GE:
+                return val1 >= val2;
+            case GT:
+                return val1 > val2;
+            default:
+                return val1 <= val2;
+        }
+    }
+
+    /**
+     * Finds the relation which holds exactly when the given relation does not.
+     * @param relation specifies the relation
+     * @return returns the negated relation
+     */
+    public static int negate(int relation)
+    {
+        // the relations are numbered in pairs of opposites
+        return relation ^ 1;
+    }
+
+    /**
+     * Finds the relation of a program's relational operator.
+     * @param relop specifies the relational operator
+     * @return returns the relation
+     * @throws IllegalArgumentException if the operator is unknown
+     */
+    public static int relation(String relop)
+    {
+        for (int i = 0; i < RELATIONS.length; i++)
+        {
+            if (RELATIONS[i].equals(relop))
+            {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operator: " + relop);
+    }
+
+    /**
+     * @return returns the name of the instruction's value, such as v3
+     */
+    public String valueName()
+    {
+        return op == CONST ? Integer.toString(value) : "v" + id;
+    }
+
+    /**
+     * @return returns the instruction as a line of text
+     */
+    public String toString()
+    {
+        StringBuilder line = new StringBuilder();
+        if (hasValue() && op != CONST)
+        {
+            line.append(valueName()).append(" = ");
+        }
+        line.append(NAMES[op]);
+        if (op == CONST || op == PARAM || op == LOAD_GLOBAL || op == STORE_GLOBAL || op == GET
+            || op == SET)
+        {
+            line.append(' ').append(value);
+        }
+        else if (op == BRANCH)
+        {
+            line.append(' ').append(RELATIONS[value]);
+        }
+        else if (op == CALL)
+        {
+            line.append(' ').append(name);
+        }
+        for (int i = 0; i < operands.size(); i++)
+        {
+            Instruction operand = operands.get(i);
+            line.append(i == 0 ? " " : ", ").append(operand == null ? "?" : operand.valueName());
+            if (op == PHI)
+            {
+                line.append(" [b").append(block.getPredecessors().get(i).getID()).append(']');
+            }
+        }
+        if (op == JUMP || op == BRANCH)
+        {
+            for (BasicBlock target : block.getSuccessors())
+            {
+                line.append(" -> b").append(target.getID());
+            }
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,286 @@
+package ir;
+
+import java.util.List;
+
+/**
+ * The IrBuilder class collects the instructions emitted by the AST into the control-flow graphs
+ * of an IrProgram, in the same way as the Assembler collects bytecode. Variables are read and
+ * written through GET and SET instructions while the code is emitted, and each function is
+ * put into SSA form once the program is finished.
+ * A procedure's entry block copies the arguments into the procedure's variables and clears the
+ * others, and jumps to a separate body block, so that a tail call can start the body again.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class IrBuilder
+{
+    private IrProgram program;
+    private List<String> globalNames;
+    private Function function;
+    private BasicBlock block;
+    private BasicBlock body;
+    private int[] argSlots;
+    private int frameSize;
+
+    /**
+     * Starts the code of the main program.
+     * @param globalNames specifies the name of the global variable in each global slot
+     */
+    public void beginMain(List<String> globalNames)
+    {
+        this.globalNames = globalNames;
+        function = new Function(null, 0, 0, globalNames.size());
+        program = new IrProgram(function, globalNames);
+        block = function.getEntry();
+        frameSize = 0;
+    }
+
+    /**
+     * Ends the code of the main program.
+     */
+    public void endMain()
+    {
+        add(new Instruction(Instruction.RETURN, 0, null));
+    }
+
+    /**
+     * Starts the code of a procedure.
+     * @param name specifies the name of the procedure
+     * @param slots specifies the frame slot of each of the procedure's arguments
+     * @param frameSize specifies the number of slots in the procedure's frame
+     */
+    public void beginProcedure(String name, int[] slots, int frameSize)
+    {
+        function = new Function(name, slots.length, frameSize, globalNames.size());
+        argSlots = slots;
+        this.frameSize = frameSize;
+        block = function.getEntry();
+        Instruction[] params = new Instruction[slots.length];
+        for (int i = 0; i < slots.length; i++)
+        {
+            params[i] = add(new Instruction(Instruction.PARAM, i, null));
+        }
+        body = function.newBlock();
+        enterBody(params);
+        block = body;
+    }
+
+    /**
+     * Ends the code of the current procedure, which returns the value of the given slot.
+     * @param returnSlot specifies the slot of the procedure's return value
+     */
+    public void endProcedure(int returnSlot)
+    {
+        Instruction result = load(0, returnSlot);
+        add(new Instruction(Instruction.RETURN, 0, null, result));
+        program.addProcedure(function);
+    }
+
+    /**
+     * Copies the given arguments into the procedure's frame, clears the frame's other slots and
+     * jumps to the procedure's body. A repeated slot takes the last argument for it.
+     * @param args specifies the arguments
+     */
+    private void enterBody(Instruction[] args)
+    {
+        boolean[] isArg = new boolean[frameSize];
+        for (int i = 0; i < args.length; i++)
+        {
+            add(new Instruction(Instruction.SET, argSlots[i], null, args[i]));
+            isArg[argSlots[i]] = true;
+        }
+        for (int slot = 0; slot < frameSize; slot++)
+        {
+            if (!isArg[slot])
+            {
+                add(new Instruction(Instruction.SET, slot, null, constant(0)));
+            }
+        }
+        jump(body);
+    }
+
+    /**
+     * Emits the instructions of a tail call of the current procedure, which start the
+     * procedure's body again with the given arguments.
+     * @param args specifies the arguments, one for each of the procedure's distinct slots
+     */
+    public void tailCall(List<Instruction> args)
+    {
+        enterBody(args.toArray(new Instruction[args.size()]));
+    }
+
+    /**
+     * Appends an instruction to the current block. Code following a terminator cannot be
+     * reached, so it goes into a new block without predecessors.
+     * @param inst specifies the instruction
+     * @return returns the instruction
+     */
+    private Instruction add(Instruction inst)
+    {
+        if (block.getTerminator() != null)
+        {
+            block = function.newBlock();
+        }
+        return block.add(inst);
+    }
+
+    /**
+     * Finds the variable of the current function at the given lexical address. Depth 0 of the
+     * main program and depth 1 of a procedure both refer to the globals.
+     * @param depth specifies the depth of the variable
+     * @param slot specifies the slot of the variable
+     * @return returns the index of the variable
+     */
+    private int variable(int depth, int slot)
+    {
+        return !function.isMain() && depth == 0 ? slot : function.globalVariable(slot);
+    }
+
+    /**
+     * @param value specifies a constant
+     * @return returns the instruction for the constant
+     */
+    public Instruction constant(int value)
+    {
+        return add(new Instruction(Instruction.CONST, value, null));
+    }
+
+    /**
+     * Emits an instruction reading the variable at the given lexical address.
+     * @param depth specifies the depth of the variable
+     * @param slot specifies the slot of the variable
+     * @return returns the instruction for the variable's value
+     */
+    public Instruction load(int depth, int slot)
+    {
+        return add(new Instruction(Instruction.GET, variable(depth, slot), null));
+    }
+
+    /**
+     * Emits an instruction writing the variable at the given lexical address.
+     * @param depth specifies the depth of the variable
+     * @param slot specifies the slot of the variable
+     * @param value specifies the value written
+     */
+    public void store(int depth, int slot, Instruction value)
+    {
+        add(new Instruction(Instruction.SET, variable(depth, slot), null, value));
+    }
+
+    /**
+     * Emits an arithmetic operation.
+     * @param op specifies the operator, which is +, -, * or /
+     * @param left specifies the left operand
+     * @param right specifies the right operand
+     * @return returns the instruction for the result
+     * @throws RuntimeException if the operator is unknown
+     */
+    public Instruction binary(String op, Instruction left, Instruction right)
+    {
+        int opcode;
+        if (op.equals("+"))
+            opcode = Instruction.ADD;
+        else if (op.equals("-"))
+            opcode = Instruction.SUB;
+        else if (op.equals("*"))
+            opcode = Instruction.MUL;
+        else if (op.equals("/"))
+            opcode = Instruction.DIV;
+        else
+            throw new RuntimeException("Unknown operator: " + op);
+        return add(new Instruction(opcode, 0, null, left, right));
+    }
+
+    /**
+     * Emits a negation.
+     * @param value specifies the operand
+     * @return returns the instruction for the result
+     */
+    public Instruction negate(Instruction value)
+    {
+        return add(new Instruction(Instruction.NEG, 0, null, value));
+    }
+
+    /**
+     * Emits a call of the procedure with the given name.
+     * @param name specifies the name of the procedure
+     * @param args specifies the arguments
+     * @return returns the instruction for the procedure's value
+     */
+    public Instruction call(String name, List<Instruction> args)
+    {
+        return add(new Instruction(Instruction.CALL, 0, name,
+            args.toArray(new Instruction[args.size()])));
+    }
+
+    /**
+     * Emits an instruction printing a value.
+     * @param value specifies the value
+     */
+    public void print(Instruction value)
+    {
+        add(new Instruction(Instruction.PRINT, 0, null, value));
+    }
+
+    /**
+     * @return returns a new empty block of the current function
+     */
+    public BasicBlock newBlock()
+    {
+        return function.newBlock();
+    }
+
+    /**
+     * Continues emitting code at the end of the given block.
+     * @param block specifies the block
+     */
+    public void setBlock(BasicBlock block)
+    {
+        this.block = block;
+    }
+
+    /**
+     * Ends the current block with a jump to the given block.
+     * @param target specifies the block
+     */
+    public void jump(BasicBlock target)
+    {
+        add(new Instruction(Instruction.JUMP, 0, null)).getBlock().addSuccessor(target);
+    }
+
+    /**
+     * Ends the current block with a branch comparing two values.
+     * @param relop specifies the relational operator
+     * @param left specifies the left operand
+     * @param right specifies the right operand
+     * @param ifTrue specifies the block to which the branch goes if the comparison holds
+     * @param ifFalse specifies the block to which the branch goes otherwise
+     */
+    public void branch(String relop, Instruction left, Instruction right, BasicBlock ifTrue,
+        BasicBlock ifFalse)
+    {
+        if (ifTrue == ifFalse)
+        {
+            jump(ifTrue);
+            return;
+        }
+        BasicBlock from = add(new Instruction(Instruction.BRANCH, Instruction.relation(relop),
+            null, left, right)).getBlock();
+        from.addSuccessor(ifTrue);
+        from.addSuccessor(ifFalse);
+    }
+
+    /**
+     * Puts every function into SSA form and returns the finished program.
+     * @return returns the program
+     */
+    public IrProgram finish()
+    {
+        SsaBuilder.build(program.getMain());
+        for (Function procedure : program.getProcedures())
+        {
+            SsaBuilder.build(procedure);
+        }
+        return program;
+    }
+}
@@ -0,0 +1,97 @@
+package ir;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The IrProgram class holds a program lowered into the intermediate representation, its main
+ * program and the procedures it declares, along with the names of its global variables.
+ * Only the last declaration of a procedure is kept, since only that one is ever called.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class IrProgram
+{
+    private Function main;
+    private Map<String, Function> procedures;
+    private List<String> globalNames;
+
+    /**
+     * Creates a program with no procedures.
+     * @param main specifies the main program
+     * @param globalNames specifies the name of the global variable in each global slot
+     */
+    public IrProgram(Function main, List<String> globalNames)
+    {
+        this.main = main;
+        this.globalNames = globalNames;
+        procedures = new LinkedHashMap<String, Function>();
+    }
+
+    /**
+     * Adds a procedure to the program, replacing an earlier procedure with the same name.
+     * @param procedure specifies the procedure
+     */
+    public void addProcedure(Function procedure)
+    {
+        procedures.remove(procedure.getName());
+        procedures.put(procedure.getName(), procedure);
+    }
+
+    /**
+     * @return returns the main program
+     */
+    public Function getMain()
+    {
+        return main;
+    }
+
+    /**
+     * @return returns the procedures in the order of their last declarations
+     */
+    public Collection<Function> getProcedures()
+    {
+        return procedures.values();
+    }
+
+    /**
+     * @param name specifies the name of a procedure
+     * @return returns the procedure with the given name, or null if there is none
+     */
+    public Function getProcedure(String name)
+    {
+        return procedures.get(name);
+    }
+
+    /**
+     * @return returns the number of global variables
+     */
+    public int getGlobalCount()
+    {
+        return globalNames.size();
+    }
+
+    /**
+     * @param slot specifies the slot of a global variable
+     * @return returns the name of the global variable
+     */
+    public String getGlobalName(int slot)
+    {
+        return globalNames.get(slot);
+    }
+
+    /**
+     * @return returns the main program and the procedures as lines of text
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder(main.toString());
+        for (Function procedure : procedures.values())
+        {
+            text.append('\n').append(procedure);
+        }
+        return text.toString();
+    }
+}
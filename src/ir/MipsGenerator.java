@@ -0,0 +1,380 @@
+package ir;
+
+import java.util.List;
+
+import emitter.Emitter;
+
+/**
+ * The MipsGenerator class compiles a program in SSA form into MIPS assembly code, in the same
+ * layout as the AST's compiler: the globals are labeled words, the main program comes first and
+ * every procedure is called with its arguments pushed and returns its value in $v0.
+ * Every function, the main program included, keeps its values in a frame addressed through
+ * $fp where the FrameLayout puts them, and a procedure copies its arguments into the first
+ * slots of its frame when it starts. Values are computed into $v0, and the copies for the phi
+ * instructions of a block are made at the end of its predecessors through the stack, so that
+ * they happen in parallel.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class MipsGenerator
+{
+    private Emitter e;
+    private IrProgram program;
+    private Function function;
+    private FrameLayout layout;
+
+    /**
+     * Creates a generator emitting with the given emitter.
+     * @param e specifies the emitter
+     * @param program specifies the program
+     */
+    private MipsGenerator(Emitter e, IrProgram program)
+    {
+        this.e = e;
+        this.program = program;
+    }
+
+    /**
+     * Compiles the given program and emits its assembly code, closing the emitter when done.
+     * @param program specifies the program in SSA form
+     * @param e specifies the emitter which emits the assembly code to the output file
+     */
+    public static void generate(IrProgram program, Emitter e)
+    {
+        e.emit(".data");
+        e.emit("newLine: .asciiz \"\\n\"");
+        for (int slot = 0; slot < program.getGlobalCount(); slot++)
+        {
+            e.emit(program.getGlobalName(slot) + ": .word 0");
+        }
+        e.emit(".text 0x00400000");
+        e.emit(".globl main");
+        MipsGenerator generator = new MipsGenerator(e, program);
+        generator.generate(program.getMain());
+        for (Function procedure : program.getProcedures())
+        {
+            generator.generate(procedure);
+        }
+        e.close();
+    }
+
+    /**
+     * Compiles one function.
+     * @param function specifies the function
+     */
+    private void generate(Function function)
+    {
+        this.function = function;
+        layout = new FrameLayout(function, 0);
+        int frameSize = layout.getFrameSize();
+        if (function.isMain())
+        {
+            e.emit("main:");
+            e.emit("# make a frame of " + frameSize + " words for the main program's values");
+        }
+        else
+        {
+            e.emit("# procedure " + function.getName());
+            e.emit(procedureLabel(function.getName()) + ":");
+            e.emit("# save the return address and the caller's frame pointer");
+            e.emitPush("$ra");
+            e.emitPush("$fp");
+            e.emit("# make a frame of " + frameSize + " words for the procedure's values");
+        }
+        e.emit("subu $sp, $sp, " + 4 * frameSize);
+        e.emit("move $fp, $sp");
+        if (!function.isMain())
+        {
+            int args = function.getParamCount();
+            e.emit("# copy the arguments pushed by the caller into their slots");
+            for (int i = 0; i < args; i++)
+            {
+                e.emit("lw $t0, " + 4 * (frameSize + 2 + args - 1 - i) + "($fp)");
+                e.emit("sw $t0, " + 4 * i + "($fp)");
+            }
+        }
+        List<BasicBlock> order = layout.getOrder();
+        for (int i = 0; i < order.size(); i++)
+        {
+            BasicBlock block = order.get(i);
+            BasicBlock next = i + 1 < order.size() ? order.get(i + 1) : null;
+            e.emit(label(block) + ":");
+            for (Instruction inst : block.getInstructions())
+            {
+                if (layout.isEmitted(inst))
+                {
+                    emit(inst, next);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param name specifies the name of a procedure
+     * @return returns the label at which the procedure's code starts
+     */
+    private static String procedureLabel(String name)
+    {
+        return "proc_" + name;
+    }
+
+    /**
+     * @param block specifies a block of the current function
+     * @return returns the label at which the block's code starts
+     */
+    private String label(BasicBlock block)
+    {
+        String prefix = function.isMain() ? "main" : procedureLabel(function.getName());
+        return prefix + "_b" + block.getID();
+    }
+
+    /**
+     * Emits the code of an instruction which stands where it is emitted.
+     * @param inst specifies the instruction
+     * @param next specifies the block laid out after the instruction's block, or null
+     */
+    private void emit(Instruction inst, BasicBlock next)
+    {
+        switch (inst.getOp())
+        {
+            case Instruction.STORE_GLOBAL:
+                load(inst.getOperand(0), "$v0");
+                e.emit("la $t0, " + program.getGlobalName(inst.getValue()));
+                e.emit("sw $v0, ($t0)");
+                break;
+            case Instruction.PRINT:
+                load(inst.getOperand(0), "$v0");
+                e.emit("move $a0, $v0");
+                e.emit("li $v0, 1");
+                e.emit("syscall");
+                e.emit("la $a0, newLine");
+                e.emit("li $v0, 4");
+                e.emit("syscall");
+                break;
+            case Instruction.JUMP:
+                BasicBlock target = inst.getBlock().getSuccessors().get(0);
+                copyPhis(inst.getBlock(), target);
+                if (target != next)
+                {
+                    e.emit("j " + label(target));
+                }
+                break;
+            case Instruction.BRANCH:
+                emitBranch(inst, next);
+                break;
+            case Instruction.RETURN:
+                emitReturn(inst);
+                break;
+            default:
+                compute(inst);
+                e.emit("sw $v0, " + 4 * layout.slot(inst) + "($fp)");
+        }
+    }
+
+    /**
+     * Emits the code putting the value of an instruction into a register.
+     * @param inst specifies the instruction
+     * @param reg specifies the register, which must be $v0 if the value is computed where it
+     *            is used
+     */
+    private void load(Instruction inst, String reg)
+    {
+        if (inst.getOp() == Instruction.CONST)
+        {
+            e.emit("li " + reg + ", " + inst.getValue());
+        }
+        else if (FrameLayout.isDeferred(inst))
+        {
+            compute(inst);
+        }
+        else
+        {
+            e.emit("lw " + reg + ", " + 4 * layout.slot(inst) + "($fp)");
+        }
+    }
+
+    /**
+     * Emits the code putting the values of two operands into $t0 and $v0, saving the first on
+     * the stack while the second is computed unless the first can be loaded afterwards.
+     * @param left specifies the operand for $t0
+     * @param right specifies the operand for $v0
+     */
+    private void loadPair(Instruction left, Instruction right)
+    {
+        if (!FrameLayout.isDeferred(left))
+        {
+            load(right, "$v0");
+            load(left, "$t0");
+        }
+        else
+        {
+            load(left, "$v0");
+            e.emitPush("$v0");
+            load(right, "$v0");
+            e.emitPop("$t0");
+        }
+    }
+
+    /**
+     * Emits the code computing the value of an instruction into $v0.
+     * @param inst specifies the instruction, which computes a value
+     * @throws IllegalArgumentException if the instruction cannot be computed
+     */
+    private void compute(Instruction inst)
+    {
+        switch (inst.getOp())
+        {
+            case Instruction.LOAD_GLOBAL:
+                e.emit("la $t0, " + program.getGlobalName(inst.getValue()));
+                e.emit("lw $v0, ($t0)");
+                break;
+            case Instruction.ADD:
+                loadPair(inst.getOperand(0), inst.getOperand(1));
+                e.emit("addu $v0, $t0, $v0");
+                break;
+            case Instruction.SUB:
+                loadPair(inst.getOperand(0), inst.getOperand(1));
+                e.emit("subu $v0, $t0, $v0");
+                break;
+            case Instruction.MUL:
+                loadPair(inst.getOperand(0), inst.getOperand(1));
+                e.emit("mult $t0, $v0");
+                e.emit("mflo $v0");
+                break;
+            case Instruction.DIV:
+                loadPair(inst.getOperand(0), inst.getOperand(1));
+                e.emit("div $t0, $v0");
+                e.emit("mflo $v0");
+                break;
+            case Instruction.NEG:
+                load(inst.getOperand(0), "$v0");
+                e.emit("subu $v0, $zero, $v0");
+                break;
+            case Instruction.CALL:
+                e.emit("# push the arguments and call procedure " + inst.getName());
+                for (int i = 0; i < inst.getOperandCount(); i++)
+                {
+                    load(inst.getOperand(i), "$v0");
+                    e.emitPush("$v0");
+                }
+                e.emit("jal " + procedureLabel(inst.getName()));
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot compute " + inst);
+        }
+    }
+
+    /**
+     * Emits the copies of the values which the phi instructions of a block take when control
+     * comes from the given predecessor. A single value is copied directly, and several values
+     * are all pushed before any of them is stored.
+     * @param from specifies the predecessor
+     * @param to specifies the block
+     */
+    private void copyPhis(BasicBlock from, BasicBlock to)
+    {
+        int index = to.getPredecessors().indexOf(from);
+        List<Instruction> phis = to.getPhis();
+        for (int i = phis.size() - 1; i >= 0; i--)
+        {
+            if (layout.slot(phis.get(i).getOperand(index)) == layout.slot(phis.get(i)))
+            {
+                phis.remove(i);
+            }
+        }
+        if (phis.isEmpty())
+        {
+            return;
+        }
+        e.emit("# copy the values entering " + label(to));
+        if (phis.size() == 1)
+        {
+            load(phis.get(0).getOperand(index), "$v0");
+            e.emit("sw $v0, " + 4 * layout.slot(phis.get(0)) + "($fp)");
+            return;
+        }
+        for (Instruction phi : phis)
+        {
+            load(phi.getOperand(index), "$v0");
+            e.emitPush("$v0");
+        }
+        for (int i = phis.size() - 1; i >= 0; i--)
+        {
+            e.emitPop("$v0");
+            e.emit("sw $v0, " + 4 * layout.slot(phis.get(i)) + "($fp)");
+        }
+    }
+
+    /**
+     * Emits a branch, which compares its operands and jumps to the block it goes to when the
+     * comparison holds unless that block comes next, in which case it jumps to the other block
+     * when the comparison fails.
+     * @param inst specifies the branch
+     * @param next specifies the block laid out after the branch's block, or null
+     */
+    private void emitBranch(Instruction inst, BasicBlock next)
+    {
+        List<BasicBlock> targets = inst.getBlock().getSuccessors();
+        BasicBlock ifTrue = targets.get(0);
+        BasicBlock ifFalse = targets.get(1);
+        loadPair(inst.getOperand(0), inst.getOperand(1));
+        if (ifTrue == next)
+        {
+            e.emit(branchOp(Instruction.negate(inst.getValue())) + " $t0, $v0, "
+                + label(ifFalse));
+        }
+        else
+        {
+            e.emit(branchOp(inst.getValue()) + " $t0, $v0, " + label(ifTrue));
+            if (ifFalse != next)
+            {
+                e.emit("j " + label(ifFalse));
+            }
+        }
+    }
+
+    /**
+     * @param relation specifies the relation of a branch
+     * @return returns the MIPS instruction branching if the relation holds
+     */
+    private static String branchOp(int relation)
+    {
+        switch (relation)
+        {
+            case Instruction.EQ:
+                return "beq";
+            case Instruction.NE:
+                return "bne";
+            case Instruction.LT:
+                return "blt";
+            case Instruction.GE:
+                return "bge";
+            case Instruction.GT:
+                return "bgt";
+            default:
+                return "ble";
+        }
+    }
+
+    /**
+     * Emits a return, which ends the program for the main program and otherwise returns the
+     * procedure's value in $v0, popping the procedure's frame and arguments.
+     * @param inst specifies the return
+     */
+    private void emitReturn(Instruction inst)
+    {
+        if (function.isMain())
+        {
+            e.emit("li $v0, 10");
+            e.emit("syscall");
+            return;
+        }
+        e.emit("# return the procedure's value");
+        load(inst.getOperand(0), "$v0");
+        e.emit("addu $sp, $sp, " + 4 * layout.getFrameSize());
+        e.emitPop("$fp");
+        e.emitPop("$ra");
+        e.emit("addu $sp, $sp, " + 4 * function.getParamCount());
+        e.emit("jr $ra");
+    }
+}
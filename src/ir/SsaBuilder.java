@@ -0,0 +1,442 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The SsaBuilder class puts a function emitted with GET and SET instructions into SSA form, in
+ * which every value is computed by exactly one instruction. Phi instructions are placed at the
+ * iterated dominance frontier of the blocks writing each variable, and every GET is replaced by
+ * the value of the SET reaching it by walking the dominator tree, after which the GET and SET
+ * instructions are removed along with the phi instructions that turn out to be useless.
+ * Global variables take part in SSA form as well, so the function loads each global it uses
+ * when it starts and after every call, and stores each global it assigns before every call and
+ * before it returns, since the procedures it calls may use them. The main program starts with
+ * every global at 0 instead of loading it, and stores nothing when it ends.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class SsaBuilder
+{
+    private Function function;
+    private int variableCount;
+    private List<List<Instruction>> stacks;
+
+    /**
+     * Creates a builder for the given function.
+     * @param function specifies the function
+     */
+    private SsaBuilder(Function function)
+    {
+        this.function = function;
+        variableCount = function.getVariableCount();
+    }
+
+    /**
+     * Puts the given function into SSA form.
+     * @param function specifies the function, whose variables are still read and written through
+     *                 GET and SET instructions
+     */
+    public static void build(Function function)
+    {
+        SsaBuilder builder = new SsaBuilder(function);
+        function.removeUnreachableBlocks();
+        builder.syncGlobals();
+        DominatorTree tree = new DominatorTree(function);
+        builder.placePhis(tree);
+        builder.rename(tree);
+        builder.removeUselessPhis();
+    }
+
+    /**
+     * Finds the global variables which the function reads or writes and those which it writes,
+     * and inserts the loads and stores keeping them in step with memory.
+     */
+    private void syncGlobals()
+    {
+        BitSet used = new BitSet();
+        BitSet assigned = new BitSet();
+        for (BasicBlock block : function.getBlocks())
+        {
+            for (Instruction inst : block.getInstructions())
+            {
+                int op = inst.getOp();
+                if ((op == Instruction.GET || op == Instruction.SET)
+                    && function.globalSlot(inst.getValue()) >= 0)
+                {
+                    used.set(inst.getValue());
+                    if (op == Instruction.SET)
+                    {
+                        assigned.set(inst.getValue());
+                    }
+                }
+            }
+        }
+        if (used.isEmpty())
+        {
+            return;
+        }
+        BasicBlock entry = function.getEntry();
+        List<Instruction> starts = function.isMain() ? initGlobals(used) : loadGlobals(used);
+        for (int i = 0; i < starts.size(); i++)
+        {
+            entry.insert(i, starts.get(i));
+        }
+        for (BasicBlock block : function.getBlocks())
+        {
+            for (Instruction inst : new ArrayList<Instruction>(block.getInstructions()))
+            {
+                List<Instruction> instructions = block.getInstructions();
+                if (inst.getOp() == Instruction.CALL
+                    || (inst.getOp() == Instruction.RETURN && !function.isMain()))
+                {
+                    int index = instructions.indexOf(inst);
+                    for (Instruction store : storeGlobals(assigned))
+                    {
+                        block.insert(index++, store);
+                    }
+                    if (inst.getOp() == Instruction.CALL)
+                    {
+                        for (Instruction load : loadGlobals(used))
+                        {
+                            block.insert(++index, load);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the instructions setting the given globals to 0.
+     * @param variables specifies the variables standing for the globals
+     * @return returns the instructions
+     */
+    private List<Instruction> initGlobals(BitSet variables)
+    {
+        List<Instruction> insts = new ArrayList<Instruction>();
+        Instruction zero = new Instruction(Instruction.CONST, 0, null);
+        insts.add(zero);
+        for (int v = variables.nextSetBit(0); v >= 0; v = variables.nextSetBit(v + 1))
+        {
+            insts.add(new Instruction(Instruction.SET, v, null, zero));
+        }
+        return insts;
+    }
+
+    /**
+     * Creates the instructions loading the given globals from memory.
+     * @param variables specifies the variables standing for the globals
+     * @return returns the instructions
+     */
+    private List<Instruction> loadGlobals(BitSet variables)
+    {
+        List<Instruction> insts = new ArrayList<Instruction>();
+        for (int v = variables.nextSetBit(0); v >= 0; v = variables.nextSetBit(v + 1))
+        {
+            Instruction load = new Instruction(Instruction.LOAD_GLOBAL, function.globalSlot(v),
+                null);
+            insts.add(load);
+            insts.add(new Instruction(Instruction.SET, v, null, load));
+        }
+        return insts;
+    }
+
+    /**
+     * Creates the instructions storing the given globals to memory.
+     * @param variables specifies the variables standing for the globals
+     * @return returns the instructions
+     */
+    private List<Instruction> storeGlobals(BitSet variables)
+    {
+        List<Instruction> insts = new ArrayList<Instruction>();
+        for (int v = variables.nextSetBit(0); v >= 0; v = variables.nextSetBit(v + 1))
+        {
+            Instruction get = new Instruction(Instruction.GET, v, null);
+            insts.add(get);
+            insts.add(new Instruction(Instruction.STORE_GLOBAL, function.globalSlot(v), null,
+                get));
+        }
+        return insts;
+    }
+
+    /**
+     * Places an empty phi instruction for each variable at the start of every block in the
+     * iterated dominance frontier of the blocks which write the variable. The value of each
+     * phi is the index of its variable until the phi is renamed.
+     * @param tree specifies the dominator tree of the function
+     */
+    private void placePhis(DominatorTree tree)
+    {
+        List<List<BasicBlock>> writers = new ArrayList<List<BasicBlock>>();
+        for (int v = 0; v < variableCount; v++)
+        {
+            writers.add(new ArrayList<BasicBlock>());
+        }
+        for (BasicBlock block : function.getBlocks())
+        {
+            for (Instruction inst : block.getInstructions())
+            {
+                if (inst.getOp() == Instruction.SET)
+                {
+                    List<BasicBlock> blocks = writers.get(inst.getValue());
+                    if (blocks.isEmpty() || blocks.get(blocks.size() - 1) != block)
+                    {
+                        blocks.add(block);
+                    }
+                }
+            }
+        }
+        for (int v = 0; v < variableCount; v++)
+        {
+            List<BasicBlock> work = writers.get(v);
+            Set<BasicBlock> placed = new HashSet<BasicBlock>();
+            Set<BasicBlock> seen = new HashSet<BasicBlock>(work);
+            while (!work.isEmpty())
+            {
+                BasicBlock block = work.remove(work.size() - 1);
+                for (BasicBlock frontier : tree.getFrontier(block))
+                {
+                    if (!placed.add(frontier))
+                    {
+                        continue;
+                    }
+                    Instruction phi = new Instruction(Instruction.PHI, v, null);
+                    for (int i = 0; i < frontier.getPredecessors().size(); i++)
+                    {
+                        phi.addOperand(null);
+                    }
+                    frontier.insert(0, phi);
+                    if (seen.add(frontier))
+                    {
+                        work.add(frontier);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces every GET by the value of the variable reaching it and fills in the operands of
+     * the phi instructions, by walking the dominator tree with a stack of the values of each
+     * variable, and removes the GET and SET instructions.
+     * @param tree specifies the dominator tree of the function
+     */
+    private void rename(DominatorTree tree)
+    {
+        stacks = new ArrayList<List<Instruction>>();
+        for (int v = 0; v < variableCount; v++)
+        {
+            stacks.add(new ArrayList<Instruction>());
+        }
+        // each entry of the walk is a block to enter, or the variables pushed by a block to pop
+        List<Object> walk = new ArrayList<Object>();
+        walk.add(function.getEntry());
+        while (!walk.isEmpty())
+        {
+            Object next = walk.remove(walk.size() - 1);
+            if (next instanceof BasicBlock)
+            {
+                BasicBlock block = (BasicBlock) next;
+                walk.add(renameBlock(block));
+                List<BasicBlock> children = tree.getChildren(block);
+                for (int i = children.size() - 1; i >= 0; i--)
+                {
+                    walk.add(children.get(i));
+                }
+            }
+            else
+            {
+                for (int v : (int[]) next)
+                {
+                    List<Instruction> stack = stacks.get(v);
+                    stack.remove(stack.size() - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renames the variables of one block and fills in the block's operands of the phi
+     * instructions of its successors.
+     * @param block specifies the block
+     * @return returns the variables whose stacks the block has pushed a value onto, once for
+     *         every value pushed
+     */
+    private int[] renameBlock(BasicBlock block)
+    {
+        List<Integer> pushed = new ArrayList<Integer>();
+        for (Instruction inst : new ArrayList<Instruction>(block.getInstructions()))
+        {
+            int op = inst.getOp();
+            if (op == Instruction.PHI)
+            {
+                stacks.get(inst.getValue()).add(inst);
+                pushed.add(inst.getValue());
+            }
+            else if (op == Instruction.GET)
+            {
+                inst.replaceAllUsesWith(current(inst.getValue()));
+                inst.remove();
+            }
+            else if (op == Instruction.SET)
+            {
+                stacks.get(inst.getValue()).add(inst.getOperand(0));
+                pushed.add(inst.getValue());
+                inst.remove();
+            }
+        }
+        for (BasicBlock successor : block.getSuccessors())
+        {
+            List<BasicBlock> predecessors = successor.getPredecessors();
+            for (Instruction phi : successor.getPhis())
+            {
+                for (int i = 0; i < predecessors.size(); i++)
+                {
+                    if (predecessors.get(i) == block)
+                    {
+                        phi.setOperand(i, current(phi.getValue()));
+                    }
+                }
+            }
+        }
+        int[] variables = new int[pushed.size()];
+        for (int i = 0; i < variables.length; i++)
+        {
+            variables[i] = pushed.get(i);
+        }
+        return variables;
+    }
+
+    /**
+     * @param variable specifies the index of a variable
+     * @return returns the value of the variable at the current point of the walk
+     * @throws IllegalStateException if the variable has not been written on the way
+     */
+    private Instruction current(int variable)
+    {
+        List<Instruction> stack = stacks.get(variable);
+        if (stack.isEmpty())
+        {
+            throw new IllegalStateException("Variable " + variable + " read before written");
+        }
+        return stack.get(stack.size() - 1);
+    }
+
+    /**
+     * Removes the phi instructions whose operands are all the same value or the phi itself,
+     * replacing them by that value, and then the phi instructions whose values are used by no
+     * instruction but other such phi instructions.
+     */
+    private void removeUselessPhis()
+    {
+        List<Instruction> phis = new ArrayList<Instruction>();
+        for (BasicBlock block : function.getBlocks())
+        {
+            phis.addAll(block.getPhis());
+        }
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (Instruction phi : phis)
+            {
+                if (phi.getBlock() == null)
+                {
+                    continue;
+                }
+                Instruction same = trivialValue(phi);
+                if (same != null)
+                {
+                    phi.replaceAllUsesWith(same);
+                    phi.remove();
+                    changed = true;
+                }
+            }
+        }
+        Set<Instruction> live = new HashSet<Instruction>();
+        for (Instruction phi : phis)
+        {
+            if (phi.getBlock() != null && !live.contains(phi) && usedOutsidePhis(phi))
+            {
+                markLive(phi, live);
+            }
+        }
+        for (Instruction phi : phis)
+        {
+            if (phi.getBlock() != null && !live.contains(phi))
+            {
+                phi.replaceAllUsesWith(null);
+                phi.remove();
+            }
+        }
+    }
+
+    /**
+     * @param phi specifies a phi instruction
+     * @return returns the only value among the operands of the phi other than the phi itself,
+     *         or null if there are several
+     */
+    private static Instruction trivialValue(Instruction phi)
+    {
+        Instruction same = null;
+        for (int i = 0; i < phi.getOperandCount(); i++)
+        {
+            Instruction operand = phi.getOperand(i);
+            if (operand == phi || operand == same)
+            {
+                continue;
+            }
+            if (same != null)
+            {
+                return null;
+            }
+            same = operand;
+        }
+        return same;
+    }
+
+    /**
+     * @param phi specifies a phi instruction
+     * @return returns true if an instruction other than a phi uses the phi's value; false
+     *         otherwise
+     */
+    private static boolean usedOutsidePhis(Instruction phi)
+    {
+        for (Instruction user : phi.getUsers())
+        {
+            if (user.getOp() != Instruction.PHI)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks a phi instruction as live along with every phi instruction it depends on.
+     * @param phi specifies the phi instruction
+     * @param live specifies the live phi instructions found so far
+     */
+    private static void markLive(Instruction phi, Set<Instruction> live)
+    {
+        List<Instruction> work = new ArrayList<Instruction>();
+        live.add(phi);
+        work.add(phi);
+        while (!work.isEmpty())
+        {
+            Instruction next = work.remove(work.size() - 1);
+            for (int i = 0; i < next.getOperandCount(); i++)
+            {
+                Instruction operand = next.getOperand(i);
+                if (operand != null && operand.getOp() == Instruction.PHI && live.add(operand))
+                {
+                    work.add(operand);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package jvm;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Scope;
+import parser.Parser;
+import scanner.Scanner;
+import vm.Assembler;
+import vm.Bytecode;
+
+/**
+ * The AotCompiler class compiles a whole program ahead of time into a standalone JVM class with
+ * a main method, which runs with nothing but the Java class library on the class path.
+ * Usage: java jvm.AotCompiler [input file] [output .class or .jar file] [class name]
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class AotCompiler
+{
+    /**
+     * Compiles the input file into a class file, or into a runnable jar file if the output file
+     * name ends with .jar.
+     * @param args specifies the input file, the output file and optionally the class name, which
+     *             defaults to the output file's name without its extension
+     * @throws Exception if an error occurs while scanning, parsing or compiling the input or
+     *                   writing the output
+     */
+    public static void main(String[] args) throws Exception
+    {
+        Path output = Paths.get(args[1]);
+        String className = args.length > 2 ? args[2] : output.getFileName().toString()
+            .replaceFirst("\\.[^.]*$", "");
+
+        Program program = new Parser(new Scanner(Paths.get(args[0]))).parseProgram();
+        byte[] bytes = compile(program, className);
+
+        if (output.toString().endsWith(".jar"))
+        {
+            writeJar(className, bytes, output);
+        }
+        else
+        {
+            Files.write(output, bytes);
+        }
+    }
+
+    /**
+     * Compiles the program into a class whose static int fields hold the program's variables,
+     * whose static methods are the program's procedures and whose main method runs the
+     * program's statement.
+     * @param program specifies the program
+     * @param className specifies the internal name of the class
+     * @return returns the bytes of the class file
+     * @throws RuntimeException if the program uses an undeclared variable or calls an undeclared
+     *                          procedure, or a method is too large for the JVM
+     */
+    public static byte[] compile(Program program, String className)
+    {
+        Scope scope = new Scope(null);
+        program.resolve(scope);
+
+        String[] globalNames = new String[scope.size()];
+        for (String var : program.getVariables())
+        {
+            globalNames[scope.slotOf(var)] = var;
+        }
+
+        // a later declaration of a procedure replaces an earlier one, as in the interpreter
+        Map<String, ProcedureDeclaration> procedures =
+            new LinkedHashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            procedures.remove(pd.getName());
+            procedures.put(pd.getName(), pd);
+        }
+
+        ClassFile cf = new ClassFile(className, "java/lang/Object");
+        for (String name : globalNames)
+        {
+            cf.addField(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, name, "I");
+        }
+
+        Assembler a = new Assembler();
+        program.getStatement().assemble(a);
+        a.emit(Bytecode.HALT);
+        CodeBuilder main = new CodeBuilder(cf, 1);
+        translate(a.finish(), new AotTranslator(main, 1, globalNames, procedures));
+        cf.addMethod(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, "main",
+            "([Ljava/lang/String;)V", main);
+
+        for (ProcedureDeclaration pd : procedures.values())
+        {
+            int[] argSlots = pd.getArgSlots();
+            CodeBuilder method = new CodeBuilder(cf, argSlots.length);
+
+            // the frame follows the parameters, starting from 0 except for the arguments
+            int base = argSlots.length;
+            for (int slot = 0; slot < pd.getFrameSize(); slot++)
+            {
+                method.emitInt(0);
+                method.emitLocal(CodeBuilder.ISTORE, base + slot);
+            }
+            for (int i = 0; i < argSlots.length; i++)
+            {
+                method.emitLocal(CodeBuilder.ILOAD, i);
+                method.emitLocal(CodeBuilder.ISTORE, base + argSlots[i]);
+            }
+
+            a = new Assembler();
+            pd.assemble(a);
+            translate(a.finish(), new AotTranslator(method, base, globalNames, procedures));
+            cf.addMethod(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, pd.getName(),
+                AotTranslator.descriptor(argSlots.length), method);
+        }
+
+        return cf.toByteArray();
+    }
+
+    /**
+     * Translates all of the given bytecode with the given translator.
+     * @param bytecode specifies the bytecode
+     * @param translator specifies the translator
+     */
+    private static void translate(Bytecode bytecode, Translator translator)
+    {
+        translator.translate(bytecode, 0, bytecode.getCode().length);
+    }
+
+    /**
+     * Writes a jar file holding the given class, whose manifest makes the class the jar's main
+     * class so that the jar runs with java -jar.
+     * @param className specifies the internal name of the class
+     * @param bytes specifies the bytes of the class file
+     * @param output specifies the path of the jar file
+     * @throws IOException if an error occurs while writing the jar file
+     */
+    public static void writeJar(String className, byte[] bytes, Path output) throws IOException
+    {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(Attributes.Name.MAIN_CLASS, className.replace('/', '.'));
+
+        OutputStream file = new FileOutputStream(output.toFile());
+        try (JarOutputStream jar = new JarOutputStream(file, manifest))
+        {
+            jar.putNextEntry(new JarEntry(className + ".class"));
+            jar.write(bytes);
+            jar.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package jvm;
+
+import java.util.Map;
+
+import ast.ProcedureDeclaration;
+
+/**
+ * The AotTranslator class translates bytecode into a method of a standalone class written by
+ * the AotCompiler. Globals are static int fields of the class, procedures are static methods
+ * taking their arguments as ints and returning their value, and the main program is the
+ * class's main method.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class AotTranslator extends Translator
+{
+    private String[] globalNames;
+    private Map<String, ProcedureDeclaration> procedures;
+
+    /**
+     * Creates a translator for one method of the class.
+     * @param code specifies the builder collecting the JVM instructions
+     * @param localBase specifies the index of the JVM local variable holding frame slot 0
+     * @param globalNames specifies the name of the field holding each global slot
+     * @param procedures specifies the procedures of the program by name
+     */
+    public AotTranslator(CodeBuilder code, int localBase, String[] globalNames,
+        Map<String, ProcedureDeclaration> procedures)
+    {
+        super(code, localBase);
+        this.globalNames = globalNames;
+        this.procedures = procedures;
+    }
+
+    /**
+     * Emits the instructions pushing the given global slot.
+     * @param slot specifies the global slot
+     */
+    protected void loadGlobal(int slot)
+    {
+        ClassFile cf = code.getClassFile();
+        code.emitConstantRef(CodeBuilder.GETSTATIC,
+            cf.fieldRef(cf.getName(), globalNames[slot], "I"), 1);
+    }
+
+    /**
+     * Emits the instructions popping the top of the stack into the given global slot.
+     * @param slot specifies the global slot
+     */
+    protected void storeGlobal(int slot)
+    {
+        ClassFile cf = code.getClassFile();
+        code.emitConstantRef(CodeBuilder.PUTSTATIC,
+            cf.fieldRef(cf.getName(), globalNames[slot], "I"), -1);
+    }
+
+    /**
+     * Emits the instruction calling the static method of a procedure.
+     * @param name specifies the name of the procedure
+     * @param args specifies the number of arguments
+     * @throws RuntimeException if the procedure is not declared or takes a different number of
+     *                          arguments
+     */
+    protected void call(String name, int args)
+    {
+        ProcedureDeclaration proc = procedures.get(name);
+        if (proc == null)
+        {
+            throw new RuntimeException("Procedure " + name + " not found");
+        }
+        if (proc.getArgSlots().length != args)
+        {
+            throw new RuntimeException("Wrong number of arguments in procedure call");
+        }
+        ClassFile cf = code.getClassFile();
+        code.emitConstantRef(CodeBuilder.INVOKESTATIC,
+            cf.methodRef(cf.getName(), name, descriptor(args)), 1 - args);
+    }
+
+    /**
+     * Emits the instructions printing the int on top of the stack to System.out, since the
+     * standalone class runs without an Environment and its output sink.
+     */
+    protected void print()
+    {
+        ClassFile cf = code.getClassFile();
+        code.emitConstantRef(CodeBuilder.GETSTATIC,
+            cf.fieldRef("java/lang/System", "out", "Ljava/io/PrintStream;"), 1);
+        code.emit(CodeBuilder.SWAP, 0);
+        code.emitConstantRef(CodeBuilder.INVOKEVIRTUAL,
+            cf.methodRef("java/io/PrintStream", "println", "(I)V"), -2);
+    }
+
+    /**
+     * Emits the instruction returning from the main method.
+     */
+    protected void halt()
+    {
+        code.emit(CodeBuilder.RETURN, 0);
+    }
+
+    /**
+     * Finds the descriptor of the static method of a procedure.
+     * @param args specifies the number of arguments of the procedure
+     * @return returns the descriptor
+     */
+    public static String descriptor(int args)
+    {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < args; i++)
+        {
+            descriptor.append('I');
+        }
+        return descriptor.append(")I").toString();
+    }
+}
@@ -0,0 +1,21 @@
+package jvm;
+
+/**
+ * CannotCompileException is thrown when code cannot be compiled to JVM code for an expected
+ * reason: it uses a variable which has not been resolved to a declaration, or it does not fit
+ * in the limits of a class file. The JitCompiler catches it and leaves the code interpreted;
+ * any other exception while compiling is a bug and is not caught.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class CannotCompileException extends RuntimeException
+{
+    /**
+     * Creates the exception with the given reason.
+     * @param reason specifies why the code cannot be compiled
+     */
+    public CannotCompileException(String reason)
+    {
+        super(reason);
+    }
+}
@@ -0,0 +1,344 @@
+package jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ClassFile class writes a JVM class file, holding its constant pool, fields and methods.
+ * Classes are written in version 49 so that they are checked by the type-inferring verifier
+ * and need no StackMapTable attributes.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class ClassFile
+{
+    /** The access flag for public classes, fields and methods. */
+    public static final int ACC_PUBLIC = 0x0001;
+    /** The access flag for static fields and methods. */
+    public static final int ACC_STATIC = 0x0008;
+    /** The access flag for final classes. */
+    public static final int ACC_FINAL = 0x0010;
+    /** The access flag required on every class. */
+    public static final int ACC_SUPER = 0x0020;
+
+    private static final int VERSION = 49;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private String name;
+    private int thisClass;
+    private int superClass;
+    private int[] interfaces;
+
+    private ByteArrayOutputStream poolBytes;
+    private DataOutputStream pool;
+    private int poolCount;
+    private Map<String, Integer> poolIndexes;
+
+    private ByteArrayOutputStream fieldBytes;
+    private DataOutputStream fields;
+    private int fieldCount;
+
+    private ByteArrayOutputStream methodBytes;
+    private DataOutputStream methods;
+    private int methodCount;
+
+    /**
+     * Creates a public final class.
+     * @param name specifies the internal name of the class, e.g., "java/lang/Object"
+     * @param superName specifies the internal name of the superclass
+     * @param interfaceNames specifies the internal names of the interfaces the class implements
+     */
+    public ClassFile(String name, String superName, String... interfaceNames)
+    {
+        this.name = name;
+        poolBytes = new ByteArrayOutputStream();
+        pool = new DataOutputStream(poolBytes);
+        poolCount = 1;
+        poolIndexes = new HashMap<String, Integer>();
+        fieldBytes = new ByteArrayOutputStream();
+        fields = new DataOutputStream(fieldBytes);
+        methodBytes = new ByteArrayOutputStream();
+        methods = new DataOutputStream(methodBytes);
+
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaces.length; i++)
+        {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    /**
+     * @return returns the internal name of the class
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Finds or adds a UTF-8 constant.
+     * @param value specifies the string
+     * @return returns the index of the constant in the pool
+     */
+    public int utf8(String value)
+    {
+        Integer index = poolIndexes.get("U" + value);
+        if (index != null)
+        {
+            return index;
+        }
+        try
+        {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        return addConstant("U" + value, 1);
+    }
+
+    /**
+     * Finds or adds an integer constant.
+     * @param value specifies the integer
+     * @return returns the index of the constant in the pool
+     */
+    public int integer(int value)
+    {
+        Integer index = poolIndexes.get("I" + value);
+        if (index != null)
+        {
+            return index;
+        }
+        writeConstant(CONSTANT_INTEGER, value >>> 16, value & 0xFFFF);
+        return addConstant("I" + value, 1);
+    }
+
+    /**
+     * Finds or adds a class constant.
+     * @param className specifies the internal name of the class
+     * @return returns the index of the constant in the pool
+     */
+    public int classRef(String className)
+    {
+        Integer index = poolIndexes.get("C" + className);
+        if (index != null)
+        {
+            return index;
+        }
+        writeConstant(CONSTANT_CLASS, utf8(className));
+        return addConstant("C" + className, 1);
+    }
+
+    /**
+     * Finds or adds a string constant.
+     * @param value specifies the string
+     * @return returns the index of the constant in the pool
+     */
+    public int string(String value)
+    {
+        Integer index = poolIndexes.get("S" + value);
+        if (index != null)
+        {
+            return index;
+        }
+        writeConstant(CONSTANT_STRING, utf8(value));
+        return addConstant("S" + value, 1);
+    }
+
+    /**
+     * Finds or adds a field reference constant.
+     * @param owner specifies the internal name of the class declaring the field
+     * @param fieldName specifies the name of the field
+     * @param descriptor specifies the type descriptor of the field
+     * @return returns the index of the constant in the pool
+     */
+    public int fieldRef(String owner, String fieldName, String descriptor)
+    {
+        return memberRef(CONSTANT_FIELDREF, owner, fieldName, descriptor);
+    }
+
+    /**
+     * Finds or adds a method reference constant.
+     * @param owner specifies the internal name of the class declaring the method
+     * @param methodName specifies the name of the method
+     * @param descriptor specifies the type descriptor of the method
+     * @return returns the index of the constant in the pool
+     */
+    public int methodRef(String owner, String methodName, String descriptor)
+    {
+        return memberRef(CONSTANT_METHODREF, owner, methodName, descriptor);
+    }
+
+    /**
+     * Finds or adds a field or method reference constant.
+     * @param tag specifies the tag of the constant
+     * @param owner specifies the internal name of the class declaring the member
+     * @param memberName specifies the name of the member
+     * @param descriptor specifies the type descriptor of the member
+     * @return returns the index of the constant in the pool
+     */
+    private int memberRef(int tag, String owner, String memberName, String descriptor)
+    {
+        String key = "M" + tag + owner + "." + memberName + ":" + descriptor;
+        Integer index = poolIndexes.get(key);
+        if (index != null)
+        {
+            return index;
+        }
+        int ownerIndex = classRef(owner);
+        String typeKey = "N" + memberName + ":" + descriptor;
+        Integer nameAndType = poolIndexes.get(typeKey);
+        if (nameAndType == null)
+        {
+            int nameIndex = utf8(memberName);
+            int descriptorIndex = utf8(descriptor);
+            writeConstant(CONSTANT_NAME_AND_TYPE, nameIndex, descriptorIndex);
+            nameAndType = addConstant(typeKey, 1);
+        }
+        writeConstant(tag, ownerIndex, nameAndType);
+        return addConstant(key, 1);
+    }
+
+    /**
+     * Writes a constant made of a tag and 16-bit values to the pool.
+     * @param tag specifies the tag of the constant
+     * @param values specifies the values following the tag
+     */
+    private void writeConstant(int tag, int... values)
+    {
+        try
+        {
+            pool.writeByte(tag);
+            for (int value : values)
+            {
+                pool.writeShort(value);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records the index of the constant just written to the pool.
+     * @param key specifies the key under which the constant is found again
+     * @param slots specifies the number of pool entries the constant takes
+     * @return returns the index of the constant
+     * @throws CannotCompileException if the pool has no room for the constant
+     */
+    private int addConstant(String key, int slots)
+    {
+        int index = poolCount;
+        poolCount += slots;
+        if (poolCount > 0xFFFF)
+        {
+            throw new CannotCompileException("Constant pool of " + name + " is too large");
+        }
+        poolIndexes.put(key, index);
+        return index;
+    }
+
+    /**
+     * Adds a field without attributes.
+     * @param access specifies the access flags of the field
+     * @param fieldName specifies the name of the field
+     * @param descriptor specifies the type descriptor of the field
+     */
+    public void addField(int access, String fieldName, String descriptor)
+    {
+        try
+        {
+            fields.writeShort(access);
+            fields.writeShort(utf8(fieldName));
+            fields.writeShort(utf8(descriptor));
+            fields.writeShort(0);
+            fieldCount++;
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Adds a method whose only attribute is its code.
+     * @param access specifies the access flags of the method
+     * @param methodName specifies the name of the method
+     * @param descriptor specifies the type descriptor of the method
+     * @param code specifies the code of the method
+     */
+    public void addMethod(int access, String methodName, String descriptor, CodeBuilder code)
+    {
+        byte[] bytes = code.finish();
+        try
+        {
+            methods.writeShort(access);
+            methods.writeShort(utf8(methodName));
+            methods.writeShort(utf8(descriptor));
+            methods.writeShort(1);
+            methods.writeShort(utf8("Code"));
+            methods.writeInt(12 + bytes.length);
+            methods.writeShort(code.getMaxStack());
+            methods.writeShort(code.getMaxLocals());
+            methods.writeInt(bytes.length);
+            methods.write(bytes);
+            methods.writeShort(0);
+            methods.writeShort(0);
+            methodCount++;
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return returns the bytes of the class file
+     */
+    public byte[] toByteArray()
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int index : interfaces)
+            {
+                out.writeShort(index);
+            }
+            out.writeShort(fieldCount);
+            fieldBytes.writeTo(out);
+            out.writeShort(methodCount);
+            methodBytes.writeTo(out);
+            out.writeShort(0);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,302 @@
+package jvm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The CodeBuilder class collects the JVM instructions of one method, tracking the depth of the
+ * operand stack and the number of local variables the method uses. Jumps are emitted to labels,
+ * which are patched with the offset of the instruction they mark once the code is finished.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class CodeBuilder
+{
+    /** Pushes the int -1; ICONST_0 through ICONST_5 follow it. */
+    public static final int ICONST_M1 = 0x02;
+    /** Pushes a byte operand. */
+    public static final int BIPUSH = 0x10;
+    /** Pushes a short operand. */
+    public static final int SIPUSH = 0x11;
+    /** Pushes an int constant from the pool. */
+    public static final int LDC = 0x12;
+    /** Pushes an int constant from the pool by a wide index. */
+    public static final int LDC_W = 0x13;
+    /** Pushes an int local. */
+    public static final int ILOAD = 0x15;
+    /** Pushes a reference local. */
+    public static final int ALOAD = 0x19;
+    /** Pushes an element of an int array. */
+    public static final int IALOAD = 0x2E;
+    /** Pops into an int local. */
+    public static final int ISTORE = 0x36;
+    /** Pops into a reference local. */
+    public static final int ASTORE = 0x3A;
+    /** Pops a value into an element of an int array. */
+    public static final int IASTORE = 0x4F;
+    /** Duplicates the top of the stack. */
+    public static final int DUP = 0x59;
+    /** Swaps the top two values of the stack. */
+    public static final int SWAP = 0x5F;
+    /** Adds two ints. */
+    public static final int IADD = 0x60;
+    /** Subtracts two ints. */
+    public static final int ISUB = 0x64;
+    /** Multiplies two ints. */
+    public static final int IMUL = 0x68;
+    /** Divides two ints. */
+    public static final int IDIV = 0x6C;
+    /** Negates an int. */
+    public static final int INEG = 0x74;
+    /** Jumps if two ints are equal. */
+    public static final int IF_ICMPEQ = 0x9F;
+    /** Jumps if two ints are not equal. */
+    public static final int IF_ICMPNE = 0xA0;
+    /** Jumps if the first int is less than the second. */
+    public static final int IF_ICMPLT = 0xA1;
+    /** Jumps if the first int is at least the second. */
+    public static final int IF_ICMPGE = 0xA2;
+    /** Jumps if the first int is greater than the second. */
+    public static final int IF_ICMPGT = 0xA3;
+    /** Jumps if the first int is at most the second. */
+    public static final int IF_ICMPLE = 0xA4;
+    /** Jumps unconditionally. */
+    public static final int GOTO = 0xA7;
+    /** Returns an int. */
+    public static final int IRETURN = 0xAC;
+    /** Returns nothing. */
+    public static final int RETURN = 0xB1;
+    /** Pushes a static field. */
+    public static final int GETSTATIC = 0xB2;
+    /** Pops into a static field. */
+    public static final int PUTSTATIC = 0xB3;
+    /** Calls an instance method. */
+    public static final int INVOKEVIRTUAL = 0xB6;
+    /** Calls a constructor or superclass method. */
+    public static final int INVOKESPECIAL = 0xB7;
+    /** Calls a static method. */
+    public static final int INVOKESTATIC = 0xB8;
+    /** Creates an array of a primitive type. */
+    public static final int NEWARRAY = 0xBC;
+    /** The NEWARRAY operand for int arrays. */
+    public static final int T_INT = 10;
+
+    private ClassFile classFile;
+    private byte[] code;
+    private int size;
+    private int depth;
+    private int maxStack;
+    private int maxLocals;
+
+    private List<Integer> labels;
+    private List<Integer> jumps;
+
+    /**
+     * Creates an empty method body for the given class.
+     * @param classFile specifies the class whose constant pool the code refers to
+     * @param parameterSlots specifies the number of local variables taken by the receiver
+     *                       and parameters of the method
+     */
+    public CodeBuilder(ClassFile classFile, int parameterSlots)
+    {
+        this.classFile = classFile;
+        code = new byte[256];
+        maxLocals = parameterSlots;
+        labels = new ArrayList<Integer>();
+        jumps = new ArrayList<Integer>();
+    }
+
+    /**
+     * @return returns the class whose constant pool the code refers to
+     */
+    public ClassFile getClassFile()
+    {
+        return classFile;
+    }
+
+    /**
+     * Emits an instruction without operands.
+     * @param op specifies the opcode
+     * @param effect specifies the number of values the instruction pushes less the number it pops
+     */
+    public void emit(int op, int effect)
+    {
+        append(op);
+        adjustDepth(effect);
+    }
+
+    /**
+     * Emits an instruction whose operand is an index into the constant pool.
+     * @param op specifies the opcode
+     * @param index specifies the index of the constant
+     * @param effect specifies the number of values the instruction pushes less the number it pops
+     */
+    public void emitConstantRef(int op, int index, int effect)
+    {
+        append(op);
+        append(index >> 8);
+        append(index);
+        adjustDepth(effect);
+    }
+
+    /**
+     * Emits the shortest instruction pushing the given int.
+     * @param value specifies the int
+     */
+    public void emitInt(int value)
+    {
+        if (value >= -1 && value <= 5)
+        {
+            append(ICONST_M1 + 1 + value);
+        }
+        else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+        {
+            append(BIPUSH);
+            append(value);
+        }
+        else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+        {
+            append(SIPUSH);
+            append(value >> 8);
+            append(value);
+        }
+        else
+        {
+            int index = classFile.integer(value);
+            if (index < 256)
+            {
+                append(LDC);
+                append(index);
+            }
+            else
+            {
+                append(LDC_W);
+                append(index >> 8);
+                append(index);
+            }
+        }
+        adjustDepth(1);
+    }
+
+    /**
+     * Emits an instruction loading or storing a local variable.
+     * @param op specifies ILOAD, ALOAD, ISTORE or ASTORE
+     * @param index specifies the index of the local variable
+     * @throws CannotCompileException if the index does not fit in one byte
+     */
+    public void emitLocal(int op, int index)
+    {
+        if (index > 0xFF)
+        {
+            throw new CannotCompileException("Too many local variables");
+        }
+        append(op);
+        append(index);
+        adjustDepth(op == ILOAD || op == ALOAD ? 1 : -1);
+        maxLocals = Math.max(maxLocals, index + 1);
+    }
+
+    /**
+     * Emits an instruction creating an int array whose length is on the stack.
+     */
+    public void emitNewIntArray()
+    {
+        append(NEWARRAY);
+        append(T_INT);
+    }
+
+    /**
+     * @return returns a new label, which is not yet marked
+     */
+    public int newLabel()
+    {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    /**
+     * Marks the given label at the next instruction.
+     * @param label specifies the label
+     */
+    public void mark(int label)
+    {
+        labels.set(label, size);
+    }
+
+    /**
+     * Emits a jump or a compare-and-branch instruction to the given label.
+     * @param op specifies the opcode
+     * @param label specifies the label to jump to
+     */
+    public void emitJump(int op, int label)
+    {
+        jumps.add(size);
+        append(op);
+        append(label >> 8);
+        append(label);
+        adjustDepth(op == GOTO ? 0 : -2);
+    }
+
+    /**
+     * Appends one byte to the code, growing the code array if it is full.
+     * @param value specifies the byte
+     */
+    private void append(int value)
+    {
+        if (size == code.length)
+        {
+            code = Arrays.copyOf(code, 2 * size);
+        }
+        code[size++] = (byte) value;
+    }
+
+    /**
+     * Tracks the depth of the operand stack after an instruction, which is the same on every
+     * path since the code only branches where the stack is empty.
+     * @param effect specifies the number of values the instruction pushes less the number it pops
+     */
+    private void adjustDepth(int effect)
+    {
+        depth += effect;
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    /**
+     * @return returns the greatest depth of the operand stack
+     */
+    public int getMaxStack()
+    {
+        return maxStack;
+    }
+
+    /**
+     * @return returns the number of local variables used
+     */
+    public int getMaxLocals()
+    {
+        return maxLocals;
+    }
+
+    /**
+     * Patches every jump with the offset to the instruction its label marks and returns the code.
+     * @return returns the bytes of the code
+     * @throws CannotCompileException if the code is too large for 16-bit jump offsets
+     */
+    public byte[] finish()
+    {
+        if (size > Short.MAX_VALUE)
+        {
+            throw new CannotCompileException("Method too large");
+        }
+        for (int jump : jumps)
+        {
+            int label = ((code[jump + 1] & 0xFF) << 8) | (code[jump + 2] & 0xFF);
+            int offset = labels.get(label) - jump;
+            code[jump + 1] = (byte) (offset >> 8);
+            code[jump + 2] = (byte) offset;
+        }
+        jumps.clear();
+        return Arrays.copyOf(code, size);
+    }
+}
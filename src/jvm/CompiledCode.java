@@ -0,0 +1,21 @@
+package jvm;
+
+import ast.Environment;
+
+/**
+ * The CompiledCode interface is implemented by the classes the JitCompiler generates, each of
+ * which runs one procedure body or loop as JVM code.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public interface CompiledCode
+{
+    /**
+     * Runs the compiled code.
+     * @param env specifies the environment in which the code runs, i.e., the frame of a
+     *            procedure or the environment of the loop
+     * @return returns the value of the procedure, or 0 for a loop
+     * @throws Exception if an error occurs while running the code
+     */
+    int run(Environment env) throws Exception;
+}
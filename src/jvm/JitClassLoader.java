@@ -0,0 +1,30 @@
+package jvm;
+
+/**
+ * The JitClassLoader class defines a class generated by the JitCompiler. Each generated class
+ * gets its own loader so that the class can be unloaded once its code is no longer used.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class JitClassLoader extends ClassLoader
+{
+    /**
+     * Creates a class loader delegating to the loader of the compiler, which can see the
+     * interpreter's classes.
+     */
+    public JitClassLoader()
+    {
+        super(JitClassLoader.class.getClassLoader());
+    }
+
+    /**
+     * Defines the class with the given name from the given class file.
+     * @param name specifies the binary name of the class
+     * @param bytes specifies the bytes of the class file
+     * @return returns the class
+     */
+    public Class<?> define(String name, byte[] bytes)
+    {
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
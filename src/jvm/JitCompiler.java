@@ -0,0 +1,121 @@
+package jvm;
+
+import ast.Environment;
+import ast.ProcedureDeclaration;
+import ast.While;
+import vm.Assembler;
+import vm.Bytecode;
+
+/**
+ * The JitCompiler class compiles hot procedures and loops of a running program into JVM
+ * classes, which HotSpot then optimizes like any other code. A procedure or loop is first
+ * assembled into the virtual machine's bytecode, which is translated into the run method of a
+ * new class implementing CompiledCode and loaded through its own JitClassLoader.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class JitCompiler
+{
+    /**
+     * The number of calls after which a procedure is compiled.
+     */
+    public static final int INVOCATION_THRESHOLD = 500;
+
+    /**
+     * The number of iterations after which a loop is compiled.
+     */
+    public static final int ITERATION_THRESHOLD = 5000;
+
+    private static final String RUN_DESCRIPTOR = "(Last/Environment;)I";
+
+    private static int classCount;
+
+    /**
+     * Compiles the body of the given procedure, which runs in a frame laid out by the resolver.
+     * @param proc specifies the procedure
+     * @return returns the compiled procedure, or null if the procedure cannot be compiled
+     */
+    public static CompiledCode compile(ProcedureDeclaration proc)
+    {
+        try
+        {
+            Assembler a = new Assembler();
+            proc.assemble(a);
+            return load(a.finish(), true, proc.getFrameSize());
+        }
+        catch (CannotCompileException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Compiles the given loop, which continues from the state it finds in its environment, so
+     * that a loop can switch to its compiled code between two iterations.
+     * @param loop specifies the loop
+     * @param env specifies the environment in which the loop runs
+     * @return returns the compiled loop, or null if the loop cannot be compiled
+     */
+    public static CompiledCode compile(While loop, Environment env)
+    {
+        try
+        {
+            boolean inFrame = env != env.getGlobal();
+            Assembler a = new Assembler();
+            a.setInProcedure(inFrame);
+            loop.assemble(a);
+            a.emit(Bytecode.HALT);
+            return load(a.finish(), inFrame, inFrame ? env.getSize() : 0);
+        }
+        catch (CannotCompileException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Translates the given bytecode into a new class and creates an instance of it.
+     * @param bytecode specifies the bytecode
+     * @param inFrame specifies whether the code runs in a procedure's frame
+     * @param frameSize specifies the number of slots in the procedure's frame
+     * @return returns the compiled code
+     * @throws CannotCompileException if the code does not fit in the limits of a class file
+     * @throws IllegalStateException if the generated class cannot be instantiated
+     */
+    private static CompiledCode load(Bytecode bytecode, boolean inFrame, int frameSize)
+    {
+        String name = "JitCode" + nextClassID();
+        ClassFile cf = new ClassFile(name, "java/lang/Object", "jvm/CompiledCode");
+
+        CodeBuilder init = new CodeBuilder(cf, 1);
+        init.emitLocal(CodeBuilder.ALOAD, 0);
+        init.emitConstantRef(CodeBuilder.INVOKESPECIAL,
+            cf.methodRef("java/lang/Object", "<init>", "()V"), -1);
+        init.emit(CodeBuilder.RETURN, 0);
+        cf.addMethod(ClassFile.ACC_PUBLIC, "<init>", "()V", init);
+
+        CodeBuilder run = new CodeBuilder(cf, 2);
+        JitTranslator translator = new JitTranslator(run, inFrame, frameSize);
+        translator.begin();
+        translator.translate(bytecode, 0, bytecode.getCode().length);
+        cf.addMethod(ClassFile.ACC_PUBLIC, "run", RUN_DESCRIPTOR, run);
+
+        try
+        {
+            Class<?> compiled = new JitClassLoader().define(name, cf.toByteArray());
+            return (CompiledCode) compiled.getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Cannot instantiate " + name, e);
+        }
+    }
+
+    /**
+     * @return returns a number naming the next generated class
+     */
+    private static synchronized int nextClassID()
+    {
+        return ++classCount;
+    }
+}
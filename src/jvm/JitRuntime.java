@@ -0,0 +1,157 @@
+package jvm;
+
+import ast.Environment;
+import ast.ProcedureDeclaration;
+
+/**
+ * The JitRuntime class holds the methods that code generated by the JitCompiler calls back
+ * into the interpreter with.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class JitRuntime
+{
+    /**
+     * The largest number of arguments passed to a procedure without an array.
+     */
+    public static final int MAX_DIRECT_ARGS = 3;
+
+    /**
+     * Calls the procedure with the given name in the same way as ProcedureCall.eval does, so
+     * that the procedure runs interpreted or compiled depending on its own tier.
+     * @param global specifies the global environment
+     * @param name specifies the name of the procedure
+     * @param args specifies the values of the arguments
+     * @return returns the value of the procedure
+     * @throws Exception if the procedure is not found, is called with the wrong number of
+     *                   arguments or fails
+     */
+    public static int call(Environment global, String name, int[] args) throws Exception
+    {
+        ProcedureDeclaration proc = find(global, name, args.length);
+        Environment frame = global.pushFrame(proc.getFrameSize());
+        int[] slots = frame.getSlots();
+        int[] argSlots = proc.getArgSlots();
+        for (int i = 0; i < argSlots.length; i++)
+        {
+            slots[argSlots[i]] = args[i];
+        }
+        return run(global, proc, frame);
+    }
+
+    /**
+     * Calls the procedure with the given name, which takes no arguments.
+     * @param global specifies the global environment
+     * @param name specifies the name of the procedure
+     * @return returns the value of the procedure
+     * @throws Exception if the procedure is not found, takes arguments or fails
+     */
+    public static int call(Environment global, String name) throws Exception
+    {
+        ProcedureDeclaration proc = find(global, name, 0);
+        return run(global, proc, global.pushFrame(proc.getFrameSize()));
+    }
+
+    /**
+     * Calls the procedure with the given name, which takes one argument.
+     * @param global specifies the global environment
+     * @param name specifies the name of the procedure
+     * @param arg0 specifies the value of the argument
+     * @return returns the value of the procedure
+     * @throws Exception if the procedure is not found, takes a different number of arguments
+     *                   or fails
+     */
+    public static int call(Environment global, String name, int arg0) throws Exception
+    {
+        ProcedureDeclaration proc = find(global, name, 1);
+        Environment frame = global.pushFrame(proc.getFrameSize());
+        frame.getSlots()[proc.getArgSlots()[0]] = arg0;
+        return run(global, proc, frame);
+    }
+
+    /**
+     * Calls the procedure with the given name, which takes two arguments.
+     * @param global specifies the global environment
+     * @param name specifies the name of the procedure
+     * @param arg0 specifies the value of the first argument
+     * @param arg1 specifies the value of the second argument
+     * @return returns the value of the procedure
+     * @throws Exception if the procedure is not found, takes a different number of arguments
+     *                   or fails
+     */
+    public static int call(Environment global, String name, int arg0, int arg1) throws Exception
+    {
+        ProcedureDeclaration proc = find(global, name, 2);
+        Environment frame = global.pushFrame(proc.getFrameSize());
+        int[] slots = frame.getSlots();
+        int[] argSlots = proc.getArgSlots();
+        slots[argSlots[0]] = arg0;
+        slots[argSlots[1]] = arg1;
+        return run(global, proc, frame);
+    }
+
+    /**
+     * Calls the procedure with the given name, which takes three arguments.
+     * @param global specifies the global environment
+     * @param name specifies the name of the procedure
+     * @param arg0 specifies the value of the first argument
+     * @param arg1 specifies the value of the second argument
+     * @param arg2 specifies the value of the third argument
+     * @return returns the value of the procedure
+     * @throws Exception if the procedure is not found, takes a different number of arguments
+     *                   or fails
+     */
+    public static int call(Environment global, String name, int arg0, int arg1, int arg2)
+        throws Exception
+    {
+        ProcedureDeclaration proc = find(global, name, 3);
+        Environment frame = global.pushFrame(proc.getFrameSize());
+        int[] slots = frame.getSlots();
+        int[] argSlots = proc.getArgSlots();
+        slots[argSlots[0]] = arg0;
+        slots[argSlots[1]] = arg1;
+        slots[argSlots[2]] = arg2;
+        return run(global, proc, frame);
+    }
+
+    /**
+     * Finds the procedure with the given name and checks the number of arguments it takes.
+     * @param global specifies the global environment
+     * @param name specifies the name of the procedure
+     * @param args specifies the number of arguments passed
+     * @return returns the procedure
+     * @throws Exception if the procedure is not found or takes a different number of arguments
+     */
+    private static ProcedureDeclaration find(Environment global, String name, int args)
+        throws Exception
+    {
+        ProcedureDeclaration proc = global.getProcedure(name);
+        if (args != proc.getArgSlots().length)
+        {
+            throw new Exception("Wrong number of arguments in procedure call");
+        }
+        return proc;
+    }
+
+    /**
+     * Runs the procedure in the given frame, whose argument slots are set, and returns the frame
+     * to the pool of the global environment afterwards.
+     * @param global specifies the global environment
+     * @param proc specifies the procedure
+     * @param frame specifies the frame taken from the pool for the call
+     * @return returns the value of the procedure
+     * @throws Exception if the procedure fails
+     */
+    private static int run(Environment global, ProcedureDeclaration proc, Environment frame)
+        throws Exception
+    {
+        try
+        {
+            return proc.call(frame);
+        }
+        finally
+        {
+            global.popFrame();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package jvm;
+
+/**
+ * The JitTranslator class translates bytecode into the body of CompiledCode.run, which works on
+ * the interpreter's environments. Globals are read and written in the global environment's
+ * slot array, so they stay shared with the interpreter. The slots of a procedure's frame are
+ * copied into JVM local variables on entry and, when a loop finishes, copied back.
+ * Procedures are called through JitRuntime.call, and values are printed to the global
+ * environment's output sink.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class JitTranslator extends Translator
+{
+    private static final String ENVIRONMENT = "ast/Environment";
+    private static final String OUTPUT_SINK = "ast/OutputSink";
+
+    private static final int ENV = 1;
+    private static final int GLOBAL = 2;
+    private static final int GLOBALS = 3;
+    private static final int FRAME = 4;
+    private static final int LOCAL_BASE = 5;
+
+    private boolean inFrame;
+    private int frameSize;
+
+    /**
+     * Creates a translator for code that runs in the given kind of environment.
+     * @param code specifies the builder collecting the JVM instructions
+     * @param inFrame specifies whether the code runs in a procedure's frame, as opposed to the
+     *                global environment
+     * @param frameSize specifies the number of slots in the procedure's frame
+     */
+    public JitTranslator(CodeBuilder code, boolean inFrame, int frameSize)
+    {
+        super(code, LOCAL_BASE);
+        this.inFrame = inFrame;
+        this.frameSize = frameSize;
+    }
+
+    /**
+     * Emits the instructions fetching the global environment, its slots and, in a frame, the
+     * frame's slots into local variables.
+     */
+    public void begin()
+    {
+        ClassFile cf = code.getClassFile();
+        code.emitLocal(CodeBuilder.ALOAD, ENV);
+        code.emitConstantRef(CodeBuilder.INVOKEVIRTUAL,
+            cf.methodRef(ENVIRONMENT, "getGlobal", "()L" + ENVIRONMENT + ";"), 0);
+        code.emitLocal(CodeBuilder.ASTORE, GLOBAL);
+        code.emitLocal(CodeBuilder.ALOAD, GLOBAL);
+        code.emitConstantRef(CodeBuilder.INVOKEVIRTUAL,
+            cf.methodRef(ENVIRONMENT, "getSlots", "()[I"), 0);
+        code.emitLocal(CodeBuilder.ASTORE, GLOBALS);
+
+        if (inFrame)
+        {
+            code.emitLocal(CodeBuilder.ALOAD, ENV);
+            code.emitConstantRef(CodeBuilder.INVOKEVIRTUAL,
+                cf.methodRef(ENVIRONMENT, "getSlots", "()[I"), 0);
+            code.emitLocal(CodeBuilder.ASTORE, FRAME);
+            for (int slot = 0; slot < frameSize; slot++)
+            {
+                code.emitLocal(CodeBuilder.ALOAD, FRAME);
+                code.emitInt(slot);
+                code.emit(CodeBuilder.IALOAD, -1);
+                code.emitLocal(CodeBuilder.ISTORE, LOCAL_BASE + slot);
+            }
+        }
+    }
+
+    /**
+     * Emits the instructions pushing the given global slot.
+     * @param slot specifies the global slot
+     */
+    protected void loadGlobal(int slot)
+    {
+        code.emitLocal(CodeBuilder.ALOAD, GLOBALS);
+        code.emitInt(slot);
+        code.emit(CodeBuilder.IALOAD, -1);
+    }
+
+    /**
+     * Emits the instructions popping the top of the stack into the given global slot.
+     * @param slot specifies the global slot
+     */
+    protected void storeGlobal(int slot)
+    {
+        code.emitLocal(CodeBuilder.ALOAD, GLOBALS);
+        code.emit(CodeBuilder.SWAP, 0);
+        code.emitInt(slot);
+        code.emit(CodeBuilder.SWAP, 0);
+        code.emit(CodeBuilder.IASTORE, -3);
+    }
+
+    /**
+     * Emits the instructions calling the procedure through JitRuntime.call, which takes up to
+     * JitRuntime.MAX_DIRECT_ARGS arguments as ints and more arguments as a new array.
+     * @param name specifies the name of the procedure
+     * @param args specifies the number of arguments
+     */
+    protected void call(String name, int args)
+    {
+        ClassFile cf = code.getClassFile();
+        int temps = LOCAL_BASE + frameSize;
+        for (int i = args - 1; i >= 0; i--)
+        {
+            code.emitLocal(CodeBuilder.ISTORE, temps + i);
+        }
+        code.emitLocal(CodeBuilder.ALOAD, GLOBAL);
+        code.emitConstantRef(CodeBuilder.LDC_W, cf.string(name), 1);
+        if (args <= JitRuntime.MAX_DIRECT_ARGS)
+        {
+            StringBuilder descriptor = new StringBuilder("(L" + ENVIRONMENT
+                + ";Ljava/lang/String;");
+            for (int i = 0; i < args; i++)
+            {
+                code.emitLocal(CodeBuilder.ILOAD, temps + i);
+                descriptor.append('I');
+            }
+            code.emitConstantRef(CodeBuilder.INVOKESTATIC, cf.methodRef("jvm/JitRuntime", "call",
+                descriptor.append(")I").toString()), -1 - args);
+            return;
+        }
+        code.emitInt(args);
+        code.emitNewIntArray();
+        for (int i = 0; i < args; i++)
+        {
+            code.emit(CodeBuilder.DUP, 1);
+            code.emitInt(i);
+            code.emitLocal(CodeBuilder.ILOAD, temps + i);
+            code.emit(CodeBuilder.IASTORE, -3);
+        }
+        code.emitConstantRef(CodeBuilder.INVOKESTATIC, cf.methodRef("jvm/JitRuntime", "call",
+            "(L" + ENVIRONMENT + ";Ljava/lang/String;[I)I"), -2);
+    }
+
+    /**
+     * Emits the instructions printing the int on top of the stack to the output sink of the
+     * global environment, so that compiled code prints through the same buffer as the
+     * interpreter.
+     */
+    protected void print()
+    {
+        ClassFile cf = code.getClassFile();
+        code.emitLocal(CodeBuilder.ALOAD, GLOBAL);
+        code.emitConstantRef(CodeBuilder.INVOKEVIRTUAL,
+            cf.methodRef(ENVIRONMENT, "getOutput", "()L" + OUTPUT_SINK + ";"), 0);
+        code.emit(CodeBuilder.SWAP, 0);
+        code.emitConstantRef(CodeBuilder.INVOKEVIRTUAL,
+            cf.methodRef(OUTPUT_SINK, "println", "(I)V"), -2);
+    }
+
+    /**
+     * Emits the instructions copying a frame's local variables back to its slots and returning
+     * 0, which ends a loop.
+     */
+    protected void halt()
+    {
+        if (inFrame)
+        {
+            for (int slot = 0; slot < frameSize; slot++)
+            {
+                code.emitLocal(CodeBuilder.ALOAD, FRAME);
+                code.emitInt(slot);
+                code.emitLocal(CodeBuilder.ILOAD, LOCAL_BASE + slot);
+                code.emit(CodeBuilder.IASTORE, -3);
+            }
+        }
+        code.emitInt(0);
+        code.emit(CodeBuilder.IRETURN, -1);
+    }
+}
@@ -0,0 +1,174 @@
+package jvm;
+
+import vm.Bytecode;
+
+/**
+ * The Translator class translates the virtual machine's Bytecode into JVM instructions. The two
+ * instruction sets are both stack-based, so most instructions map to one JVM instruction; the
+ * subclasses decide where globals live, how procedures are called, where values are printed
+ * and how the code ends.
+ * A procedure's frame slots become JVM local variables starting at a base index.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public abstract class Translator
+{
+    /**
+     * The builder collecting the JVM instructions.
+     */
+    protected CodeBuilder code;
+
+    /**
+     * The index of the JVM local variable holding frame slot 0.
+     */
+    protected int localBase;
+
+    /**
+     * Creates a translator emitting into the given builder.
+     * @param code specifies the builder collecting the JVM instructions
+     * @param localBase specifies the index of the JVM local variable holding frame slot 0
+     */
+    public Translator(CodeBuilder code, int localBase)
+    {
+        this.code = code;
+        this.localBase = localBase;
+    }
+
+    /**
+     * Translates the instructions in the given range of the bytecode. Every jump in the range
+     * must land in the range.
+     * @param bytecode specifies the bytecode
+     * @param start specifies the index of the first instruction
+     * @param end specifies the index after the last instruction
+     */
+    public void translate(Bytecode bytecode, int start, int end)
+    {
+        int[] words = bytecode.getCode();
+        int[] labels = new int[end - start + 1];
+        for (int pc = start; pc < end; pc += Bytecode.length(words[pc]))
+        {
+            int op = words[pc];
+            if (op >= Bytecode.IF_EQ && op <= Bytecode.GOTO)
+            {
+                labels[words[pc + 1] - start] = 1;
+            }
+        }
+        for (int i = 0; i < labels.length; i++)
+        {
+            labels[i] = labels[i] == 0 ? -1 : code.newLabel();
+        }
+
+        for (int pc = start; pc < end; pc += Bytecode.length(words[pc]))
+        {
+            if (labels[pc - start] >= 0)
+            {
+                code.mark(labels[pc - start]);
+            }
+            int operand = pc + 1 < words.length ? words[pc + 1] : 0;
+            switch (words[pc])
+            {
+                case Bytecode.CONST:
+                    code.emitInt(operand);
+                    break;
+                case Bytecode.LOAD:
+                    code.emitLocal(CodeBuilder.ILOAD, localBase + operand);
+                    break;
+                case Bytecode.STORE:
+                    code.emitLocal(CodeBuilder.ISTORE, localBase + operand);
+                    break;
+                case Bytecode.GLOAD:
+                    loadGlobal(operand);
+                    break;
+                case Bytecode.GSTORE:
+                    storeGlobal(operand);
+                    break;
+                case Bytecode.ADD:
+                    code.emit(CodeBuilder.IADD, -1);
+                    break;
+                case Bytecode.SUB:
+                    code.emit(CodeBuilder.ISUB, -1);
+                    break;
+                case Bytecode.MUL:
+                    code.emit(CodeBuilder.IMUL, -1);
+                    break;
+                case Bytecode.DIV:
+                    code.emit(CodeBuilder.IDIV, -1);
+                    break;
+                case Bytecode.NEG:
+                    code.emit(CodeBuilder.INEG, 0);
+                    break;
+                case Bytecode.IF_EQ:
+                    code.emitJump(CodeBuilder.IF_ICMPEQ, labels[operand - start]);
+                    break;
+                case Bytecode.IF_NE:
+                    code.emitJump(CodeBuilder.IF_ICMPNE, labels[operand - start]);
+                    break;
+                case Bytecode.IF_LT:
+                    code.emitJump(CodeBuilder.IF_ICMPLT, labels[operand - start]);
+                    break;
+                case Bytecode.IF_GT:
+                    code.emitJump(CodeBuilder.IF_ICMPGT, labels[operand - start]);
+                    break;
+                case Bytecode.IF_LE:
+                    code.emitJump(CodeBuilder.IF_ICMPLE, labels[operand - start]);
+                    break;
+                case Bytecode.IF_GE:
+                    code.emitJump(CodeBuilder.IF_ICMPGE, labels[operand - start]);
+                    break;
+                case Bytecode.GOTO:
+                    code.emitJump(CodeBuilder.GOTO, labels[operand - start]);
+                    break;
+                case Bytecode.CALL:
+                    call(bytecode.getProcedureName(operand), words[pc + 2]);
+                    break;
+                case Bytecode.RETURN:
+                    code.emitLocal(CodeBuilder.ILOAD, localBase + operand);
+                    code.emit(CodeBuilder.IRETURN, -1);
+                    break;
+                case Bytecode.PRINT:
+                    print();
+                    break;
+                case Bytecode.HALT:
+                    halt();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + words[pc] + " at " + pc);
+            }
+        }
+        if (labels[end - start] >= 0)
+        {
+            code.mark(labels[end - start]);
+        }
+    }
+
+    /**
+     * Emits the instructions printing the int on top of the stack on its own line, to the
+     * output the code being translated runs with.
+     */
+    protected abstract void print();
+
+    /**
+     * Emits the instructions pushing the given global slot.
+     * @param slot specifies the global slot
+     */
+    protected abstract void loadGlobal(int slot);
+
+    /**
+     * Emits the instructions popping the top of the stack into the given global slot.
+     * @param slot specifies the global slot
+     */
+    protected abstract void storeGlobal(int slot);
+
+    /**
+     * Emits the instructions calling a procedure whose arguments are on the stack, leaving the
+     * procedure's value on the stack.
+     * @param name specifies the name of the procedure
+     * @param args specifies the number of arguments
+     */
+    protected abstract void call(String name, int args);
+
+    /**
+     * Emits the instructions ending the code at a HALT instruction.
+     */
+    protected abstract void halt();
+}
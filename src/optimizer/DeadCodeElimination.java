@@ -0,0 +1,255 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ast.Condition;
+import ast.Expression;
+
+/**
+ * The DeadCodeElimination class removes the assignments whose value is never read, along with
+ * the if statements and blocks left with nothing to run. The nodes of the AST walk themselves
+ * through the code of a program or procedure backwards, from the last statement that runs to
+ * the first, and the pass keeps the set of the variables which are live, i.e., which may be
+ * read before they are assigned again, at the point the walk has reached.
+ * Nothing is live at the end of the main program, and at the end of a procedure its return
+ * value and every global variable are, since the code calling it may read them. A call of a
+ * procedure which is not pure may read any global variable. A variable is live at the start of
+ * an if statement if it is live at the start of either branch, and at the start of a while
+ * loop if it is live after the loop or at the start of its statement, which the walk finds by
+ * walking the statement again until the set no longer grows.
+ * An assignment of a variable which is not live is removed unless its expression may have
+ * effects, and so is an if statement whose branches are both empty and whose condition has
+ * no effects. A while loop always stays, since it may never end.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class DeadCodeElimination
+{
+    private Set<String> pure;
+    private Set<String> globals;
+    private Set<String> frame;
+    private Set<String> live;
+    private List<Set<String>> saved;
+    private List<Loop> loops;
+    private int removed;
+
+    /**
+     * A loop enclosing the walk, with the variables live after it and at its start.
+     */
+    private static class Loop
+    {
+        private Set<String> after;
+        private Set<String> start;
+    }
+
+    /**
+     * Creates the pass for a program with the given pure procedures.
+     * @param pure specifies the names of the program's pure procedures
+     */
+    public DeadCodeElimination(Set<String> pure)
+    {
+        this.pure = pure;
+        live = new HashSet<String>();
+        saved = new ArrayList<Set<String>>();
+        loops = new ArrayList<Loop>();
+    }
+
+    /**
+     * @return returns the number of statements removed so far
+     */
+    public int getRemoved()
+    {
+        return removed;
+    }
+
+    /**
+     * Starts the walk of the main program, whose variables are all global. No variable is
+     * live at the end of the main program.
+     * @param variables specifies the names of the program's variables
+     */
+    public void beginMain(List<String> variables)
+    {
+        globals = new HashSet<String>(variables);
+        frame = new HashSet<String>();
+        live = new HashSet<String>();
+    }
+
+    /**
+     * Starts the walk of a procedure of the program whose main program has been walked. The
+     * procedure's return value and the global variables are live at the end of the procedure.
+     * @param frame specifies the names of the variables in the procedure's frame
+     * @param result specifies the name of the variable holding the procedure's return value
+     */
+    public void beginProcedure(List<String> frame, String result)
+    {
+        this.frame = new HashSet<String>(frame);
+        live = new HashSet<String>();
+        for (String name : globals)
+        {
+            if (!this.frame.contains(name))
+            {
+                live.add(name);
+            }
+        }
+        live.add(result);
+    }
+
+    /**
+     * Records the removal of a statement, unless the walk only finds the variables live in an
+     * enclosing loop, in which case the loop's statement is walked again later.
+     */
+    public void remove()
+    {
+        for (Loop loop : loops)
+        {
+            if (loop.start != null)
+            {
+                return;
+            }
+        }
+        removed++;
+    }
+
+    /**
+     * @param name specifies the name of a variable
+     * @return returns true if the variable is declared and not live, so that an assignment of
+     *         it can be removed; false otherwise
+     */
+    public boolean isDead(String name)
+    {
+        return (frame.contains(name) || globals.contains(name)) && !live.contains(name);
+    }
+
+    /**
+     * Records the assignment of a variable, which is not live before it.
+     * @param name specifies the name of the variable
+     */
+    public void assign(String name)
+    {
+        live.remove(name);
+    }
+
+    /**
+     * Records the evaluation of an expression, before which the variables it reads are live,
+     * along with the global variables if it calls a procedure which is not pure.
+     * @param exp specifies the expression
+     */
+    public void read(Expression exp)
+    {
+        exp.findReads(live);
+        Set<String> called = new HashSet<String>();
+        exp.findCalls(called);
+        readCalls(called);
+    }
+
+    /**
+     * Records the evaluation of a condition, before which the variables it reads are live,
+     * along with the global variables if it calls a procedure which is not pure.
+     * @param condition specifies the condition
+     */
+    public void read(Condition condition)
+    {
+        condition.findReads(live);
+        Set<String> called = new HashSet<String>();
+        condition.findCalls(called);
+        readCalls(called);
+    }
+
+    /**
+     * Records calls of the given procedures, before which the global variables are live if
+     * any of the procedures is not pure.
+     * @param called specifies the names of the procedures
+     */
+    private void readCalls(Set<String> called)
+    {
+        if (pure.containsAll(called))
+        {
+            return;
+        }
+        for (String name : globals)
+        {
+            if (!frame.contains(name))
+            {
+                live.add(name);
+            }
+        }
+    }
+
+    /**
+     * Enters the branches of an if statement, walking the then branch next.
+     */
+    public void enterBranches()
+    {
+        saved.add(new HashSet<String>(live));
+    }
+
+    /**
+     * Continues with the else branch of the innermost if statement once its then branch has
+     * been walked, or with the condition if it has no else branch.
+     */
+    public void enterElse()
+    {
+        Set<String> after = saved.remove(saved.size() - 1);
+        saved.add(live);
+        live = after;
+    }
+
+    /**
+     * Leaves the branches of the innermost if statement, before which the variables live at
+     * the start of either branch are live.
+     */
+    public void exitBranches()
+    {
+        live.addAll(saved.remove(saved.size() - 1));
+    }
+
+    /**
+     * Enters a while loop, whose statement is walked next, as often as walkAgain asks for.
+     * @param condition specifies the condition of the loop
+     */
+    public void enterLoop(Condition condition)
+    {
+        Loop loop = new Loop();
+        loop.after = new HashSet<String>(live);
+        read(condition);
+        loop.start = new HashSet<String>(live);
+        loops.add(loop);
+    }
+
+    /**
+     * Finishes a walk of the statement of the innermost loop. The variables live at the start
+     * of the statement are live at the start of the loop too, and if this adds any, the
+     * statement must be walked again.
+     * @param condition specifies the condition of the loop
+     * @return returns true if the statement must be walked again to find the variables live in
+     *         the loop; false if the next walk is the last, which removes the dead code
+     */
+    public boolean walkAgain(Condition condition)
+    {
+        Loop loop = loops.get(loops.size() - 1);
+        live.addAll(loop.after);
+        read(condition);
+        if (live.equals(loop.start))
+        {
+            loop.start = null;
+            return false;
+        }
+        loop.start = new HashSet<String>(live);
+        return true;
+    }
+
+    /**
+     * Leaves the innermost loop once the last walk of its statement is done, before which the
+     * variables live at the start of the loop are live.
+     * @param condition specifies the condition of the loop
+     */
+    public void exitLoop(Condition condition)
+    {
+        Loop loop = loops.remove(loops.size() - 1);
+        live.addAll(loop.after);
+        read(condition);
+    }
+}
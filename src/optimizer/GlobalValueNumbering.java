@@ -0,0 +1,445 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.Assignment;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.Statement;
+import ast.Variable;
+
+/**
+ * The GlobalValueNumbering class finds the operations which compute a value already computed
+ * earlier, along every path leading to them, and replaces them by a temporary variable holding
+ * that value. Two operations compute the same value if they have the same key, which names the
+ * operation and the keys of its operands, down to variables and numbers, so that equal
+ * expressions are hashed to the same entry. Only operations on variables and numbers have
+ * keys, since calling a procedure may have effects.
+ * The nodes of the AST walk themselves through the code of a program twice. The first walk
+ * keeps the table of the operations whose values are available, in the order in which the code
+ * runs. An assignment removes every operation reading the variable assigned, a call of a
+ * procedure which is not pure every operation reading a global variable, and a while loop every
+ * operation reading a variable the loop assigns. The operations computed in both branches of an
+ * if statement stay available after it, sharing one temporary. The second walk assigns the
+ * value of every operation found to be used again to its temporary right before the statement
+ * computing it, and replaces the operations using it by the temporary.
+ * The operations of a while loop's condition cannot be assigned to a temporary, and neither can
+ * those evaluated after a procedure call in the same statement, since assigning them before the
+ * statement would evaluate them before the call.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class GlobalValueNumbering
+{
+    /**
+     * The prefix of the temporary variables, which no variable of a program can have, since
+     * the parser prefixes their names with Variable.NAME_PREFIX.
+     */
+    public static final String TEMPORARY_PREFIX = "gvn";
+
+    private Set<String> pure;
+    private Set<String> globals;
+    private Set<String> frame;
+    private boolean rewriting;
+    private int occurrences;
+    private List<Integer> parents;
+    private Map<Integer, Integer> sources;
+    private Set<Integer> used;
+    private Map<Integer, String> names;
+    private List<String> temporaries;
+    private int nextTemporary;
+    private int eliminated;
+    private Map<String, Value> available;
+    private List<Map<String, Value>> saved;
+    private List<Integer> open;
+    private List<List<Statement>> pending;
+    private boolean canAssign;
+
+    /**
+     * An available value, computed by an operation of the code, with the variables it reads.
+     */
+    private static class Value
+    {
+        private int occurrence;
+        private Set<String> reads;
+
+        /**
+         * Creates an available value.
+         * @param occurrence specifies the number of the operation computing the value
+         * @param reads specifies the names of the variables the operation reads
+         */
+        private Value(int occurrence, Set<String> reads)
+        {
+            this.occurrence = occurrence;
+            this.reads = reads;
+        }
+    }
+
+    /**
+     * Creates the pass for a program with the given pure procedures.
+     * @param pure specifies the names of the program's pure procedures
+     */
+    public GlobalValueNumbering(Set<String> pure)
+    {
+        this.pure = pure;
+        parents = new ArrayList<Integer>();
+        sources = new HashMap<Integer, Integer>();
+        used = new HashSet<Integer>();
+        names = new HashMap<Integer, String>();
+        temporaries = new ArrayList<String>();
+        available = new HashMap<String, Value>();
+        saved = new ArrayList<Map<String, Value>>();
+        open = new ArrayList<Integer>();
+        pending = new ArrayList<List<Statement>>();
+    }
+
+    /**
+     * Starts the second walk, once the first walk has walked the whole program.
+     */
+    public void startRewriting()
+    {
+        rewriting = true;
+        occurrences = 0;
+        for (int source : sources.values())
+        {
+            used.add(find(source));
+        }
+    }
+
+    /**
+     * @return returns the number of operations replaced by a temporary so far
+     */
+    public int getEliminated()
+    {
+        return eliminated;
+    }
+
+    /**
+     * Starts the walk of the main program, whose variables are all global.
+     * @param variables specifies the names of the program's variables
+     */
+    public void beginMain(List<String> variables)
+    {
+        globals = new HashSet<String>(variables);
+        frame = new HashSet<String>();
+        temporaries = new ArrayList<String>();
+        available = new HashMap<String, Value>();
+    }
+
+    /**
+     * Starts the walk of a procedure of the program whose main program has been walked.
+     * @param frame specifies the names of the variables in the procedure's frame
+     */
+    public void beginProcedure(List<String> frame)
+    {
+        this.frame = new HashSet<String>(frame);
+        temporaries = new ArrayList<String>();
+        available = new HashMap<String, Value>();
+    }
+
+    /**
+     * @return returns the names of the temporaries made since the walk of the current program or
+     *         procedure started, which must be declared in it
+     */
+    public List<String> getTemporaries()
+    {
+        return temporaries;
+    }
+
+    /**
+     * Starts a statement, whose operations may be assigned to temporaries before it.
+     */
+    public void beginStatement()
+    {
+        pending.add(new ArrayList<Statement>());
+        canAssign = true;
+    }
+
+    /**
+     * Ends the statement begun last.
+     * @param stmt specifies the walked statement
+     * @return returns the statement assigning the temporaries of the statement's operations and
+     *         running the statement, which is the statement itself if it has no temporaries
+     */
+    public Statement endStatement(Statement stmt)
+    {
+        List<Statement> stmts = pending.remove(pending.size() - 1);
+        if (stmts.isEmpty())
+        {
+            return stmt;
+        }
+        stmts.add(stmt);
+        return new Block(stmts);
+    }
+
+    /**
+     * Records the assignment of a variable, after which no operation reading the variable is
+     * available.
+     * @param name specifies the name of the variable
+     */
+    public void assign(String name)
+    {
+        Set<String> names = new HashSet<String>();
+        names.add(name);
+        remove(names);
+    }
+
+    /**
+     * Records the call of a procedure, after which no operation reading a global variable is
+     * available if the procedure is not pure, and no later operation of the statement can be
+     * assigned to a temporary.
+     * @param name specifies the name of the procedure
+     */
+    public void call(String name)
+    {
+        canAssign = false;
+        if (!pure.contains(name))
+        {
+            removeGlobals();
+        }
+    }
+
+    /**
+     * Removes the operations reading any of the given variables from the available ones.
+     * @param names specifies the names of the variables
+     */
+    private void remove(Set<String> names)
+    {
+        Map<String, Value> kept = new HashMap<String, Value>();
+        for (Map.Entry<String, Value> entry : available.entrySet())
+        {
+            if (!containsAny(names, entry.getValue().reads))
+            {
+                kept.put(entry.getKey(), entry.getValue());
+            }
+        }
+        available = kept;
+    }
+
+    /**
+     * Removes the operations reading a global variable from the available ones.
+     */
+    private void removeGlobals()
+    {
+        Map<String, Value> kept = new HashMap<String, Value>();
+        for (Map.Entry<String, Value> entry : available.entrySet())
+        {
+            if (frame.containsAll(entry.getValue().reads))
+            {
+                kept.put(entry.getKey(), entry.getValue());
+            }
+        }
+        available = kept;
+    }
+
+    /**
+     * @param names specifies a set of names
+     * @param reads specifies another set of names
+     * @return returns true if the sets have a name in common; false otherwise
+     */
+    private static boolean containsAny(Set<String> names, Set<String> reads)
+    {
+        for (String name : reads)
+        {
+            if (names.contains(name))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Enters a while loop, whose condition and statement only find the operations available
+     * before the loop which read nothing the loop assigns. The condition's operations cannot be
+     * assigned to temporaries.
+     * @param condition specifies the condition of the loop
+     * @param statement specifies the statement of the loop
+     */
+    public void enterLoop(Condition condition, Statement statement)
+    {
+        Set<String> assigned = new HashSet<String>();
+        Set<String> called = new HashSet<String>();
+        condition.findCalls(called);
+        statement.findWrites(assigned, called);
+        remove(assigned);
+        if (!pure.containsAll(called))
+        {
+            removeGlobals();
+        }
+        saved.add(new HashMap<String, Value>(available));
+        canAssign = false;
+    }
+
+    /**
+     * Leaves the innermost loop once it has been walked. The operations of the loop's
+     * statement are not available after it, since the statement may not run.
+     */
+    public void exitLoop()
+    {
+        available = saved.remove(saved.size() - 1);
+    }
+
+    /**
+     * Enters the branches of an if statement once its condition has been walked.
+     */
+    public void enterBranches()
+    {
+        saved.add(new HashMap<String, Value>(available));
+    }
+
+    /**
+     * Continues with the else branch of the innermost if statement once its then branch has
+     * been walked, or with the code after the if statement if it has no else branch.
+     */
+    public void enterElse()
+    {
+        Map<String, Value> before = saved.remove(saved.size() - 1);
+        saved.add(available);
+        available = before;
+    }
+
+    /**
+     * Leaves the branches of the innermost if statement. An operation available after both
+     * branches stays available, and the operations computing it share a temporary.
+     */
+    public void exitBranches()
+    {
+        Map<String, Value> other = saved.remove(saved.size() - 1);
+        Map<String, Value> kept = new HashMap<String, Value>();
+        for (Map.Entry<String, Value> entry : available.entrySet())
+        {
+            Value value = other.get(entry.getKey());
+            if (value != null)
+            {
+                union(value.occurrence, entry.getValue().occurrence);
+                kept.put(entry.getKey(), value);
+            }
+        }
+        available = kept;
+    }
+
+    /**
+     * Finds the group of operations sharing a temporary to which an operation belongs.
+     * @param occurrence specifies the number of the operation
+     * @return returns the number of the operation representing the group
+     */
+    private int find(int occurrence)
+    {
+        while (parents.get(occurrence) != occurrence)
+        {
+            parents.set(occurrence, parents.get(parents.get(occurrence)));
+            occurrence = parents.get(occurrence);
+        }
+        return occurrence;
+    }
+
+    /**
+     * Joins the groups of two operations, which then share a temporary.
+     * @param first specifies the number of an operation
+     * @param second specifies the number of another operation
+     */
+    private void union(int first, int second)
+    {
+        parents.set(find(first), find(second));
+    }
+
+    /**
+     * Starts an expression. If it is an operation whose value is available, the operation uses
+     * it, and otherwise the expression's operands are walked next and the expression ends with
+     * define.
+     * @param exp specifies the expression, which is not a number or a variable
+     * @return returns the temporary replacing the expression, or null if the expression
+     *         computes its value
+     */
+    public Variable reuse(Expression exp)
+    {
+        String key = exp.valueKey();
+        if (key == null)
+        {
+            open.add(-1);
+            return null;
+        }
+        int occurrence = occurrences++;
+        if (rewriting)
+        {
+            Integer source = sources.get(occurrence);
+            if (source != null)
+            {
+                eliminated++;
+                return new Variable(temporary(find(source)));
+            }
+        }
+        else
+        {
+            parents.add(occurrence);
+            Value value = available.get(key);
+            if (value != null)
+            {
+                sources.put(occurrence, value.occurrence);
+                return new Variable(TEMPORARY_PREFIX);
+            }
+        }
+        open.add(occurrence);
+        return null;
+    }
+
+    /**
+     * Ends the expression started last, whose value becomes available. In the second walk, an
+     * operation whose value is used again is assigned to its temporary before the statement.
+     * @param exp specifies the expression
+     * @param walked specifies the expression with its operands walked
+     * @return returns the temporary replacing the expression, or the walked expression
+     */
+    public Expression define(Expression exp, Expression walked)
+    {
+        int occurrence = open.remove(open.size() - 1);
+        if (occurrence < 0 || !canAssign)
+        {
+            return walked;
+        }
+        if (!rewriting)
+        {
+            Set<String> reads = new HashSet<String>();
+            exp.findReads(reads);
+            available.put(exp.valueKey(), new Value(occurrence, reads));
+            return walked;
+        }
+        int group = find(occurrence);
+        if (!used.contains(group))
+        {
+            return walked;
+        }
+        String temporary = temporary(group);
+        pending.get(pending.size() - 1).add(new Assignment(temporary, walked));
+        return new Variable(temporary);
+    }
+
+    /**
+     * Finds the temporary of a group of operations, making it if the group has none yet.
+     * @param group specifies the number of the operation representing the group
+     * @return returns the name of the temporary
+     */
+    private String temporary(int group)
+    {
+        String name = names.get(group);
+        if (name == null)
+        {
+            // a program optimized before already declares temporaries
+            do
+            {
+                name = TEMPORARY_PREFIX + nextTemporary++;
+            }
+            while (globals.contains(name) || frame.contains(name));
+            names.put(group, name);
+            temporaries.add(name);
+        }
+        return name;
+    }
+}
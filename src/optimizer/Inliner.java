@@ -0,0 +1,378 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.Assignment;
+import ast.Block;
+import ast.Expression;
+import ast.FlatTree;
+import ast.Number;
+import ast.ProcedureCall;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Statement;
+import ast.Variable;
+
+/**
+ * The Inliner class replaces the calls of small procedures by the procedures' statements, so
+ * that running them needs no frame and the passes after it see the code of the procedures
+ * where they are called. A procedure is inlined if it calls itself neither directly nor through
+ * other procedures and its declaration has at most as many nodes as the budget allows, counted
+ * as in a flat tree.
+ * The nodes of the AST walk themselves through the code of a program in the order in which it
+ * runs, renaming the variables of the procedures being inlined through the pass. An inlined
+ * call becomes assignments of the arguments to temporaries standing for the procedure's
+ * arguments, assignments of 0 to the temporaries standing for its return value and its local
+ * variables, and the procedure's statement, all running right before the statement making
+ * the call, which reads the return value's temporary in place of the call.
+ * Since the procedure's statement runs before the parts of the statement evaluated before the
+ * call, a call is inlined only if none of those parts has effects or reads a global variable
+ * the procedure may assign, and the calls in a while loop's condition, which runs again for
+ * every run of the loop, are never inlined. A procedure reading a global variable which the
+ * frame of the procedure calling it declares is not inlined there either.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Inliner
+{
+    /**
+     * The prefix of the temporary variables, which no variable of a program can have, since
+     * the parser prefixes their names with Variable.NAME_PREFIX.
+     */
+    public static final String TEMPORARY_PREFIX = "inl";
+
+    /**
+     * The largest number of nodes of a procedure inlined by default.
+     */
+    public static final int DEFAULT_BUDGET = 24;
+
+    private int budget;
+    private Map<String, ProcedureDeclaration> inlinable;
+    private Map<String, Set<String>> globalsNamed;
+    private Map<String, Set<String>> globalsWritten;
+    private Set<String> globals;
+    private Set<String> frame;
+    private List<String> temporaries;
+    private int nextTemporary;
+    private List<Map<String, String>> renamings;
+    private List<Call> statements;
+    private int inlined;
+
+    /**
+     * The statement whose calls the walk is inlining, with the statements running before it.
+     */
+    private static class Call
+    {
+        private Set<String> reads;
+        private boolean stopped;
+        private List<Statement> before;
+    }
+
+    /**
+     * Creates the pass with the given budget.
+     * @param budget specifies the largest number of nodes of a procedure inlined
+     */
+    public Inliner(int budget)
+    {
+        this.budget = budget;
+        temporaries = new ArrayList<String>();
+        renamings = new ArrayList<Map<String, String>>();
+        statements = new ArrayList<Call>();
+    }
+
+    /**
+     * @return returns the number of calls inlined so far
+     */
+    public int getInlined()
+    {
+        return inlined;
+    }
+
+    /**
+     * Starts the walk of a program, finding the procedures which are inlined. Only the last
+     * declaration of a procedure is ever called.
+     * @param procedures specifies the procedures of the program
+     */
+    public void beginProgram(List<ProcedureDeclaration> procedures)
+    {
+        Map<String, ProcedureDeclaration> declared = new HashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration pd : procedures)
+        {
+            declared.put(pd.getName(), pd);
+        }
+        Map<String, Set<String>> calls = new HashMap<String, Set<String>>();
+        Map<String, Set<String>> writes = new HashMap<String, Set<String>>();
+        globalsNamed = new HashMap<String, Set<String>>();
+        for (ProcedureDeclaration pd : declared.values())
+        {
+            Set<String> called = new HashSet<String>();
+            Set<String> written = new HashSet<String>();
+            Set<String> named = new HashSet<String>();
+            pd.getStatement().findWrites(written, called);
+            pd.getStatement().findReads(named);
+            named.addAll(written);
+            List<String> frame = frame(pd);
+            written.removeAll(frame);
+            named.removeAll(frame);
+            calls.put(pd.getName(), called);
+            writes.put(pd.getName(), written);
+            globalsNamed.put(pd.getName(), named);
+        }
+        inlinable = new HashMap<String, ProcedureDeclaration>();
+        globalsWritten = new HashMap<String, Set<String>>();
+        for (ProcedureDeclaration pd : declared.values())
+        {
+            String name = pd.getName();
+            Set<String> reached = reached(name, calls);
+            if (reached.contains(name) || size(pd) > budget)
+            {
+                continue;
+            }
+            // the procedures it calls run along with its statement
+            Set<String> written = new HashSet<String>(writes.get(name));
+            for (String callee : reached)
+            {
+                if (writes.containsKey(callee))
+                {
+                    written.addAll(writes.get(callee));
+                }
+            }
+            inlinable.put(name, pd);
+            globalsWritten.put(name, written);
+        }
+    }
+
+    /**
+     * @param pd specifies a procedure
+     * @return returns the names of the variables in the procedure's frame
+     */
+    private static List<String> frame(ProcedureDeclaration pd)
+    {
+        List<String> frame = new ArrayList<String>(pd.getArgs());
+        frame.add(Variable.NAME_PREFIX + pd.getName());
+        frame.addAll(pd.getLocals());
+        return frame;
+    }
+
+    /**
+     * Finds the procedures which a procedure's call may run, directly or through other
+     * procedures.
+     * @param name specifies the name of the procedure
+     * @param calls specifies the names of the procedures called by each procedure
+     * @return returns the names of the procedures, which include the procedure itself only if
+     *         it is recursive
+     */
+    private static Set<String> reached(String name, Map<String, Set<String>> calls)
+    {
+        Set<String> reached = new HashSet<String>();
+        List<String> next = new ArrayList<String>(calls.get(name));
+        while (!next.isEmpty())
+        {
+            String callee = next.remove(next.size() - 1);
+            if (reached.add(callee) && calls.containsKey(callee))
+            {
+                next.addAll(calls.get(callee));
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * @param pd specifies a procedure
+     * @return returns the number of nodes of the procedure's declaration in a flat tree
+     */
+    private static int size(ProcedureDeclaration pd)
+    {
+        List<ProcedureDeclaration> procedures = new ArrayList<ProcedureDeclaration>();
+        procedures.add(pd);
+        Block empty = new Block(new ArrayList<Statement>());
+        FlatTree tree = new FlatTree(new Program(new ArrayList<String>(), procedures, empty));
+        return tree.size() - new FlatTree(new Program(new ArrayList<String>(),
+            new ArrayList<ProcedureDeclaration>(), empty)).size();
+    }
+
+    /**
+     * Starts the walk of the main program, whose variables are all global.
+     * @param variables specifies the names of the program's variables
+     */
+    public void beginMain(List<String> variables)
+    {
+        globals = new HashSet<String>(variables);
+        frame = new HashSet<String>();
+        temporaries = new ArrayList<String>();
+    }
+
+    /**
+     * Starts the walk of a procedure of the program whose main program has been walked.
+     * @param frame specifies the names of the variables in the procedure's frame
+     */
+    public void beginProcedure(List<String> frame)
+    {
+        this.frame = new HashSet<String>(frame);
+        temporaries = new ArrayList<String>();
+    }
+
+    /**
+     * @return returns the names of the temporaries made since the walk of the current program or
+     *         procedure started, which must be declared in it
+     */
+    public List<String> getTemporaries()
+    {
+        return temporaries;
+    }
+
+    /**
+     * Starts a statement, whose calls may be inlined before it.
+     */
+    public void beginStatement()
+    {
+        Call statement = new Call();
+        statement.reads = new HashSet<String>();
+        statement.before = new ArrayList<Statement>();
+        statements.add(statement);
+    }
+
+    /**
+     * Ends the statement begun last.
+     * @param stmt specifies the walked statement
+     * @return returns the statement running the inlined procedures and the statement, which is
+     *         the statement itself if it inlines no calls
+     */
+    public Statement endStatement(Statement stmt)
+    {
+        List<Statement> stmts = statements.remove(statements.size() - 1).before;
+        if (stmts.isEmpty())
+        {
+            return stmt;
+        }
+        stmts.add(stmt);
+        return new Block(stmts);
+    }
+
+    /**
+     * Records that the walk has reached a part of the current statement which has effects, or
+     * which runs more than once, after which no call of the statement can be inlined.
+     */
+    public void stopInlining()
+    {
+        statements.get(statements.size() - 1).stopped = true;
+    }
+
+    /**
+     * Finds the name a variable has where the walk has reached, which is the name of its
+     * temporary if it belongs to a procedure being inlined.
+     * @param name specifies the name of the variable in the code being walked
+     * @return returns the name of the variable in the walked code
+     */
+    public String rename(String name)
+    {
+        if (renamings.isEmpty())
+        {
+            return name;
+        }
+        String renamed = renamings.get(renamings.size() - 1).get(name);
+        return renamed == null ? name : renamed;
+    }
+
+    /**
+     * Records that the current statement reads a variable.
+     * @param name specifies the name of the variable in the code being walked
+     * @return returns the name of the variable in the walked code
+     */
+    public String read(String name)
+    {
+        String renamed = rename(name);
+        statements.get(statements.size() - 1).reads.add(renamed);
+        return renamed;
+    }
+
+    /**
+     * Inlines a call of a procedure if it can, running the procedure's statement before the
+     * current statement. A call which is not inlined has effects.
+     * @param name specifies the name of the procedure
+     * @param args specifies the walked arguments of the call
+     * @return returns the temporary holding the procedure's return value, or the call
+     */
+    public Expression call(String name, List<Expression> args)
+    {
+        if (!canInline(name, args))
+        {
+            stopInlining();
+            return new ProcedureCall(name, args);
+        }
+        ProcedureDeclaration pd = inlinable.get(name);
+        List<Statement> before = statements.get(statements.size() - 1).before;
+        Map<String, String> renaming = new HashMap<String, String>();
+        for (int i = 0; i < args.size(); i++)
+        {
+            String temporary = temporary();
+            renaming.put(pd.getArgs().get(i), temporary);
+            before.add(new Assignment(temporary, args.get(i)));
+        }
+        List<String> zeroed = new ArrayList<String>();
+        zeroed.add(Variable.NAME_PREFIX + name);
+        zeroed.addAll(pd.getLocals());
+        for (String var : zeroed)
+        {
+            String temporary = temporary();
+            renaming.put(var, temporary);
+            before.add(new Assignment(temporary, new Number(0)));
+        }
+        renamings.add(renaming);
+        before.add(pd.getStatement().inlineCalls(this));
+        renamings.remove(renamings.size() - 1);
+        inlined++;
+        return new Variable(renaming.get(Variable.NAME_PREFIX + name));
+    }
+
+    /**
+     * @param name specifies the name of a procedure
+     * @param args specifies the walked arguments of a call of the procedure
+     * @return returns true if the call can be inlined; false otherwise
+     */
+    private boolean canInline(String name, List<Expression> args)
+    {
+        ProcedureDeclaration pd = inlinable.get(name);
+        Call statement = statements.get(statements.size() - 1);
+        if (pd == null || pd.getArgs().size() != args.size() || statement.stopped)
+        {
+            return false;
+        }
+        for (String var : globalsWritten.get(name))
+        {
+            if (statement.reads.contains(var))
+            {
+                return false;
+            }
+        }
+        for (String var : globalsNamed.get(name))
+        {
+            if (frame.contains(var))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes a new temporary.
+     * @return returns the name of the temporary
+     */
+    private String temporary()
+    {
+        // a program optimized before already declares temporaries
+        String temporary = TEMPORARY_PREFIX + nextTemporary++;
+        while (globals.contains(temporary) || frame.contains(temporary))
+        {
+            temporary = TEMPORARY_PREFIX + nextTemporary++;
+        }
+        temporaries.add(temporary);
+        return temporary;
+    }
+}
@@ -0,0 +1,294 @@
+package optimizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ast.Assignment;
+import ast.Block;
+import ast.Condition;
+import ast.Expression;
+import ast.If;
+import ast.Statement;
+import ast.Variable;
+import ast.While;
+
+/**
+ * The LoopInvariantCodeMotion class moves the expressions of while loops whose value does not
+ * change while the loop runs out of the loop, into assignments of temporary variables which run
+ * once before the loop starts. The nodes of the AST walk themselves through the code of a
+ * program or procedure and ask the pass which of their expressions can move, and the pass keeps
+ * track of the loops enclosing the walk.
+ * An expression is invariant in a loop if every variable it reads is declared and assigned
+ * nowhere in the loop, and it calls only pure procedures, whose value depends only on their
+ * arguments. A global variable is not invariant in a loop calling a procedure which is not
+ * pure, since the procedure may assign it. An invariant expression moves out of the outermost
+ * loop in which it is invariant.
+ * An expression which calls a procedure or divides may fail, so it moves only if it runs at the
+ * start of every run of the loop, before anything with an effect: either in the loop's
+ * condition, or in the loop's statement, in which case the loop is only entered through an if
+ * statement testing its condition, which must have no effects then.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class LoopInvariantCodeMotion
+{
+    /**
+     * The prefix of the temporary variables, which no variable of a program can have, since
+     * the parser prefixes their names with Variable.NAME_PREFIX.
+     */
+    public static final String TEMPORARY_PREFIX = "licm";
+
+    private Set<String> pure;
+    private Set<String> globals;
+    private Set<String> frame;
+    private List<String> temporaries;
+    private List<Loop> loops;
+    private int firstHoistingEffects;
+    private int nextTemporary;
+    private int hoisted;
+
+    /**
+     * A loop enclosing the walk, with the variables it assigns and the assignments of the
+     * temporaries which run before it.
+     */
+    private static class Loop
+    {
+        private Set<String> assigned;
+        private boolean callsImpure;
+        private boolean inStatement;
+        private List<Statement> preheader;
+        private List<Statement> guarded;
+    }
+
+    /**
+     * Creates the pass for a program with the given pure procedures.
+     * @param pure specifies the names of the program's pure procedures
+     */
+    public LoopInvariantCodeMotion(Set<String> pure)
+    {
+        this.pure = pure;
+        temporaries = new ArrayList<String>();
+        loops = new ArrayList<Loop>();
+    }
+
+    /**
+     * Starts the walk of the main program, whose variables are all global.
+     * @param variables specifies the names of the program's variables
+     */
+    public void beginMain(List<String> variables)
+    {
+        globals = new HashSet<String>(variables);
+        frame = new HashSet<String>();
+        temporaries = new ArrayList<String>();
+    }
+
+    /**
+     * Starts the walk of a procedure of the program whose main program has been walked.
+     * @param frame specifies the names of the variables in the procedure's frame
+     */
+    public void beginProcedure(List<String> frame)
+    {
+        this.frame = new HashSet<String>(frame);
+        temporaries = new ArrayList<String>();
+    }
+
+    /**
+     * @return returns the names of the temporaries made since the walk of the current program or
+     *         procedure started, which must be declared in it
+     */
+    public List<String> getTemporaries()
+    {
+        return temporaries;
+    }
+
+    /**
+     * @return returns the number of expressions moved out of loops so far
+     */
+    public int getHoisted()
+    {
+        return hoisted;
+    }
+
+    /**
+     * Enters a while loop, before its condition is walked.
+     * @param condition specifies the condition of the loop
+     * @param statement specifies the statement of the loop
+     */
+    public void enterLoop(Condition condition, Statement statement)
+    {
+        Loop loop = new Loop();
+        loop.assigned = new HashSet<String>();
+        Set<String> called = new HashSet<String>();
+        condition.findCalls(called);
+        statement.findWrites(loop.assigned, called);
+        loop.callsImpure = !pure.containsAll(called);
+        loop.preheader = new ArrayList<Statement>();
+        loop.guarded = new ArrayList<Statement>();
+        loops.add(loop);
+    }
+
+    /**
+     * Continues with the statement of the innermost loop once its condition has been walked.
+     * The statement does not run on every run of an enclosing loop, and expressions which may
+     * fail can move out of the loop itself only if the condition has no effects.
+     * @param condition specifies the walked condition of the loop
+     */
+    public void enterStatement(Condition condition)
+    {
+        int innermost = loops.size() - 1;
+        loops.get(innermost).inStatement = true;
+        firstHoistingEffects = condition.hasEffects() ? loops.size() : innermost;
+    }
+
+    /**
+     * Leaves the innermost loop once it has been walked. The parts of the expressions moved out
+     * of the loop which are invariant in the enclosing loops move on out of them. Nothing after
+     * the loop runs on every run of an enclosing loop before an effect, since the loop may not
+     * end.
+     * @param condition specifies the walked condition of the loop
+     * @param loop specifies the walked loop
+     * @return returns the statement running the assignments of the loop's temporaries and the
+     *         loop, which is the loop itself if it has no temporaries
+     */
+    public Statement exitLoop(Condition condition, While loop)
+    {
+        Loop exited = loops.remove(loops.size() - 1);
+        firstHoistingEffects = loops.size();
+        if (exited.preheader.isEmpty() && exited.guarded.isEmpty())
+        {
+            return loop;
+        }
+        List<Statement> stmts = hoistInvariants(exited.preheader);
+        if (exited.guarded.isEmpty())
+        {
+            stmts.add(loop);
+        }
+        else
+        {
+            List<Statement> guarded = hoistInvariants(exited.guarded);
+            guarded.add(loop);
+            stmts.add(new If(condition, new Block(guarded)));
+        }
+        return new Block(stmts);
+    }
+
+    /**
+     * Walks the assignments of the temporaries of a loop which has been left.
+     * @param assignments specifies the assignments
+     * @return returns the walked assignments
+     */
+    private List<Statement> hoistInvariants(List<Statement> assignments)
+    {
+        List<Statement> hoisted = new ArrayList<Statement>();
+        for (Statement assignment : assignments)
+        {
+            hoisted.add(assignment.hoistInvariants(this));
+        }
+        return hoisted;
+    }
+
+    /**
+     * Records that the walk has reached code which does not run on every run of the enclosing
+     * loops, or which has an effect, so that no expression which may fail can move out of them
+     * from here on.
+     */
+    public void stopHoistingEffects()
+    {
+        firstHoistingEffects = loops.size();
+    }
+
+    /**
+     * Finds the outermost enclosing loop in which a variable is invariant.
+     * @param name specifies the name of the variable
+     * @return returns the index of the loop, counting from the outermost one, or the number of
+     *         enclosing loops if the variable is invariant in none of them
+     */
+    public int invariantLoop(String name)
+    {
+        boolean global = !frame.contains(name);
+        if (global && !globals.contains(name))
+        {
+            return loops.size();
+        }
+        // a loop assigns everything its nested loops assign
+        for (int i = 0; i < loops.size(); i++)
+        {
+            Loop loop = loops.get(i);
+            if (!loop.assigned.contains(name) && !(global && loop.callsImpure))
+            {
+                return i;
+            }
+        }
+        return loops.size();
+    }
+
+    /**
+     * @param name specifies the name of a procedure
+     * @return returns true if the procedure is pure, so that its value depends only on its
+     *         arguments; false otherwise
+     */
+    public boolean isPure(String name)
+    {
+        return pure.contains(name);
+    }
+
+    /**
+     * Finds the loop out of which an expression moves.
+     * @param exp specifies the expression
+     * @return returns the index of the loop, or the number of enclosing loops if the expression
+     *         cannot move
+     */
+    private int target(Expression exp)
+    {
+        int loop = exp.invariantLoop(this);
+        if (exp.hasEffects())
+        {
+            loop = Math.max(loop, firstHoistingEffects);
+        }
+        return loop;
+    }
+
+    /**
+     * @param exp specifies an expression which is not a number or a variable
+     * @return returns true if the expression can move out of an enclosing loop; false otherwise
+     */
+    public boolean canHoist(Expression exp)
+    {
+        return target(exp) < loops.size();
+    }
+
+    /**
+     * Moves an expression out of the outermost loop out of which it can move, into the
+     * assignment of a new temporary.
+     * @param exp specifies the expression, which can move
+     * @return returns the temporary, which replaces the expression
+     */
+    public Variable hoist(Expression exp)
+    {
+        int index = target(exp);
+        Loop loop = loops.get(index);
+        // a program optimized before already declares temporaries
+        String temporary = TEMPORARY_PREFIX + nextTemporary++;
+        while (globals.contains(temporary) || frame.contains(temporary))
+        {
+            temporary = TEMPORARY_PREFIX + nextTemporary++;
+        }
+        temporaries.add(temporary);
+        hoisted++;
+        Statement assignment = new Assignment(temporary, exp);
+        if (exp.hasEffects())
+        {
+            // the enclosing loops now run the expression where the loop starts
+            firstHoistingEffects = Math.max(firstHoistingEffects, index);
+            if (loop.inStatement)
+            {
+                loop.guarded.add(assignment);
+                return new Variable(temporary);
+            }
+        }
+        loop.preheader.add(assignment);
+        return new Variable(temporary);
+    }
+}
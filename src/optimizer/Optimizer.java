@@ -0,0 +1,184 @@
+package optimizer;
+
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import ast.FlatTree;
+import ast.ProcedureDeclaration;
+import ast.Program;
+import ast.Scope;
+import emitter.Emitter;
+
+/**
+ * The Optimizer class simplifies a parsed program before it is executed or compiled, so that
+ * no tier computes the same constants again every time the code runs. First the calls of small
+ * procedures are replaced by the procedures' statements, so that the other optimizations see
+ * through the calls. Then constant operations and conditions are folded, algebraic identities
+ * are simplified and if statements and while loops with constant conditions are replaced by
+ * the statement that runs. Then the expressions of while loops whose value does not change
+ * while the loop runs are moved out of the loops, and the operations computing a value
+ * computed before reuse it through a temporary. Last, the assignments whose value is never
+ * read, the if statements left with nothing to run and the procedures which are never called
+ * are removed.
+ * The optimizer counts the calls it inlines, the nodes it eliminates, the expressions it moves
+ * out of loops, the operations it replaces and the statements it removes in the programs it
+ * optimizes. When it keeps compile statistics, it also counts the assembly instructions which
+ * removing the dead code saves, by compiling each program both before and after removing it.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Optimizer
+{
+    private int inlineBudget = Inliner.DEFAULT_BUDGET;
+    private int inlined;
+    private int eliminated;
+    private int hoisted;
+    private int reused;
+    private int removed;
+    private boolean statistics;
+    private int removedInstructions;
+
+    /**
+     * Sets the largest number of nodes of a procedure whose calls the optimizer inlines, so
+     * that a budget of 0 inlines nothing.
+     * @param inlineBudget specifies the largest number of nodes of an inlined procedure
+     */
+    public void setInlineBudget(int inlineBudget)
+    {
+        this.inlineBudget = inlineBudget;
+    }
+
+    /**
+     * Sets whether the optimizer keeps compile statistics, which makes it compile every program
+     * it optimizes twice.
+     * @param statistics specifies whether the optimizer keeps compile statistics
+     */
+    public void setStatistics(boolean statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Optimizes the given program.
+     * @param program specifies the program, which is resolved but otherwise left unchanged
+     * @return returns the optimized program, which has the same effect
+     */
+    public Program optimize(Program program)
+    {
+        // resolving marks the reads of undeclared variables, which fail and so are never folded
+        // or removed
+        program.resolve(new Scope(null));
+
+        Inliner inl = new Inliner(inlineBudget);
+        Program expanded = program.inlineCalls(inl);
+        inlined += inl.getInlined();
+
+        int before = new FlatTree(expanded).size();
+        Program folded = expanded.fold();
+        eliminated += before - new FlatTree(folded).size();
+
+        Set<String> pure = pureProcedures(folded);
+        LoopInvariantCodeMotion licm = new LoopInvariantCodeMotion(pure);
+        Program moved = folded.hoistInvariants(licm);
+        hoisted += licm.getHoisted();
+
+        GlobalValueNumbering gvn = new GlobalValueNumbering(pure);
+        moved.numberValues(gvn);
+        gvn.startRewriting();
+        Program numbered = moved.numberValues(gvn);
+        reused += gvn.getEliminated();
+
+        DeadCodeElimination dce = new DeadCodeElimination(pure);
+        Program live = numbered.eliminateDeadCode(dce);
+        removed += dce.getRemoved();
+        if (statistics)
+        {
+            removedInstructions += countInstructions(numbered) - countInstructions(live);
+        }
+        return live;
+    }
+
+    /**
+     * Compiles a program, discarding the assembly code.
+     * @param program specifies the program
+     * @return returns the number of instructions in the program's assembly code
+     */
+    private static int countInstructions(Program program)
+    {
+        Emitter e = new Emitter(new StringWriter());
+        program.compile(e);
+        return e.getInstructionCount();
+    }
+
+    /**
+     * Finds the pure procedures of a program, which resolving the program marks.
+     * @param program specifies the program
+     * @return returns the names of the pure procedures
+     */
+    private static Set<String> pureProcedures(Program program)
+    {
+        program.resolve(new Scope(null));
+        Set<String> pure = new HashSet<String>();
+        for (ProcedureDeclaration pd : program.getProcedures())
+        {
+            if (pd.isPure())
+            {
+                pure.add(pd.getName());
+            }
+        }
+        return pure;
+    }
+
+    /**
+     * @return returns the number of calls inlined in the programs optimized so far
+     */
+    public int getInlined()
+    {
+        return inlined;
+    }
+
+    /**
+     * @return returns the number of nodes eliminated from the programs optimized so far
+     */
+    public int getEliminated()
+    {
+        return eliminated;
+    }
+
+    /**
+     * @return returns the number of expressions moved out of loops in the programs optimized so
+     *         far
+     */
+    public int getHoisted()
+    {
+        return hoisted;
+    }
+
+    /**
+     * @return returns the number of operations replaced by the value of an operation computed
+     *         before in the programs optimized so far
+     */
+    public int getReused()
+    {
+        return reused;
+    }
+
+    /**
+     * @return returns the number of statements and procedure declarations removed as dead code
+     *         from the programs optimized so far
+     */
+    public int getRemoved()
+    {
+        return removed;
+    }
+
+    /**
+     * @return returns the number of assembly instructions saved by removing dead code from the
+     *         programs optimized so far while keeping compile statistics
+     */
+    public int getRemovedInstructions()
+    {
+        return removedInstructions;
+    }
+}
@@ -0,0 +1,452 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ast.Variable;
+import scanner.*;
+
+/**
+ * ExpressionParser contains the methods shared by the parsers, which eat the input stream of
+ * tokens and parse expressions; the subclasses decide what an expression is built into, e.g., an
+ * abstract syntax tree or the rows of a flat tree, and parse the rest of the program.
+ * @param <T> the type of an operand on the operand stack, i.e., of a parsed expression
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public abstract class ExpressionParser<T>
+{
+    /**
+     * Precedence of every binary operator, indexed by the ordinal of its TokenKind; token kinds
+     * that are not binary operators have a precedence of 0.
+     */
+    private static final int[] PRECEDENCE = new int[TokenKind.values().length];
+    private static final TokenKind[] KINDS = TokenKind.values();
+
+    // entries of the operator stack other than binary operators, with the precedence of NEGATE
+    private static final int NEGATE = -1;
+    private static final int OPEN_PAREN = -2;
+    private static final int NEGATE_PRECEDENCE = 2;
+
+    // chains of operators of equal precedence with up to this many operands keep the left-nested
+    // shape; longer ones are built as balanced trees
+    private static final int CHAIN_LIMIT = 16;
+
+    static
+    {
+        PRECEDENCE[TokenKind.PLUS.ordinal()] = 1;
+        PRECEDENCE[TokenKind.MINUS.ordinal()] = 1;
+        PRECEDENCE[TokenKind.TIMES.ordinal()] = 3;
+        PRECEDENCE[TokenKind.DIVIDE.ordinal()] = 3;
+    }
+
+    /**
+     * The kind of the current token.
+     */
+    protected TokenKind currentToken;
+
+    /**
+     * The scanner producing the input stream of tokens.
+     */
+    protected Scanner scanner;
+
+    private String[] variableNames;
+    private List<T> operands;
+    private int[] operators;
+    private int operatorCount;
+
+    /**
+     * Constructs a parser object that takes in a scanner object.
+     * @param scanner the scanner that will be used by the parser to parse the input
+     * @throws ScanErrorException if an error occurs while scanning
+     */
+    public ExpressionParser(Scanner scanner) throws ScanErrorException 
+    {
+        this.scanner = scanner;
+        variableNames = new String[0];
+        operands = new ArrayList<T>();
+        operators = new int[16];
+        operatorCount = 0;
+        currentToken = scanner.next();
+    }
+
+    /**
+     * Rakes in the kind of the expected token and compares it to the kind of the current token.  
+     * If the two tokens match, the current token is set to the next token in the input stream. 
+     * If the two tokens do not match, an error is thrown.
+     * @param expectedToken specifies the kind of the expected token
+     * @throws ScanErrorException if the expected token does not match the current token
+     */
+    protected void eat(TokenKind expectedToken) throws ScanErrorException
+    {
+        if (currentToken == expectedToken) 
+        {
+            currentToken = scanner.next();
+        }
+        else 
+        {
+            throw new IllegalArgumentException(
+                "Expected " + expectedToken.spelling() + " but found " + scanner.lexeme()
+                );
+        }
+    }
+
+    /**
+     * Eats the current token, which must be an identifier, and returns its symbol id.
+     * @return returns the symbol id of the identifier
+     * @throws ScanErrorException if the current token is not an identifier
+     */
+    protected int eatIdentifier() throws ScanErrorException
+    {
+        int symbol = scanner.symbol();
+        eat(TokenKind.IDENTIFIER);
+
+        return symbol;
+    }
+
+    /**
+     * Returns the name of the variable for the given symbol, i.e., the name of the symbol with
+     * Variable.NAME_PREFIX in front of it. The name is built only once per symbol, so every
+     * occurrence of a variable shares the same String.
+     * @param symbol specifies the symbol id of the variable
+     * @return returns the name of the variable
+     */
+    protected String variableName(int symbol)
+    {
+        if (symbol >= variableNames.length)
+        {
+            variableNames = Arrays.copyOf(variableNames, scanner.symbols().size());
+        }
+        if (variableNames[symbol] == null)
+        {
+            variableNames[symbol] = Variable.NAME_PREFIX + scanner.symbols().name(symbol);
+        }
+        return variableNames[symbol];
+    }
+
+    /**
+     * Eats the current token, which must be an operator, and returns its spelling.
+     * @return returns the spelling of the operator
+     * @throws ScanErrorException if an error occurs while scanning
+     */
+    protected String eatOperator() throws ScanErrorException
+    {
+        String op = currentToken.spelling();
+        eat(currentToken);
+
+        return op;
+    }
+    
+    /**
+     * Parses a factor that is not parenthesized or negated, i.e., a number, a variable or a
+     * procedure call.
+     * @return returns the factor
+     * @throws ScanErrorException if the expected token does not match the current token
+     */
+    protected abstract T parseFactor() throws ScanErrorException;
+
+    /**
+     * Builds the expression applying a binary operator to two operands.
+     * @param op specifies the spelling of the operator
+     * @param left specifies the left operand
+     * @param right specifies the right operand
+     * @return returns the expression
+     */
+    protected abstract T binary(String op, T left, T right);
+
+    /**
+     * Builds the expression negating an operand.
+     * @param operand specifies the operand
+     * @return returns the expression
+     */
+    protected abstract T negate(T operand);
+
+    /**
+     * parseExpr is a method that parses an expression and returns the value of
+     * the expression. An expression is defined by a term potentially followed by a sequence
+     * of added or subtracted terms, where a term is a sequence of multiplied or divided factors,
+     * and a factor may be parenthesized or negated.
+     * The expression is parsed by precedence climbing over an explicit stack of operands and an 
+     * explicit stack of operators rather than by recursion, so deeply nested parentheses do not 
+     * grow the Java stack. A negation applies to the whole term that follows it, i.e., it binds 
+     * more loosely than multiplication and division but more tightly than addition and 
+     * subtraction.
+     * Operators of equal precedence are left on the stack and reduced together as one chain, so
+     * that a long chain can be built as a balanced tree, which every walk over the tree takes
+     * with little recursion, instead of a left-nested one as deep as the chain is long.
+     * @return returns the value of the expression
+     * @throws ScanErrorException if the expected token does not match the current token
+     */
+    protected T parseExpr() throws ScanErrorException
+    {
+        int operandBase = operands.size();
+        int operatorBase = operatorCount;
+        int openParens = 0;
+        boolean expectOperand = true;
+
+        while (true)
+        {
+            if (expectOperand)
+            {
+                if (currentToken == TokenKind.LEFT_PAREN)
+                {
+                    eat(TokenKind.LEFT_PAREN);
+                    pushOperator(OPEN_PAREN);
+                    openParens++;
+                }
+                else if (currentToken == TokenKind.MINUS)
+                {
+                    eat(TokenKind.MINUS);
+                    pushOperator(NEGATE);
+                }
+                else
+                {
+                    operands.add(parseFactor());
+                    expectOperand = false;
+                }
+            }
+            else if (PRECEDENCE[currentToken.ordinal()] > 0)
+            {
+                int precedence = PRECEDENCE[currentToken.ordinal()];
+                while (operatorCount > operatorBase 
+                    && precedence(operators[operatorCount - 1]) > precedence)
+                {
+                    reduce(operatorBase);
+                }
+                pushOperator(currentToken.ordinal());
+                eat(currentToken);
+                expectOperand = true;
+            }
+            else if (currentToken == TokenKind.RIGHT_PAREN && openParens > 0)
+            {
+                while (operators[operatorCount - 1] != OPEN_PAREN)
+                {
+                    reduce(operatorBase);
+                }
+                operatorCount--;
+                openParens--;
+                eat(TokenKind.RIGHT_PAREN);
+            }
+            else
+            {
+                break;
+            }
+        }
+
+        if (openParens > 0)
+        {
+            eat(TokenKind.RIGHT_PAREN);
+        }
+        while (operatorCount > operatorBase)
+        {
+            reduce(operatorBase);
+        }
+
+        return operands.remove(operandBase);
+    }
+
+    /**
+     * Pushes an operator onto the operator stack.
+     * @param operator specifies the ordinal of a binary operator's TokenKind, or NEGATE or 
+     *                 OPEN_PAREN
+     */
+    private void pushOperator(int operator)
+    {
+        if (operatorCount == operators.length)
+        {
+            operators = Arrays.copyOf(operators, operators.length * 2);
+        }
+        operators[operatorCount++] = operator;
+    }
+
+    /**
+     * Returns the precedence of an operator on the operator stack, where open parentheses have 
+     * the lowest precedence so that they are never reduced by an operator.
+     * @param operator specifies the operator
+     * @return returns the precedence of the operator
+     */
+    private static int precedence(int operator)
+    {
+        if (operator == NEGATE)
+        {
+            return NEGATE_PRECEDENCE;
+        }
+        if (operator == OPEN_PAREN)
+        {
+            return 0;
+        }
+        return PRECEDENCE[operator];
+    }
+
+    /**
+     * Pops the operator on top of the operator stack along with its operands, and pushes the 
+     * expression applying the operator to the operands onto the operand stack. A binary operator
+     * is popped along with the binary operators of equal precedence right below it, which form
+     * a chain applied from left to right.
+     * @param operatorBase specifies the bottom of the operator stack of the expression being
+     *                     parsed, below which the operators belong to an enclosing expression
+     */
+    private void reduce(int operatorBase)
+    {
+        int operator = operators[operatorCount - 1];
+
+        if (operator == NEGATE)
+        {
+            operatorCount--;
+            operands.add(negate(operands.remove(operands.size() - 1)));
+            return;
+        }
+
+        int first = operatorCount - 1;
+        while (first > operatorBase && operators[first - 1] >= 0
+            && PRECEDENCE[operators[first - 1]] == PRECEDENCE[operator])
+        {
+            first--;
+        }
+        int count = operatorCount - first;
+        List<T> chain = operands.subList(operands.size() - count - 1, operands.size());
+        T exp;
+        if (count < CHAIN_LIMIT)
+        {
+            exp = chain.get(0);
+            for (int i = 0; i < count; i++)
+            {
+                exp = binary(spelling(operators[first + i]), exp, chain.get(i + 1));
+            }
+        }
+        else if (PRECEDENCE[operator] == PRECEDENCE[TokenKind.PLUS.ordinal()])
+        {
+            exp = balanceSum(chain, first, 0, count, false);
+        }
+        else
+        {
+            exp = balanceProduct(chain, first, count);
+        }
+        chain.clear();
+        operands.add(exp);
+        operatorCount = first;
+    }
+
+    /**
+     * Builds a balanced tree adding and subtracting a chain of operands, which has the value of
+     * the chain applied from left to right, since int addition wraps and so is associative. The
+     * operands stay in their order, so they are evaluated in the same order too.
+     * @param chain specifies the operands of the chain
+     * @param first specifies the index on the operator stack of the operator before operand 1
+     * @param start specifies the index of the first operand of the part of the chain to build,
+     *              which is added
+     * @param end specifies the index of the last operand of the part of the chain to build
+     * @param negated specifies whether every operator in the part is the opposite of the one on
+     *                the stack, as in a part built on the right side of a subtraction
+     * @return returns the tree
+     */
+    private T balanceSum(List<T> chain, int first, int start, int end,
+        boolean negated)
+    {
+        if (end - start < CHAIN_LIMIT)
+        {
+            T exp = chain.get(start);
+            for (int i = start + 1; i <= end; i++)
+            {
+                exp = binary(additive(operators[first + i - 1], negated), exp, 
+                    chain.get(i));
+            }
+            return exp;
+        }
+        int middle = (start + end) / 2;
+        int operator = operators[first + middle];
+        // a - (b + c) is a - b - c, so the operators on the right of a subtraction are flipped
+        return binary(additive(operator, negated), 
+            balanceSum(chain, first, start, middle, negated),
+            balanceSum(chain, first, middle + 1, end, operator == TokenKind.MINUS.ordinal()));
+    }
+
+    /**
+     * @param operator specifies the ordinal of PLUS or MINUS
+     * @param negated specifies whether the operator is flipped
+     * @return returns the spelling of the operator, or of the other one if it is flipped
+     */
+    private static String additive(int operator, boolean negated)
+    {
+        boolean minus = operator == TokenKind.MINUS.ordinal();
+        return minus != negated ? "-" : "+";
+    }
+
+    /**
+     * Builds a tree multiplying and dividing a chain of operands, which has the value of the 
+     * chain applied from left to right. Int multiplication wraps and so is associative, so each
+     * run of operands multiplied together is a balanced tree, while the divisions stay in order.
+     * @param chain specifies the operands of the chain
+     * @param first specifies the index on the operator stack of the operator before operand 1
+     * @param count specifies the number of operators in the chain
+     * @return returns the tree
+     */
+    private T balanceProduct(List<T> chain, int first, int count)
+    {
+        int end = timesRun(first, 0, count);
+        T exp = balanceTimes(chain, 0, end);
+        for (int i = end; i < count; i = end)
+        {
+            // operator i divides by operand i + 1, and the run of multiplications after it
+            // multiplies by operands i + 2 to end
+            exp = binary("/", exp, chain.get(i + 1));
+            end = timesRun(first, i + 1, count);
+            if (end > i + 1)
+            {
+                exp = binary("*", exp, balanceTimes(chain, i + 2, end));
+            }
+        }
+        return exp;
+    }
+
+    /**
+     * Finds the end of a run of multiplications in a chain.
+     * @param first specifies the index on the operator stack of the operator before operand 1
+     * @param start specifies the index in the chain of the first operator of the run
+     * @param count specifies the number of operators in the chain
+     * @return returns the index of the first operator after the run which is not a
+     *         multiplication, or count if there is none
+     */
+    private int timesRun(int first, int start, int count)
+    {
+        int end = start;
+        while (end < count && operators[first + end] == TokenKind.TIMES.ordinal())
+        {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Builds a balanced tree multiplying a run of operands.
+     * @param chain specifies the operands of the chain
+     * @param start specifies the index of the first operand of the run
+     * @param end specifies the index of the last operand of the run
+     * @return returns the tree
+     */
+    private T balanceTimes(List<T> chain, int start, int end)
+    {
+        if (end - start < CHAIN_LIMIT)
+        {
+            T exp = chain.get(start);
+            for (int i = start + 1; i <= end; i++)
+            {
+                exp = binary("*", exp, chain.get(i));
+            }
+            return exp;
+        }
+        int middle = (start + end) / 2;
+        return binary("*", balanceTimes(chain, start, middle), 
+            balanceTimes(chain, middle + 1, end));
+    }
+
+    /**
+     * @param operator specifies the ordinal of a binary operator's TokenKind
+     * @return returns the spelling of the operator
+     */
+    private static String spelling(int operator)
+    {
+        return KINDS[operator].spelling();
+    }
+}
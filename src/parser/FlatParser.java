@@ -0,0 +1,256 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.FlatTree;
+import scanner.*;
+
+/**
+ * FlatParser contains methods that parse the input stream of tokens straight into the rows of a
+ * flat tree, without building the abstract syntax tree first. Every node is added to the tree as
+ * soon as its children have been parsed, so the operands on the operand stack are the indexes of
+ * their nodes.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class FlatParser extends ExpressionParser<Integer>
+{
+    private FlatTree tree;
+
+    /**
+     * Constructs a parser object that takes in a scanner object.
+     * @param scanner the scanner that will be used by the parser to parse the input
+     * @throws ScanErrorException if an error occurs while scanning
+     */
+    public FlatParser(Scanner scanner) throws ScanErrorException
+    {
+        super(scanner);
+        tree = new FlatTree();
+    }
+
+    /**
+     * Parses the program as a set of procedures followed by a statement, in the same way as
+     * Parser.parseProgram, and returns the flat tree holding the program.
+     * @return returns the flat tree holding the program
+     * @throws ScanErrorException if an error occurs while scanning
+     */
+    public FlatTree parseProgram() throws ScanErrorException
+    {
+        List<String> variables = new ArrayList<String>();
+        List<Integer> nodes = new ArrayList<Integer>();
+
+        while (currentToken == TokenKind.VAR)
+        {
+            eat(TokenKind.VAR);
+            variables.add(variableName(eatIdentifier()));
+            while (currentToken == TokenKind.COMMA)
+            {
+                eat(TokenKind.COMMA);
+                variables.add(variableName(eatIdentifier()));
+            }
+            eat(TokenKind.SEMICOLON);
+        }
+
+        // the statement comes first in the program's list, so its slot is left for it
+        nodes.add(-1);
+        while (currentToken == TokenKind.PROCEDURE)
+        {
+            eat(TokenKind.PROCEDURE);
+            String name = scanner.symbols().name(eatIdentifier());
+            eat(TokenKind.LEFT_PAREN);
+            List<Integer> list = new ArrayList<Integer>();
+            while (currentToken != TokenKind.RIGHT_PAREN)
+            {
+                list.add(tree.name(variableName(eatIdentifier())));
+                if (currentToken != TokenKind.RIGHT_PAREN)
+                {
+                    eat(TokenKind.COMMA);
+                }
+            }
+            eat(TokenKind.RIGHT_PAREN);
+            eat(TokenKind.SEMICOLON);
+            list.add(0, parseStatement());
+            // a parsed procedure has no local variables besides its arguments
+            list.add(1, tree.addList(new int[0]));
+            nodes.add(tree.addNode(FlatTree.PROCEDURE, 0, tree.name(name), addList(list)));
+        }
+        nodes.set(0, parseStatement());
+
+        List<Integer> names = new ArrayList<Integer>();
+        for (String var : variables)
+        {
+            names.add(tree.name(var));
+        }
+        tree.finish(tree.addNode(FlatTree.PROGRAM, 0, addList(names), addList(nodes)));
+        return tree;
+    }
+
+    /**
+     * Parses a statement in the same way as Parser.parseStatement.
+     * @return returns the index of the statement's node
+     * @throws ScanErrorException if the expected token does not match the current token
+     */
+    private int parseStatement() throws ScanErrorException
+    {
+        int stmt;
+
+        switch (currentToken)
+        {
+            case WRITELN:
+            {
+                eat(TokenKind.WRITELN);
+                eat(TokenKind.LEFT_PAREN);
+                int exp = parseExpr();
+                eat(TokenKind.RIGHT_PAREN);
+                eat(TokenKind.SEMICOLON);
+                stmt = tree.addNode(FlatTree.WRITELN, 0, exp, 0);
+                break;
+            }
+            case BEGIN:
+            {
+                eat(TokenKind.BEGIN);
+
+                List<Integer> stmts = new ArrayList<Integer>();
+                while (currentToken != TokenKind.END)
+                {
+                    stmts.add(parseStatement());
+                }
+
+                eat(TokenKind.END);
+                eat(TokenKind.SEMICOLON);
+
+                stmt = tree.addNode(FlatTree.BLOCK, 0, addList(stmts), 0);
+                break;
+            }
+            case IF:
+            {
+                eat(TokenKind.IF);
+                int condition = parseCondition();
+                eat(TokenKind.THEN);
+                int ifStmt = parseStatement();
+                int elseStmt = -1;
+                if (currentToken == TokenKind.ELSE)
+                {
+                    eat(TokenKind.ELSE);
+                    elseStmt = parseStatement();
+                }
+                stmt = tree.addNode(FlatTree.IF, 0, condition,
+                    tree.addList(new int[]{ifStmt, elseStmt}));
+                break;
+            }
+            case WHILE:
+            {
+                eat(TokenKind.WHILE);
+                int condition = parseCondition();
+                eat(TokenKind.DO);
+                int whileStmt = parseStatement();
+                stmt = tree.addNode(FlatTree.WHILE, 0, condition, whileStmt);
+                break;
+            }
+            default:
+            {
+                int var = tree.name(variableName(eatIdentifier()));
+                eat(TokenKind.ASSIGN);
+                int exp = parseExpr();
+                eat(TokenKind.SEMICOLON);
+
+                stmt = tree.addNode(FlatTree.ASSIGNMENT, 0, var, exp);
+                break;
+            }
+        }
+
+        return stmt;
+    }
+
+    /**
+     * Parses a condition in the same way as Parser.parseCondition.
+     * @return returns the index of the condition's node
+     * @throws ScanErrorException if the expected token does not match the current token
+     */
+    private int parseCondition() throws ScanErrorException
+    {
+        int exp1 = parseExpr();
+        if (!currentToken.isRelational())
+        {
+            throw new IllegalArgumentException(
+                "Expected a relational operator but found " + scanner.lexeme()
+                );
+        }
+        String op = eatOperator();
+        int exp2 = parseExpr();
+        return tree.addNode(FlatTree.CONDITION, tree.operator(op), exp1, exp2);
+    }
+
+    /**
+     * Parses a number, a variable or a procedure call in the same way as Parser.parseFactor.
+     * @return returns the index of the factor's node
+     * @throws ScanErrorException if the expected token does not match the current token
+     */
+    protected Integer parseFactor() throws ScanErrorException
+    {
+        if (currentToken == TokenKind.NUMBER)
+        {
+            int value = scanner.intValue();
+            eat(TokenKind.NUMBER);
+            return tree.addNode(FlatTree.NUMBER, 0, value, 0);
+        }
+
+        int id = eatIdentifier();
+        if (currentToken != TokenKind.LEFT_PAREN)
+        {
+            return tree.addNode(FlatTree.VARIABLE, 0, tree.name(variableName(id)), 0);
+        }
+
+        eat(TokenKind.LEFT_PAREN);
+        List<Integer> args = new ArrayList<Integer>();
+        while (currentToken != TokenKind.RIGHT_PAREN)
+        {
+            args.add(parseExpr());
+            if (currentToken != TokenKind.RIGHT_PAREN)
+            {
+                eat(TokenKind.COMMA);
+            }
+        }
+        eat(TokenKind.RIGHT_PAREN);
+        return tree.addNode(FlatTree.CALL, 0, tree.name(scanner.symbols().name(id)),
+            addList(args));
+    }
+
+    /**
+     * Adds the node applying the operator to the operands.
+     * @param op specifies the spelling of the operator
+     * @param left specifies the index of the left operand's node
+     * @param right specifies the index of the right operand's node
+     * @return returns the index of the node
+     */
+    protected Integer binary(String op, Integer left, Integer right)
+    {
+        return tree.addNode(FlatTree.BINOP, tree.operator(op), left, right);
+    }
+
+    /**
+     * Adds the node negating the operand.
+     * @param operand specifies the index of the operand's node
+     * @return returns the index of the node
+     */
+    protected Integer negate(Integer operand)
+    {
+        return tree.addNode(FlatTree.NEGATE, 0, operand, 0);
+    }
+
+    /**
+     * Adds a list of node or name indexes to the list pool of the tree.
+     * @param elements specifies the elements of the list
+     * @return returns the index of the list
+     */
+    private int addList(List<Integer> elements)
+    {
+        int[] list = new int[elements.size()];
+        for (int i = 0; i < list.length; i++)
+        {
+            list[i] = elements.get(i);
+        }
+        return tree.addList(list);
+    }
+}
@@ -13,12 +13,8 @@ import scanner.*;
  * @author Arjun Dixit
  * @version 3/9/2022
  */
-public class Parser 
+public class Parser extends ExpressionParser<Expression>
 {
-
-    private String currentToken;
-    private Scanner scanner;
-
     /**
      * Constructs a parser object that takes in a scanner object.
      * @param scanner the scanner that will be used by the parser to parse the input
@@ -26,31 +22,9 @@ public class Parser
      */
     public Parser(Scanner scanner) throws ScanErrorException 
     {
-        this.scanner = scanner;
-        currentToken = scanner.nextToken();
+        super(scanner);
     }
 
-    /**
-     * Rakes in a String representing the expected token and compares it to the current token.  
-     * If the two tokens match, the current token is set to the next token in the input stream. 
-     * If the two tokens do not match, an error is thrown.
-     * @param expectedToken specifies the expected token
-     * @throws ScanErrorException if the expected token does not match the current token
-     */
-    private void eat(String expectedToken) throws ScanErrorException
-    {
-        if (currentToken.equals(expectedToken)) 
-        {
-            currentToken = scanner.nextToken();
-        }
-        else 
-        {
-            throw new IllegalArgumentException(
-                "Expected " + expectedToken + " but found " + currentToken
-                );
-        }
-    }
-    
     /**
      * parseNumber is a private method that parses a number token and returns the value 
      * of the number.
@@ -59,8 +33,8 @@ public class Parser
      */
     private Number parseNumber() throws ScanErrorException 
     {
-        Number num = new Number(Integer.parseInt(currentToken));
-        eat(currentToken);
+        Number num = new Number(scanner.intValue());
+        eat(TokenKind.NUMBER);
 
         return num;
     }
@@ -76,38 +50,34 @@ public class Parser
         List<ProcedureDeclaration> procedures = new ArrayList<ProcedureDeclaration>();
         List<String> variables = new ArrayList<String>();
         
-        while(currentToken.equals("VAR"))
+        while(currentToken == TokenKind.VAR)
         {
-            eat("VAR");
-            variables.add(Variable.NAME_PREFIX + currentToken);
-            eat(currentToken);
-            while(currentToken.equals(","))
+            eat(TokenKind.VAR);
+            variables.add(variableName(eatIdentifier()));
+            while(currentToken == TokenKind.COMMA)
             {
-                eat(",");
-                variables.add(Variable.NAME_PREFIX + currentToken);
-                eat(currentToken);
+                eat(TokenKind.COMMA);
+                variables.add(variableName(eatIdentifier()));
             }
-            eat(";");
+            eat(TokenKind.SEMICOLON);
         }
 
-        while(currentToken.equals("PROCEDURE"))
+        while(currentToken == TokenKind.PROCEDURE)
         {
-            eat("PROCEDURE");
-            String name = currentToken;
-            eat(currentToken);
-            eat("(");
+            eat(TokenKind.PROCEDURE);
+            String name = scanner.symbols().name(eatIdentifier());
+            eat(TokenKind.LEFT_PAREN);
             List<String> args = new ArrayList<String>();
-            while(!currentToken.equals(")"))
+            while(currentToken != TokenKind.RIGHT_PAREN)
             {
-                args.add(Variable.NAME_PREFIX + currentToken);
-                eat(currentToken);
-                if(!currentToken.equals(")"))
+                args.add(variableName(eatIdentifier()));
+                if(currentToken != TokenKind.RIGHT_PAREN)
                 {
-                    eat(",");
+                    eat(TokenKind.COMMA);
                 }
             }
-            eat(")");
-            eat(";");
+            eat(TokenKind.RIGHT_PAREN);
+            eat(TokenKind.SEMICOLON);
             procedures.add(new ProcedureDeclaration(name, args, parseStatement()));
         }
 
@@ -123,64 +93,71 @@ public class Parser
     {
         Statement stmt;
 
-        if(currentToken.equals("WRITELN")) 
+        switch (currentToken)
         {
-            eat("WRITELN");
-            eat("(");
-            Expression exp = parseExpr();
-            eat(")");
-            eat(";");
-            stmt = new Writeln(exp);
-        }
-        else if(currentToken.equals("BEGIN"))
-        {
-            eat("BEGIN");
-
-            List<Statement> stmts = new ArrayList<Statement>();
-            while(!currentToken.equals("END"))
+            case WRITELN:
             {
-                stmts.add(parseStatement());
+                eat(TokenKind.WRITELN);
+                eat(TokenKind.LEFT_PAREN);
+                Expression exp = parseExpr();
+                eat(TokenKind.RIGHT_PAREN);
+                eat(TokenKind.SEMICOLON);
+                stmt = new Writeln(exp);
+                break;
             }
+            case BEGIN:
+            {
+                eat(TokenKind.BEGIN);
 
-            eat("END");
-            eat(";");
+                List<Statement> stmts = new ArrayList<Statement>();
+                while(currentToken != TokenKind.END)
+                {
+                    stmts.add(parseStatement());
+                }
 
-            stmt = new Block(stmts);
-        }
-        else if(currentToken.equals("IF")) 
-        {
-            eat("IF");
-            Condition condition = parseCondition();
-            eat("THEN");
-            Statement ifStmt = parseStatement();
-            if(currentToken.equals("ELSE")) 
+                eat(TokenKind.END);
+                eat(TokenKind.SEMICOLON);
+
+                stmt = new Block(stmts);
+                break;
+            }
+            case IF:
             {
-                eat("ELSE");
-                Statement elseStmt = parseStatement();
-                stmt = new If(condition, ifStmt, elseStmt);
+                eat(TokenKind.IF);
+                Condition condition = parseCondition();
+                eat(TokenKind.THEN);
+                Statement ifStmt = parseStatement();
+                if(currentToken == TokenKind.ELSE) 
+                {
+                    eat(TokenKind.ELSE);
+                    Statement elseStmt = parseStatement();
+                    stmt = new If(condition, ifStmt, elseStmt);
+                }
+                else 
+                {
+                    stmt = new If(condition, ifStmt);
+                }
+                break;
             }
-            else 
+            case WHILE:
             {
-                stmt = new If(condition, ifStmt);
+                eat(TokenKind.WHILE);
+                Condition condition = parseCondition();
+                eat(TokenKind.DO);
+                Statement whileStmt = parseStatement();
+                stmt = new While(condition, whileStmt);
+                break;
             }
-        }
-        else if(currentToken.equals("WHILE"))
-        {
-            eat("WHILE");
-            Condition condition = parseCondition();
-            eat("DO");
-            Statement whileStmt = parseStatement();
-            stmt = new While(condition, whileStmt);
-        }
-        else
-        {
-            String varName = Variable.NAME_PREFIX + currentToken;
-            eat(currentToken);
-            eat(":=");
-            Expression exp = parseExpr();
-            eat(";");
+            default:
+            {
+                String varName = variableName(eatIdentifier());
+                eat(TokenKind.ASSIGN);
+                Expression exp = parseExpr();
+                eat(TokenKind.SEMICOLON);
 
-            stmt = new Assignment(varName, exp);
+                stmt = new Assignment(varName, exp);
+                break;
+            }
         }
 
         return stmt;
@@ -194,60 +171,54 @@ public class Parser
     private Condition parseCondition() throws ScanErrorException 
     {
         Expression exp1 = parseExpr();
-        String op = currentToken;
-        eat(currentToken);
+        if (!currentToken.isRelational())
+        {
+            throw new IllegalArgumentException(
+                "Expected a relational operator but found " + scanner.lexeme()
+                );
+        }
+        String op = eatOperator();
         Expression exp2 = parseExpr();
-        return new Condition(op, exp1, exp2);
+        return Condition.create(op, exp1, exp2);
     }
 
     /**
-     * parseFactor is a private method that parses a factor and returns the factor.
+     * parseFactor is a method that parses a factor that is not parenthesized or negated,
+     * i.e., a number, a variable or a procedure call, and returns the factor.
      * @return returns the factor as an Expression
      * @throws ScanErrorException if the expected token does not match the current token
      */
-    private Expression parseFactor() throws ScanErrorException 
+    protected Expression parseFactor() throws ScanErrorException 
     {
         Expression num;
 
-        if (currentToken.equals("(")) 
-        {
-            eat("(");
-            num = parseExpr();
-            eat(")");
-        } 
-        else if (currentToken.equals("-")) 
-        {
-            eat("-");
-            num = new BinOp("*", new Number(-1), parseTerm());
-        }
-        else if (Scanner.isDigit(currentToken.charAt(0)))
+        if (currentToken == TokenKind.NUMBER)
         {
             num = parseNumber();
         }
-        else 
+        else
         {
-            String id = currentToken;
-            eat(currentToken);
+            int id = eatIdentifier();
 
-            if (currentToken.equals("(")) 
+            if (currentToken == TokenKind.LEFT_PAREN) 
             {
-                eat("(");
+                eat(TokenKind.LEFT_PAREN);
                 List<Expression> args = new ArrayList<Expression>();
-                while (!currentToken.equals(")")) 
+                while (currentToken != TokenKind.RIGHT_PAREN) 
                 {
                     args.add(parseExpr());
-                    if (!currentToken.equals(")")) 
+                    if (currentToken != TokenKind.RIGHT_PAREN) 
                     {
-                        eat(",");
+                        eat(TokenKind.COMMA);
                     }
                 }
-                eat(")");
+                eat(TokenKind.RIGHT_PAREN);
 
-                num = new ProcedureCall(id, args);
+                num = new ProcedureCall(scanner.symbols().name(id), args);
             } 
             else
             {
-                num = new Variable(Variable.NAME_PREFIX + id);
+                num = new Variable(variableName(id));
             }
         }
 
@@ -255,44 +226,24 @@ public class Parser
     }
 
     /**
-     * parseTerm is a private method that parses a term and returns the term.
-     * @return returns the term as an Expression
-     * @throws ScanErrorException if the expected token does not match the current token
+     * Builds the binary operation applying the operator to the operands.
+     * @param op specifies the spelling of the operator
+     * @param left specifies the left operand
+     * @param right specifies the right operand
+     * @return returns the binary operation
      */
-    private Expression parseTerm() throws ScanErrorException
+    protected Expression binary(String op, Expression left, Expression right)
     {
-        Expression exp = parseFactor();
-        String op;
-
-        while (currentToken.equals("*") || currentToken.equals("/")) 
-        {
-            op = currentToken;
-            eat(currentToken);
-            exp = new BinOp(op, exp, parseFactor());
-        }
-
-        return exp;
+        return BinOp.create(op, left, right);
     }
 
     /**
-     * parseExpr is a private method that parses an expression and returns the value of
-     * the expression. An expression is defined by a term potentially followed by a sequence
-     * of added or subtracted terms.
-     * @return returns the value of the expression
-     * @throws ScanErrorException if the expected token does not match the current token
+     * Builds the negation of the operand.
+     * @param operand specifies the operand
+     * @return returns the negation
      */
-    private Expression parseExpr() throws ScanErrorException
+    protected Expression negate(Expression operand)
     {
-        Expression exp = parseTerm();
-        String op;
-
-        while (currentToken.equals("+") || currentToken.equals("-")) 
-        {
-            op = currentToken;
-            eat(currentToken);
-            exp = new BinOp(op, exp, parseTerm());
-        }
-
-        return exp;
+        return new Negate(operand);
     }
 }
@@ -1,8 +1,15 @@
 package scanner;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Scanner is a simple scanner for Compilers and Interpreters (2014-2015) lab exercise 1. 
@@ -11,8 +18,12 @@ import java.util.List;
  * @version 2/1/2022
  *  
  * Usage:
- * - scan in the input character sequence using an InputStream or String provided to the constructor
- * - use nextToken to retrieve the value of the next token in the input stream
+ * - scan in the input character sequence using an InputStream, String or Path provided to the 
+ *   constructor
+ * - use next to retrieve the kind of the next token in the input stream; the characters of the
+ *   token are found in tokenBuffer between tokenStart and tokenEnd, and lexeme or intValue
+ *   materialize its value on request
+ * - use nextToken to retrieve the value of the next token in the input stream as a String
  * - use hasNext to determine if another token exists in the input stream
  */
 public class Scanner
@@ -24,11 +35,80 @@ public class Scanner
         "(", ")"
     };
 
-    private BufferedReader in;
+    private static final int BUFFER_SIZE = 16384;
+
+    // character classes stored as bit flags in CHAR_CLASSES
+    private static final byte WHITE_SPACE = 1;
+    private static final byte DIGIT = 2;
+    private static final byte LETTER = 4;
+
+    /**
+     * Class of every ASCII character as a combination of the flags above; characters outside
+     * of the table have no class.
+     */
+    private static final byte[] CHAR_CLASSES = initCharClasses();
+
+    /**
+     * Transition table of the DFA recognizing VALID_OPERANDS, indexed by state and then by ASCII
+     * character; 0 (the start state) marks a missing transition.
+     */
+    private static final int[][] OPERAND_TRANSITIONS;
+
+    /**
+     * Token kind accepted in each state of the operand DFA, or null if the state does not accept.
+     */
+    private static final TokenKind[] OPERAND_ACCEPTS;
+
+    static
+    {
+        int maxStates = 1;
+        for (String operand : VALID_OPERANDS)
+        {
+            maxStates += operand.length();
+        }
+
+        int[][] transitions = new int[maxStates][];
+        TokenKind[] accepts = new TokenKind[maxStates];
+        int states = 1;
+        transitions[0] = new int[128];
+
+        for (int i = 0; i < VALID_OPERANDS.length; i++)
+        {
+            String operand = VALID_OPERANDS[i];
+            int state = 0;
+            for (int c = 0; c < operand.length(); c++)
+            {
+                int next = transitions[state][operand.charAt(c)];
+                if (next == 0)
+                {
+                    next = states++;
+                    transitions[next] = new int[128];
+                    transitions[state][operand.charAt(c)] = next;
+                }
+                state = next;
+            }
+            accepts[state] = TokenKind.operand(i);
+        }
+
+        OPERAND_TRANSITIONS = transitions;
+        OPERAND_ACCEPTS = accepts;
+    }
+
+    private Reader in;
+    private ByteBuffer mapped;
+    private CharsetDecoder decoder;
     private char currentChar;
     private boolean eof;
-    private List<String> validSingles;
-    private List<String> validDoubleInits;
+
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private int tokenStart;
+    private int tokenEnd;
+    private TokenKind tokenKind;
+    private int tokenSymbol;
+    private SymbolTable symbols;
+    private boolean skipLine;
 
     /**
      * Scanner constructor for construction of a scanner that 
@@ -40,10 +120,7 @@ public class Scanner
      */
     public Scanner(InputStream inStream)
     {
-        in = new BufferedReader(new InputStreamReader(inStream));
-        eof = false;
-        getNextChar();
-        initOperandHelpers();
+        this(new InputStreamReader(inStream));
     }
     
     /**
@@ -55,89 +132,231 @@ public class Scanner
      */
     public Scanner(String inString)
     {
-        in = new BufferedReader(new StringReader(inString));
+        this(new StringReader(inString));
+    }
+
+    /**
+     * Scanner constructor for constructing a scanner that scans the file at the given path.
+     * The file is memory-mapped and ASCII characters are copied straight from the mapped bytes
+     * into the scanner's buffer; once a non-ASCII byte is found, the rest of the file is decoded
+     * with the platform's default charset, like the InputStream constructor does.
+     * Usage: Scanner lex = new Scanner(Paths.get(<file name>));
+     * @param path the path of the file to scan
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public Scanner(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        init();
+    }
+
+    /**
+     * Scanner constructor shared by the InputStream and String constructors, which reads 
+     * characters from the given reader in blocks into the scanner's buffer.
+     * @param reader the reader to scan
+     */
+    private Scanner(Reader reader)
+    {
+        in = reader;
+        init();
+    }
+
+    /**
+     * Sets up the buffer and reads the first character of the input into currentChar.
+     */
+    private void init()
+    {
+        buffer = new char[BUFFER_SIZE];
+        symbols = new SymbolTable();
+        position = -1;
+        limit = 0;
+        tokenStart = -1;
         eof = false;
         getNextChar();
-        initOperandHelpers();
     }
 
     /**
      * Reads in the next token in the input stream by sequentially reading characters using the 
      * following protocol:
-     * - skip whitespaces
+     * - skip whitespaces and comments
      * - for all other characters, categorize upcoming token and read in the token accordingly
-     * @return returns the next token in the sequence of tokens; if the end-of-file is reached, 
-     *         returns "EOD"
-     * @throws ScanErrorException if an error occurs while scanning in the input stream of 
+     * The characters of the token are left in the buffer returned by tokenBuffer, between
+     * tokenStart (inclusive) and tokenEnd (exclusive); the buffer is reused, so the offsets are
+     * only valid until the next call to next.
+     * @return returns the kind of the next token in the sequence of tokens; if the end-of-file
+     *         is reached, returns EOF
+     * @throws ScanErrorException if an error occurs while scanning in the input stream of
      *         characters
      */
-    public String nextToken() throws ScanErrorException 
+    public TokenKind next() throws ScanErrorException
     {
-        String token;
-        String eofToken = "END";
-
-        if(eof) 
+        if (skipLine)
         {
-            token = eofToken;
+            skipToEndOfLine();
+            skipLine = false;
         }
-        else 
+        tokenStart = -1;
+
+        // a comment is skipped like whitespace, in a loop, so that no run of comments is too long
+        boolean divide = false;
+        while (true)
         {
-            while(isWhiteSpace(currentChar)) 
+            while (!eof && isWhiteSpace(currentChar))
             {
                 eat(currentChar);
             }
-
-            if(isDigit(currentChar)) 
-            {
-                token = scanNumber();
-            }
-            else if(isLetter(currentChar)) 
-            {
-                token = scanIdentifier();
-            }
-            else if(currentChar == '/')
-            {
-                getNextChar();
-                if(currentChar == '/') 
-                {
-                    while(currentChar != '\n') 
-                    {
-                        getNextChar();
-                    }
-                    token = null;
-                }
-                else 
-                {
-                    return "/";
-                }
-            }
-            else if(currentChar == '.') 
+            tokenStart = position;
+            if (eof || currentChar != '/')
             {
-                token = eofToken;
-                eof = true;
+                break;
             }
-            else if(currentChar == ';') 
-            {
-                while(currentChar != '\n') 
-                {
-                    getNextChar();
-                }
-                token = ";";
-            }
-            else if(currentChar == ',')
-            {
-                eat(currentChar);
-                token = ",";
-            }
-            else 
+            getNextChar();
+            if (eof || currentChar != '/')
             {
-                token = scanOperand();
+                divide = true;
+                break;
             }
+            skipToEndOfLine();
         }
 
-        // System.out.println(token);
+        if (divide)
+        {
+            tokenKind = TokenKind.DIVIDE;
+        }
+        else if (eof)
+        {
+            tokenKind = TokenKind.EOF;
+        }
+        else if (isDigit(currentChar))
+        {
+            tokenKind = scanNumber();
+        }
+        else if (isLetter(currentChar))
+        {
+            tokenKind = scanIdentifier();
+        }
+        else if (currentChar == '.')
+        {
+            tokenKind = TokenKind.EOF;
+            eof = true;
+        }
+        else if (currentChar == ';')
+        {
+            eat(currentChar);
+            skipLine = true;
+            tokenKind = TokenKind.SEMICOLON;
+        }
+        else if (currentChar == ',')
+        {
+            eat(currentChar);
+            tokenKind = TokenKind.COMMA;
+        }
+        else
+        {
+            tokenKind = scanOperand();
+        }
+
+        tokenEnd = tokenKind == TokenKind.EOF ? tokenStart : position;
+        return tokenKind;
+    }
+
+    /**
+     * Reads in the next token in the input stream and returns it as a String.
+     * @return returns the next token in the sequence of tokens; if the end-of-file is reached, 
+     *         returns "END"
+     * @throws ScanErrorException if an error occurs while scanning in the input stream of 
+     *         characters
+     */
+    public String nextToken() throws ScanErrorException 
+    {
+        next();
+        return lexeme();
+    }
+
+    /**
+     * @return returns the buffer holding the characters of the current token
+     */
+    public char[] tokenBuffer()
+    {
+        return buffer;
+    }
 
-        return token;
+    /**
+     * @return returns the offset of the first character of the current token in tokenBuffer
+     */
+    public int tokenStart()
+    {
+        return tokenStart;
+    }
+
+    /**
+     * @return returns the offset after the last character of the current token in tokenBuffer
+     */
+    public int tokenEnd()
+    {
+        return tokenEnd;
+    }
+
+    /**
+     * Materializes the current token as a String. Tokens other than identifiers and numbers
+     * have a fixed spelling, so no new String is created for them.
+     * @return returns the text of the current token
+     */
+    public String lexeme()
+    {
+        if (tokenKind == TokenKind.IDENTIFIER)
+        {
+            return symbols.name(tokenSymbol);
+        }
+        if (tokenKind == TokenKind.NUMBER)
+        {
+            return new String(buffer, tokenStart, tokenEnd - tokenStart);
+        }
+        return tokenKind.spelling();
+    }
+
+    /**
+     * @return returns the symbol id of the current identifier token in the symbol table
+     */
+    public int symbol()
+    {
+        return tokenSymbol;
+    }
+
+    /**
+     * @return returns the table of the symbols read so far by the scanner
+     */
+    public SymbolTable symbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * Computes the value of the current number token directly from the token buffer.
+     * @return returns the value of the current number token
+     * @throws NumberFormatException if the current token is not a number or does not fit in
+     *         an int
+     */
+    public int intValue()
+    {
+        if (tokenKind != TokenKind.NUMBER)
+        {
+            throw new NumberFormatException("Expected a number but found " + lexeme());
+        }
+
+        long value = 0;
+        for (int i = tokenStart; i < tokenEnd; i++)
+        {
+            value = value * 10 + (buffer[i] - '0');
+            if (value > Integer.MAX_VALUE)
+            {
+                throw new NumberFormatException("Number out of range: " + lexeme());
+            }
+        }
+        return (int) value;
     }
 
     /**
@@ -149,19 +368,57 @@ public class Scanner
      */
     private void getNextChar() 
     {
-        int curCharInt;
+        position++;
 
-        try 
+        if (position >= limit && !fill())
         {
-            curCharInt = in.read();
+            eof = true;
+            currentChar = '\0';
+        }
+        else
+        {
+            currentChar = buffer[position];
+        }
+    }
 
-            if (curCharInt == -1) 
+    /**
+     * Reads the next block of characters into the buffer. The characters of the token being
+     * scanned are moved to the front of the buffer first, and the buffer is doubled if the token
+     * fills all of it.
+     * @return returns true if characters were read; false if the end of the input was reached
+     */
+    private boolean fill()
+    {
+        int keep = tokenStart >= 0 && tokenStart < position ? tokenStart : position;
+
+        if (keep > 0)
+        {
+            System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+            limit -= keep;
+            position -= keep;
+            if (tokenStart >= 0)
             {
-                eof = true;
+                tokenStart -= keep;
             }
-            else 
+        }
+
+        if (limit == buffer.length)
+        {
+            grow();
+        }
+
+        if (mapped != null)
+        {
+            return decoder == null ? fillAscii() : fillDecoded();
+        }
+
+        try 
+        {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read > 0)
             {
-                currentChar = (char) curCharInt;
+                limit += read;
+                return true;
             }
         } 
         catch (IOException e) 
@@ -169,8 +426,85 @@ public class Scanner
             System.out.println(e);
             System.exit(1);
         }
+        return false;
     } 
 
+    /**
+     * Copies ASCII bytes from the mapped file into the free part of the buffer, stopping at the
+     * first non-ASCII byte, from which point on the file is decoded by fillDecoded.
+     * @return returns true if characters were read; false if the end of the input was reached
+     */
+    private boolean fillAscii()
+    {
+        int start = mapped.position();
+        int count = Math.min(buffer.length - limit, mapped.remaining());
+        int i = 0;
+
+        while (i < count)
+        {
+            byte b = mapped.get(start + i);
+            if (b < 0)
+            {
+                break;
+            }
+            buffer[limit + i] = (char) b;
+            i++;
+        }
+
+        mapped.position(start + i);
+        limit += i;
+
+        if (i < count)
+        {
+            decoder = Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            if (i == 0)
+            {
+                return fillDecoded();
+            }
+        }
+        return i > 0;
+    }
+
+    /**
+     * Doubles the size of the buffer, keeping its characters.
+     */
+    private void grow()
+    {
+        char[] newBuffer = new char[buffer.length * 2];
+        System.arraycopy(buffer, 0, newBuffer, 0, limit);
+        buffer = newBuffer;
+    }
+
+    /**
+     * Decodes bytes from the mapped file into the free part of the buffer. If the next character
+     * is a surrogate pair and only one slot is free, the buffer is grown and decoding retried.
+     * @return returns true if characters were read; false if the end of the input was reached
+     */
+    private boolean fillDecoded()
+    {
+        while (true)
+        {
+            CharBuffer out = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+            CoderResult result = decoder.decode(mapped, out, true);
+
+            if (result.isUnderflow())
+            {
+                decoder.flush(out);
+                decoder.reset();
+            }
+
+            int read = out.position() - limit;
+            limit = out.position();
+            if (read > 0 || !result.isOverflow())
+            {
+                return read > 0;
+            }
+            grow();
+        }
+    }
+
     /**
      * @return returns true if the input contains a next token; false otherwise.
      */
@@ -199,6 +533,17 @@ public class Scanner
         }
     }
 
+    /**
+     * Skips the remaining characters of the current line.
+     */
+    private void skipToEndOfLine()
+    {
+        while (!eof && currentChar != '\n')
+        {
+            getNextChar();
+        }
+    }
+
     /**
      * Checks if curChar is a digit, where a digit is defined by the set of characters from 0-9
      * @param curChar specifies the current character to check if it is a digit
@@ -206,7 +551,7 @@ public class Scanner
      */
     public static boolean isDigit(char curChar) 
     {
-        return curChar >= '0' && curChar <= '9';
+        return hasClass(curChar, DIGIT);
     }
 
     /**
@@ -217,7 +562,7 @@ public class Scanner
      */
     public static boolean isLetter(char curChar) 
     {
-        return (curChar >= 'a' && curChar <= 'z') || (curChar >= 'A' && curChar <= 'Z');
+        return hasClass(curChar, LETTER);
     }
 
     /**
@@ -228,27 +573,59 @@ public class Scanner
      */
     public static boolean isWhiteSpace(char curChar) 
     {
-        return " \t\r\n".contains(String.valueOf(curChar));
+        return hasClass(curChar, WHITE_SPACE);
+    }
+
+    /**
+     * Looks up whether curChar belongs to any of the given character classes.
+     * @param curChar specifies the character to look up
+     * @param classes specifies the character class flags to check
+     * @return returns true if curChar belongs to one of the classes; false otherwise
+     */
+    private static boolean hasClass(char curChar, int classes)
+    {
+        return curChar < CHAR_CLASSES.length && (CHAR_CLASSES[curChar] & classes) != 0;
+    }
+
+    /**
+     * Builds the character class table used by isDigit, isLetter and isWhiteSpace.
+     * @return returns the class of every ASCII character
+     */
+    private static byte[] initCharClasses()
+    {
+        byte[] classes = new byte[128];
+        for (char c : " \t\r\n".toCharArray())
+        {
+            classes[c] = WHITE_SPACE;
+        }
+        for (char c = '0'; c <= '9'; c++)
+        {
+            classes[c] = DIGIT;
+        }
+        for (char c = 'a'; c <= 'z'; c++)
+        {
+            classes[c] = LETTER;
+            classes[Character.toUpperCase(c)] = LETTER;
+        }
+        return classes;
     }
 
     /**
      * Scans the input for a number using the following regular expression string: digit(digit)*
      * where a digit is defined by the set of characters from 0-9
-     * @return the scanned number
+     * @return returns NUMBER
      * @throws ScanErrorException if an error occurs while scanning the input
      */
-    private String scanNumber() throws ScanErrorException 
+    private TokenKind scanNumber() throws ScanErrorException
     {
-        String curToken = "" + currentChar;
         eat(currentChar);
 
         while(isDigit(currentChar)) 
         {
-            curToken += currentChar;
             eat(currentChar);
         }
 
-        return curToken;
+        return TokenKind.NUMBER;
     }
 
     /**
@@ -256,91 +633,51 @@ public class Scanner
      * letter (letter | digit)*
      * where a letter is defined by the set of letters from a-z or A-Z
      * and a digit is defined by the regex of [0-9]
-     * @return the scanned identifier
+     * The identifier is interned in the symbol table, and identifiers spelled like a keyword 
+     * are returned as that keyword's kind.
+     * @return returns IDENTIFIER or the kind of the keyword
      * @throws ScanErrorException if an error occurs while scanning the input
      */
-    private String scanIdentifier() throws ScanErrorException 
+    private TokenKind scanIdentifier() throws ScanErrorException
     {
-        String curToken = "" + currentChar;
         eat(currentChar);
 
-        while(isDigit(currentChar) || isLetter(currentChar)) 
+        while(hasClass(currentChar, LETTER | DIGIT)) 
         {
-            curToken += currentChar;
             eat(currentChar);
         }
 
-        return curToken;
+        tokenSymbol = symbols.intern(buffer, tokenStart, position - tokenStart);
+
+        return tokenSymbol < SymbolTable.KEYWORDS.length ? TokenKind.keyword(tokenSymbol) 
+            : TokenKind.IDENTIFIER;
     }
 
     /**
-     * Scans the input for one of the following operands:
+     * Scans the input for one of the following operands by running the operand DFA, taking the
+     * longest operand that matches:
      *  ":=", 
-     *  "<>", ">=", "<=", "=", 
+     *  "<>", ">=", "<=", "=", "<", ">",
      *  "+", "-", "*", "/", "%", 
      *  "(", ")"
-     * @return the scanned operand
+     * @return returns the kind of the scanned operand
      * @throws ScanErrorException if the currentChar does not match the regex or if an error 
      * occurs while scanning the input
      */
-    private String scanOperand() throws ScanErrorException 
+    private TokenKind scanOperand() throws ScanErrorException
     {
-        String curToken = String.valueOf(currentChar);
-        String initToken = curToken;
+        int state = 0;
 
-        if(validDoubleInits.contains(String.valueOf(currentChar))) 
+        while (!eof && currentChar < 128 && OPERAND_TRANSITIONS[state][currentChar] != 0)
         {
+            state = OPERAND_TRANSITIONS[state][currentChar];
             eat(currentChar);
-            curToken += currentChar;
-            for (String op : VALID_OPERANDS) 
-            {
-                if(op.equals(curToken)) 
-                {
-                    eat(currentChar);
-                    return curToken;
-                }
-            }
         }
         
-        if(validSingles.contains(initToken)) 
-        {
-            if(validDoubleInits.contains(String.valueOf(initToken))) 
-            {
-                return initToken;
-            }
-            else
-            {
-                eat(currentChar);
-                return curToken;
-            }
-        }
-        else 
+        if (OPERAND_ACCEPTS[state] == null)
         {
             throw new ScanErrorException("No lexeme recognized.");
         }
-    }
-
-    /**
-     * Initializes the validSingles and validDoubleInits used to scan operands
-     * in the scanOperands method
-     */
-    private void initOperandHelpers() 
-    {
-        validSingles = new ArrayList<String>();
-        validDoubleInits = new ArrayList<String>();
-        for(String operand : VALID_OPERANDS)
-        {
-            if(operand.length() == 1) 
-            {
-                validSingles.add(operand);
-            }
-            if(operand.length() == 2)
-            {
-                if(!validDoubleInits.contains(String.valueOf(operand.charAt(1))))
-                {
-                    validDoubleInits.add(String.valueOf(operand.charAt(0)));
-                }
-            }
-        }
+        return OPERAND_ACCEPTS[state];
     }
 }
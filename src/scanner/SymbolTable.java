@@ -0,0 +1,212 @@
+package scanner;
+
+import java.util.Arrays;
+
+/**
+ * SymbolTable interns the identifiers read by the Scanner, so that every distinct identifier is 
+ * stored as a String once and is known by a stable symbol id afterwards.
+ * The keywords of the language are pre-seeded as the first symbols, in the order of KEYWORDS, 
+ * and are found through a perfect hash on their first and last characters and length.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class SymbolTable 
+{
+    /**
+     * The keywords of the language; the symbol id of each keyword is its index.
+     */
+    public static final String[] KEYWORDS = new String[]{
+        "VAR", "PROCEDURE", "BEGIN", "END", "WRITELN", "IF", "THEN", "ELSE", "WHILE", "DO"
+    };
+
+    private static final int KEYWORD_HASH_SIZE = 16;
+    private static final int[] KEYWORD_HASH_TABLE = initKeywordHashTable();
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] names;
+    private int[] hashes;
+    private int[] slots;
+    private int size;
+
+    /**
+     * Creates a symbol table holding only the keywords.
+     */
+    public SymbolTable()
+    {
+        names = new String[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY * 2];
+        size = 0;
+
+        for (String keyword : KEYWORDS)
+        {
+            names[size] = keyword;
+            hashes[size] = hash(keyword.toCharArray(), 0, keyword.length());
+            size++;
+        }
+    }
+
+    /**
+     * Finds the symbol spelled by the given range of characters, adding it to the table if it 
+     * has not been seen before.
+     * @param chars specifies the array holding the characters
+     * @param start specifies the offset of the first character
+     * @param length specifies the number of characters
+     * @return returns the symbol id; ids below KEYWORDS.length are keywords
+     */
+    public int intern(char[] chars, int start, int length)
+    {
+        int keyword = KEYWORD_HASH_TABLE[keywordHash(chars[start], chars[start + length - 1], 
+            length)];
+        if (keyword >= 0 && matches(KEYWORDS[keyword], chars, start, length))
+        {
+            return keyword;
+        }
+
+        int hash = hash(chars, start, length);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+
+        while (slots[slot] != 0)
+        {
+            int symbol = slots[slot] - 1;
+            if (hashes[symbol] == hash && matches(names[symbol], chars, start, length))
+            {
+                return symbol;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == names.length)
+        {
+            grow();
+            return intern(chars, start, length);
+        }
+
+        names[size] = new String(chars, start, length);
+        hashes[size] = hash;
+        slots[slot] = size + 1;
+        return size++;
+    }
+
+    /**
+     * @param symbol specifies the symbol id
+     * @return returns the name of the symbol
+     */
+    public String name(int symbol)
+    {
+        return names[symbol];
+    }
+
+    /**
+     * @return returns the number of symbols in the table, including the keywords
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Doubles the capacity of the table and rehashes the interned identifiers. The keywords
+     * are never stored in the slots, since they are found through the perfect hash.
+     */
+    private void grow()
+    {
+        String[] newNames = new String[names.length * 2];
+        int[] newHashes = new int[names.length * 2];
+        System.arraycopy(names, 0, newNames, 0, size);
+        System.arraycopy(hashes, 0, newHashes, 0, size);
+        names = newNames;
+        hashes = newHashes;
+
+        slots = new int[names.length * 2];
+        int mask = slots.length - 1;
+        for (int symbol = KEYWORDS.length; symbol < size; symbol++)
+        {
+            int slot = hashes[symbol] & mask;
+            while (slots[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = symbol + 1;
+        }
+    }
+
+    /**
+     * Checks whether the given name is spelled by the given range of characters.
+     * @param name specifies the name to compare with
+     * @param chars specifies the array holding the characters
+     * @param start specifies the offset of the first character
+     * @param length specifies the number of characters
+     * @return returns true if the spelling matches; false otherwise
+     */
+    private static boolean matches(String name, char[] chars, int start, int length)
+    {
+        if (name.length() != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (name.charAt(i) != chars[start + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the given range of characters.
+     * @param chars specifies the array holding the characters
+     * @param start specifies the offset of the first character
+     * @param length specifies the number of characters
+     * @return returns the hash of the characters
+     */
+    private static int hash(char[] chars, int start, int length)
+    {
+        int hash = 0;
+        for (int i = start; i < start + length; i++)
+        {
+            hash = 31 * hash + chars[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Perfect hash of the keywords, which maps every keyword to a different entry of 
+     * KEYWORD_HASH_TABLE.
+     * @param first specifies the first character of the word
+     * @param last specifies the last character of the word
+     * @param length specifies the length of the word
+     * @return returns the index in KEYWORD_HASH_TABLE
+     */
+    private static int keywordHash(char first, char last, int length)
+    {
+        return (2 * first + 6 * last + length) & (KEYWORD_HASH_SIZE - 1);
+    }
+
+    /**
+     * Builds the table mapping the perfect hash of each keyword to its index in KEYWORDS.
+     * @return returns the keyword hash table, with -1 for unused entries
+     * @throws IllegalStateException if two keywords share a hash
+     */
+    private static int[] initKeywordHashTable()
+    {
+        int[] table = new int[KEYWORD_HASH_SIZE];
+        Arrays.fill(table, -1);
+
+        for (int k = 0; k < KEYWORDS.length; k++)
+        {
+            String keyword = KEYWORDS[k];
+            int h = keywordHash(keyword.charAt(0), keyword.charAt(keyword.length() - 1), 
+                keyword.length());
+            if (table[h] >= 0)
+            {
+                throw new IllegalStateException("Keyword hash collision: " + keyword);
+            }
+            table[h] = k;
+        }
+        return table;
+    }
+}
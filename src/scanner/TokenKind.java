@@ -0,0 +1,105 @@
+package scanner;
+
+/**
+ * TokenKind lists the kinds of tokens returned by the Scanner. Every kind carries its spelling
+ * and whether it is a relational operator, so that the Parser can dispatch on the kind alone.
+ * The value of identifier and number tokens is read from the Scanner through symbol and
+ * intValue.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public enum TokenKind 
+{
+    EOF("END"),
+    IDENTIFIER("identifier"),
+    NUMBER("number"),
+
+    // operands, in the order of Scanner.VALID_OPERANDS
+    ASSIGN(":="),
+    NOT_EQUAL("<>", true),
+    GREATER_EQUAL(">=", true),
+    LESS_EQUAL("<=", true),
+    EQUAL("=", true),
+    LESS("<", true),
+    GREATER(">", true),
+    PLUS("+"),
+    MINUS("-"),
+    TIMES("*"),
+    DIVIDE("/"),
+    MOD("%"),
+    LEFT_PAREN("("),
+    RIGHT_PAREN(")"),
+    SEMICOLON(";"),
+    COMMA(","),
+
+    // keywords, in the order of SymbolTable.KEYWORDS
+    VAR("VAR"),
+    PROCEDURE("PROCEDURE"),
+    BEGIN("BEGIN"),
+    END("END"),
+    WRITELN("WRITELN"),
+    IF("IF"),
+    THEN("THEN"),
+    ELSE("ELSE"),
+    WHILE("WHILE"),
+    DO("DO");
+
+    private static final TokenKind[] VALUES = values();
+
+    private final String spelling;
+    private final boolean relational;
+
+    /**
+     * Creates a token kind that is not an operator.
+     * @param spelling specifies the spelling of the token kind
+     */
+    TokenKind(String spelling)
+    {
+        this(spelling, false);
+    }
+
+    /**
+     * Creates a token kind.
+     * @param spelling specifies the spelling of the token kind
+     * @param relational specifies whether the token kind is a relational operator
+     */
+    TokenKind(String spelling, boolean relational)
+    {
+        this.spelling = spelling;
+        this.relational = relational;
+    }
+
+    /**
+     * @return returns the spelling of the token kind
+     */
+    public String spelling()
+    {
+        return spelling;
+    }
+
+    /**
+     * @return returns true if the token kind is a relational operator; false otherwise
+     */
+    public boolean isRelational()
+    {
+        return relational;
+    }
+
+    /**
+     * @param index specifies the index of an operand in Scanner.VALID_OPERANDS
+     * @return returns the kind of the operand
+     */
+    static TokenKind operand(int index)
+    {
+        return VALUES[ASSIGN.ordinal() + index];
+    }
+
+    /**
+     * @param symbol specifies the symbol id of a keyword in the SymbolTable
+     * @return returns the kind of the keyword
+     */
+    static TokenKind keyword(int symbol)
+    {
+        return VALUES[VAR.ordinal() + symbol];
+    }
+}
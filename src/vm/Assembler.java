@@ -0,0 +1,283 @@
+package vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembler class for the virtual machine, which collects the instructions emitted by the AST
+ * into Bytecode. Jumps are emitted to labels, which are patched with the index of the
+ * instruction they mark once the code is finished.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Assembler
+{
+    private static final int[] STACK_EFFECTS = {
+        1, 1, -1, 1, -1,            // CONST, LOAD, STORE, GLOAD, GSTORE
+        -1, -1, -1, -1, 0,          // ADD, SUB, MUL, DIV, NEG
+        -2, -2, -2, -2, -2, -2,     // IF_EQ, IF_NE, IF_LT, IF_GT, IF_LE, IF_GE
+        0, 0, 0, -1, 0              // GOTO, CALL, RETURN, PRINT, HALT
+    };
+
+    private int[] code;
+    private int size;
+    private int depth;
+    private int maxDepth;
+    private int globals;
+    private boolean inProcedure;
+    private int procedureStart;
+
+    private List<Integer> labels;
+    private List<Integer> patches;
+
+    private Map<String, Integer> procedures;
+    private List<String> procedureNames;
+    private List<Integer> entries;
+    private List<Integer> frameSizes;
+    private List<int[]> argSlots;
+
+    /**
+     * Creates an assembler with no instructions.
+     */
+    public Assembler()
+    {
+        code = new int[64];
+        labels = new ArrayList<Integer>();
+        patches = new ArrayList<Integer>();
+        procedures = new HashMap<String, Integer>();
+        procedureNames = new ArrayList<String>();
+        entries = new ArrayList<Integer>();
+        frameSizes = new ArrayList<Integer>();
+        argSlots = new ArrayList<int[]>();
+    }
+
+    /**
+     * Emits an instruction without operands.
+     * @param op specifies the opcode
+     */
+    public void emit(int op)
+    {
+        append(op);
+        adjustDepth(STACK_EFFECTS[op]);
+    }
+
+    /**
+     * Emits an instruction with one operand.
+     * @param op specifies the opcode
+     * @param operand specifies the operand
+     */
+    public void emit(int op, int operand)
+    {
+        append(op);
+        append(operand);
+        adjustDepth(STACK_EFFECTS[op]);
+    }
+
+    /**
+     * Appends one word to the code, growing the code array if it is full.
+     * @param word specifies the opcode or operand
+     */
+    private void append(int word)
+    {
+        if (size == code.length)
+        {
+            code = Arrays.copyOf(code, 2 * size);
+        }
+        code[size++] = word;
+    }
+
+    /**
+     * Tracks the depth of the operand stack after an instruction, which is the same on every
+     * path since every statement leaves the operand stack empty.
+     * @param effect specifies the number of values the instruction pushes less the number it
+     *               pops
+     */
+    private void adjustDepth(int effect)
+    {
+        depth += effect;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * @return returns a new label, which is not yet marked
+     */
+    public int newLabel()
+    {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    /**
+     * Marks the given label at the next instruction.
+     * @param label specifies the label
+     */
+    public void mark(int label)
+    {
+        labels.set(label, size);
+    }
+
+    /**
+     * Emits a jump or a compare-and-branch instruction to the given label.
+     * @param op specifies the opcode
+     * @param label specifies the label to jump to
+     */
+    public void emitJump(int op, int label)
+    {
+        emit(op, label);
+        patches.add(size - 1);
+    }
+
+    /**
+     * Sets the number of global slots, which the main program uses for its variables.
+     * @param globals specifies the number of global slots
+     */
+    public void setGlobals(int globals)
+    {
+        this.globals = globals;
+    }
+
+    /**
+     * Sets whether the following code runs in a procedure's frame, in which case depth 0 refers
+     * to the frame rather than to the globals.
+     * @param inProcedure specifies whether the code runs in a procedure's frame
+     */
+    public void setInProcedure(boolean inProcedure)
+    {
+        this.inProcedure = inProcedure;
+    }
+
+    /**
+     * Emits an instruction pushing the variable at the given lexical address. Depth 0 of the
+     * main program and depth 1 of a procedure both refer to the globals.
+     * @param depth specifies the depth of the variable
+     * @param slot specifies the slot of the variable
+     */
+    public void emitLoad(int depth, int slot)
+    {
+        emit(inProcedure && depth == 0 ? Bytecode.LOAD : Bytecode.GLOAD, slot);
+    }
+
+    /**
+     * Emits an instruction popping a value into the variable at the given lexical address.
+     * @param depth specifies the depth of the variable
+     * @param slot specifies the slot of the variable
+     */
+    public void emitStore(int depth, int slot)
+    {
+        emit(inProcedure && depth == 0 ? Bytecode.STORE : Bytecode.GSTORE, slot);
+    }
+
+    /**
+     * Emits an instruction calling the procedure with the given name.
+     * @param name specifies the name of the procedure
+     * @param args specifies the number of arguments the caller has pushed
+     */
+    public void emitCall(String name, int args)
+    {
+        append(Bytecode.CALL);
+        append(procedure(name));
+        append(args);
+        adjustDepth(1 - args);
+    }
+
+    /**
+     * Starts the code of a procedure at the next instruction.
+     * @param name specifies the name of the procedure
+     * @param slots specifies the frame slot of each of the procedure's arguments
+     * @param frameSize specifies the number of slots in the procedure's frame
+     */
+    public void beginProcedure(String name, int[] slots, int frameSize)
+    {
+        int proc = procedure(name);
+        entries.set(proc, size);
+        frameSizes.set(proc, frameSize);
+        argSlots.set(proc, slots);
+        inProcedure = true;
+        procedureStart = newLabel();
+        mark(procedureStart);
+    }
+
+    /**
+     * Emits the instructions of a tail call of the current procedure, which pop the arguments
+     * the procedure has pushed into their slots of its own frame, clear the frame's other slots
+     * and jump to the start of the procedure.
+     * @param slots specifies the frame slot of each of the procedure's arguments, no two of
+     *              which are the same
+     * @param frameSize specifies the number of slots in the procedure's frame
+     */
+    public void emitTailCall(int[] slots, int frameSize)
+    {
+        boolean[] isArg = new boolean[frameSize];
+        for (int i = slots.length - 1; i >= 0; i--)
+        {
+            emit(Bytecode.STORE, slots[i]);
+            isArg[slots[i]] = true;
+        }
+        for (int slot = 0; slot < frameSize; slot++)
+        {
+            if (!isArg[slot])
+            {
+                emit(Bytecode.CONST, 0);
+                emit(Bytecode.STORE, slot);
+            }
+        }
+        emitJump(Bytecode.GOTO, procedureStart);
+    }
+
+    /**
+     * Ends the code of the current procedure.
+     */
+    public void endProcedure()
+    {
+        inProcedure = false;
+    }
+
+    /**
+     * Finds the index of the procedure with the given name, adding the procedure to the table
+     * if it has not been seen yet.
+     * @param name specifies the name of the procedure
+     * @return returns the index of the procedure
+     */
+    private int procedure(String name)
+    {
+        Integer proc = procedures.get(name);
+        if (proc == null)
+        {
+            proc = procedureNames.size();
+            procedures.put(name, proc);
+            procedureNames.add(name);
+            entries.add(-1);
+            frameSizes.add(0);
+            argSlots.add(new int[0]);
+        }
+        return proc;
+    }
+
+    /**
+     * Patches every jump with the instruction its label marks and returns the finished code.
+     * @return returns the bytecode
+     */
+    public Bytecode finish()
+    {
+        for (int patch : patches)
+        {
+            code[patch] = labels.get(code[patch]);
+        }
+        patches.clear();
+
+        int count = procedureNames.size();
+        int[] entryArray = new int[count];
+        int[] frameSizeArray = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            entryArray[i] = entries.get(i);
+            frameSizeArray[i] = frameSizes.get(i);
+        }
+        return new Bytecode(Arrays.copyOf(code, size), maxDepth, globals,
+            procedureNames.toArray(new String[count]), entryArray, frameSizeArray,
+            argSlots.toArray(new int[count][]));
+    }
+}
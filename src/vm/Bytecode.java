@@ -0,0 +1,164 @@
+package vm;
+
+/**
+ * The Bytecode class holds a program lowered by the Assembler: a single array of instructions,
+ * each an opcode followed by its operands, along with a table describing every procedure.
+ * The main program starts at index 0, keeps its variables in the globals and ends with HALT.
+ * Procedures keep their arguments, locals and return value in a frame of slots and
+ * communicate with their caller through the operand stack.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class Bytecode
+{
+    /** Pushes the operand. */
+    public static final int CONST = 0;
+    /** Pushes the value of the frame slot given by the operand. */
+    public static final int LOAD = 1;
+    /** Pops a value into the frame slot given by the operand. */
+    public static final int STORE = 2;
+    /** Pushes the value of the global slot given by the operand. */
+    public static final int GLOAD = 3;
+    /** Pops a value into the global slot given by the operand. */
+    public static final int GSTORE = 4;
+    /** Pops two values and pushes their sum. */
+    public static final int ADD = 5;
+    /** Pops two values and pushes their difference. */
+    public static final int SUB = 6;
+    /** Pops two values and pushes their product. */
+    public static final int MUL = 7;
+    /** Pops two values and pushes their quotient. */
+    public static final int DIV = 8;
+    /** Pops a value and pushes its negation. */
+    public static final int NEG = 9;
+    /** Pops two values and jumps to the operand if they are equal. */
+    public static final int IF_EQ = 10;
+    /** Pops two values and jumps to the operand if they are not equal. */
+    public static final int IF_NE = 11;
+    /** Pops two values and jumps to the operand if the first is less than the second. */
+    public static final int IF_LT = 12;
+    /** Pops two values and jumps to the operand if the first is greater than the second. */
+    public static final int IF_GT = 13;
+    /** Pops two values and jumps to the operand if the first is at most the second. */
+    public static final int IF_LE = 14;
+    /** Pops two values and jumps to the operand if the first is at least the second. */
+    public static final int IF_GE = 15;
+    /** Jumps to the operand. */
+    public static final int GOTO = 16;
+    /** Calls the procedure given by the first operand with the number of arguments given by
+     * the second operand, which the caller has pushed in order. */
+    public static final int CALL = 17;
+    /** Returns from the current procedure, pushing the frame slot given by the operand. */
+    public static final int RETURN = 18;
+    /** Pops a value and prints it on its own line. */
+    public static final int PRINT = 19;
+    /** Stops the program. */
+    public static final int HALT = 20;
+
+    private int[] code;
+    private int maxStack;
+    private int globals;
+    private String[] procedureNames;
+    private int[] entries;
+    private int[] frameSizes;
+    private int[][] argSlots;
+
+    /**
+     * Creates a bytecode object.
+     * @param code specifies the instructions
+     * @param maxStack specifies the most values any code keeps on the operand stack
+     * @param globals specifies the number of global slots
+     * @param procedureNames specifies the name of each procedure
+     * @param entries specifies the index of the first instruction of each procedure, or -1 for a
+     *                procedure that is called but never declared
+     * @param frameSizes specifies the number of slots in the frame of each procedure
+     * @param argSlots specifies the frame slot of each argument of each procedure
+     */
+    public Bytecode(int[] code, int maxStack, int globals, String[] procedureNames, int[] entries,
+        int[] frameSizes, int[][] argSlots)
+    {
+        this.code = code;
+        this.maxStack = maxStack;
+        this.globals = globals;
+        this.procedureNames = procedureNames;
+        this.entries = entries;
+        this.frameSizes = frameSizes;
+        this.argSlots = argSlots;
+    }
+
+    /**
+     * Finds the number of words taken by an instruction with the given opcode.
+     * @param op specifies the opcode
+     * @return returns the length of the instruction, including its operands
+     */
+    public static int length(int op)
+    {
+        if (op == CALL)
+            return 3;
+        else if (op <= GSTORE || (op >= IF_EQ && op <= RETURN))
+            return 2;
+        else
+            return 1;
+    }
+
+    /**
+     * @return returns the instructions
+     */
+    public int[] getCode()
+    {
+        return code;
+    }
+
+    /**
+     * @return returns the greatest number of values any code keeps on the operand stack
+     */
+    public int getMaxStack()
+    {
+        return maxStack;
+    }
+
+    /**
+     * @return returns the number of global slots
+     */
+    public int getGlobals()
+    {
+        return globals;
+    }
+
+    /**
+     * @param proc specifies the index of the procedure
+     * @return returns the name of the procedure
+     */
+    public String getProcedureName(int proc)
+    {
+        return procedureNames[proc];
+    }
+
+    /**
+     * @param proc specifies the index of the procedure
+     * @return returns the index of the procedure's first instruction, or -1 if the procedure
+     *         is not declared
+     */
+    public int getEntry(int proc)
+    {
+        return entries[proc];
+    }
+
+    /**
+     * @param proc specifies the index of the procedure
+     * @return returns the number of slots in the procedure's frame
+     */
+    public int getFrameSize(int proc)
+    {
+        return frameSizes[proc];
+    }
+
+    /**
+     * @param proc specifies the index of the procedure
+     * @return returns the frame slot of each of the procedure's arguments
+     */
+    public int[] getArgSlots(int proc)
+    {
+        return argSlots[proc];
+    }
+}
@@ -0,0 +1,234 @@
+package vm;
+
+import java.util.Arrays;
+
+import ast.OutputSink;
+
+/**
+ * The VirtualMachine class executes Bytecode in a single dispatch loop. Frames and operands
+ * share one stack of ints: a call turns the arguments its caller pushed into the bottom of the
+ * callee's frame, and the callee's operands are pushed above the frame. The return address and
+ * frame pointer of each caller are kept on a separate call stack.
+ * Both stacks are arrays which grow when a call does not fit, so the depth of recursion is
+ * limited only by the heap, and the space of a completed call is reused by the next one.
+ * @author Arjun Dixit
+ * @version 5/20/22
+ */
+public class VirtualMachine
+{
+    private static final int STACK_SIZE = 1 << 12;
+    private static final int CALL_STACK_SIZE = 1 << 10;
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private Bytecode bytecode;
+    private int[] globals;
+    private OutputSink output;
+
+    /**
+     * Creates a virtual machine for the given bytecode, which prints to a buffered sink writing
+     * to System.out.
+     * @param bytecode specifies the bytecode to execute
+     */
+    public VirtualMachine(Bytecode bytecode)
+    {
+        this(bytecode, new OutputSink());
+    }
+
+    /**
+     * Creates a virtual machine for the given bytecode, which prints to the given sink.
+     * @param bytecode specifies the bytecode to execute
+     * @param output specifies the sink to which the bytecode prints
+     */
+    public VirtualMachine(Bytecode bytecode, OutputSink output)
+    {
+        this.bytecode = bytecode;
+        globals = new int[bytecode.getGlobals()];
+        this.output = output;
+    }
+
+    /**
+     * Executes the bytecode from its first instruction until it halts, and flushes the output.
+     * @throws RuntimeException if a procedure is not found, a procedure is called with the wrong
+     *                          number of arguments, or the stack grows beyond the largest array
+     */
+    public void run()
+    {
+        try
+        {
+            execute();
+        }
+        finally
+        {
+            output.flush();
+        }
+    }
+
+    /**
+     * Executes the bytecode from its first instruction until it halts.
+     * @throws RuntimeException if a procedure is not found, a procedure is called with the wrong
+     *                          number of arguments, or the stack grows beyond the largest array
+     */
+    private void execute()
+    {
+        OutputSink output = this.output;
+        int[] code = bytecode.getCode();
+        int maxStack = bytecode.getMaxStack();
+        int[] globals = this.globals;
+        int[] stack = new int[STACK_SIZE];
+        int[] calls = new int[CALL_STACK_SIZE];
+        int pc = 0;
+        int sp = 0;
+        int fp = 0;
+        int cp = 0;
+
+        while (true)
+        {
+            switch (code[pc++])
+            {
+                case Bytecode.CONST:
+                    stack[sp++] = code[pc++];
+                    break;
+                case Bytecode.LOAD:
+                    stack[sp++] = stack[fp + code[pc++]];
+                    break;
+                case Bytecode.STORE:
+                    stack[fp + code[pc++]] = stack[--sp];
+                    break;
+                case Bytecode.GLOAD:
+                    stack[sp++] = globals[code[pc++]];
+                    break;
+                case Bytecode.GSTORE:
+                    globals[code[pc++]] = stack[--sp];
+                    break;
+                case Bytecode.ADD:
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    break;
+                case Bytecode.SUB:
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    break;
+                case Bytecode.MUL:
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    break;
+                case Bytecode.DIV:
+                    sp--;
+                    stack[sp - 1] /= stack[sp];
+                    break;
+                case Bytecode.NEG:
+                    stack[sp - 1] = -stack[sp - 1];
+                    break;
+                case Bytecode.IF_EQ:
+                    sp -= 2;
+                    pc = stack[sp] == stack[sp + 1] ? code[pc] : pc + 1;
+                    break;
+                case Bytecode.IF_NE:
+                    sp -= 2;
+                    pc = stack[sp] != stack[sp + 1] ? code[pc] : pc + 1;
+                    break;
+                case Bytecode.IF_LT:
+                    sp -= 2;
+                    pc = stack[sp] < stack[sp + 1] ? code[pc] : pc + 1;
+                    break;
+                case Bytecode.IF_GT:
+                    sp -= 2;
+                    pc = stack[sp] > stack[sp + 1] ? code[pc] : pc + 1;
+                    break;
+                case Bytecode.IF_LE:
+                    sp -= 2;
+                    pc = stack[sp] <= stack[sp + 1] ? code[pc] : pc + 1;
+                    break;
+                case Bytecode.IF_GE:
+                    sp -= 2;
+                    pc = stack[sp] >= stack[sp + 1] ? code[pc] : pc + 1;
+                    break;
+                case Bytecode.GOTO:
+                    pc = code[pc];
+                    break;
+                case Bytecode.CALL:
+                {
+                    int proc = code[pc++];
+                    int args = code[pc++];
+                    int entry = bytecode.getEntry(proc);
+                    if (entry < 0)
+                    {
+                        throw new RuntimeException("Procedure " + bytecode.getProcedureName(proc)
+                            + " not found");
+                    }
+                    int[] argSlots = bytecode.getArgSlots(proc);
+                    if (args != argSlots.length)
+                    {
+                        throw new RuntimeException("Wrong number of arguments in procedure call");
+                    }
+                    int base = sp - args;
+                    int top = base + bytecode.getFrameSize(proc);
+                    if (top + maxStack > stack.length)
+                    {
+                        stack = grow(stack, (long) top + maxStack, proc);
+                    }
+                    if (cp + 2 > calls.length)
+                    {
+                        calls = grow(calls, cp + 2, proc);
+                    }
+
+                    // arguments only move down, since a repeated parameter name shares a slot
+                    int cleared = base;
+                    for (int i = 0; i < args; i++)
+                    {
+                        stack[base + argSlots[i]] = stack[base + i];
+                        cleared = base + argSlots[i] + 1;
+                    }
+                    for (int i = cleared; i < top; i++)
+                    {
+                        stack[i] = 0;
+                    }
+
+                    calls[cp++] = pc;
+                    calls[cp++] = fp;
+                    fp = base;
+                    sp = top;
+                    pc = entry;
+                    break;
+                }
+                case Bytecode.RETURN:
+                {
+                    int result = stack[fp + code[pc]];
+                    sp = fp;
+                    stack[sp++] = result;
+                    fp = calls[--cp];
+                    pc = calls[--cp];
+                    break;
+                }
+                case Bytecode.PRINT:
+                    output.println(stack[--sp]);
+                    break;
+                case Bytecode.HALT:
+                    return;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc - 1] + " at "
+                        + (pc - 1));
+            }
+        }
+    }
+
+    /**
+     * Copies a stack into an array at least one and a half times as large that holds the given
+     * number of ints.
+     * @param stack specifies the stack
+     * @param needed specifies the number of ints the new array must hold
+     * @param proc specifies the index of the procedure being called
+     * @return returns the new array
+     * @throws RuntimeException if the stack would be larger than the largest array
+     */
+    private int[] grow(int[] stack, long needed, int proc)
+    {
+        long length = Math.max(needed, stack.length + (long) (stack.length >> 1));
+        if (needed > MAX_ARRAY_SIZE)
+        {
+            throw new RuntimeException("Stack overflow in procedure "
+                + bytecode.getProcedureName(proc));
+        }
+        return Arrays.copyOf(stack, (int) Math.min(length, MAX_ARRAY_SIZE));
+    }
+}